@@ -1,14 +1,31 @@
 package com.jm;
 
 import com.jm.configuration.config.EmailProperties;
+import com.jm.configuration.config.HttpClientProperties;
+import com.jm.configuration.config.ImagePreprocessingProperties;
 import com.jm.configuration.config.PaymentGatewayProperties;
+import com.jm.configuration.config.TodayNutritionStateProperties;
+import com.jm.configuration.config.WhatsAppIngestionProperties;
+import com.jm.configuration.config.AdminAnalyticsProperties;
+import com.jm.configuration.config.AiAdmissionProperties;
+import com.jm.configuration.config.AnalyticsRollupProperties;
+import com.jm.configuration.config.AsyncExecutorProperties;
+import com.jm.configuration.config.NutritionAnalysisCacheProperties;
+import com.jm.configuration.config.NutritionAnalysisQueueProperties;
+import com.jm.configuration.config.NutritionAnalysisRoutingProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableConfigurationProperties({ PaymentGatewayProperties.class, EmailProperties.class })
+@EnableConfigurationProperties({ PaymentGatewayProperties.class, EmailProperties.class,
+        WhatsAppIngestionProperties.class, AsyncExecutorProperties.class,
+        NutritionAnalysisQueueProperties.class, HttpClientProperties.class,
+        NutritionAnalysisCacheProperties.class, ImagePreprocessingProperties.class,
+        AnalyticsRollupProperties.class, TodayNutritionStateProperties.class,
+        AdminAnalyticsProperties.class, AiAdmissionProperties.class,
+        NutritionAnalysisRoutingProperties.class })
 @EnableScheduling
 public class JMApplication {
 
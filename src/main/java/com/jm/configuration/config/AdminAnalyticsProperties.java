@@ -0,0 +1,23 @@
+package com.jm.configuration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "analytics.admin")
+public class AdminAnalyticsProperties {
+
+    /** Users whose data is read and aggregated together when an admin looks at all users. */
+    private int chunkSize = 500;
+
+    /** Threads aggregating chunks in parallel; 0 uses one per available processor. */
+    private int parallelism = 0;
+
+    /** How long an all-users result is reused; zero disables caching. */
+    private Duration cacheTtl = Duration.ofSeconds(60);
+
+    /** All-users results kept at most, one per range, grouping and series. */
+    private int cacheEntries = 64;
+}
@@ -0,0 +1,63 @@
+package com.jm.configuration.config;
+
+import com.jm.enums.AiProvider;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Admission control in front of each AI provider: an adaptive concurrency limit per model and request type, a
+ * bounded wait queue and a circuit breaker per provider.
+ */
+@Data
+@ConfigurationProperties(prefix = "ai.admission")
+public class AiAdmissionProperties {
+
+    /** When disabled every call goes straight to the provider. */
+    private boolean enabled = true;
+
+    private final Provider gemini = new Provider();
+    private final Provider ollama = new Provider();
+
+    public Provider forProvider(AiProvider provider) {
+        return switch (provider) {
+            case GEMINI -> gemini;
+            case OLLAMA -> ollama;
+        };
+    }
+
+    @Data
+    public static class Provider {
+        /** Concurrent calls allowed per model and request type before any latency has been observed. */
+        private int initialLimit = 8;
+        private int minLimit = 1;
+        private int maxLimit = 64;
+        /**
+         * A call slower than this multiple of the best recent latency counts as congestion and shrinks the limit;
+         * faster calls grow it by one per limit's worth of completions.
+         */
+        private double latencyTolerance = 2.0;
+        /** Factor applied to the limit on congestion, timeouts and overload errors. */
+        private double backoffRatio = 0.9;
+        /** Calls allowed to wait for a slot; further calls are rejected immediately. */
+        private int queueSize = 50;
+        /** Longest a call waits for a slot before it is rejected. */
+        private Duration queueTimeout = Duration.ofSeconds(30);
+        private final Breaker breaker = new Breaker();
+    }
+
+    @Data
+    public static class Breaker {
+        /** Most recent outcomes the failure rate is computed over. */
+        private int windowSize = 20;
+        /** Outcomes needed in the window before the breaker may open. */
+        private int minimumCalls = 10;
+        /** Failure percentage that opens the breaker. */
+        private int failureRateThreshold = 50;
+        /** How long calls are rejected before trial calls are let through. */
+        private Duration openDuration = Duration.ofSeconds(30);
+        /** Trial calls that must succeed to close the breaker again. */
+        private int halfOpenCalls = 2;
+    }
+}
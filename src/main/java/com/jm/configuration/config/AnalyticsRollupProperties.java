@@ -0,0 +1,15 @@
+package com.jm.configuration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "analytics.rollup")
+public class AnalyticsRollupProperties {
+
+    /** Serve analytics from the daily rollup; when disabled every request aggregates the raw analyses. */
+    private boolean enabled = true;
+
+    /** Builds the rollup on startup for every user that has analyses but no rollup rows yet. */
+    private boolean backfillOnStartup = true;
+}
@@ -1,9 +1,100 @@
 package com.jm.configuration.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * One executor per kind of background work, so a slow dependency (for example an overloaded Ollama instance) only
+ * exhausts its own pool. Listeners pick theirs with {@code @Async(AsyncConfig.XXX_EXECUTOR)}; anything else keeps
+ * using the default application executor configured through {@code spring.task.execution}.
+ */
 @EnableAsync
 @Configuration
-public class AsyncConfig {
+public class AsyncConfig implements AsyncConfigurer {
+
+    public static final String AI_ANALYSIS_EXECUTOR = "aiAnalysisExecutor";
+    public static final String LLM_CHAT_EXECUTOR = "llmChatExecutor";
+    public static final String REMINDER_DELIVERY_EXECUTOR = "reminderDeliveryExecutor";
+    public static final String OUTBOUND_MESSAGING_EXECUTOR = "outboundMessagingExecutor";
+    public static final String IMAGE_PROCESSING_EXECUTOR = "imageProcessingExecutor";
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+    @Primary
+    @Bean(name = { "applicationTaskExecutor", "taskExecutor" })
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = AI_ANALYSIS_EXECUTOR)
+    public TaskExecutor aiAnalysisExecutor(AsyncExecutorProperties properties) {
+        return createExecutor("ai-analysis-", properties.getAiAnalysis());
+    }
+
+    @Bean(name = LLM_CHAT_EXECUTOR)
+    public TaskExecutor llmChatExecutor(AsyncExecutorProperties properties) {
+        return createExecutor("llm-chat-", properties.getLlmChat());
+    }
+
+    @Bean(name = REMINDER_DELIVERY_EXECUTOR)
+    public TaskExecutor reminderDeliveryExecutor(AsyncExecutorProperties properties) {
+        return createExecutor("reminder-", properties.getReminderDelivery());
+    }
+
+    @Bean(name = OUTBOUND_MESSAGING_EXECUTOR)
+    public TaskExecutor outboundMessagingExecutor(AsyncExecutorProperties properties) {
+        return createExecutor("outbound-", properties.getOutboundMessaging());
+    }
+
+    @Bean(name = IMAGE_PROCESSING_EXECUTOR)
+    public TaskExecutor imageProcessingExecutor(AsyncExecutorProperties properties) {
+        return createExecutor("image-", properties.getImageProcessing());
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> logger.error("Async method {} failed", method.getName(), ex);
+    }
+
+    private TaskExecutor createExecutor(String prefix, AsyncExecutorProperties.Pool pool) {
+        if (pool.isVirtualThreads()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(Math.max(1, pool.getMaxPoolSize()));
+            executor.setTaskTerminationTimeout(pool.getAwaitTermination().toMillis());
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(Math.max(1, pool.getCorePoolSize()));
+        executor.setMaxPoolSize(Math.max(executor.getCorePoolSize(), pool.getMaxPoolSize()));
+        executor.setQueueCapacity(Math.max(0, pool.getQueueCapacity()));
+        executor.setKeepAliveSeconds((int) pool.getKeepAlive().toSeconds());
+        executor.setRejectedExecutionHandler(rejectionHandler(pool.getRejectionPolicy()));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(pool.getAwaitTermination().toMillis());
+        return executor;
+    }
+
+    private RejectedExecutionHandler rejectionHandler(AsyncExecutorProperties.RejectionPolicy policy) {
+        return switch (policy == null ? AsyncExecutorProperties.RejectionPolicy.CALLER_RUNS : policy) {
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+            case DISCARD -> new ThreadPoolExecutor.DiscardPolicy();
+            case DISCARD_OLDEST -> new ThreadPoolExecutor.DiscardOldestPolicy();
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+        };
+    }
 }
@@ -0,0 +1,70 @@
+package com.jm.configuration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "async.executors")
+public class AsyncExecutorProperties {
+
+    private static final int CPUS = Runtime.getRuntime().availableProcessors();
+
+    /** Image nutrition analysis against Gemini or Ollama. */
+    private final Pool aiAnalysis = new Pool(4, 8, 100);
+    /** Free-text Ollama conversations. */
+    private final Pool llmChat = new Pool(2, 4, 50);
+    /** Reminder messages fired by the reminder scheduler. */
+    private final Pool reminderDelivery = new Pool(2, 4, 200);
+    /** Fire-and-forget WhatsApp replies. */
+    private final Pool outboundMessaging = new Pool(4, 8, 500);
+    /**
+     * CPU-bound image decoding, resizing and encoding; sized to the cores by default. Callers give up after the
+     * preprocessing timeout, so the queue stays short and a full pool rejects instead of running on the caller.
+     */
+    private final Pool imageProcessing = new Pool(CPUS, CPUS, CPUS * 2, RejectionPolicy.ABORT);
+
+    public enum RejectionPolicy {
+        /** Throw and drop the task; the caller sees the failure. */
+        ABORT,
+        /** Run the task on the submitting thread, slowing the producer down. */
+        CALLER_RUNS,
+        /** Silently drop the new task. */
+        DISCARD,
+        /** Drop the oldest queued task to make room for the new one. */
+        DISCARD_OLDEST
+    }
+
+    @Data
+    public static class Pool {
+        /** Threads kept alive while idle. */
+        private int corePoolSize;
+        /** Upper bound of threads; in virtual-thread mode the maximum number of concurrent tasks. */
+        private int maxPoolSize;
+        /** Tasks queued once the core threads are busy. Ignored in virtual-thread mode. */
+        private int queueCapacity;
+        /** Idle time before threads above the core size are released. */
+        private Duration keepAlive = Duration.ofSeconds(60);
+        /** What to do once the pool and the queue are full. Ignored in virtual-thread mode. */
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+        /** Run each task on a new virtual thread instead of a platform thread pool. */
+        private boolean virtualThreads;
+        /** Time to wait for running tasks on shutdown. */
+        private Duration awaitTermination = Duration.ofSeconds(30);
+
+        public Pool() {
+        }
+
+        public Pool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+            this.corePoolSize = corePoolSize;
+            this.maxPoolSize = maxPoolSize;
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Pool(int corePoolSize, int maxPoolSize, int queueCapacity, RejectionPolicy rejectionPolicy) {
+            this(corePoolSize, maxPoolSize, queueCapacity);
+            this.rejectionPolicy = rejectionPolicy;
+        }
+    }
+}
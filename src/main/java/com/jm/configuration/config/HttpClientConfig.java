@@ -0,0 +1,93 @@
+package com.jm.configuration.config;
+
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ReactorNettyClientRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One HTTP client per outbound provider, each with its own Reactor Netty connection pool, timeouts and codec limits
+ * from {@code http.clients.<provider>}. Pool and request metrics are published under
+ * {@code reactor.netty.connection.provider.*} and {@code reactor.netty.http.client.*}, tagged with the provider name.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    public static final String WHATSAPP_WEB_CLIENT = "whatsAppWebClient";
+    public static final String GEMINI_WEB_CLIENT = "geminiWebClient";
+    public static final String OLLAMA_WEB_CLIENT = "ollamaWebClient";
+    public static final String DEEPSEEK_REST_TEMPLATE = "deepSeekRestTemplate";
+
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    @Bean(name = WHATSAPP_WEB_CLIENT)
+    public WebClient whatsAppWebClient(WebClient.Builder webClientBuilder, HttpClientProperties properties) {
+        return webClient("whatsapp", webClientBuilder, properties.getWhatsapp());
+    }
+
+    @Bean(name = GEMINI_WEB_CLIENT)
+    public WebClient geminiWebClient(WebClient.Builder webClientBuilder, HttpClientProperties properties) {
+        return webClient("gemini", webClientBuilder, properties.getGemini());
+    }
+
+    @Bean(name = OLLAMA_WEB_CLIENT)
+    public WebClient ollamaWebClient(WebClient.Builder webClientBuilder, HttpClientProperties properties) {
+        return webClient("ollama", webClientBuilder, properties.getOllama());
+    }
+
+    @Bean(name = DEEPSEEK_REST_TEMPLATE)
+    public RestTemplate deepSeekRestTemplate(HttpClientProperties properties) {
+        HttpClientProperties.Client settings = properties.getDeepseek();
+        ReactorNettyClientRequestFactory requestFactory = new ReactorNettyClientRequestFactory(
+                httpClient("deepseek", settings));
+        requestFactory.setExchangeTimeout(settings.getResponseTimeout());
+        return new RestTemplate(requestFactory);
+    }
+
+    @PreDestroy
+    public void disposeConnectionProviders() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+    private WebClient webClient(String name, WebClient.Builder webClientBuilder, HttpClientProperties.Client settings) {
+        return webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient(name, settings)))
+                .codecs(codecs -> codecs.defaultCodecs()
+                        .maxInMemorySize((int) settings.getMaxInMemorySize().toBytes()))
+                .build();
+    }
+
+    private HttpClient httpClient(String name, HttpClientProperties.Client settings) {
+        ConnectionProvider provider = ConnectionProvider.builder(name)
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime())
+                .maxLifeTime(settings.getMaxLifeTime())
+                .evictInBackground(settings.getEvictionInterval())
+                .metrics(true)
+                .build();
+        connectionProviders.add(provider);
+
+        HttpClient client = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeout().toMillis())
+                .responseTimeout(settings.getResponseTimeout())
+                .compress(settings.isCompression())
+                // A constant uri tag keeps request metrics per provider without one series per URL.
+                .metrics(true, uri -> name);
+        if (settings.isHttp2()) {
+            client = client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return client;
+    }
+}
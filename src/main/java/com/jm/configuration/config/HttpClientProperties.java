@@ -0,0 +1,43 @@
+package com.jm.configuration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "http.clients")
+public class HttpClientProperties {
+
+    /** WhatsApp Graph API (messages, media metadata and downloads). */
+    private final Client whatsapp = new Client();
+    private final Client gemini = new Client();
+    private final Client ollama = new Client();
+    private final Client deepseek = new Client();
+
+    @Data
+    public static class Client {
+        /** Pooled connections to the provider. */
+        private int maxConnections = 50;
+        /** Requests allowed to wait for a free connection before failing fast. */
+        private int pendingAcquireMaxCount = 100;
+        /** Maximum time a request waits for a pooled connection. */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+        /** Idle connections older than this are closed. */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        /** Connections are recycled after this age even when busy. */
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        /** How often idle and expired connections are evicted in the background. */
+        private Duration evictionInterval = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        /** Maximum time between sending the request and receiving the response headers/body chunks. */
+        private Duration responseTimeout = Duration.ofSeconds(30);
+        /** Request gzip responses. */
+        private boolean compression = true;
+        /** Negotiate HTTP/2 over TLS, falling back to HTTP/1.1. */
+        private boolean http2;
+        /** Largest body decoded into memory (for example {@code bodyToMono(byte[].class)}). */
+        private DataSize maxInMemorySize = DataSize.ofMegabytes(2);
+    }
+}
@@ -0,0 +1,40 @@
+package com.jm.configuration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "images.preprocessing")
+public class ImagePreprocessingProperties {
+
+    /** When disabled images are stored and sent to the model exactly as received. */
+    private boolean enabled = true;
+
+    /** Longest time a caller waits for a free image worker and the result. */
+    private Duration timeout = Duration.ofSeconds(20);
+
+    /** Sent to the vision model. */
+    private final Variant analysis = new Variant(1024, 80);
+    /** Stored in R2 in place of the original. */
+    private final Variant storage = new Variant(2048, 85);
+    /** Small preview stored next to the stored image. */
+    private final Variant thumbnail = new Variant(320, 75);
+
+    @Data
+    public static class Variant {
+        /** Longest edge in pixels; smaller images keep their size. */
+        private int maxEdge;
+        /** JPEG quality between 1 and 100. */
+        private int quality;
+
+        public Variant() {
+        }
+
+        public Variant(int maxEdge, int quality) {
+            this.maxEdge = maxEdge;
+            this.quality = quality;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.jm.configuration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "whatsapp.nutrition.cache")
+public class NutritionAnalysisCacheProperties {
+
+    /** When disabled every photo goes to the model. */
+    private boolean enabled = true;
+
+    /** Results kept in memory in front of the database table. */
+    private int memoryEntries = 2_000;
+
+    /** How long a memory entry lives before it is read from the database again. */
+    private Duration memoryTtl = Duration.ofHours(6);
+
+    /** Lifetime of a stored result; expired rows are ignored and purged. */
+    private Duration ttl = Duration.ofDays(30);
+
+    private final NearDuplicate nearDuplicate = new NearDuplicate();
+
+    @Data
+    public static class NearDuplicate {
+        /** Reuses the analysis of a recent, visually identical photo of the same user. */
+        private boolean enabled = true;
+        /** How far back a user's photos are compared. */
+        private Duration window = Duration.ofMinutes(30);
+        /** Largest Hamming distance between 64-bit hashes still treated as the same photo. */
+        private int maxDistance = 6;
+        /** Recent photos remembered per user. */
+        private int maxEntriesPerUser = 32;
+        /** Users whose recent photos are kept in memory. */
+        private int maxUsers = 10_000;
+    }
+}
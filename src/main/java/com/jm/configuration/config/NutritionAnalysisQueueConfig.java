@@ -0,0 +1,85 @@
+package com.jm.configuration.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jm.services.WhatsAppNutritionService;
+import com.jm.services.whatsapp.NutritionAnalysisJob;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.ExchangeBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.rabbit.retry.RejectAndDontRequeueRecoverer;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ topology and consumer settings for the nutrition analysis queue. Failed jobs are retried in the consumer
+ * with exponential backoff; once the attempts are exhausted the user is told and the job goes to the dead-letter
+ * queue through the default exchange.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "whatsapp.nutrition.queue", name = "mode", havingValue = "rabbit")
+public class NutritionAnalysisQueueConfig {
+
+    public static final String CONTAINER_FACTORY = "nutritionAnalysisContainerFactory";
+
+    @Bean
+    public Declarables nutritionAnalysisTopology(NutritionAnalysisQueueProperties properties) {
+        Queue deadLetters = QueueBuilder.durable(properties.getDeadLetterQueue()).build();
+        Queue queue = QueueBuilder.durable(properties.getQueue())
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(properties.getDeadLetterQueue())
+                .build();
+        DirectExchange exchange = ExchangeBuilder.directExchange(properties.getExchange()).durable(true).build();
+        Binding binding = BindingBuilder.bind(queue).to(exchange).with(properties.getRoutingKey());
+        return new Declarables(exchange, queue, deadLetters, binding);
+    }
+
+    @Bean
+    public MessageConverter nutritionAnalysisMessageConverter(ObjectMapper objectMapper) {
+        return new Jackson2JsonMessageConverter(objectMapper);
+    }
+
+    @Bean(name = CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory nutritionAnalysisContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            NutritionAnalysisQueueProperties properties, MessageConverter nutritionAnalysisMessageConverter,
+            WhatsAppNutritionService whatsAppNutritionService) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setPrefetchCount(Math.max(1, properties.getPrefetch()));
+        factory.setConcurrentConsumers(Math.max(1, properties.getConcurrency()));
+        factory.setMaxConcurrentConsumers(Math.max(properties.getConcurrency(), properties.getMaxConcurrency()));
+        factory.setDefaultRequeueRejected(false);
+
+        NutritionAnalysisQueueProperties.Retry retry = properties.getRetry();
+        MessageRecoverer recoverer = new RejectAndDontRequeueRecoverer() {
+            @Override
+            public void recover(Message message, Throwable cause) {
+                Object job = nutritionAnalysisMessageConverter.fromMessage(message);
+                if (job instanceof NutritionAnalysisJob analysisJob) {
+                    whatsAppNutritionService.notifyAnalysisFailure(analysisJob, cause);
+                }
+                super.recover(message, cause);
+            }
+        };
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(Math.max(1, retry.getMaxAttempts()))
+                .backOffOptions(retry.getInitialInterval().toMillis(), retry.getMultiplier(),
+                        retry.getMaxInterval().toMillis())
+                .recoverer(recoverer)
+                .build());
+        return factory;
+    }
+}
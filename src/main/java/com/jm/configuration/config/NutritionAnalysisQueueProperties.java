@@ -0,0 +1,52 @@
+package com.jm.configuration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "whatsapp.nutrition.queue")
+public class NutritionAnalysisQueueProperties {
+
+    /** {@code local} keeps jobs in memory; {@code rabbit} sends them to the durable RabbitMQ queue. */
+    private String mode = "local";
+
+    private String exchange = "jm.nutrition";
+    private String routingKey = "analysis";
+    private String queue = "jm.nutrition.analysis";
+    /** Queue that receives jobs once every retry failed. */
+    private String deadLetterQueue = "jm.nutrition.analysis.dlq";
+
+    /** Unacknowledged jobs a single consumer may hold. */
+    private int prefetch = 1;
+    /** Consumers started per instance. */
+    private int concurrency = 4;
+    /** Upper bound of consumers when the queue backs up. */
+    private int maxConcurrency = 8;
+
+    private final Retry retry = new Retry();
+
+    private final Batch batch = new Batch();
+
+    @Data
+    public static class Retry {
+        /** Attempts including the first delivery before the job is dead-lettered. */
+        private int maxAttempts = 4;
+        private Duration initialInterval = Duration.ofSeconds(2);
+        private double multiplier = 2.0;
+        private Duration maxInterval = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Batch {
+        /** Combines photos of the same owner that arrive close together into one model call. */
+        private boolean enabled = true;
+        /** How long the first photo waits for others before the batch is sent. */
+        private Duration window = Duration.ofMillis(1500);
+        /** Photos sent in one call; a full batch is sent without waiting for the window. */
+        private int maxSize = 4;
+        /** Upper bound a photo waits for the batch it joined to come back. */
+        private Duration resultTimeout = Duration.ofMinutes(2);
+    }
+}
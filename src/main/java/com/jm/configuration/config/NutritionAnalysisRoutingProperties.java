@@ -0,0 +1,40 @@
+package com.jm.configuration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "whatsapp.nutrition.ai.routing")
+public class NutritionAnalysisRoutingProperties {
+
+    /**
+     * Models tried in order after the analysis model when it fails, times out or answers nothing, written like the
+     * other model keys ({@code OLLAMA::llava:latest}, {@code GEMINI::gemini-2.5-flash}).
+     */
+    private List<String> fallbacks = new ArrayList<>();
+
+    /** Longest a single model may take before the next one in the chain is tried. */
+    private Duration attemptTimeout = Duration.ofSeconds(45);
+
+    private final Hedging hedging = new Hedging();
+
+    @Data
+    public static class Hedging {
+        /** Starts the next model in parallel when the current one is slower than usual; the first answer wins. */
+        private boolean enabled = false;
+        /** Latency quantile of a model after which the backup request is sent. */
+        private double quantile = 0.95;
+        /** Successful calls of a model needed before its quantile is trusted; until then {@code max-delay} applies. */
+        private int minSamples = 20;
+        /** Recent successful calls per model the quantile is computed from. */
+        private int window = 200;
+        /** Lower bound of the hedging delay, so fast models are not hedged on noise. */
+        private Duration minDelay = Duration.ofSeconds(2);
+        /** Upper bound of the hedging delay. */
+        private Duration maxDelay = Duration.ofSeconds(20);
+    }
+}
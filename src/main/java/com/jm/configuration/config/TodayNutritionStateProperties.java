@@ -0,0 +1,15 @@
+package com.jm.configuration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "analytics.today")
+public class TodayNutritionStateProperties {
+
+    /** Keep each user's totals and goals for the current day in memory for reminders and captions. */
+    private boolean enabled = true;
+
+    /** Users whose current day is kept; the least recently used are dropped first. */
+    private int maxUsers = 10_000;
+}
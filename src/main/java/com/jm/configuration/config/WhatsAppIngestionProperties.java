@@ -0,0 +1,65 @@
+package com.jm.configuration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "whatsapp.ingestion")
+public class WhatsAppIngestionProperties {
+
+    /** When disabled the webhook is processed synchronously inside the HTTP call. */
+    private boolean enabled = true;
+
+    /** Maximum time a stage waits for room in the next stage queue before giving up. */
+    private Duration handoffTimeout = Duration.ofSeconds(5);
+
+    /** Age after which an unclaimed webhook, or a processing claim, is picked up again by the recovery job. */
+    private Duration recoveryAfter = Duration.ofMinutes(2);
+
+    /** Maximum number of webhooks re-submitted on each recovery run. */
+    private int recoveryBatchSize = 50;
+
+    /** Number of processing attempts before a webhook is left as failed. */
+    private int maxAttempts = 3;
+
+    /** Images up to this size are also kept in memory for the AI analysis while they stream to R2. */
+    private DataSize analysisCaptureLimit = DataSize.ofMegabytes(4);
+
+    /** Total memory held by captured images waiting for their analysis. */
+    private DataSize analysisCacheSize = DataSize.ofMegabytes(64);
+
+    /** How long a captured image waits for its analysis before it is read back from R2. */
+    private Duration analysisCacheTtl = Duration.ofMinutes(5);
+
+    private final Stage persist = new Stage(4, 500);
+    private final Stage media = new Stage(8, 200);
+    private final Stage upload = new Stage(4, 100);
+    private final Stage dispatch = new Stage(4, 200);
+
+    private final Idempotency idempotency = new Idempotency();
+
+    @Data
+    public static class Idempotency {
+        /** Recently claimed message ids answered from memory without a database round trip. */
+        private int recentCapacity = 10_000;
+    }
+
+    @Data
+    public static class Stage {
+        /** Worker threads dedicated to the stage. */
+        private int concurrency;
+        /** Pending tasks accepted before the stage starts pushing back on its producer. */
+        private int queueCapacity;
+
+        public Stage() {
+        }
+
+        public Stage(int concurrency, int queueCapacity) {
+            this.concurrency = concurrency;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.jm.controllers;
 
+import com.jm.dto.analytics.AnalyticsOverviewResponseDTO;
 import com.jm.dto.analytics.BodyCompositionResponseDTO;
 import com.jm.dto.analytics.GoalAdherenceResponseDTO;
 import com.jm.dto.analytics.HydrationResponseDTO;
@@ -7,12 +8,15 @@ import com.jm.dto.analytics.MacroDistributionResponseDTO;
 import com.jm.dto.analytics.TopFoodsResponseDTO;
 import com.jm.security.annotation.PermissionRequired;
 import com.jm.services.AnalyticsService;
+import com.jm.services.analytics.NutritionRollupService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -20,9 +24,22 @@ import java.util.UUID;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final NutritionRollupService nutritionRollupService;
 
-    public AnalyticsController(AnalyticsService analyticsService) {
+    public AnalyticsController(AnalyticsService analyticsService, NutritionRollupService nutritionRollupService) {
         this.analyticsService = analyticsService;
+        this.nutritionRollupService = nutritionRollupService;
+    }
+
+    @PermissionRequired("ROLE_ANALYTICS_READ")
+    @GetMapping("/overview")
+    public ResponseEntity<AnalyticsOverviewResponseDTO> getOverview(
+            @RequestParam(name = "range", required = false) Integer range,
+            @RequestParam(name = "groupBy", required = false) String groupBy,
+            @RequestParam(name = "userId", required = false) UUID userId,
+            @RequestParam(name = "series", required = false) List<String> series
+    ) {
+        return ResponseEntity.ok(analyticsService.getOverview(range, groupBy, userId, series));
     }
 
     @PermissionRequired("ROLE_ANALYTICS_READ")
@@ -74,4 +91,12 @@ public class AnalyticsController {
     ) {
         return ResponseEntity.ok(analyticsService.getBodyComposition(range, groupBy, userId));
     }
+
+    /** Recomputes the daily rollup of one user, or of everyone without {@code userId}, in the background. */
+    @PermissionRequired("ROLE_ADMIN_MANAGE_ROLES")
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Void> rebuildRollup(@RequestParam(name = "userId", required = false) UUID userId) {
+        nutritionRollupService.rebuildInBackground(userId);
+        return ResponseEntity.accepted().build();
+    }
 }
@@ -0,0 +1,81 @@
+package com.jm.controllers;
+
+import com.jm.enums.ExportFormat;
+import com.jm.security.annotation.PermissionRequired;
+import com.jm.services.export.NutritionExportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/exports")
+public class ExportController {
+
+    private final NutritionExportService exportService;
+
+    public ExportController(NutritionExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @PermissionRequired("ROLE_ANALYTICS_READ")
+    @GetMapping("/nutrition-analyses")
+    public ResponseEntity<StreamingResponseBody> exportNutritionAnalyses(
+            @RequestParam(name = "format", required = false) String format,
+            @RequestParam(name = "userId", required = false) UUID userId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        ExportFormat exportFormat = exportService.parseFormat(format);
+        return attachment("nutrition-analyses", exportFormat,
+                exportService.exportAnalyses(userId, from, to, exportFormat));
+    }
+
+    @PermissionRequired("ROLE_ANALYTICS_READ")
+    @GetMapping("/whatsapp-messages")
+    public ResponseEntity<StreamingResponseBody> exportWhatsAppMessages(
+            @RequestParam(name = "format", required = false) String format,
+            @RequestParam(name = "userId", required = false) UUID userId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        ExportFormat exportFormat = exportService.parseFormat(format);
+        return attachment("whatsapp-messages", exportFormat,
+                exportService.exportMessages(userId, from, to, exportFormat));
+    }
+
+    @PermissionRequired("ROLE_ANALYTICS_READ")
+    @GetMapping("/analytics")
+    public ResponseEntity<StreamingResponseBody> exportAnalytics(
+            @RequestParam(name = "format", required = false) String format,
+            @RequestParam(name = "range", required = false) Integer range,
+            @RequestParam(name = "groupBy", required = false) String groupBy,
+            @RequestParam(name = "userId", required = false) UUID userId,
+            @RequestParam(name = "series", required = false) List<String> series
+    ) {
+        ExportFormat exportFormat = exportService.parseFormat(format);
+        return attachment("analytics", exportFormat,
+                exportService.exportAnalytics(range, groupBy, userId, series, exportFormat));
+    }
+
+    private ResponseEntity<StreamingResponseBody> attachment(String name, ExportFormat format,
+            StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(exportService.fileName(name, format))
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -7,14 +7,21 @@ import com.jm.execption.JMException;
 import com.jm.execption.Problem;
 import com.jm.security.annotation.PermissionRequired;
 import com.jm.services.DeepSeekService;
-import com.jm.services.GeminiService;
+import com.jm.services.ai.AiCallRejectedException;
+import com.jm.services.ai.AiChunk;
+import com.jm.services.ai.AiRequest;
+import com.jm.services.ai.AiRequestType;
+import com.jm.services.ai.AiResponse;
+import com.jm.services.ai.GeminiAiClient;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
@@ -26,7 +33,7 @@ import java.io.IOException;
 public class IAController {
 
     private final DeepSeekService deepSeekService;
-    private final GeminiService geminiService;
+    private final GeminiAiClient geminiAiClient;
 
     @PermissionRequired("ROLE_AI_OPERATIONS_EXECUTE")
     @PostMapping("/deepseek/chat")
@@ -43,9 +50,24 @@ public class IAController {
     @PermissionRequired("ROLE_AI_OPERATIONS_EXECUTE")
     @PostMapping("/gemini/chat")
     public Mono<ResponseEntity<String>> chatGemini(@Valid @RequestBody ChatRequest chatRequest) {
-        return geminiService.generateTextFromPrompt(chatRequest.getMessage())
+        return geminiAiClient.generate(AiRequest.builder()
+                        .type(AiRequestType.TEXT)
+                        .prompt(chatRequest.getMessage())
+                        .build())
+                .mapNotNull(AiResponse::content)
                 .map(ResponseEntity::ok)
-                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erro ao processar texto: " + e.getMessage())));
+                .onErrorResume(IAController::failed, e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erro ao processar texto: " + e.getMessage())));
+    }
+
+    /** Sends each piece of the answer as a server-sent event; closing the connection cancels the generation. */
+    @PermissionRequired("ROLE_AI_OPERATIONS_EXECUTE")
+    @PostMapping(value = "/gemini/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<String> streamChatGemini(@Valid @RequestBody ChatRequest chatRequest) {
+        return geminiAiClient.stream(AiRequest.builder()
+                        .type(AiRequestType.TEXT)
+                        .prompt(chatRequest.getMessage())
+                        .build())
+                .mapNotNull(AiChunk::text);
     }
 
     @PermissionRequired("ROLE_AI_OPERATIONS_EXECUTE")
@@ -63,15 +85,26 @@ public class IAController {
                 return Mono.just(ResponseEntity.badRequest().body("Formato de imagem não suportado. Use JPEG, PNG ou GIF."));
             }
 
-            return geminiService.generateTextFromImage(prompt, imageBytes, mimeType)
+            return geminiAiClient.generate(AiRequest.builder()
+                            .type(AiRequestType.IMAGE)
+                            .prompt(prompt)
+                            .imageBytes(imageBytes)
+                            .mimeType(mimeType)
+                            .build())
+                    .mapNotNull(AiResponse::content)
                     .map(ResponseEntity::ok)
-                    .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erro ao processar imagem: " + e.getMessage())));
+                    .onErrorResume(IAController::failed, e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erro ao processar imagem: " + e.getMessage())));
 
         } catch (IOException e) {
             return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erro ao ler o arquivo: " + e.getMessage()));
         }
     }
 
+    /** Admission rejections are left to the global handler, which answers them with a 503. */
+    private static boolean failed(Throwable error) {
+        return !(error instanceof AiCallRejectedException);
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
         return ResponseEntity.ok("Service is running!");
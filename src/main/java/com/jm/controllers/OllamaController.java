@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -34,6 +35,14 @@ public class OllamaController {
         return ResponseEntity.ok(response);
     }
 
+    /** Relays the model's NDJSON chunks as they arrive; closing the connection cancels the generation. */
+    @PermissionRequired("ROLE_OLLAMA_EXECUTE")
+    @PostMapping(value = "/generate/stream", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<OllamaResponseDTO> generateStream(@RequestBody OllamaRequestDTO request) {
+        return service.generateStream(request);
+    }
+
     @PermissionRequired("ROLE_OLLAMA_EXECUTE")
     @PostMapping("/process")
     public ResponseEntity<?> process(@RequestBody OllamaRequestDTO dto) {
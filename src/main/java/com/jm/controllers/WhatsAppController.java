@@ -3,6 +3,7 @@ package com.jm.controllers;
 import com.jm.dto.NutritionDashboardDTO;
 import com.jm.dto.WhatsAppMessageDTO;
 import com.jm.dto.WhatsAppMessageFeedDTO;
+import com.jm.dto.WhatsAppMessageFeedPageDTO;
 import com.jm.dto.WhatsAppMessageResponse;
 import com.jm.services.WhatsAppNutritionService;
 import com.jm.services.WhatsAppService;
@@ -59,6 +60,15 @@ public class WhatsAppController {
         return ResponseEntity.ok(whatsappNutritionService.getRecentMessagesWithFilter(filter, userId, date));
     }
 
+    @GetMapping("/messages/feed")
+    public ResponseEntity<WhatsAppMessageFeedPageDTO> getMessageFeed(WhatsAppMessageDTO filter,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(whatsappNutritionService.getMessageFeed(filter, userId, date, cursor, limit));
+    }
+
     @GetMapping("/dashboard")
     public ResponseEntity<NutritionDashboardDTO> getDashboard(
             @RequestParam(required = false) UUID userId,
@@ -1,6 +1,6 @@
 package com.jm.controllers;
 
-import com.jm.services.WhatsAppNutritionService;
+import com.jm.services.whatsapp.WhatsAppIngestionPipeline;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,14 +23,14 @@ public class WhatsAppControllerWebhook {
 
     private static final Logger logger = LoggerFactory.getLogger(WhatsAppController.class);
 
-    private final WhatsAppNutritionService whatsappNutritionService;
+    private final WhatsAppIngestionPipeline ingestionPipeline;
     @Value("${whatsapp.verify.token}")
     private String VERIFY_TOKEN;
 
     @PostMapping
     public ResponseEntity<Void> receiveMessage(@RequestBody Map<String, Object> payload) {
         logger.info("WhatsApp webhook received");
-        whatsappNutritionService.handleWebhook(payload);
+        ingestionPipeline.accept(payload);
         return ResponseEntity.ok().build();
     }
 
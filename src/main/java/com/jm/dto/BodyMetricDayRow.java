@@ -0,0 +1,20 @@
+package com.jm.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sums and counts of the body metrics measured on one day. Each metric keeps its own count so a missing value does
+ * not pull its average down.
+ */
+public record BodyMetricDayRow(
+        LocalDate day,
+        BigDecimal weightSum,
+        Long weightCount,
+        BigDecimal bmiSum,
+        Long bmiCount,
+        BigDecimal fatSum,
+        Long fatCount,
+        BigDecimal muscleSum,
+        Long muscleCount) {
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -18,5 +19,12 @@ public class GeminiImageRequest {
         Part imagePart = new Part(null, imageData);
         return new GeminiImageRequest(List.of(new Content(List.of(textPart, imagePart))));
     }
+
+    public static GeminiImageRequest forImagesAndText(String prompt, List<ImageData> images) {
+        List<Part> parts = new ArrayList<>(images.size() + 1);
+        parts.add(new Part(prompt, null));
+        images.forEach(image -> parts.add(new Part(null, image)));
+        return new GeminiImageRequest(List.of(new Content(parts)));
+    }
 }
 
@@ -0,0 +1,15 @@
+package com.jm.dto;
+
+/**
+ * Dashboard totals of one primary category, summed by the database. Sums are typed as {@link Number} because their
+ * SQL type depends on the column and the liquid unit conversion.
+ */
+public record NutritionDashboardCategoryRow(
+        String category,
+        Long entries,
+        Number calories,
+        Number protein,
+        Number carbs,
+        Number fat,
+        Number liquidMl) {
+}
@@ -0,0 +1,25 @@
+package com.jm.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/** The columns of a dashboard history item, selected with their meal, food, category and unit in one query. */
+public record NutritionDashboardHistoryRow(
+        UUID messageId,
+        UUID foodId,
+        String foodName,
+        BigDecimal calories,
+        BigDecimal protein,
+        BigDecimal carbs,
+        BigDecimal fat,
+        BigDecimal liquidVolume,
+        String liquidUnitCode,
+        String liquidUnitSymbol,
+        Double liquidUnitConversionFactor,
+        UUID mealId,
+        String mealName,
+        String primaryCategory,
+        OffsetDateTime analyzedAt,
+        String summary) {
+}
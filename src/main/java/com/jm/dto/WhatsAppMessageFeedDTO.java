@@ -17,6 +17,7 @@ public class WhatsAppMessageFeedDTO {
     String textContent;
     String imageUrl;
     String cloudFlareImageUrl;
+    String thumbnailUrl;
     OffsetDateTime receivedAt;
     boolean manualEntry;
     boolean editedEntry;
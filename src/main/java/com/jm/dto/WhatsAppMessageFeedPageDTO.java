@@ -0,0 +1,14 @@
+package com.jm.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class WhatsAppMessageFeedPageDTO {
+    List<WhatsAppMessageFeedDTO> items;
+    /** Opaque position after the last item; {@code null} when there is nothing more to load. */
+    String nextCursor;
+}
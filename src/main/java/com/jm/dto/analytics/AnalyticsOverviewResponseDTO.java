@@ -0,0 +1,27 @@
+package com.jm.dto.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/** Several analytics series computed from one pass over the data; series that were not requested are omitted. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnalyticsOverviewResponseDTO {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String groupBy;
+    private GoalAdherenceResponseDTO adherence;
+    private MacroDistributionResponseDTO macros;
+    private HydrationResponseDTO hydration;
+    private TopFoodsResponseDTO foods;
+    private BodyCompositionResponseDTO body;
+}
@@ -0,0 +1,23 @@
+package com.jm.dto.analytics;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * The columns of a nutrition analysis the analytics charts read, selected directly instead of loading the entity
+ * together with its message and owner.
+ */
+public record NutritionAnalyticsRow(
+        OffsetDateTime createdAt,
+        String foodName,
+        String summary,
+        BigDecimal calories,
+        BigDecimal protein,
+        BigDecimal carbs,
+        BigDecimal fat,
+        String categoriesJson,
+        BigDecimal liquidVolume,
+        String liquidUnitCode,
+        Double liquidUnitConversionFactor,
+        String primaryCategoryName) {
+}
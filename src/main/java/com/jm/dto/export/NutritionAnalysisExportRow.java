@@ -0,0 +1,36 @@
+package com.jm.dto.export;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/** One exported nutrition analysis, selected as plain columns so streaming it never fills the persistence context. */
+public record NutritionAnalysisExportRow(
+        UUID id,
+        UUID ownerUserId,
+        UUID messageId,
+        OffsetDateTime createdAt,
+        String mealCode,
+        String foodName,
+        BigDecimal calories,
+        BigDecimal protein,
+        BigDecimal carbs,
+        BigDecimal fat,
+        BigDecimal liquidVolume,
+        String liquidUnitCode,
+        String primaryCategory,
+        BigDecimal confidence,
+        String summary) {
+
+    public static final String SELECT = """
+            select new com.jm.dto.export.NutritionAnalysisExportRow(a.id, o.id, m.id, a.createdAt, meal.code,
+                a.foodName, a.calories, a.protein, a.carbs, a.fat, a.liquidVolume, lu.code, pc.name, a.confidence,
+                a.summary)
+            from NutritionAnalysis a
+            left join a.owner o
+            left join a.message m
+            left join a.meal meal
+            left join a.liquidUnit lu
+            left join a.primaryCategory pc
+            """;
+}
@@ -0,0 +1,27 @@
+package com.jm.dto.export;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/** One exported WhatsApp message, selected as plain columns so streaming it never fills the persistence context. */
+public record WhatsAppMessageExportRow(
+        UUID id,
+        UUID ownerUserId,
+        String whatsappMessageId,
+        String fromPhone,
+        String toPhone,
+        String messageType,
+        OffsetDateTime receivedAt,
+        boolean manualEntry,
+        boolean editedEntry,
+        UUID nutritionAnalysisId,
+        String textContent) {
+
+    public static final String SELECT = """
+            select new com.jm.dto.export.WhatsAppMessageExportRow(m.id, o.id, m.whatsappMessageId, m.fromPhone,
+                m.toPhone, m.messageType, m.receivedAt, m.manualEntry, m.editedEntry, a.id, m.textContent)
+            from WhatsAppMessage m
+            left join m.owner o
+            left join m.nutritionAnalysis a
+            """;
+}
@@ -0,0 +1,63 @@
+package com.jm.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * The four body composition numbers of one anamnesis, copied out of {@code anamneses} whenever it is saved so body
+ * charts read a narrow, date-indexed table instead of loading anamneses with all their collections.
+ */
+@Entity
+@Table(name = "body_metric_sample")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BodyMetricSample {
+
+    @Id
+    @Column(name = "id", updatable = false, nullable = false)
+    @JdbcTypeCode(SqlTypes.CHAR)
+    private UUID id;
+
+    @Column(name = "anamnesis_id", nullable = false, unique = true)
+    @JdbcTypeCode(SqlTypes.CHAR)
+    private UUID anamnesisId;
+
+    @Column(name = "user_id")
+    @JdbcTypeCode(SqlTypes.CHAR)
+    private UUID userId;
+
+    @Column(name = "measured_on", nullable = false)
+    private LocalDate measuredOn;
+
+    @Column(name = "weight_kg", precision = 10, scale = 2)
+    private BigDecimal weightKg;
+
+    @Column(name = "body_mass_index", precision = 10, scale = 2)
+    private BigDecimal bodyMassIndex;
+
+    @Column(name = "body_fat_percentage", precision = 5, scale = 2)
+    private BigDecimal bodyFatPercentage;
+
+    @Column(name = "muscle_mass_percentage", precision = 5, scale = 2)
+    private BigDecimal muscleMassPercentage;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
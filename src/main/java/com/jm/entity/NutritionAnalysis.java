@@ -44,6 +44,11 @@ public class NutritionAnalysis {
     @JoinColumn(name = "message_id", nullable = false, unique = true)
     private WhatsAppMessage message;
 
+    /** Copy of the message owner so per-user queries can use the (owner, created_at) index. */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_user_id")
+    private Users owner;
+
     @Column(name = "food_name")
     private String foodName;
 
@@ -111,6 +116,9 @@ public class NutritionAnalysis {
         if (createdAt == null) {
             createdAt = OffsetDateTime.now();
         }
+        if (owner == null && message != null) {
+            owner = message.getOwner();
+        }
     }
 }
 
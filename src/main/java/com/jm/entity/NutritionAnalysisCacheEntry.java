@@ -0,0 +1,49 @@
+package com.jm.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A stored AI nutrition result keyed by the SHA-256 of the image bytes, provider, model and prompt, so the same
+ * photo is never sent to the model twice while the entry is alive.
+ */
+@Entity
+@Table(name = "nutrition_analysis_cache")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NutritionAnalysisCacheEntry {
+
+    @Id
+    @Column(name = "cache_key", length = 64, updatable = false, nullable = false)
+    private String cacheKey;
+
+    @Column(name = "provider", length = 30, nullable = false)
+    private String provider;
+
+    @Column(name = "model")
+    private String model;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "result_json", columnDefinition = "json", nullable = false)
+    private String resultJson;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+}
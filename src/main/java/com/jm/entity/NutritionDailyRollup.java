@@ -0,0 +1,80 @@
+package com.jm.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Totals of one user's nutrition analyses for one day. Rows are recomputed from {@code nutrition_analysis} whenever
+ * an analysis of that user and day changes, so analytics never has to re-read and re-parse the raw entries.
+ */
+@Entity
+@Table(name = "nutrition_daily_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_nutrition_daily_rollup_owner_date",
+                columnNames = { "owner_user_id", "rollup_date" })
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NutritionDailyRollup {
+
+    @Id
+    @Column(name = "id", updatable = false, nullable = false)
+    @JdbcTypeCode(SqlTypes.CHAR)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_user_id", nullable = false)
+    private Users owner;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "entries", nullable = false)
+    private int entries;
+
+    @Column(name = "calories", precision = 14, scale = 3, nullable = false)
+    private BigDecimal calories;
+
+    @Column(name = "protein", precision = 14, scale = 3, nullable = false)
+    private BigDecimal protein;
+
+    @Column(name = "carbs", precision = 14, scale = 3, nullable = false)
+    private BigDecimal carbs;
+
+    @Column(name = "fat", precision = 14, scale = 3, nullable = false)
+    private BigDecimal fat;
+
+    @Column(name = "fiber_g", precision = 14, scale = 3, nullable = false)
+    private BigDecimal fiber;
+
+    @Column(name = "water_ml", precision = 14, scale = 3, nullable = false)
+    private BigDecimal water;
+
+    /** Food quantities of the day as a JSON array of {@code {name, unit, quantity}}. */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "foods_json", columnDefinition = "json", nullable = false)
+    private String foodsJson;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
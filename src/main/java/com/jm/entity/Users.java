@@ -13,12 +13,16 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PostLoad;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Builder.Default;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.JdbcTypeCode;
@@ -71,6 +75,15 @@ public class Users {
     private String documentNumber;
     private String phoneNumber;
 
+    @Column(name = "phone_e164", length = 20)
+    private String phoneE164;
+
+    /** The phone number as it was loaded, so a save can tell a changed number from an unchanged one. */
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String loadedPhoneNumber;
+
     private String street;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -116,6 +129,11 @@ public class Users {
             inverseJoinColumns = @JoinColumn(name = "role_id"))
     private Set<Role> roles = new HashSet<>();
 
+    @PostLoad
+    void rememberLoadedPhoneNumber() {
+        loadedPhoneNumber = phoneNumber;
+    }
+
     public enum Type {
         ADMIN, CLIENT
     }
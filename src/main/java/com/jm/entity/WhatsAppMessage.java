@@ -1,8 +1,11 @@
 package com.jm.entity;
 
+import com.jm.enums.WhatsAppIngestionStatus;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
@@ -65,6 +68,12 @@ public class WhatsAppMessage {
     @Column(name = "cloudflare_image_url")
     private String cloudflareImageUrl;
 
+    @Column(name = "cloudflare_image_key")
+    private String cloudflareImageKey;
+
+    @Column(name = "cloudflare_thumbnail_url")
+    private String cloudflareThumbnailUrl;
+
     @ManyToOne
     @JoinColumn(name = "owner_user_id")
     private Users owner;
@@ -75,6 +84,11 @@ public class WhatsAppMessage {
     @Column(name = "edited_entry", nullable = false)
     private boolean editedEntry;
 
+    /** Progress through the ingestion pipeline; {@code null} for manual entries and messages from before it. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ingestion_status", length = 20)
+    private WhatsAppIngestionStatus ingestionStatus;
+
     @OneToOne(mappedBy = "message", cascade = CascadeType.ALL, orphanRemoval = true)
     private NutritionAnalysis nutritionAnalysis;
 
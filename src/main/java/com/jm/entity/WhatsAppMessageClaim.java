@@ -0,0 +1,37 @@
+package com.jm.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Marks a WhatsApp message id as taken. The primary key makes the claim atomic across concurrent webhook retries.
+ */
+@Entity
+@Table(name = "whatsapp_message_claims")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WhatsAppMessageClaim {
+
+    @Id
+    @Column(name = "whatsapp_message_id", length = 120, updatable = false, nullable = false)
+    private String whatsappMessageId;
+
+    @Column(name = "claimed_at", nullable = false)
+    private OffsetDateTime claimedAt;
+
+    /** Identifies the batch that inserted the claim, so it can tell its own rows from earlier ones. */
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+}
@@ -0,0 +1,77 @@
+package com.jm.entity;
+
+import com.jm.enums.WhatsAppWebhookStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Raw WhatsApp webhook delivery persisted before any processing so the HTTP call can be acknowledged immediately.
+ */
+@Entity
+@Table(name = "whatsapp_webhook_events")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WhatsAppWebhookEvent {
+
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator", parameters = @Parameter(name = "uuid_gen_strategy_class", value = "org.hibernate.id.uuid.CustomVersionOneStrategy"))
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "payload", columnDefinition = "json", nullable = false)
+    private Map<String, Object> payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private WhatsAppWebhookStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    /** When the current attempt claimed the webhook; a {@code PROCESSING} claim older than the threshold is stale. */
+    @Column(name = "claimed_at")
+    private OffsetDateTime claimedAt;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "received_at", nullable = false)
+    private OffsetDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private OffsetDateTime processedAt;
+
+    @PrePersist
+    void prePersist() {
+        if (status == null) {
+            status = WhatsAppWebhookStatus.RECEIVED;
+        }
+        if (receivedAt == null) {
+            receivedAt = OffsetDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.jm.enums;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+public enum AnalyticsSeries {
+    ADHERENCE,
+    MACROS,
+    HYDRATION,
+    FOODS,
+    BODY;
+
+    /**
+     * Parses the requested series; nothing requested means every series.
+     *
+     * @throws IllegalArgumentException naming the first value that is not a series
+     */
+    public static Set<AnalyticsSeries> from(Collection<String> values) {
+        EnumSet<AnalyticsSeries> selected = EnumSet.noneOf(AnalyticsSeries.class);
+        if (values != null) {
+            for (String value : values) {
+                if (value == null || value.isBlank()) {
+                    continue;
+                }
+                String normalized = value.trim().toUpperCase(Locale.ROOT);
+                AnalyticsSeries match = null;
+                for (AnalyticsSeries series : values()) {
+                    if (series.name().equals(normalized)) {
+                        match = series;
+                    }
+                }
+                if (match == null) {
+                    throw new IllegalArgumentException(value.trim());
+                }
+                selected.add(match);
+            }
+        }
+        return selected.isEmpty() ? EnumSet.allOf(AnalyticsSeries.class) : selected;
+    }
+
+    public boolean needsNutrition() {
+        return this != BODY;
+    }
+}
@@ -0,0 +1,42 @@
+package com.jm.enums;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Parses the requested format; nothing requested means CSV.
+     *
+     * @throws IllegalArgumentException naming the value when it is not a format
+     */
+    public static ExportFormat from(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        String normalized = value.trim().toUpperCase(Locale.ROOT);
+        for (ExportFormat format : values()) {
+            if (format.name().equals(normalized)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException(value.trim());
+    }
+}
@@ -0,0 +1,6 @@
+package com.jm.enums;
+
+public enum WhatsAppIngestionStatus {
+    PENDING,
+    DONE
+}
@@ -0,0 +1,8 @@
+package com.jm.enums;
+
+public enum WhatsAppWebhookStatus {
+    RECEIVED,
+    PROCESSING,
+    PROCESSED,
+    FAILED
+}
@@ -1,6 +1,7 @@
 package com.jm.execption;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.jm.services.ai.AiCallRejectedException;
 import org.flywaydb.core.internal.util.ExceptionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
@@ -87,6 +88,16 @@ public class JMExceptionHandler extends ResponseEntityExceptionHandler {
         return handleExceptionInternal(ex, problem, new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
     }
 
+    @ExceptionHandler({AiCallRejectedException.class})
+    public ResponseEntity<Object> handleAiCallRejectedException(AiCallRejectedException ex, WebRequest request) {
+        ProblemType problemType = ProblemType.AI_PROVIDER_OVERLOADED;
+        String messageUser = this.messageSource.getMessage(problemType.getMessageSource(), null,
+                LocaleContextHolder.getLocale());
+        Problem problem = createProblemBuild(HttpStatus.SERVICE_UNAVAILABLE, problemType.getUri(),
+                problemType.getTitle(), messageUser).build();
+        return handleExceptionInternal(ex, problem, new HttpHeaders(), HttpStatus.SERVICE_UNAVAILABLE, request);
+    }
+
     private Problem.ProblemBuilder createProblemBuild(HttpStatusCode status, String type, String title, String detail) {
         return Problem.builder()
                 .status(status.value())
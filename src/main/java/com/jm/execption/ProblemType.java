@@ -57,6 +57,8 @@ public enum ProblemType {
     EXERCISE_FORBIDDEN("/exercise-forbidden", "Exercise forbidden", "exercise.forbidden"),
     ANALYTICS_FORBIDDEN("/analytics-forbidden", "Analytics access forbidden", "analytics.forbidden"),
     ANALYTICS_USER_NOT_FOUND("/analytics-user-not-found", "Analytics user not found", "analytics.user.not-found"),
+    ANALYTICS_INVALID_SERIES("/analytics-invalid-series", "Analytics series invalid", "analytics.series.invalid"),
+    EXPORT_INVALID_FORMAT("/export-invalid-format", "Export format invalid", "export.format.invalid"),
     WHATSAPP_MESSAGE_NOT_FOUND("/whatsapp-message-not-found", "WhatsApp message not found",
             "whatsapp.message.not-found"),
     WHATSAPP_FORBIDDEN("/whatsapp-forbidden", "WhatsApp nutrition forbidden", "whatsapp.nutrition.forbidden"),
@@ -69,7 +71,8 @@ public enum ProblemType {
     EMAIL_SENDING_FAILED("/email-sending-failed", "Email sending failed", "email.sending.failed"),
     EMAIL_CONFIGURATION_INVALID("/email-configuration-invalid", "Email configuration invalid",
             "email.configuration.invalid"),
-    EMAIL_INVALID_RECIPIENT("/email-invalid-recipient", "Email recipient invalid", "email.invalid.recipient");
+    EMAIL_INVALID_RECIPIENT("/email-invalid-recipient", "Email recipient invalid", "email.invalid.recipient"),
+    AI_PROVIDER_OVERLOADED("/ai-provider-overloaded", "AI provider overloaded", "ai.provider.overloaded");
 
     private String uri;
     private String title;
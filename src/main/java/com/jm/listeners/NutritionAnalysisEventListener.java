@@ -1,13 +1,17 @@
 package com.jm.listeners;
 
+import com.jm.configuration.config.AsyncConfig;
 import com.jm.events.NutritionAnalysisRequestEvent;
 import com.jm.services.WhatsAppNutritionService;
+import com.jm.services.whatsapp.NutritionAnalysisJob;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Component
 @RequiredArgsConstructor
@@ -17,17 +21,18 @@ public class NutritionAnalysisEventListener {
 
     private final WhatsAppNutritionService whatsAppNutritionService;
 
-    @Async
+    /**
+     * Only loading the message and image runs on the analysis executor; its thread is released while the model
+     * works and the rest of the job continues when the answer arrives.
+     */
+    @Async(AsyncConfig.AI_ANALYSIS_EXECUTOR)
     @EventListener
     public void handleNutritionRequest(NutritionAnalysisRequestEvent event) {
-        try {
-            logger.info("Processing {} nutrition request for message {}...", event.getProvider(),
-                    event.getMessage().getId());
-            whatsAppNutritionService.processNutritionAnalysis(event.getMessage(), event.getImageBytes(),
-                    event.getMimeType(), event.getOwner(), event.getFrom(), event.getProvider(), event.getModel());
-        } catch (Exception ex) {
-            logger.error("Failed to process {} nutrition request for message {}", event.getProvider(),
-                    event.getMessage().getId(), ex);
-        }
+        NutritionAnalysisJob job = event.getJob();
+        logger.info("Processing {} nutrition request for message {}...", job.provider(), job.messageId());
+        whatsAppNutritionService.analyzeNutrition(job)
+                .onErrorResume(ex -> Mono.<Void>fromRunnable(() -> whatsAppNutritionService
+                        .notifyAnalysisFailure(job, ex)).subscribeOn(Schedulers.boundedElastic()))
+                .subscribe();
     }
 }
@@ -0,0 +1,28 @@
+package com.jm.listeners;
+
+import com.jm.configuration.config.NutritionAnalysisQueueConfig;
+import com.jm.services.WhatsAppNutritionService;
+import com.jm.services.whatsapp.NutritionAnalysisJob;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "whatsapp.nutrition.queue", name = "mode", havingValue = "rabbit")
+public class NutritionAnalysisQueueListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NutritionAnalysisQueueListener.class);
+
+    private final WhatsAppNutritionService whatsAppNutritionService;
+
+    @RabbitListener(queues = "${whatsapp.nutrition.queue.queue:jm.nutrition.analysis}",
+            containerFactory = NutritionAnalysisQueueConfig.CONTAINER_FACTORY)
+    public void handleNutritionJob(NutritionAnalysisJob job) {
+        logger.info("Processing queued {} nutrition job for message {}...", job.provider(), job.messageId());
+        whatsAppNutritionService.processNutritionAnalysis(job);
+    }
+}
@@ -1,9 +1,11 @@
 package com.jm.listeners;
 
+import com.jm.configuration.config.AsyncConfig;
 import com.jm.enums.OllamaStatus;
 import com.jm.dto.OllamaRequestDTO;
 import com.jm.dto.OllamaResponseDTO;
 import com.jm.entity.Ollama;
+import com.jm.enums.AiProvider;
 import com.jm.events.OllamaRequestEvent;
 import com.jm.repository.OllamaRepository;
 import com.jm.services.OllamaService;
@@ -11,6 +13,8 @@ import com.jm.services.WhatsAppNutritionService;
 import com.jm.services.WhatsAppNutritionService.GeminiNutritionResult;
 import com.jm.services.WhatsAppService;
 import com.jm.services.WhatsAppCaptionTemplate;
+import com.jm.services.ai.AiAdmissionControl;
+import com.jm.services.ai.AiRequestType;
 
 import lombok.RequiredArgsConstructor;
 
@@ -20,6 +24,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
@@ -37,8 +44,15 @@ public class OllamaEventListener {
     private final OllamaService ollamaService;
     private final WhatsAppService whatsAppService;
     private final WhatsAppNutritionService whatsAppNutritionService;
+    private final AiAdmissionControl admission;
 
-    @Async
+    /**
+     * Marks the request as processing and sends it to Ollama. The listener thread is released as soon as the call is
+     * in flight; the answer is stored and delivered from the bounded elastic scheduler. The call goes through the
+     * Ollama admission limits, so a saturated or failing server marks the request as failed instead of queueing it.
+     * An empty answer fails the request too, so no row is left processing.
+     */
+    @Async(AsyncConfig.LLM_CHAT_EXECUTOR)
     @EventListener
     public void handleOllamaRequest(OllamaRequestEvent event) {
         Ollama entity = event.getOllama();
@@ -48,52 +62,56 @@ public class OllamaEventListener {
         ollamaRepository.save(entity);
 
         long start = System.currentTimeMillis();
-        try {
-
-            whatsAppService.sendTextMessage(entity.getFrom(), "Um momento, estou pensando ⌛️").subscribe();
-
-            OllamaResponseDTO response = ollamaService.sendPrompt(OllamaRequestDTO.builder()
-                    .model(entity.getModel())
-                    .prompt(entity.getPrompt())
-                    .stream(Boolean.FALSE)
-                    .images(entity.getImages() == null ? Collections.emptyList()
-                            : Collections.singletonList(entity.getImages()))
-                    .build());
+        Mono.fromRunnable(() -> whatsAppService.deliverTextMessage(entity.getFrom(), "Um momento, estou pensando ⌛️"))
+                .then(admission.admit(AiProvider.OLLAMA, entity.getModel(),
+                        StringUtils.isNotBlank(entity.getImages()) ? AiRequestType.IMAGE : AiRequestType.TEXT,
+                        ollamaService.sendPromptAsync(OllamaRequestDTO.builder()
+                                .model(entity.getModel())
+                                .prompt(entity.getPrompt())
+                                .stream(Boolean.FALSE)
+                                .images(entity.getImages() == null ? Collections.emptyList()
+                                        : Collections.singletonList(entity.getImages()))
+                                .build())))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Ollama returned no response")))
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> complete(entity, response, start))
+                .subscribe(null, ex -> fail(entity, ex));
+    }
 
-            entity.setResponse(response.getResponse());
-            entity.setStatus(OllamaStatus.DONE);
-            entity.setFinishedAt(LocalDateTime.now());
-            entity.setElapsedMs(System.currentTimeMillis() - start);
-            ollamaRepository.save(entity);
+    private void complete(Ollama entity, OllamaResponseDTO response, long start) {
+        entity.setResponse(response.getResponse());
+        entity.setStatus(OllamaStatus.DONE);
+        entity.setFinishedAt(LocalDateTime.now());
+        entity.setElapsedMs(System.currentTimeMillis() - start);
+        ollamaRepository.save(entity);
 
-            if (response.isDone()) {
-                if (StringUtils.isNotBlank(entity.getImages()) && Objects.nonNull(entity.getImages())) {
-                    logger.info("Ollama request image {} completed successfully", entity.getId());
-                    GeminiNutritionResult deserializeNutritionResult = whatsAppNutritionService
-                            .deserializeNutritionResult(sanitizeResponse(response.getResponse()));
-                    Map<String, Object> captionVariables = whatsAppNutritionService
-                            .buildNutritionCaptionVariables(deserializeNutritionResult, entity.getUser(),
-                                    entity.getFinishedAt() != null
-                                            ? entity.getFinishedAt().atOffset(java.time.ZoneOffset.UTC)
-                                            : OffsetDateTime.now(ZoneOffset.UTC));
-                    whatsAppService
-                            .sendCaptionMessage(entity.getFrom(), WhatsAppCaptionTemplate.DAILY_EN, captionVariables)
-                            .subscribe();
-                    return;
-                }
-                logger.info("Ollama request {} completed successfully", entity.getId());
-                whatsAppService.sendTextMessage(entity.getFrom(), response.getResponse()).subscribe();
+        if (response.isDone()) {
+            if (StringUtils.isNotBlank(entity.getImages()) && Objects.nonNull(entity.getImages())) {
+                logger.info("Ollama request image {} completed successfully", entity.getId());
+                GeminiNutritionResult deserializeNutritionResult = whatsAppNutritionService
+                        .deserializeNutritionResult(sanitizeResponse(response.getResponse()));
+                Map<String, Object> captionVariables = whatsAppNutritionService
+                        .buildNutritionCaptionVariables(deserializeNutritionResult, entity.getUser(),
+                                entity.getFinishedAt() != null
+                                        ? entity.getFinishedAt().atOffset(java.time.ZoneOffset.UTC)
+                                        : OffsetDateTime.now(ZoneOffset.UTC));
+                whatsAppService.deliverCaptionMessage(entity.getFrom(), WhatsAppCaptionTemplate.DAILY_EN,
+                        captionVariables);
                 return;
             }
-        } catch (Exception ex) {
-            logger.error("Ollama request {} failed: {}", entity.getId(), ex.getMessage());
-            entity.setStatus(OllamaStatus.ERROR);
-            entity.setErrorMessage(ex.getMessage());
-            entity.setFinishedAt(LocalDateTime.now());
-            ollamaRepository.save(entity);
+            logger.info("Ollama request {} completed successfully", entity.getId());
+            whatsAppService.deliverTextMessage(entity.getFrom(), response.getResponse());
         }
     }
 
+    private void fail(Ollama entity, Throwable ex) {
+        logger.error("Ollama request {} failed: {}", entity.getId(), ex.getMessage());
+        entity.setStatus(OllamaStatus.ERROR);
+        entity.setErrorMessage(ex.getMessage());
+        entity.setFinishedAt(LocalDateTime.now());
+        ollamaRepository.save(entity);
+    }
+
     private String sanitizeResponse(String raw) {
         if (raw == null) {
             return null;
@@ -1,5 +1,6 @@
 package com.jm.listeners;
 
+import com.jm.configuration.config.AsyncConfig;
 import com.jm.entity.Reminder;
 import com.jm.entity.Users;
 import com.jm.enums.ReminderRepeatMode;
@@ -50,7 +51,7 @@ public class ReminderEventListener {
         this.messageSource = messageSource;
     }
 
-    @Async
+    @Async(AsyncConfig.REMINDER_DELIVERY_EXECUTOR)
     @EventListener
     @Transactional
     public void handleReminderDue(ReminderDueEvent event) {
@@ -0,0 +1,51 @@
+package com.jm.repository;
+
+import com.jm.dto.BodyMetricDayRow;
+import com.jm.entity.BodyMetricSample;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface BodyMetricSampleRepository extends JpaRepository<BodyMetricSample, UUID> {
+
+    @Query(DAY_TOTALS + "where s.measuredOn between :start and :end group by s.measuredOn order by s.measuredOn")
+    List<BodyMetricDayRow> findDayTotals(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query(DAY_TOTALS + """
+            where s.userId in :userIds and s.measuredOn between :start and :end
+            group by s.measuredOn order by s.measuredOn
+            """)
+    List<BodyMetricDayRow> findDayTotalsForUsers(@Param("userIds") Collection<UUID> userIds,
+            @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    /** Copies the metrics of one anamnesis as stored, creating its sample on first use. */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO body_metric_sample (id, anamnesis_id, user_id, measured_on, weight_kg, body_mass_index,
+                body_fat_percentage, muscle_mass_percentage, updated_at)
+            SELECT UUID(), a.id, a.user_id, DATE(COALESCE(a.created_at, CURRENT_TIMESTAMP)), a.weight_kg,
+                a.body_mass_index, a.body_fat_percentage, a.muscle_mass_percentage, CURRENT_TIMESTAMP
+            FROM anamneses a
+            WHERE a.id = :anamnesisId
+            ON DUPLICATE KEY UPDATE user_id = VALUES(user_id), measured_on = VALUES(measured_on),
+                weight_kg = VALUES(weight_kg), body_mass_index = VALUES(body_mass_index),
+                body_fat_percentage = VALUES(body_fat_percentage),
+                muscle_mass_percentage = VALUES(muscle_mass_percentage), updated_at = CURRENT_TIMESTAMP
+            """, nativeQuery = true)
+    int upsertFromAnamnesis(@Param("anamnesisId") String anamnesisId);
+
+    String DAY_TOTALS = """
+            select new com.jm.dto.BodyMetricDayRow(s.measuredOn, sum(s.weightKg), count(s.weightKg),
+                sum(s.bodyMassIndex), count(s.bodyMassIndex), sum(s.bodyFatPercentage), count(s.bodyFatPercentage),
+                sum(s.muscleMassPercentage), count(s.muscleMassPercentage))
+            from BodyMetricSample s
+            """;
+}
@@ -0,0 +1,34 @@
+package com.jm.repository;
+
+import com.jm.entity.NutritionAnalysisCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+public interface NutritionAnalysisCacheRepository extends JpaRepository<NutritionAnalysisCacheEntry, String> {
+
+    @Query("select e.resultJson from NutritionAnalysisCacheEntry e where e.cacheKey = :cacheKey and e.expiresAt > :now")
+    Optional<String> findLiveResult(@Param("cacheKey") String cacheKey, @Param("now") OffsetDateTime now);
+
+    /** Stores the result, replacing an entry written concurrently for the same image. */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO nutrition_analysis_cache (cache_key, provider, model, result_json, created_at, expires_at)
+            VALUES (:cacheKey, :provider, :model, :resultJson, CURRENT_TIMESTAMP, :expiresAt)
+            ON DUPLICATE KEY UPDATE result_json = VALUES(result_json), created_at = CURRENT_TIMESTAMP,
+                expires_at = VALUES(expires_at)
+            """, nativeQuery = true)
+    int upsert(@Param("cacheKey") String cacheKey, @Param("provider") String provider, @Param("model") String model,
+            @Param("resultJson") String resultJson, @Param("expiresAt") OffsetDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from NutritionAnalysisCacheEntry e where e.expiresAt <= :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
@@ -1,29 +1,188 @@
 package com.jm.repository;
 
+import com.jm.dto.NutritionDashboardCategoryRow;
+import com.jm.dto.NutritionDashboardHistoryRow;
+import com.jm.dto.analytics.NutritionAnalyticsRow;
+import com.jm.dto.export.NutritionAnalysisExportRow;
 import com.jm.entity.NutritionAnalysis;
 import com.jm.entity.WhatsAppMessage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface NutritionAnalysisRepository extends JpaRepository<NutritionAnalysis, UUID> {
     Optional<NutritionAnalysis> findByMessage(WhatsAppMessage message);
 
-    @EntityGraph(attributePaths = {"message", "message.owner"})
-    List<NutritionAnalysis> findTop20ByOrderByCreatedAtDesc();
-
     List<NutritionAnalysis> findByCreatedAtAfter(OffsetDateTime createdAt);
 
-    @EntityGraph(attributePaths = {"message", "message.owner"})
-    List<NutritionAnalysis> findByCreatedAtBetween(OffsetDateTime start, OffsetDateTime end);
-
     @EntityGraph(attributePaths = {"message", "message.owner"})
     List<NutritionAnalysis> findTop20ByMessageOwnerIdOrderByCreatedAtDesc(UUID ownerId);
 
     @EntityGraph(attributePaths = {"message", "message.owner"})
     List<NutritionAnalysis> findByMessageOwnerIdAndCreatedAtBetween(UUID ownerId, OffsetDateTime start, OffsetDateTime end);
+
+    @Query(ANALYTICS_ROW + """
+            where a.owner.id in :ownerIds
+              and a.createdAt >= :start and a.createdAt < :end
+            """)
+    List<NutritionAnalyticsRow> findAnalyticsRowsByOwners(@Param("ownerIds") Collection<UUID> ownerIds,
+            @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+
+    /** Analyses whose message was never linked to a user, matched by the sender phone instead. */
+    @Query(ANALYTICS_ROW + """
+            join a.message m
+            where a.owner is null and m.fromPhone in :phones
+              and a.createdAt >= :start and a.createdAt < :end
+            """)
+    List<NutritionAnalyticsRow> findUnownedAnalyticsRowsByPhones(@Param("phones") Collection<String> phones,
+            @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+
+    @Query(ANALYTICS_ROW + """
+            where a.owner is null
+              and a.createdAt >= :start and a.createdAt < :end
+            """)
+    List<NutritionAnalyticsRow> findUnownedAnalyticsRows(@Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end);
+
+    @Query(ANALYTICS_ROW + "where a.owner.id = :ownerId")
+    List<NutritionAnalyticsRow> findAllAnalyticsRowsByOwner(@Param("ownerId") UUID ownerId);
+
+    @Query("select distinct a.owner.id from NutritionAnalysis a where a.owner is not null")
+    List<UUID> findDistinctOwnerIds();
+
+    /** Owners with analyses but not a single rollup row, the ones a backfill still has to build. */
+    @Query("""
+            select distinct a.owner.id from NutritionAnalysis a
+            where a.owner is not null
+              and not exists (select r.id from NutritionDailyRollup r where r.owner = a.owner)
+            """)
+    List<UUID> findOwnerIdsWithoutRollup();
+
+    /** Forward-only cursor over one user's analyses; must be consumed and closed inside a transaction. */
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query(NutritionAnalysisExportRow.SELECT + """
+            where a.owner.id = :ownerId and a.createdAt >= :start and a.createdAt < :end
+            order by a.createdAt, a.id
+            """)
+    Stream<NutritionAnalysisExportRow> streamExportRowsByOwner(@Param("ownerId") UUID ownerId,
+            @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+
+    /** As {@link #streamExportRowsByOwner} plus never-linked analyses sent from one of the user's phones. */
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query(NutritionAnalysisExportRow.SELECT + """
+            where (o.id = :ownerId or (o.id is null and m.fromPhone in :phones))
+              and a.createdAt >= :start and a.createdAt < :end
+            order by a.createdAt, a.id
+            """)
+    Stream<NutritionAnalysisExportRow> streamExportRowsByOwnerOrSenders(@Param("ownerId") UUID ownerId,
+            @Param("phones") Collection<String> phones, @Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end);
+
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query(NutritionAnalysisExportRow.SELECT + """
+            where a.createdAt >= :start and a.createdAt < :end
+            order by a.createdAt, a.id
+            """)
+    Stream<NutritionAnalysisExportRow> streamExportRows(@Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end);
+
+    /** Entries, macros and liquids of one day per primary category; the dashboard totals are their sum. */
+    @Query(DASHBOARD_CATEGORY + DASHBOARD_DAY + "group by pc.name")
+    List<NutritionDashboardCategoryRow> summarizeDashboardDay(@Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end);
+
+    @Query(DASHBOARD_CATEGORY + DASHBOARD_DAY + DASHBOARD_OWNER + "group by pc.name")
+    List<NutritionDashboardCategoryRow> summarizeDashboardDayForOwner(@Param("ownerId") UUID ownerId,
+            @Param("phones") Collection<String> phones, @Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end);
+
+    @Query(DASHBOARD_HISTORY + DASHBOARD_DAY + "order by a.createdAt, a.id")
+    List<NutritionDashboardHistoryRow> findDashboardHistory(@Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end);
+
+    @Query(DASHBOARD_HISTORY + DASHBOARD_DAY + DASHBOARD_OWNER + "order by a.createdAt, a.id")
+    List<NutritionDashboardHistoryRow> findDashboardHistoryForOwner(@Param("ownerId") UUID ownerId,
+            @Param("phones") Collection<String> phones, @Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end);
+
+    @Query(DASHBOARD_HISTORY + "order by a.createdAt desc, a.id desc")
+    List<NutritionDashboardHistoryRow> findLatestDashboardHistory(Limit limit);
+
+    @Query(DASHBOARD_HISTORY + "where " + DASHBOARD_OWNER_PREDICATE + " order by a.createdAt desc, a.id desc")
+    List<NutritionDashboardHistoryRow> findLatestDashboardHistoryForOwner(@Param("ownerId") UUID ownerId,
+            @Param("phones") Collection<String> phones, Limit limit);
+
+    /** Rows the driver holds per round trip while an export streams. */
+    String EXPORT_FETCH_SIZE = "500";
+
+    /**
+     * Milliliters of an entry's liquid: the unit's conversion factor when it has one, otherwise the common volume
+     * codes, otherwise the volume as is. Mirrors the conversion applied to single entries in the service.
+     */
+    String LIQUID_ML = """
+            case when a.liquidVolume > 0 then a.liquidVolume * (case
+                when lu.conversionFactor > 0 then lu.conversionFactor
+                when upper(lu.code) in ('L', 'LT', 'LITRE', 'LITER') then 1000.0
+                when upper(lu.code) = 'CUP' then 240.0
+                when upper(lu.code) = 'TBSP' then 15.0
+                when upper(lu.code) = 'TSP' then 5.0
+                else 1.0 end) else 0 end
+            """;
+
+    String DASHBOARD_CATEGORY = "select new com.jm.dto.NutritionDashboardCategoryRow(pc.name, count(a), "
+            + "sum(a.calories), sum(a.protein), sum(a.carbs), sum(a.fat), sum(" + LIQUID_ML + ")) "
+            + """
+            from NutritionAnalysis a
+            left join a.message m
+            left join a.owner o
+            left join a.liquidUnit lu
+            left join a.primaryCategory pc
+            """;
+
+    String DASHBOARD_HISTORY = """
+            select new com.jm.dto.NutritionDashboardHistoryRow(m.id, f.id, a.foodName, a.calories, a.protein,
+                a.carbs, a.fat, a.liquidVolume, lu.code, lu.symbol, lu.conversionFactor, meal.id, meal.name, pc.name,
+                a.createdAt, a.summary)
+            from NutritionAnalysis a
+            left join a.message m
+            left join a.owner o
+            left join a.food f
+            left join a.meal meal
+            left join a.liquidUnit lu
+            left join a.primaryCategory pc
+            """;
+
+    /** Entries created on the day whose message (when there is one) was also received that day. */
+    String DASHBOARD_DAY = """
+            where a.createdAt >= :start and a.createdAt < :end
+              and coalesce(m.receivedAt, a.createdAt) >= :start and coalesce(m.receivedAt, a.createdAt) < :end
+            """;
+
+    /** Entries owned by the user, or never linked to a user but sent from one of their phones. */
+    String DASHBOARD_OWNER_PREDICATE = "(o.id = :ownerId or (o is null and m.fromPhone in :phones))";
+
+    String DASHBOARD_OWNER = "and " + DASHBOARD_OWNER_PREDICATE + " ";
+
+    String ANALYTICS_ROW = """
+            select new com.jm.dto.analytics.NutritionAnalyticsRow(a.createdAt, a.foodName, a.summary, a.calories,
+                a.protein, a.carbs, a.fat, a.categoriesJson, a.liquidVolume, lu.code, lu.conversionFactor, pc.name)
+            from NutritionAnalysis a
+            left join a.liquidUnit lu
+            left join a.primaryCategory pc
+            """;
 }
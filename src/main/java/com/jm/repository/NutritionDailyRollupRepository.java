@@ -0,0 +1,51 @@
+package com.jm.repository;
+
+import com.jm.entity.NutritionDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface NutritionDailyRollupRepository extends JpaRepository<NutritionDailyRollup, UUID> {
+
+    @Query("""
+            select r from NutritionDailyRollup r
+            where r.owner.id in :ownerIds and r.date between :start and :end
+            """)
+    List<NutritionDailyRollup> findByOwnersAndDateRange(@Param("ownerIds") Collection<UUID> ownerIds,
+            @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    /** Replaces the totals of one user and day, creating the row on first use. */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO nutrition_daily_rollup (id, owner_user_id, rollup_date, entries, calories, protein, carbs,
+                fat, fiber_g, water_ml, foods_json, updated_at)
+            VALUES (UUID(), :ownerId, :date, :entries, :calories, :protein, :carbs, :fat, :fiber, :water,
+                :foodsJson, CURRENT_TIMESTAMP)
+            ON DUPLICATE KEY UPDATE entries = VALUES(entries), calories = VALUES(calories),
+                protein = VALUES(protein), carbs = VALUES(carbs), fat = VALUES(fat), fiber_g = VALUES(fiber_g),
+                water_ml = VALUES(water_ml), foods_json = VALUES(foods_json), updated_at = CURRENT_TIMESTAMP
+            """, nativeQuery = true)
+    int upsert(@Param("ownerId") String ownerId, @Param("date") LocalDate date, @Param("entries") int entries,
+            @Param("calories") BigDecimal calories, @Param("protein") BigDecimal protein,
+            @Param("carbs") BigDecimal carbs, @Param("fat") BigDecimal fat, @Param("fiber") BigDecimal fiber,
+            @Param("water") BigDecimal water, @Param("foodsJson") String foodsJson);
+
+    @Transactional
+    @Modifying
+    @Query("delete from NutritionDailyRollup r where r.owner.id = :ownerId and r.date = :date")
+    int deleteDay(@Param("ownerId") UUID ownerId, @Param("date") LocalDate date);
+
+    @Transactional
+    @Modifying
+    @Query("delete from NutritionDailyRollup r where r.owner.id = :ownerId")
+    int deleteByOwner(@Param("ownerId") UUID ownerId);
+}
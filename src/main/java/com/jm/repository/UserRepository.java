@@ -1,8 +1,11 @@
 package com.jm.repository;
 
 import com.jm.entity.Users;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -18,8 +21,18 @@ public interface UserRepository extends JpaRepository<Users, UUID>, JpaSpecifica
 
     Optional<Users> findByPhoneNumber(String phoneNumber);
 
+    @Query("select u.id from Users u where u.phoneE164 = :phoneE164")
+    Optional<UUID> findIdByPhoneE164(@Param("phoneE164") String phoneE164);
+
     Optional<Users> findByPasswordRecoveryToken(String token);
 
+    @Query("select u.id from Users u order by u.id")
+    List<UUID> findIds(Limit limit);
+
+    /** Next page of ids after {@code after}, for keyset pagination over all users. */
+    @Query("select u.id from Users u where u.id > :after order by u.id")
+    List<UUID> findIdsAfter(@Param("after") UUID after, Limit limit);
+
     List<Users> findTop50ByTypeOrderByNameAsc(Users.Type type);
 
     List<Users> findTop20ByTypeAndNameContainingIgnoreCaseOrderByNameAsc(Users.Type type, String name);
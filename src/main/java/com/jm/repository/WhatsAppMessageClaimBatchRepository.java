@@ -0,0 +1,13 @@
+package com.jm.repository;
+
+import java.util.Collection;
+
+public interface WhatsAppMessageClaimBatchRepository {
+
+    /**
+     * Inserts a claim for every id in one statement, skipping ids that are already taken.
+     *
+     * @return the number of ids this call claimed
+     */
+    int claimAll(Collection<String> whatsappMessageIds, String claimToken);
+}
@@ -0,0 +1,36 @@
+package com.jm.repository;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/** Multi-row {@code INSERT IGNORE}; each {@code Object[]} of {@code :rows} expands to one {@code (?, ?, ?)} tuple. */
+class WhatsAppMessageClaimBatchRepositoryImpl implements WhatsAppMessageClaimBatchRepository {
+
+    private static final String CLAIM_ALL = """
+            INSERT IGNORE INTO whatsapp_message_claims (whatsapp_message_id, claim_token, claimed_at)
+            VALUES :rows
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    WhatsAppMessageClaimBatchRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int claimAll(Collection<String> whatsappMessageIds, String claimToken) {
+        if (whatsappMessageIds.isEmpty()) {
+            return 0;
+        }
+        Timestamp claimedAt = Timestamp.from(Instant.now());
+        List<Object[]> rows = whatsappMessageIds.stream()
+                .map(id -> new Object[] { id, claimToken, claimedAt })
+                .toList();
+        return jdbcTemplate.update(CLAIM_ALL, Map.of("rows", rows));
+    }
+}
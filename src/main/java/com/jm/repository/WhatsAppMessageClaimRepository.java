@@ -0,0 +1,21 @@
+package com.jm.repository;
+
+import com.jm.entity.WhatsAppMessageClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface WhatsAppMessageClaimRepository
+        extends JpaRepository<WhatsAppMessageClaim, String>, WhatsAppMessageClaimBatchRepository {
+
+    /** The ids among {@code whatsappMessageIds} whose claim was written by the batch holding {@code claimToken}. */
+    @Query("""
+            select c.whatsappMessageId from WhatsAppMessageClaim c
+            where c.whatsappMessageId in :whatsappMessageIds and c.claimToken = :claimToken
+            """)
+    List<String> findClaimedBy(@Param("whatsappMessageIds") Collection<String> whatsappMessageIds,
+            @Param("claimToken") String claimToken);
+}
@@ -1,13 +1,25 @@
 package com.jm.repository;
 
+import com.jm.dto.export.WhatsAppMessageExportRow;
 import com.jm.entity.WhatsAppMessage;
+import com.jm.enums.WhatsAppIngestionStatus;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface WhatsAppMessageRepository
         extends JpaRepository<WhatsAppMessage, UUID>, JpaSpecificationExecutor<WhatsAppMessage> {
@@ -15,8 +27,50 @@ public interface WhatsAppMessageRepository
 
     List<WhatsAppMessage> findTop20ByOrderByReceivedAtDesc();
 
+    List<WhatsAppMessage> findByWhatsappMessageIdInAndIngestionStatus(Collection<String> whatsappMessageIds,
+            WhatsAppIngestionStatus ingestionStatus);
+
+    @Transactional
+    @Modifying
+    @Query("update WhatsAppMessage m set m.ingestionStatus = :status where m.id in :ids")
+    int updateIngestionStatus(@Param("ids") Collection<UUID> ids, @Param("status") WhatsAppIngestionStatus status);
+
     Optional<WhatsAppMessage> findFirstByOwnerIdAndNutritionAnalysisMealCodeIgnoreCaseAndNutritionAnalysisFoodNameIgnoreCase(
             UUID ownerId, String mealCode, String foodName);
 
     List<WhatsAppMessage> findByOwnerIdAndNutritionAnalysisMealCodeIgnoreCase(UUID ownerId, String mealCode);
+
+    /** Forward-only cursor over one user's messages; must be consumed and closed inside a transaction. */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = NutritionAnalysisRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query(WhatsAppMessageExportRow.SELECT + """
+            where o.id = :ownerId and m.receivedAt >= :start and m.receivedAt < :end
+            order by m.receivedAt, m.id
+            """)
+    Stream<WhatsAppMessageExportRow> streamExportRowsByOwner(@Param("ownerId") UUID ownerId,
+            @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+
+    /** As {@link #streamExportRowsByOwner} plus never-linked messages sent from one of the user's phones. */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = NutritionAnalysisRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query(WhatsAppMessageExportRow.SELECT + """
+            where (o.id = :ownerId or (o.id is null and m.fromPhone in :phones))
+              and m.receivedAt >= :start and m.receivedAt < :end
+            order by m.receivedAt, m.id
+            """)
+    Stream<WhatsAppMessageExportRow> streamExportRowsByOwnerOrSenders(@Param("ownerId") UUID ownerId,
+            @Param("phones") Collection<String> phones, @Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = NutritionAnalysisRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query(WhatsAppMessageExportRow.SELECT + """
+            where m.receivedAt >= :start and m.receivedAt < :end
+            order by m.receivedAt, m.id
+            """)
+    Stream<WhatsAppMessageExportRow> streamExportRows(@Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end);
 }
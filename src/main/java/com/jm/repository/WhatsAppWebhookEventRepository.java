@@ -0,0 +1,63 @@
+package com.jm.repository;
+
+import com.jm.entity.WhatsAppWebhookEvent;
+import com.jm.enums.WhatsAppWebhookStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface WhatsAppWebhookEventRepository extends JpaRepository<WhatsAppWebhookEvent, UUID> {
+
+    /**
+     * Webhooks waiting in one of the {@code idle} statuses since before {@code before}, plus those whose
+     * {@code processing} claim was taken before it and is therefore considered abandoned.
+     */
+    @Query("""
+            select e.id from WhatsAppWebhookEvent e
+            where e.attempts < :maxAttempts
+              and ((e.status in :idle and e.receivedAt < :before)
+                or (e.status = :processing and e.claimedAt < :before))
+            order by e.receivedAt asc
+            """)
+    List<UUID> findRecoverableIds(@Param("idle") Collection<WhatsAppWebhookStatus> idle,
+            @Param("processing") WhatsAppWebhookStatus processing, @Param("before") OffsetDateTime before,
+            @Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    /**
+     * Starts a new attempt on the webhook when it is in one of the {@code claimable} statuses. A webhook already in
+     * {@code status} is only taken over when its claim is older than {@code staleBefore}.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update WhatsAppWebhookEvent e set e.status = :status, e.attempts = e.attempts + 1, e.claimedAt = :claimedAt
+            where e.id = :id and e.status in :claimable and (e.status <> :status or e.claimedAt < :staleBefore)
+            """)
+    int claim(@Param("id") UUID id, @Param("claimable") Collection<WhatsAppWebhookStatus> claimable,
+            @Param("status") WhatsAppWebhookStatus status, @Param("claimedAt") OffsetDateTime claimedAt,
+            @Param("staleBefore") OffsetDateTime staleBefore);
+
+    /** Hands the webhook back to the attempt before {@code attempt}, which is still running its messages. */
+    @Transactional
+    @Modifying
+    @Query("update WhatsAppWebhookEvent e set e.attempts = e.attempts - 1 where e.id = :id and e.attempts = :attempt")
+    int yieldClaim(@Param("id") UUID id, @Param("attempt") int attempt);
+
+    /** Settles the webhook, unless a later attempt has taken it over since {@code attempt} claimed it. */
+    @Transactional
+    @Modifying
+    @Query("""
+            update WhatsAppWebhookEvent e set e.status = :status, e.errorMessage = :errorMessage,
+            e.processedAt = :processedAt where e.id = :id and e.attempts = :attempt
+            """)
+    int complete(@Param("id") UUID id, @Param("attempt") int attempt, @Param("status") WhatsAppWebhookStatus status,
+            @Param("errorMessage") String errorMessage, @Param("processedAt") OffsetDateTime processedAt);
+}
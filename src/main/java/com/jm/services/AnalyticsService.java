@@ -1,8 +1,6 @@
 package com.jm.services;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jm.dto.analytics.AnalyticsOverviewResponseDTO;
 import com.jm.dto.analytics.BodyCompositionPointDTO;
 import com.jm.dto.analytics.BodyCompositionResponseDTO;
 import com.jm.dto.analytics.GoalAdherenceMetricDTO;
@@ -11,15 +9,14 @@ import com.jm.dto.analytics.HydrationEntryDTO;
 import com.jm.dto.analytics.HydrationResponseDTO;
 import com.jm.dto.analytics.MacroDistributionEntryDTO;
 import com.jm.dto.analytics.MacroDistributionResponseDTO;
+import com.jm.dto.analytics.NutritionAnalyticsRow;
 import com.jm.dto.analytics.TopFoodDTO;
 import com.jm.dto.analytics.TopFoodsResponseDTO;
 import com.jm.entity.Anamnesis;
-import com.jm.entity.MeasurementUnits;
-import com.jm.entity.NutritionAnalysis;
 import com.jm.entity.NutritionGoal;
 import com.jm.entity.Users;
-import com.jm.entity.WhatsAppMessage;
 import com.jm.enums.AnalyticsGroupBy;
+import com.jm.enums.AnalyticsSeries;
 import com.jm.enums.NutritionGoalPeriodicity;
 import com.jm.enums.NutritionGoalTargetMode;
 import com.jm.enums.NutritionGoalType;
@@ -29,6 +26,15 @@ import com.jm.repository.AnamnesisRepository;
 import com.jm.repository.NutritionAnalysisRepository;
 import com.jm.repository.NutritionGoalRepository;
 import com.jm.repository.UserRepository;
+import com.jm.services.analytics.AllUsersAnalyticsPartitioner;
+import com.jm.services.analytics.BodyMetricsService;
+import com.jm.services.analytics.NutritionAggregation;
+import com.jm.services.analytics.NutritionDayTotals;
+import com.jm.services.analytics.NutritionEstimator;
+import com.jm.services.analytics.NutritionRollupService;
+import com.jm.services.analytics.TodayNutritionState;
+import com.jm.services.analytics.TodayNutritionStateCache;
+import com.jm.services.analytics.TodayNutritionTargets;
 import com.jm.utils.SecurityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +57,7 @@ import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -62,7 +69,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
@@ -80,12 +86,8 @@ public class AnalyticsService {
     private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
 
     private static final Pattern NUMBER_PATTERN = Pattern.compile("(\\d+(?:[\\.,]\\d+)?)");
-    private static final Pattern MASS_PATTERN = Pattern
-            .compile("(\\d+(?:[\\.,]\\d+)?)\\s*(kg|kilograms?|g|grams?|gramas?)", Pattern.CASE_INSENSITIVE);
     private static final Pattern VOLUME_PATTERN = Pattern.compile("(\\d+(?:[\\.,]\\d+)?)\\s*(ml|l|lt|litro?s?)",
             Pattern.CASE_INSENSITIVE);
-    private static final Pattern FIBER_PATTERN = Pattern.compile("(?:fiber|fibra)\\s*:?\\s*(\\d+(?:[\\.,]\\d+)?)\\s*g",
-            Pattern.CASE_INSENSITIVE);
 
     private static final BigDecimal ONE_THOUSAND = BigDecimal.valueOf(1000);
     private static final BigDecimal SEVEN = BigDecimal.valueOf(7);
@@ -107,27 +109,67 @@ public class AnalyticsService {
     private final AnamnesisRepository anamnesisRepository;
     private final UserRepository userRepository;
     private final MessageSource messageSource;
-    private final ObjectMapper objectMapper;
+    private final NutritionEstimator nutritionEstimator;
+    private final NutritionRollupService nutritionRollupService;
+    private final TodayNutritionStateCache todayNutritionState;
+    private final AllUsersAnalyticsPartitioner allUsersPartitioner;
+    private final BodyMetricsService bodyMetrics;
+    private final UserPhoneDirectory phoneDirectory;
 
     public AnalyticsService(NutritionGoalRepository nutritionGoalRepository,
             NutritionAnalysisRepository nutritionAnalysisRepository,
             AnamnesisRepository anamnesisRepository,
             UserRepository userRepository,
             MessageSource messageSource,
-            ObjectMapper objectMapper) {
+            NutritionEstimator nutritionEstimator,
+            NutritionRollupService nutritionRollupService,
+            TodayNutritionStateCache todayNutritionState,
+            AllUsersAnalyticsPartitioner allUsersPartitioner,
+            BodyMetricsService bodyMetrics,
+            UserPhoneDirectory phoneDirectory) {
         this.nutritionGoalRepository = nutritionGoalRepository;
         this.nutritionAnalysisRepository = nutritionAnalysisRepository;
         this.anamnesisRepository = anamnesisRepository;
         this.userRepository = userRepository;
         this.messageSource = messageSource;
-        this.objectMapper = objectMapper;
+        this.nutritionEstimator = nutritionEstimator;
+        this.nutritionRollupService = nutritionRollupService;
+        this.todayNutritionState = todayNutritionState;
+        this.allUsersPartitioner = allUsersPartitioner;
+        this.bodyMetrics = bodyMetrics;
+        this.phoneDirectory = phoneDirectory;
+    }
+
+    /**
+     * The requested series (all of them when none are given) from a single context, goal lookup and analysis pass.
+     */
+    public AnalyticsOverviewResponseDTO getOverview(Integer range, String groupByValue, UUID userId,
+            Collection<String> seriesValues) {
+        Set<AnalyticsSeries> series = parseSeries(seriesValues);
+        AnalyticsContext context = buildContext(range, groupByValue, userId);
+        boolean needsGoals = series.contains(AnalyticsSeries.ADHERENCE) || series.contains(AnalyticsSeries.HYDRATION);
+        List<NutritionGoal> goals = needsGoals ? loadGoals(context) : Collections.emptyList();
+        AnalysisSnapshot snapshot = series.stream().anyMatch(AnalyticsSeries::needsNutrition) ? analyze(context) : null;
+
+        return AnalyticsOverviewResponseDTO.builder()
+                .startDate(context.startDate())
+                .endDate(context.endDate())
+                .groupBy(context.groupBy().name().toLowerCase(Locale.ROOT))
+                .adherence(series.contains(AnalyticsSeries.ADHERENCE) ? goalsAdherence(context, goals, snapshot) : null)
+                .macros(series.contains(AnalyticsSeries.MACROS) ? macroDistribution(context, snapshot) : null)
+                .hydration(series.contains(AnalyticsSeries.HYDRATION) ? hydration(context, goals, snapshot) : null)
+                .foods(series.contains(AnalyticsSeries.FOODS) ? topFoods(context, snapshot) : null)
+                .body(series.contains(AnalyticsSeries.BODY) ? bodyComposition(context) : null)
+                .build();
     }
 
     public GoalAdherenceResponseDTO getGoalsAdherence(Integer range, String groupByValue, UUID userId) {
         AnalyticsContext context = buildContext(range, groupByValue, userId);
-        List<NutritionGoal> goals = loadGoals(context);
-        AnalysisSnapshot snapshot = analyze(context);
+        return goalsAdherence(context, loadGoals(context), analyze(context));
+    }
 
+    private GoalAdherenceResponseDTO goalsAdherence(AnalyticsContext context, List<NutritionGoal> goals,
+            AnalysisSnapshot snapshot) {
         Map<String, BigDecimal> targets = computeTargets(context, goals);
         Map<String, BigDecimal> achieved = computeAchievements(snapshot);
 
@@ -157,20 +199,21 @@ public class AnalyticsService {
 
     public MacroDistributionResponseDTO getMacroDistribution(Integer range, String groupByValue, UUID userId) {
         AnalyticsContext context = buildContext(range, groupByValue, userId);
-        AnalysisSnapshot snapshot = analyze(context);
-
-        List<MacroDistributionEntryDTO> entries = snapshot.buckets().stream()
-                .map(bucket -> {
-                    MacroTotals totals = snapshot.macroByBucket().get(bucket);
-                    return MacroDistributionEntryDTO.builder()
-                            .label(bucket.label(context.groupBy()))
-                            .protein(scale(totals.protein()))
-                            .carbs(scale(totals.carbs()))
-                            .fat(scale(totals.fat()))
-                            .calories(scale(totals.calories()))
-                            .build();
-                })
-                .collect(Collectors.toList());
+        return macroDistribution(context, analyze(context));
+    }
+
+    private MacroDistributionResponseDTO macroDistribution(AnalyticsContext context, AnalysisSnapshot snapshot) {
+        NutritionAggregation totals = snapshot.totals();
+        List<MacroDistributionEntryDTO> entries = new ArrayList<>(snapshot.buckets().size());
+        for (int index = 0; index < snapshot.buckets().size(); index++) {
+            entries.add(MacroDistributionEntryDTO.builder()
+                    .label(snapshot.buckets().get(index).label(context.groupBy()))
+                    .protein(scale(totals.protein(index)))
+                    .carbs(scale(totals.carbs(index)))
+                    .fat(scale(totals.fat(index)))
+                    .calories(scale(totals.calories(index)))
+                    .build());
+        }
 
         return MacroDistributionResponseDTO.builder()
                 .startDate(context.startDate())
@@ -182,21 +225,23 @@ public class AnalyticsService {
 
     public HydrationResponseDTO getHydration(Integer range, String groupByValue, UUID userId) {
         AnalyticsContext context = buildContext(range, groupByValue, userId);
-        List<NutritionGoal> goals = loadGoals(context);
-        AnalysisSnapshot snapshot = analyze(context);
+        return hydration(context, loadGoals(context), analyze(context));
+    }
+
+    private HydrationResponseDTO hydration(AnalyticsContext context, List<NutritionGoal> goals,
+            AnalysisSnapshot snapshot) {
         BigDecimal dailyTarget = computeDailyWaterTarget(context, goals);
 
-        List<HydrationEntryDTO> entries = snapshot.buckets().stream()
-                .map(bucket -> {
-                    BigDecimal intake = snapshot.hydrationByBucket().get(bucket);
-                    BigDecimal target = dailyTarget.multiply(BigDecimal.valueOf(bucket.activeDays()));
-                    return HydrationEntryDTO.builder()
-                            .label(bucket.label(context.groupBy()))
-                            .intake(scale(intake))
-                            .target(scale(target))
-                            .build();
-                })
-                .collect(Collectors.toList());
+        List<HydrationEntryDTO> entries = new ArrayList<>(snapshot.buckets().size());
+        for (int index = 0; index < snapshot.buckets().size(); index++) {
+            Bucket bucket = snapshot.buckets().get(index);
+            BigDecimal target = dailyTarget.multiply(BigDecimal.valueOf(bucket.activeDays()));
+            entries.add(HydrationEntryDTO.builder()
+                    .label(bucket.label(context.groupBy()))
+                    .intake(scale(snapshot.totals().water(index)))
+                    .target(scale(target))
+                    .build());
+        }
 
         return HydrationResponseDTO.builder()
                 .startDate(context.startDate())
@@ -208,10 +253,13 @@ public class AnalyticsService {
 
     public TopFoodsResponseDTO getTopFoods(Integer range, String groupByValue, UUID userId) {
         AnalyticsContext context = buildContext(range, groupByValue, userId);
-        AnalysisSnapshot snapshot = analyze(context);
+        return topFoods(context, analyze(context));
+    }
 
-        List<TopFoodDTO> items = snapshot.foods().values().stream()
-                .sorted(Comparator.comparing(FoodAggregate::quantity).reversed())
+    private TopFoodsResponseDTO topFoods(AnalyticsContext context, AnalysisSnapshot snapshot) {
+        List<TopFoodDTO> items = snapshot.totals().foods().stream()
+                .sorted(Comparator.comparingDouble(NutritionAggregation.FoodTotal::quantity).reversed()
+                        .thenComparing(NutritionAggregation.FoodTotal::name))
                 .limit(10)
                 .map(food -> TopFoodDTO.builder()
                         .name(food.name())
@@ -228,33 +276,14 @@ public class AnalyticsService {
     }
 
     public BodyCompositionResponseDTO getBodyComposition(Integer range, String groupByValue, UUID userId) {
-        AnalyticsContext context = buildContext(range, groupByValue, userId);
-        List<Anamnesis> anamneses = loadAnamneses(context);
-        if (anamneses.isEmpty()) {
-            return BodyCompositionResponseDTO.builder()
-                    .startDate(context.startDate())
-                    .endDate(context.endDate())
-                    .series(Collections.emptyList())
-                    .build();
-        }
+        return bodyComposition(buildContext(range, groupByValue, userId));
+    }
 
-        Map<LocalDate, BodyAggregate> aggregates = new TreeMap<>();
-        for (Anamnesis anamnesis : anamneses) {
-            LocalDate date = LocalDate.from(anamnesis.getCreatedAt());
-            BodyAggregate aggregate = aggregates.computeIfAbsent(date, key -> new BodyAggregate());
-            aggregate.add(anamnesis.getWeightKg(), anamnesis.getBodyMassIndex(),
-                    anamnesis.getBodyFatPercentage(), anamnesis.getMuscleMassPercentage());
-        }
-
-        List<BodyCompositionPointDTO> points = aggregates.entrySet().stream()
-                .map(entry -> BodyCompositionPointDTO.builder()
-                        .label(entry.getKey().toString())
-                        .weight(scale(entry.getValue().weightAvg()))
-                        .bmi(scale(entry.getValue().bmiAvg()))
-                        .fatPercentage(scale(entry.getValue().fatAvg()))
-                        .musclePercentage(scale(entry.getValue().muscleAvg()))
-                        .build())
-                .collect(Collectors.toList());
+    private BodyCompositionResponseDTO bodyComposition(AnalyticsContext context) {
+        List<BodyCompositionPointDTO> points = context.includeAllUsers()
+                ? allUsersPartitioner.cached(List.of("body", context.startDate(), context.endDate(),
+                        context.groupBy()), () -> bodyPoints(context, null))
+                : bodyPoints(context, context.userIds());
 
         return BodyCompositionResponseDTO.builder()
                 .startDate(context.startDate())
@@ -263,12 +292,28 @@ public class AnalyticsService {
                 .build();
     }
 
+    private List<BodyCompositionPointDTO> bodyPoints(AnalyticsContext context, Set<UUID> userIds) {
+        return bodyMetrics.series(userIds, context.startDate(), context.endDate(), context.groupBy()).stream()
+                .map(point -> BodyCompositionPointDTO.builder()
+                        .label(point.label())
+                        .weight(scale(point.weight()))
+                        .bmi(scale(point.bmi()))
+                        .fatPercentage(scale(point.fatPercentage()))
+                        .musclePercentage(scale(point.musclePercentage()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
     private AnalyticsContext buildContext(Integer range, String groupByValue, UUID requestedUserId) {
+        ZoneId zoneId = ZoneId.systemDefault();
+        return buildContext(range, groupByValue, requestedUserId, LocalDate.now(zoneId), zoneId);
+    }
+
+    private AnalyticsContext buildContext(Integer range, String groupByValue, UUID requestedUserId,
+            LocalDate endDate, ZoneId zoneId) {
         int rangeDays = range == null ? DEFAULT_RANGE_DAYS : Math.max(1, Math.min(range, MAX_RANGE_DAYS));
-        LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusDays(rangeDays - 1L);
         AnalyticsGroupBy groupBy = AnalyticsGroupBy.from(groupByValue);
-        ZoneId zoneId = ZoneId.systemDefault();
 
         OffsetDateTime startDateTime = startDate.atStartOfDay(zoneId).toOffsetDateTime();
         OffsetDateTime endDateTime = endDate.plusDays(1).atStartOfDay(zoneId).toOffsetDateTime();
@@ -286,16 +331,12 @@ public class AnalyticsService {
             userIds.add(currentUserId);
             userRepository.findById(currentUserId)
                     .map(Users::getPhoneNumber)
-                    .map(this::normalizePhone)
-                    .filter(StringUtils::hasText)
-                    .ifPresent(phones::add);
+                    .map(phoneDirectory::senderPhones)
+                    .ifPresent(phones::addAll);
         } else if (requestedUserId != null) {
             Users user = userRepository.findById(requestedUserId).orElseThrow(this::userNotFound);
             userIds.add(user.getId());
-            Optional.ofNullable(user.getPhoneNumber())
-                    .map(this::normalizePhone)
-                    .filter(StringUtils::hasText)
-                    .ifPresent(phones::add);
+            phones.addAll(phoneDirectory.senderPhones(user.getPhoneNumber()));
         } else {
             includeAll = true;
         }
@@ -326,96 +367,121 @@ public class AnalyticsService {
         return nutritionGoalRepository.findByActiveTrue();
     }
 
-    private List<Anamnesis> loadAnamneses(AnalyticsContext context) {
+    private AnalysisSnapshot analyze(AnalyticsContext context) {
         if (context.includeAllUsers()) {
-            return anamnesisRepository.findAll();
+            return allUsersPartitioner.cached(List.of("nutrition", context.startDate(), context.endDate(),
+                    context.groupBy(), context.zoneId()), () -> analyzeAllUsers(context));
         }
-        if (context.userIds().isEmpty()) {
-            return Collections.emptyList();
+        List<Bucket> buckets = buildBuckets(context);
+        NutritionAggregation totals = new NutritionAggregation(context.startDate(), bucketOfDay(context, buckets),
+                buckets.size());
+        if (nutritionRollupService.isEnabled()) {
+            if (!context.userIds().isEmpty()) {
+                nutritionRollupService.loadDays(context.userIds(), context.startDate(), context.endDate())
+                        .forEach(totals::add);
+            }
+            addAnalyses(context, totals, loadUnownedAnalyses(context));
+        } else {
+            addAnalyses(context, totals, loadAnalyses(context));
         }
-        return context.userIds().stream()
-                .map(anamnesisRepository::findByUserIdOrderByIdAsc)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList());
+        return new AnalysisSnapshot(buckets, totals);
     }
 
-    private AnalysisSnapshot analyze(AnalyticsContext context) {
+    /**
+     * Admin view over everyone: each chunk of users is aggregated into its own partial totals on the analytics pool
+     * and the partials are merged, instead of one pass over every row of the range on the request thread.
+     */
+    private AnalysisSnapshot analyzeAllUsers(AnalyticsContext context) {
         List<Bucket> buckets = buildBuckets(context);
-        Map<Bucket, MacroTotals> macroByBucket = new LinkedHashMap<>();
-        Map<Bucket, BigDecimal> hydration = new LinkedHashMap<>();
-        Map<Bucket, BigDecimal> fiber = new LinkedHashMap<>();
-        buckets.forEach(bucket -> {
-            macroByBucket.put(bucket, new MacroTotals());
-            hydration.put(bucket, BigDecimal.ZERO);
-            fiber.put(bucket, BigDecimal.ZERO);
-        });
-
-        MacroTotals totalMacros = new MacroTotals();
-        BigDecimal totalWater = BigDecimal.ZERO;
-        BigDecimal totalFiber = BigDecimal.ZERO;
-        Map<String, FoodAggregate> foods = new LinkedHashMap<>();
-
-        List<NutritionAnalysis> analyses = loadAnalyses(context);
-        for (NutritionAnalysis analysis : analyses) {
-            OffsetDateTime createdAt = analysis.getCreatedAt();
-            if (createdAt == null) {
+        NutritionAggregation empty = new NutritionAggregation(context.startDate(), bucketOfDay(context, buckets),
+                buckets.size());
+        NutritionAggregation totals = allUsersPartitioner.aggregate(
+                userIds -> {
+                    NutritionAggregation partial = empty.emptyCopy();
+                    if (nutritionRollupService.isEnabled()) {
+                        nutritionRollupService.loadDays(userIds, context.startDate(), context.endDate())
+                                .forEach(partial::add);
+                    } else {
+                        addAnalyses(context, partial, nutritionAnalysisRepository.findAnalyticsRowsByOwners(
+                                userIds, context.startDateTime(), context.endDateTime()));
+                    }
+                    return partial;
+                },
+                () -> {
+                    NutritionAggregation partial = empty.emptyCopy();
+                    addAnalyses(context, partial, nutritionAnalysisRepository.findUnownedAnalyticsRows(
+                            context.startDateTime(), context.endDateTime()));
+                    return partial;
+                },
+                NutritionAggregation::merge);
+        return new AnalysisSnapshot(buckets, totals);
+    }
+
+    /**
+     * Entries with an owner come from the daily rollup; entries whose message was never linked to a user are few and
+     * are aggregated here, as is everything when the rollup is disabled.
+     */
+    private void addAnalyses(AnalyticsContext context, NutritionAggregation totals,
+            List<NutritionAnalyticsRow> analyses) {
+        for (NutritionAnalyticsRow analysis : analyses) {
+            if (analysis.createdAt() == null) {
                 continue;
             }
-            LocalDate date = createdAt.atZoneSameInstant(context.zoneId()).toLocalDate();
-            Bucket bucket = findBucket(buckets, date);
-            if (bucket == null) {
+            long epochDay = LocalDate.ofInstant(analysis.createdAt().toInstant(), context.zoneId()).toEpochDay();
+            if (totals.bucketOf(epochDay) < 0) {
                 continue;
             }
-
-            MacroTotals bucketTotals = macroByBucket.get(bucket);
-            bucketTotals.add(analysis);
-            totalMacros.add(analysis);
-
-            BigDecimal water = estimateWater(analysis);
-            if (water.signum() > 0) {
-                hydration.put(bucket, hydration.get(bucket).add(water));
-                totalWater = totalWater.add(water);
-            }
-
-            BigDecimal fiberValue = estimateFiber(analysis);
-            if (fiberValue.signum() > 0) {
-                fiber.put(bucket, fiber.get(bucket).add(fiberValue));
-                totalFiber = totalFiber.add(fiberValue);
+            totals.add(epochDay, 1, doubleValue(analysis.calories()), doubleValue(analysis.protein()),
+                    doubleValue(analysis.carbs()), doubleValue(analysis.fat()),
+                    nutritionEstimator.estimateFiber(analysis).doubleValue(),
+                    nutritionEstimator.estimateWater(analysis).doubleValue());
+            NutritionDayTotals.FoodQuantity food = nutritionEstimator.estimateFood(analysis);
+            if (food != null) {
+                totals.addFood(food.name(), food.unit(), food.quantity().doubleValue());
             }
+        }
+    }
 
-            FoodAggregate food = estimateFood(analysis);
-            if (food != null) {
-                String key = food.name().toLowerCase(Locale.ROOT) + "|" + food.unit();
-                foods.compute(key, (k, existing) -> {
-                    if (existing == null) {
-                        return food;
-                    }
-                    existing.add(food.quantity());
-                    return existing;
-                });
+    /** Bucket ordinal of every day of the range, so rows find their bucket without scanning the list. */
+    private int[] bucketOfDay(AnalyticsContext context, List<Bucket> buckets) {
+        int[] bucketOfDay = new int[context.rangeDays()];
+        Arrays.fill(bucketOfDay, -1);
+        long startEpochDay = context.startDate().toEpochDay();
+        for (int index = 0; index < buckets.size(); index++) {
+            Bucket bucket = buckets.get(index);
+            long from = Math.max(0, bucket.start().toEpochDay() - startEpochDay);
+            long to = Math.min(bucketOfDay.length - 1, bucket.end().toEpochDay() - startEpochDay);
+            for (long day = from; day <= to; day++) {
+                bucketOfDay[(int) day] = index;
             }
         }
+        return bucketOfDay;
+    }
 
-        return new AnalysisSnapshot(buckets, macroByBucket, totalMacros, hydration, totalWater, fiber, totalFiber,
-                foods);
+    private static double doubleValue(BigDecimal value) {
+        return value != null ? value.doubleValue() : 0d;
     }
 
-    private List<NutritionAnalysis> loadAnalyses(AnalyticsContext context) {
-        List<NutritionAnalysis> analyses = nutritionAnalysisRepository.findByCreatedAtBetween(
-                context.startDateTime(), context.endDateTime());
-        if (context.phones().isEmpty()) {
-            return analyses;
+    /**
+     * Analyses owned by the users in scope plus, for messages that were never linked to a user, those sent from one
+     * of their phones. Both lookups are filtered and projected in the database.
+     */
+    private List<NutritionAnalyticsRow> loadAnalyses(AnalyticsContext context) {
+        List<NutritionAnalyticsRow> analyses = new ArrayList<>();
+        if (!context.userIds().isEmpty()) {
+            analyses.addAll(nutritionAnalysisRepository.findAnalyticsRowsByOwners(
+                    context.userIds(), context.startDateTime(), context.endDateTime()));
         }
-        return analyses.stream()
-                .filter(analysis -> {
-                    WhatsAppMessage message = analysis.getMessage();
-                    if (message == null || !StringUtils.hasText(message.getFromPhone())) {
-                        return false;
-                    }
-                    String normalized = normalizePhone(message.getFromPhone());
-                    return StringUtils.hasText(normalized) && context.phones().contains(normalized);
-                })
-                .collect(Collectors.toList());
+        analyses.addAll(loadUnownedAnalyses(context));
+        return analyses;
+    }
+
+    private List<NutritionAnalyticsRow> loadUnownedAnalyses(AnalyticsContext context) {
+        if (!context.phones().isEmpty()) {
+            return nutritionAnalysisRepository.findUnownedAnalyticsRowsByPhones(
+                    context.phones(), context.startDateTime(), context.endDateTime());
+        }
+        return Collections.emptyList();
     }
 
     private Map<String, BigDecimal> computeTargets(AnalyticsContext context, List<NutritionGoal> goals) {
@@ -459,12 +525,13 @@ public class AnalyticsService {
 
     private Map<String, BigDecimal> computeAchievements(AnalysisSnapshot snapshot) {
         Map<String, BigDecimal> achieved = new LinkedHashMap<>();
-        achieved.put("protein", snapshot.totalMacros().protein());
-        achieved.put("carbs", snapshot.totalMacros().carbs());
-        achieved.put("fat", snapshot.totalMacros().fat());
-        achieved.put("calories", snapshot.totalMacros().calories());
-        achieved.put("water", snapshot.totalWater());
-        achieved.put("fiber", snapshot.totalFiber());
+        NutritionAggregation totals = snapshot.totals();
+        achieved.put("protein", scale(totals.totalProtein()));
+        achieved.put("carbs", scale(totals.totalCarbs()));
+        achieved.put("fat", scale(totals.totalFat()));
+        achieved.put("calories", scale(totals.totalCalories()));
+        achieved.put("water", scale(totals.totalWater()));
+        achieved.put("fiber", scale(totals.totalFiber()));
         return achieved;
     }
 
@@ -586,127 +653,6 @@ public class AnalyticsService {
         return userId != null && context.userIds().contains(userId);
     }
 
-    private BigDecimal estimateWater(NutritionAnalysis analysis) {
-        if (analysis == null) {
-            return BigDecimal.ZERO;
-        }
-        BigDecimal recorded = liquidVolumeToMilliliters(analysis);
-        if (recorded.compareTo(BigDecimal.ZERO) > 0) {
-            return recorded;
-        }
-        String source = String.join(" ",
-                Optional.ofNullable(analysis.getFoodName()).orElse(""),
-                Optional.ofNullable(analysis.getSummary()).orElse(""));
-        boolean hinted = containsKeyword(source, "water", "água", "agua", "drink", "hydration");
-        if (!hinted && analysis.getPrimaryCategory() != null) {
-            hinted = containsKeyword(
-                    Optional.ofNullable(analysis.getPrimaryCategory().getName()).orElse(""),
-                    "water", "hydration", "drink", "beverage");
-        }
-        if (!hinted) {
-            return BigDecimal.ZERO;
-        }
-        Matcher matcher = VOLUME_PATTERN.matcher(source);
-        if (matcher.find()) {
-            BigDecimal value = parseNumber(matcher.group(1));
-            String unit = matcher.group(2).toLowerCase(Locale.ROOT);
-            if (unit.startsWith("l") || unit.startsWith("lt")) {
-                return value.multiply(ONE_THOUSAND, MATH_CONTEXT);
-            }
-            return value;
-        }
-        return BigDecimal.valueOf(250);
-    }
-
-    private BigDecimal liquidVolumeToMilliliters(NutritionAnalysis analysis) {
-        if (analysis == null || analysis.getLiquidVolume() == null || analysis.getLiquidVolume().signum() <= 0) {
-            return BigDecimal.ZERO;
-        }
-        BigDecimal base = analysis.getLiquidVolume();
-        MeasurementUnits unit = analysis.getLiquidUnit();
-        if (unit == null) {
-            return base;
-        }
-        Double factor = unit.getConversionFactor();
-        if (factor != null && factor > 0) {
-            return base.multiply(BigDecimal.valueOf(factor), MATH_CONTEXT);
-        }
-        String code = unit.getCode() != null ? unit.getCode().toLowerCase(Locale.ROOT) : "";
-        return switch (code) {
-            case "l", "lt", "litre", "liter" -> base.multiply(ONE_THOUSAND, MATH_CONTEXT);
-            case "cup" -> base.multiply(BigDecimal.valueOf(240), MATH_CONTEXT);
-            case "tbsp" -> base.multiply(BigDecimal.valueOf(15), MATH_CONTEXT);
-            case "tsp" -> base.multiply(BigDecimal.valueOf(5), MATH_CONTEXT);
-            default -> base;
-        };
-    }
-
-    private BigDecimal estimateFiber(NutritionAnalysis analysis) {
-        if (analysis == null) {
-            return BigDecimal.ZERO;
-        }
-        String json = analysis.getCategoriesJson();
-        if (StringUtils.hasText(json)) {
-            try {
-                JsonNode node = objectMapper.readTree(json);
-                JsonNode fiber = node.has("fiber") ? node.get("fiber") : node.get("fiber_g");
-                if (fiber != null && fiber.isNumber()) {
-                    return BigDecimal.valueOf(fiber.asDouble());
-                }
-            } catch (JsonProcessingException ignored) {
-            }
-        }
-        String summary = analysis.getSummary();
-        if (StringUtils.hasText(summary)) {
-            Matcher matcher = FIBER_PATTERN.matcher(summary);
-            if (matcher.find()) {
-                return parseNumber(matcher.group(1));
-            }
-        }
-        return BigDecimal.ZERO;
-    }
-
-    private FoodAggregate estimateFood(NutritionAnalysis analysis) {
-        if (analysis == null || !StringUtils.hasText(analysis.getFoodName())) {
-            return null;
-        }
-        String source = String.join(" ",
-                Optional.ofNullable(analysis.getFoodName()).orElse(""),
-                Optional.ofNullable(analysis.getSummary()).orElse(""));
-
-        Matcher massMatcher = MASS_PATTERN.matcher(source);
-        if (massMatcher.find()) {
-            BigDecimal value = parseNumber(massMatcher.group(1));
-            String unit = massMatcher.group(2).toLowerCase(Locale.ROOT);
-            if (unit.startsWith("kg")) {
-                value = value.multiply(BigDecimal.valueOf(1000), MATH_CONTEXT);
-                unit = "g";
-            } else if (unit.startsWith("g")) {
-                unit = "g";
-            }
-            return new FoodAggregate(analysis.getFoodName(), unit, value);
-        }
-
-        Matcher volumeMatcher = VOLUME_PATTERN.matcher(source);
-        if (volumeMatcher.find()) {
-            BigDecimal value = parseNumber(volumeMatcher.group(1));
-            String unit = volumeMatcher.group(2).toLowerCase(Locale.ROOT);
-            if (unit.startsWith("l") || unit.startsWith("lt")) {
-                value = value.multiply(ONE_THOUSAND, MATH_CONTEXT);
-            }
-            return new FoodAggregate(analysis.getFoodName(), "ml", value);
-        }
-
-        BigDecimal macroSum = sumSafe(analysis.getProtein(), analysis.getCarbs(), analysis.getFat());
-        if (macroSum.compareTo(BigDecimal.ZERO) > 0) {
-            return new FoodAggregate(analysis.getFoodName(), "g", macroSum);
-        }
-        if (analysis.getCalories() != null) {
-            return new FoodAggregate(analysis.getFoodName(), "kcal", analysis.getCalories());
-        }
-        return null;
-    }
-
     private List<Bucket> buildBuckets(AnalyticsContext context) {
         List<Bucket> buckets = new ArrayList<>();
         LocalDate cursor;
@@ -746,15 +692,6 @@ public class AnalyticsService {
         return buckets;
     }
 
-    private Bucket findBucket(List<Bucket> buckets, LocalDate date) {
-        for (Bucket bucket : buckets) {
-            if (!date.isBefore(bucket.start()) && !date.isAfter(bucket.end())) {
-                return bucket;
-            }
-        }
-        return null;
-    }
-
     private BigDecimal parseWater(String text) {
         if (!StringUtils.hasText(text)) {
             return BigDecimal.ZERO;
@@ -787,43 +724,22 @@ public class AnalyticsService {
         }
     }
 
-    private boolean containsKeyword(String source, String... keywords) {
-        if (!StringUtils.hasText(source) || keywords == null) {
-            return false;
-        }
-        String normalized = source.toLowerCase(Locale.ROOT);
-        for (String keyword : keywords) {
-            if (keyword != null && normalized.contains(keyword.toLowerCase(Locale.ROOT))) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private BigDecimal sumSafe(BigDecimal... values) {
-        BigDecimal total = BigDecimal.ZERO;
-        if (values == null) {
-            return total;
-        }
-        for (BigDecimal value : values) {
-            if (value != null) {
-                total = total.add(value, MATH_CONTEXT);
-            }
-        }
-        return total;
-    }
-
     public Optional<DailyHydrationSummary> getTodayHydrationSummary(UUID userId) {
         if (userId == null) {
             return Optional.empty();
         }
         try {
-            AnalyticsContext context = buildContext(1, AnalyticsGroupBy.DAY.name(), userId);
+            if (todayNutritionState.isEnabled()) {
+                TodayNutritionState today = todayNutritionState.get(userId);
+                TodayNutritionTargets targets = today.targets(() -> computeTodayTargets(userId, today));
+                return Optional.of(new DailyHydrationSummary(targets.dailyWaterGoal(), today.consumed().water()));
+            }
+            AnalyticsContext context = todayContext(userId);
             List<NutritionGoal> goals = loadGoals(context);
             BigDecimal dailyTarget = computeDailyWaterTarget(context, goals);
             AnalysisSnapshot snapshot = analyze(context);
             BigDecimal goal = dailyTarget != null ? dailyTarget : BigDecimal.ZERO;
-            BigDecimal consumed = snapshot != null && snapshot.totalWater() != null ? snapshot.totalWater()
+            BigDecimal consumed = snapshot != null ? BigDecimal.valueOf(snapshot.totals().totalWater())
                     : BigDecimal.ZERO;
             return Optional.of(new DailyHydrationSummary(goal, consumed));
         } catch (JMException ex) {
@@ -849,7 +765,10 @@ public class AnalyticsService {
             return Optional.empty();
         }
         try {
-            AnalyticsContext context = buildContext(1, AnalyticsGroupBy.DAY.name(), userId);
+            if (todayNutritionState.isEnabled()) {
+                return Optional.of(todayNutritionSummary(userId));
+            }
+            AnalyticsContext context = todayContext(userId);
             List<NutritionGoal> goals = loadGoals(context);
             AnalysisSnapshot snapshot = analyze(context);
 
@@ -886,6 +805,39 @@ public class AnalyticsService {
         }
     }
 
+    /** Today in the user's own time zone, the day the cached state covers, for the uncached summaries. */
+    private AnalyticsContext todayContext(UUID userId) {
+        ZoneId zoneId = todayNutritionState.zoneOf(userId);
+        return buildContext(1, AnalyticsGroupBy.DAY.name(), userId, LocalDate.now(zoneId), zoneId);
+    }
+
+    /** Today's summary from the cached state: no query once the user's day has been loaded. */
+    private DailyNutritionSummary todayNutritionSummary(UUID userId) {
+        TodayNutritionState today = todayNutritionState.get(userId);
+        TodayNutritionTargets goals = today.targets(() -> computeTodayTargets(userId, today));
+        Map<String, BigDecimal> targets = goals.targets();
+        NutritionDayTotals consumed = today.consumed();
+        return new DailyNutritionSummary(today.day(),
+                targets.getOrDefault("protein", BigDecimal.ZERO), consumed.protein(),
+                targets.getOrDefault("carbs", BigDecimal.ZERO), consumed.carbs(),
+                targets.getOrDefault("fat", BigDecimal.ZERO), consumed.fat(),
+                targets.getOrDefault("fiber", BigDecimal.ZERO), consumed.fiber(),
+                targets.getOrDefault("water", BigDecimal.ZERO), consumed.water(),
+                targets.getOrDefault("calories", BigDecimal.ZERO), consumed.calories(),
+                goals.basalMetabolicRate());
+    }
+
+    private TodayNutritionTargets computeTodayTargets(UUID userId, TodayNutritionState today) {
+        AnalyticsContext context = buildContext(1, AnalyticsGroupBy.DAY.name(), userId, today.day(), today.zoneId());
+        List<NutritionGoal> goals = loadGoals(context);
+        BigDecimal dailyWaterGoal = computeDailyWaterTarget(context, goals);
+        BigDecimal basalMetabolicRate = anamnesisRepository.findTopByUserIdOrderByIdDesc(userId)
+                .map(Anamnesis::getBasalMetabolicRate)
+                .orElse(BigDecimal.ZERO);
+        return new TodayNutritionTargets(Collections.unmodifiableMap(computeTargets(context, goals)),
+                dailyWaterGoal != null ? dailyWaterGoal : BigDecimal.ZERO, basalMetabolicRate);
+    }
+
     public record DailyNutritionSummary(
             LocalDate date,
             BigDecimal proteinGoal,
@@ -937,11 +889,16 @@ public class AnalyticsService {
         return value.setScale(2, ROUNDING_MODE);
     }
 
-    private String normalizePhone(String phone) {
-        if (!StringUtils.hasText(phone)) {
-            return "";
+    private BigDecimal scale(double value) {
+        return BigDecimal.valueOf(value).setScale(2, ROUNDING_MODE);
+    }
+
+    private Set<AnalyticsSeries> parseSeries(Collection<String> seriesValues) {
+        try {
+            return AnalyticsSeries.from(seriesValues);
+        } catch (IllegalArgumentException ex) {
+            throw exception(ProblemType.ANALYTICS_INVALID_SERIES, HttpStatus.BAD_REQUEST, ex.getMessage());
         }
-        return phone.replaceAll("\\D", "");
     }
 
     private JMException forbidden() {
@@ -953,8 +910,12 @@ public class AnalyticsService {
     }
 
     private JMException exception(ProblemType type, HttpStatus status) {
+        return exception(type, status, "");
+    }
+
+    private JMException exception(ProblemType type, HttpStatus status, Object argument) {
         Locale locale = LocaleContextHolder.getLocale();
-        String message = messageSource.getMessage(type.getMessageSource(), new Object[] { "" }, locale);
+        String message = messageSource.getMessage(type.getMessageSource(), new Object[] { argument }, locale);
         return new JMException(status.value(), type.getTitle(), type.getUri(), message);
     }
 
@@ -987,121 +948,6 @@ public class AnalyticsService {
         }
     }
 
-    private static final class MacroTotals {
-        private BigDecimal protein = BigDecimal.ZERO;
-        private BigDecimal carbs = BigDecimal.ZERO;
-        private BigDecimal fat = BigDecimal.ZERO;
-        private BigDecimal calories = BigDecimal.ZERO;
-
-        void add(NutritionAnalysis analysis) {
-            if (analysis == null) {
-                return;
-            }
-            protein = protein.add(defaultValue(analysis.getProtein()), MATH_CONTEXT);
-            carbs = carbs.add(defaultValue(analysis.getCarbs()), MATH_CONTEXT);
-            fat = fat.add(defaultValue(analysis.getFat()), MATH_CONTEXT);
-            calories = calories.add(defaultValue(analysis.getCalories()), MATH_CONTEXT);
-        }
-
-        private BigDecimal defaultValue(BigDecimal value) {
-            return value != null ? value : BigDecimal.ZERO;
-        }
-
-        BigDecimal protein() {
-            return protein;
-        }
-
-        BigDecimal carbs() {
-            return carbs;
-        }
-
-        BigDecimal fat() {
-            return fat;
-        }
-
-        BigDecimal calories() {
-            return calories;
-        }
-    }
-
-    private static final class FoodAggregate {
-        private final String name;
-        private final String unit;
-        private BigDecimal quantity;
-
-        FoodAggregate(String name, String unit, BigDecimal quantity) {
-            this.name = name;
-            this.unit = unit;
-            this.quantity = quantity == null ? BigDecimal.ZERO : quantity;
-        }
-
-        String name() {
-            return name;
-        }
-
-        String unit() {
-            return unit;
-        }
-
-        BigDecimal quantity() {
-            return quantity;
-        }
-
-        void add(BigDecimal amount) {
-            if (amount != null) {
-                quantity = quantity.add(amount, MATH_CONTEXT);
-            }
-        }
-    }
-
-    private record AnalysisSnapshot(
-            List<Bucket> buckets,
-            Map<Bucket, MacroTotals> macroByBucket,
-            MacroTotals totalMacros,
-            Map<Bucket, BigDecimal> hydrationByBucket,
-            BigDecimal totalWater,
-            Map<Bucket, BigDecimal> fiberByBucket,
-            BigDecimal totalFiber,
-            Map<String, FoodAggregate> foods) {
-    }
-
-    private static final class BodyAggregate {
-        private BigDecimal weight = BigDecimal.ZERO;
-        private BigDecimal bmi = BigDecimal.ZERO;
-        private BigDecimal fat = BigDecimal.ZERO;
-        private BigDecimal muscle = BigDecimal.ZERO;
-        private int count;
-
-        void add(BigDecimal weightKg, BigDecimal bmiValue, BigDecimal fatPct, BigDecimal musclePct) {
-            if (weightKg != null) {
-                weight = weight.add(weightKg, MATH_CONTEXT);
-            }
-            if (bmiValue != null) {
-                bmi = bmi.add(bmiValue, MATH_CONTEXT);
-            }
-            if (fatPct != null) {
-                fat = fat.add(fatPct, MATH_CONTEXT);
-            }
-            if (musclePct != null) {
-                muscle = muscle.add(musclePct, MATH_CONTEXT);
-            }
-            count++;
-        }
-
-        BigDecimal weightAvg() {
-            return count == 0 ? BigDecimal.ZERO : weight.divide(BigDecimal.valueOf(count), MATH_CONTEXT);
-        }
-
-        BigDecimal bmiAvg() {
-            return count == 0 ? BigDecimal.ZERO : bmi.divide(BigDecimal.valueOf(count), MATH_CONTEXT);
-        }
-
-        BigDecimal fatAvg() {
-            return count == 0 ? BigDecimal.ZERO : fat.divide(BigDecimal.valueOf(count), MATH_CONTEXT);
-        }
-
-        BigDecimal muscleAvg() {
-            return count == 0 ? BigDecimal.ZERO : muscle.divide(BigDecimal.valueOf(count), MATH_CONTEXT);
-        }
+    private record AnalysisSnapshot(List<Bucket> buckets, NutritionAggregation totals) {
     }
 }
@@ -17,6 +17,8 @@ import com.jm.repository.CountryRepository;
 import com.jm.repository.EducationLevelRepository;
 import com.jm.repository.ProfessionRepository;
 import com.jm.repository.UserRepository;
+import com.jm.services.analytics.BodyMetricsService;
+import com.jm.services.analytics.TodayNutritionStateCache;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
@@ -55,12 +57,15 @@ public class AnamnesisService {
     private final PathologyService pathologyService;
     private final MeasurementUnitService measurementUnitService;
     private final BiochemicalExamService biochemicalExamService;
+    private final TodayNutritionStateCache todayNutritionState;
+    private final BodyMetricsService bodyMetrics;
 
     public AnamnesisService(AnamnesisRepository repository, AnamnesisMapper mapper, MessageSource messageSource,
             UserService userService, CityService cityService, EducationLevelService educationLevelService,
             ProfessionService professionService, FoodService foodService, CountryService countryService,
             PathologyService pathologyService, MeasurementUnitService measurementUnitService,
-            BiochemicalExamService biochemicalExamService) {
+            BiochemicalExamService biochemicalExamService, TodayNutritionStateCache todayNutritionState,
+            BodyMetricsService bodyMetrics) {
         this.repository = repository;
         this.mapper = mapper;
         this.messageSource = messageSource;
@@ -73,6 +78,8 @@ public class AnamnesisService {
         this.pathologyService = pathologyService;
         this.measurementUnitService = measurementUnitService;
         this.biochemicalExamService = biochemicalExamService;
+        this.todayNutritionState = todayNutritionState;
+        this.bodyMetrics = bodyMetrics;
     }
 
     public Page<AnamnesisDTO> findAll(Pageable pageable, AnamnesisDTO filter) {
@@ -108,8 +115,10 @@ public class AnamnesisService {
         entity.setUser(user);
         applyPatientData(user, dto);
 
-        Anamnesis saved = repository.save(entity);
+        Anamnesis saved = repository.saveAndFlush(entity);
+        bodyMetrics.record(saved.getId());
         userService.createUser(user);
+        todayNutritionState.goalsChanged(user.getId());
         Locale locale = LocaleContextHolder.getLocale();
         String message = messageSource.getMessage("anamnesis.saved", new Object[] { "" }, locale);
         logger.debug("{} - {}", message, saved.getId());
@@ -131,7 +140,10 @@ public class AnamnesisService {
                     messageDetails);
         }
 
-        repository.findById(dto.getId()).orElseThrow(this::anamnesisNotFound);
+        Anamnesis existing = repository.findById(dto.getId()).orElseThrow(this::anamnesisNotFound);
+        if (existing.getUser() != null && !existing.getUser().getId().equals(dto.getUserId())) {
+            todayNutritionState.goalsChanged(existing.getUser().getId());
+        }
         return create(dto);
     }
 
@@ -139,6 +151,7 @@ public class AnamnesisService {
     public void delete(UUID id) {
         Anamnesis entity = repository.findById(id).orElseThrow(this::anamnesisNotFound);
         repository.delete(entity);
+        todayNutritionState.goalsChanged(entity.getUser() != null ? entity.getUser().getId() : null);
         Locale locale = LocaleContextHolder.getLocale();
         String message = messageSource.getMessage("anamnesis.deleted", new Object[] { "" }, locale);
         logger.debug("{} - {}", message, id);
@@ -20,8 +20,11 @@ import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -33,57 +36,119 @@ public class CloudflareR2Service {
     private final S3Client s3Client;
     private final ImageService imageService;
     private final UserService userService;
+    private final ImagePreprocessingService imagePreprocessingService;
 
     @Value("${cloudflare.r2.bucket-name}")
     private String bucketName;
     @Value("${cloudflare.r2.public-url}")
     private String publicUrl;
 
-    public CloudflareR2Service(S3Client s3Client, ImageService imageService, UserService userService) {
+    public CloudflareR2Service(S3Client s3Client, ImageService imageService, UserService userService,
+            ImagePreprocessingService imagePreprocessingService) {
         this.s3Client = s3Client;
         this.imageService = imageService;
         this.userService = userService;
+        this.imagePreprocessingService = imagePreprocessingService;
     }
 
     public ImageDTO uploadFile(@RequestParam("file") MultipartFile file, @RequestParam("userId") UUID userId) {
         try {
+            logger.info("Starting to uploading file: {}", file.getOriginalFilename());
+            try (InputStream content = file.getInputStream()) {
+                return putAndRegister(userId, file.getOriginalFilename(), file.getContentType(), file.getSize(),
+                        RequestBody.fromInputStream(content, file.getSize()));
+            }
+        } catch (Exception e) {
+            throw uploadFailed(e);
+        }
 
-            UserDTO userDTO = userService.findById(userId);
+    }
 
-            logger.info("Starting to uploading file: {}", file.getOriginalFilename());
-            String fileName = generateFileName(file.getOriginalFilename(), userDTO.getId());
-            String key = (userDTO.getId() != null) ? userDTO.getId() + "/" + fileName : fileName;
+    /**
+     * Streams {@code content} straight into R2 without buffering it; {@code contentLength} must be exact.
+     */
+    public ImageDTO uploadStream(InputStream content, long contentLength, String originalFileName, String contentType,
+            UUID userId) {
+        try {
+            logger.info("Starting to stream file: {} ({} bytes)", originalFileName, contentLength);
+            return putAndRegister(userId, originalFileName, contentType, contentLength,
+                    RequestBody.fromInputStream(content, contentLength));
+        } catch (Exception e) {
+            throw uploadFailed(e);
+        }
+    }
 
-            /* Faz o upload do file */
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder().bucket(bucketName).key(key)
-                    .contentType(file.getContentType()).contentLength(file.getSize()).build();
+    /**
+     * Stores a derived rendition (e.g. a thumbnail) of an uploaded object under {@code <owner>/<variant>/<file>}.
+     * Derived objects are not registered as images of their own.
+     *
+     * @return the public URL of the stored object
+     */
+    public String uploadDerivative(String sourceKey, String variant, byte[] content, String contentType) {
+        try {
+            int separator = sourceKey.lastIndexOf('/');
+            String key = separator >= 0
+                    ? sourceKey.substring(0, separator) + "/" + variant + sourceKey.substring(separator)
+                    : variant + "/" + sourceKey;
+            s3Client.putObject(PutObjectRequest.builder().bucket(bucketName).key(key).contentType(contentType)
+                    .contentLength((long) content.length).build(), RequestBody.fromBytes(content));
+            return publicUrl + "/" + key;
+        } catch (Exception e) {
+            throw uploadFailed(e);
+        }
+    }
 
-            s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+    private ImageDTO putAndRegister(UUID userId, String originalFileName, String contentType, long contentLength,
+            RequestBody body) {
+        UserDTO userDTO = userService.findById(userId);
 
-            ImageDTO imageDTO = imageService
-                    .save(ImageDTO.builder()
-                            .fileName(fileName)
-                            .url(publicUrl + "/" + userDTO.getId() + "/" + fileName)
-                            .userId(userDTO.getId())
-                            .fileKey(key)
-                            .build());
+        String fileName = generateFileName(originalFileName, userDTO.getId());
+        String key = (userDTO.getId() != null) ? userDTO.getId() + "/" + fileName : fileName;
 
-            imageDTO.setFileKey(key);
-            return imageDTO;
+        /* Faz o upload do file */
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder().bucket(bucketName).key(key)
+                .contentType(contentType).contentLength(contentLength).build();
 
-        } catch (Exception e) {
-            logger.info("Error to uploading file: {}", e.getMessage());
-            ProblemType problemType = ProblemType.ERROR_UPLOAD_FILE;
-            throw new JMException(HttpStatus.BAD_REQUEST.value(), problemType.getUri(), problemType.getTitle(),
-                    "Error to uploading file: " + e.getMessage());
-        }
+        s3Client.putObject(putObjectRequest, body);
+
+        ImageDTO imageDTO = imageService
+                .save(ImageDTO.builder()
+                        .fileName(fileName)
+                        .url(publicUrl + "/" + userDTO.getId() + "/" + fileName)
+                        .userId(userDTO.getId())
+                        .fileKey(key)
+                        .build());
+
+        imageDTO.setFileKey(key);
+        return imageDTO;
+    }
 
+    private JMException uploadFailed(Exception e) {
+        logger.info("Error to uploading file: {}", e.getMessage());
+        ProblemType problemType = ProblemType.ERROR_UPLOAD_FILE;
+        return new JMException(HttpStatus.BAD_REQUEST.value(), problemType.getUri(), problemType.getTitle(),
+                "Error to uploading file: " + e.getMessage());
     }
 
     /* Upload de imagem com otimização */
     public ImageDTO uploadImage(MultipartFile imageFile, UUID userId) throws IOException {
-        /* Aqui você pode adicionar compressão de imagem se necessário */
-        return uploadFile(imageFile, userId);
+        Optional<ImagePreprocessingService.Variant> stored = imagePreprocessingService
+                .storageVariant(imageFile.getBytes(), imageFile.getContentType());
+        if (stored.isEmpty()) {
+            return uploadFile(imageFile, userId);
+        }
+        ImagePreprocessingService.Variant variant = stored.get();
+        return uploadStream(new ByteArrayInputStream(variant.data()), variant.data().length,
+                toJpegName(imageFile.getOriginalFilename()), variant.mimeType(), userId);
+    }
+
+    /** Name for the JPEG storage variant of {@code fileName}; the original extension no longer matches the bytes. */
+    public static String toJpegName(String fileName) {
+        if (!StringUtils.hasText(fileName)) {
+            return UUID.randomUUID() + ".jpg";
+        }
+        int extension = fileName.lastIndexOf('.');
+        return (extension > 0 ? fileName.substring(0, extension) : fileName) + ".jpg";
     }
 
     public byte[] downloadFile(@PathVariable UUID userId, @PathVariable String fileName) {
@@ -100,6 +165,18 @@ public class CloudflareR2Service {
         }
     }
 
+    public byte[] downloadByKey(String key) {
+        try {
+            GetObjectRequest getObjectRequest = GetObjectRequest.builder().bucket(bucketName).key(key).build();
+            return s3Client.getObjectAsBytes(getObjectRequest).asByteArray();
+        } catch (Exception e) {
+            logger.info("Error to download file {}: {}", key, e.getMessage());
+            ProblemType problemType = ProblemType.ERROR_DOWNLOAD_FILE;
+            throw new JMException(HttpStatus.BAD_REQUEST.value(), problemType.getUri(), problemType.getTitle(),
+                    "Error to download file: " + e.getMessage());
+        }
+    }
+
     public MultipartFile toMultipartFile(byte[] bytes, String filename, String contentType) {
         return new ByteArrayMultipartFile(bytes, "file", filename, contentType);
     }
@@ -1,7 +1,9 @@
 package com.jm.services;
 
 
+import com.jm.configuration.config.HttpClientConfig;
 import com.jm.dto.ChatResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -27,7 +29,7 @@ public class DeepSeekService {
     @Value("${deepseek.api.key}")
     private String apiKey;
 
-    public DeepSeekService(RestTemplate restTemplate) {
+    public DeepSeekService(@Qualifier(HttpClientConfig.DEEPSEEK_REST_TEMPLATE) RestTemplate restTemplate) {
         this.restTemplate = restTemplate;
         this.objectMapper = new ObjectMapper();
     }
@@ -1,11 +1,16 @@
 package com.jm.services;
 
 
+import com.jm.configuration.config.HttpClientConfig;
+import com.jm.dto.Candidate;
+import com.jm.dto.Content;
 import com.jm.dto.GeminiImageRequest;
 import com.jm.dto.GeminiRequest;
 import com.jm.dto.GeminiResponse;
+import com.jm.dto.ImageData;
 import com.jm.execption.JMException;
 import com.jm.execption.ProblemType;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
@@ -13,9 +18,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 @Service
 public class GeminiService {
@@ -28,8 +36,9 @@ public class GeminiService {
     @Value("${gemini.api.url}")
     private String textApiUrl;
 
-    public GeminiService(WebClient.Builder webClientBuilder, MessageSource messageSource) {
-        this.webClient = webClientBuilder.build();
+    public GeminiService(@Qualifier(HttpClientConfig.GEMINI_WEB_CLIENT) WebClient webClient,
+            MessageSource messageSource) {
+        this.webClient = webClient;
         this.messageSource = messageSource;
     }
 
@@ -56,7 +65,60 @@ public class GeminiService {
     public Mono<String> generateTextFromImage(String prompt, byte[] imageBytes, String mimeType) {
         /* Converter a imagem para Base64 */
         String base64Image = java.util.Base64.getEncoder().encodeToString(imageBytes);
-        GeminiImageRequest request = GeminiImageRequest.forImageAndText(prompt, base64Image, mimeType);
+        return postImageRequest(GeminiImageRequest.forImageAndText(prompt, base64Image, mimeType));
+    }
+
+    /** Sends several images in a single request so the prompt is paid once for the whole set. */
+    public Mono<String> generateTextFromImages(String prompt, List<ImageData> images) {
+        return postImageRequest(GeminiImageRequest.forImagesAndText(prompt, images));
+    }
+
+    /**
+     * Streams the answer to a text prompt through {@code streamGenerateContent}; each element is the text of one
+     * server-sent event.
+     */
+    public Flux<String> streamTextFromPrompt(String prompt) {
+        return streamRequest(GeminiRequest.forText(prompt));
+    }
+
+    public Flux<String> streamTextFromImage(String prompt, byte[] imageBytes, String mimeType) {
+        String base64Image = java.util.Base64.getEncoder().encodeToString(imageBytes);
+        return streamRequest(GeminiImageRequest.forImageAndText(prompt, base64Image, mimeType));
+    }
+
+    public Flux<String> streamTextFromImages(String prompt, List<ImageData> images) {
+        return streamRequest(GeminiImageRequest.forImagesAndText(prompt, images));
+    }
+
+    private Flux<String> streamRequest(Object request) {
+        return webClient.post()
+                .uri(streamApiUrl(), uriBuilder -> uriBuilder.build(apiKey))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(request)
+                .retrieve()
+                .bodyToFlux(GeminiResponse.class)
+                .mapNotNull(response -> firstText(response).orElse(null));
+    }
+
+    /** The configured {@code generateContent} endpoint switched to its server-sent-events streaming variant. */
+    private String streamApiUrl() {
+        String url = textApiUrl.replace(":generateContent", ":streamGenerateContent");
+        return url + (url.contains("?") ? "&" : "?") + "alt=sse";
+    }
+
+    private static Optional<String> firstText(GeminiResponse response) {
+        return Optional.ofNullable(response)
+                .map(GeminiResponse::getCandidates)
+                .filter(candidates -> !candidates.isEmpty())
+                .map(List::getFirst)
+                .map(Candidate::getContent)
+                .map(Content::getParts)
+                .filter(parts -> !parts.isEmpty())
+                .map(parts -> parts.getFirst().getText());
+    }
+
+    private Mono<String> postImageRequest(GeminiImageRequest request) {
         ProblemType problemType = ProblemType.ERROR_GEMINI;
         String messageDetails = messageSource.getMessage(problemType.getMessageSource(), new Object[]{""}, LocaleContextHolder.getLocale());
 
@@ -0,0 +1,186 @@
+package com.jm.services;
+
+import com.jm.configuration.config.AsyncConfig;
+import com.jm.configuration.config.ImagePreprocessingProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC1;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_COLOR;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMWRITE_JPEG_QUALITY;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imdecode;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imencode;
+import static org.bytedeco.opencv.global.opencv_imgproc.INTER_AREA;
+import static org.bytedeco.opencv.global.opencv_imgproc.resize;
+
+/**
+ * Decodes a photo once and produces JPEG variants for the vision model, for storage and as a thumbnail. The work
+ * runs on the bounded image executor so decoding never occupies more threads than it was given; callers wait for
+ * the result. Anything OpenCV cannot decode is reported as empty and callers keep the original bytes.
+ */
+@Service
+public class ImagePreprocessingService {
+
+    public static final String JPEG = "image/jpeg";
+
+    private static final Logger logger = LoggerFactory.getLogger(ImagePreprocessingService.class);
+
+    private final ImagePreprocessingProperties properties;
+    private final TaskExecutor executor;
+    private final Timer duration;
+    private final DistributionSummary inputBytes;
+    private final DistributionSummary analysisBytes;
+    private final DistributionSummary storageBytes;
+
+    public ImagePreprocessingService(ImagePreprocessingProperties properties,
+            @Qualifier(AsyncConfig.IMAGE_PROCESSING_EXECUTOR) TaskExecutor executor, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.executor = executor;
+        this.duration = Timer.builder("images.preprocessing.duration")
+                .description("Time spent decoding and re-encoding an image")
+                .register(meterRegistry);
+        this.inputBytes = sizes(meterRegistry, "original");
+        this.analysisBytes = sizes(meterRegistry, "analysis");
+        this.storageBytes = sizes(meterRegistry, "storage");
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /** All three variants from a single decode. */
+    public Optional<ProcessedImage> process(byte[] original, String mimeType) {
+        return submit(original, mimeType, decoded -> {
+            Mat storage = fit(decoded, properties.getStorage().getMaxEdge());
+            Mat analysis = fit(storage, properties.getAnalysis().getMaxEdge());
+            Mat thumbnail = fit(analysis, properties.getThumbnail().getMaxEdge());
+            ProcessedImage processed = new ProcessedImage(
+                    encode(analysis, decoded, original, mimeType, properties.getAnalysis()),
+                    encode(storage, decoded, original, mimeType, properties.getStorage()),
+                    encode(thumbnail, decoded, original, mimeType, properties.getThumbnail()));
+            analysisBytes.record(processed.analysis().data().length);
+            storageBytes.record(processed.storage().data().length);
+            return processed;
+        });
+    }
+
+    /** The model-sized variant only, for images that did not go through {@link #process} on the way in. */
+    public Optional<Variant> analysisVariant(byte[] original, String mimeType) {
+        return submit(original, mimeType, decoded -> encode(fit(decoded, properties.getAnalysis().getMaxEdge()),
+                decoded, original, mimeType, properties.getAnalysis()));
+    }
+
+    /** The storage variant only, for uploads that bypass the WhatsApp pipeline. */
+    public Optional<Variant> storageVariant(byte[] original, String mimeType) {
+        return submit(original, mimeType, decoded -> encode(fit(decoded, properties.getStorage().getMaxEdge()),
+                decoded, original, mimeType, properties.getStorage()));
+    }
+
+    private <T> Optional<T> submit(byte[] original, String mimeType, Function<Mat, T> render) {
+        if (!properties.isEnabled() || original == null || original.length == 0) {
+            return Optional.empty();
+        }
+        FutureTask<Optional<T>> task = new FutureTask<>(() -> decodeAndRender(original, render));
+        try {
+            executor.execute(task);
+            return task.get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            /* Drops the task if it is still queued and interrupts it otherwise, so it stops holding a pool thread. */
+            task.cancel(true);
+            logger.warn("Image preprocessing timed out after {} for {} ({} bytes); keeping the original",
+                    properties.getTimeout(), mimeType, original.length);
+            return Optional.empty();
+        } catch (ExecutionException | RejectedExecutionException ex) {
+            logger.warn("Image preprocessing failed for {} ({} bytes); keeping the original", mimeType,
+                    original.length, ex);
+            return Optional.empty();
+        } catch (InterruptedException ex) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private <T> Optional<T> decodeAndRender(byte[] original, Function<Mat, T> render) {
+        long startedAt = System.nanoTime();
+        try (PointerScope scope = new PointerScope()) {
+            Mat decoded = imdecode(new Mat(1, original.length, CV_8UC1, new BytePointer(original)), IMREAD_COLOR);
+            if (decoded == null || decoded.empty() || Thread.currentThread().isInterrupted()) {
+                return Optional.empty();
+            }
+            inputBytes.record(original.length);
+            return Optional.of(render.apply(decoded));
+        } finally {
+            duration.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Mat fit(Mat image, int maxEdge) {
+        int longest = Math.max(image.cols(), image.rows());
+        if (maxEdge <= 0 || longest <= maxEdge) {
+            return image;
+        }
+        double scale = (double) maxEdge / longest;
+        Mat resized = new Mat();
+        resize(image, resized, new Size(Math.max(1, (int) Math.round(image.cols() * scale)),
+                Math.max(1, (int) Math.round(image.rows() * scale))), 0, 0, INTER_AREA);
+        return resized;
+    }
+
+    /**
+     * Encodes {@code image} as JPEG. A JPEG original that needed no resizing is kept when re-encoding would not make
+     * it smaller.
+     */
+    private Variant encode(Mat image, Mat decoded, byte[] original, String mimeType,
+            ImagePreprocessingProperties.Variant settings) {
+        BytePointer buffer = new BytePointer();
+        int quality = Math.min(100, Math.max(1, settings.getQuality()));
+        if (!imencode(".jpg", image, buffer, new IntPointer(IMWRITE_JPEG_QUALITY, quality))) {
+            throw new IllegalStateException("Unable to encode image as JPEG");
+        }
+        byte[] encoded = new byte[(int) buffer.limit()];
+        buffer.get(encoded);
+        if (image == decoded && isJpeg(mimeType) && encoded.length >= original.length) {
+            return new Variant(original, JPEG, image.cols(), image.rows());
+        }
+        return new Variant(encoded, JPEG, image.cols(), image.rows());
+    }
+
+    private boolean isJpeg(String mimeType) {
+        return mimeType != null && mimeType.toLowerCase(Locale.ROOT).startsWith("image/jp");
+    }
+
+    private static DistributionSummary sizes(MeterRegistry meterRegistry, String variant) {
+        return DistributionSummary.builder("images.preprocessing.bytes")
+                .description("Size of images before and after preprocessing")
+                .baseUnit("bytes")
+                .tag("variant", variant)
+                .register(meterRegistry);
+    }
+
+    public record Variant(byte[] data, String mimeType, int width, int height) {
+    }
+
+    public record ProcessedImage(Variant analysis, Variant storage, Variant thumbnail) {
+    }
+}
@@ -20,6 +20,7 @@ import com.jm.repository.MeasurementUnitRepository;
 import com.jm.repository.NutritionGoalRepository;
 import com.jm.repository.NutritionGoalTemplateRepository;
 import com.jm.repository.UserRepository;
+import com.jm.services.analytics.TodayNutritionStateCache;
 import com.jm.speciation.NutritionGoalSpecification;
 import com.jm.utils.SecurityUtils;
 import org.slf4j.Logger;
@@ -62,16 +63,18 @@ public class NutritionGoalService {
     private final MeasurementUnitRepository measurementUnitRepository;
     private final UserRepository userRepository;
     private final MessageSource messageSource;
+    private final TodayNutritionStateCache todayNutritionState;
 
     public NutritionGoalService(NutritionGoalRepository repository, NutritionGoalMapper mapper,
             NutritionGoalTemplateRepository templateRepository, MeasurementUnitRepository measurementUnitRepository,
-            UserRepository userRepository, MessageSource messageSource) {
+            UserRepository userRepository, MessageSource messageSource, TodayNutritionStateCache todayNutritionState) {
         this.repository = repository;
         this.mapper = mapper;
         this.templateRepository = templateRepository;
         this.measurementUnitRepository = measurementUnitRepository;
         this.userRepository = userRepository;
         this.messageSource = messageSource;
+        this.todayNutritionState = todayNutritionState;
     }
 
     @Transactional(readOnly = true)
@@ -109,6 +112,7 @@ public class NutritionGoalService {
         NutritionGoal entity = repository.findById(id).orElseThrow(this::goalNotFound);
         enforceOwnership(entity);
         repository.delete(entity);
+        todayNutritionState.goalsChanged(ownerId(entity));
         logger.debug("{} - {}", getMessage("goal.deleted"), id);
     }
 
@@ -198,6 +202,7 @@ public class NutritionGoalService {
         goals.add(fatGoal);
 
         List<NutritionGoal> saved = repository.saveAll(goals);
+        todayNutritionState.goalsChanged(user.getId());
         logger.debug("Calculated AI nutrition goals for user {}", user.getId());
 
         List<NutritionGoalDTO> result = saved.stream().map(mapper::toDTO).collect(Collectors.toList());
@@ -243,9 +248,11 @@ public class NutritionGoalService {
         }
 
         NutritionGoal entity;
+        UUID previousOwnerId = null;
         if (updating) {
             entity = repository.findById(dto.getId()).orElseThrow(this::goalNotFound);
             enforceOwnership(entity);
+            previousOwnerId = ownerId(entity);
             mapper.updateEntityFromDto(dto, entity);
         } else {
             entity = mapper.toEntity(dto);
@@ -286,6 +293,10 @@ public class NutritionGoalService {
         }
 
         NutritionGoal saved = repository.save(entity);
+        todayNutritionState.goalsChanged(ownerId(saved));
+        if (previousOwnerId != null && !previousOwnerId.equals(ownerId(saved))) {
+            todayNutritionState.goalsChanged(previousOwnerId);
+        }
         logger.debug("{} - {}", getMessage("goal.saved"), saved.getId());
         return mapper.toDTO(saved);
     }
@@ -447,6 +458,10 @@ public class NutritionGoalService {
         return format.format(Math.round(value));
     }
 
+    private static UUID ownerId(NutritionGoal goal) {
+        return goal.getCreatedBy() != null ? goal.getCreatedBy().getId() : null;
+    }
+
     private void applyOwner(NutritionGoalDTO dto, NutritionGoal entity) {
         UUID ownerId = dto.getCreatedByUserId();
         if (isClient()) {
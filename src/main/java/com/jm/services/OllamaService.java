@@ -2,16 +2,21 @@
 package com.jm.services;
 
 import com.flickr4java.flickr.people.User;
+import com.jm.configuration.config.HttpClientConfig;
 import com.jm.dto.OllamaDTO;
 import com.jm.dto.OllamaRequestDTO;
 import com.jm.dto.OllamaResponseDTO;
 import com.jm.entity.Ollama;
+import com.jm.enums.AiProvider;
 import com.jm.enums.OllamaStatus;
 import com.jm.events.OllamaRequestEvent;
 import com.jm.execption.JMException;
 import com.jm.execption.ProblemType;
 import com.jm.mappers.OllamaMapper;
 import com.jm.repository.OllamaRepository;
+import com.jm.services.ai.AiAdmissionControl;
+import com.jm.services.ai.AiCallRejectedException;
+import com.jm.services.ai.AiRequestType;
 import com.stripe.model.tax.Registration.CountryOptions.Us;
 
 import lombok.AllArgsConstructor;
@@ -19,14 +24,18 @@ import lombok.AllArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.Base64;
@@ -46,33 +55,63 @@ public class OllamaService {
     private final ApplicationEventPublisher eventPublisher;
     private final OllamaMapper mapper;
     private final UserService userService;
+    private final AiAdmissionControl admission;
 
-    public OllamaService(OllamaRepository repository, MessageSource messageSource, WebClient.Builder webClientBuilder,
-            ApplicationEventPublisher eventPublisher, OllamaMapper mapper, UserService userService) {
+    public OllamaService(OllamaRepository repository, MessageSource messageSource,
+            @Qualifier(HttpClientConfig.OLLAMA_WEB_CLIENT) WebClient webClient,
+            ApplicationEventPublisher eventPublisher, OllamaMapper mapper, UserService userService,
+            AiAdmissionControl admission) {
         this.userService = userService;
+        this.admission = admission;
         this.mapper = mapper;
         this.repository = repository;
         this.messageSource = messageSource;
-        this.webClient = webClientBuilder.build();
+        this.webClient = webClient;
         this.eventPublisher = eventPublisher;
     }
 
+    /** Generates through the Ollama admission limits; a rejection is rethrown as is so it maps to a 503. */
     public OllamaResponseDTO generate(OllamaRequestDTO request) {
         try {
             logger.info("Sending prompt to Ollama model: {}", request.getModel());
-            return sendPrompt(request);
+            return admission.admit(AiProvider.OLLAMA, request.getModel(), requestType(request),
+                    sendPromptAsync(request)).block();
+        } catch (AiCallRejectedException e) {
+            throw e;
         } catch (Exception e) {
             throw externalError(e, "Ollama");
         }
     }
 
+    /** {@link #streamPrompt} behind the Ollama admission limits; the slot is held until the stream ends. */
+    public Flux<OllamaResponseDTO> generateStream(OllamaRequestDTO request) {
+        return admission.admitMany(AiProvider.OLLAMA, request.getModel(), requestType(request),
+                streamPrompt(request));
+    }
+
     public OllamaResponseDTO sendPrompt(OllamaRequestDTO request) {
+        return sendPromptAsync(request).block();
+    }
+
+    /** Asks for the whole answer in one response; nothing is sent until the result is subscribed. */
+    public Mono<OllamaResponseDTO> sendPromptAsync(OllamaRequestDTO request) {
+        request.setStream(Boolean.FALSE);
         return webClient.post()
                 .uri(baseUrl + "/api/generate")
                 .bodyValue(request)
                 .retrieve()
-                .bodyToMono(OllamaResponseDTO.class)
-                .block();
+                .bodyToMono(OllamaResponseDTO.class);
+    }
+
+    /** Generates with {@code stream=true}: one NDJSON object per token group, the last one marked {@code done}. */
+    public Flux<OllamaResponseDTO> streamPrompt(OllamaRequestDTO request) {
+        request.setStream(Boolean.TRUE);
+        return webClient.post()
+                .uri(baseUrl + "/api/generate")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(request)
+                .retrieve()
+                .bodyToFlux(OllamaResponseDTO.class);
     }
 
     public OllamaDTO createAndDispatchRequest(OllamaRequestDTO ollama) {
@@ -120,6 +159,11 @@ public class OllamaService {
         }
     }
 
+    private static AiRequestType requestType(OllamaRequestDTO request) {
+        return request.getImages() != null && !request.getImages().isEmpty() ? AiRequestType.IMAGE
+                : AiRequestType.TEXT;
+    }
+
     private JMException externalError(Exception e, String serviceName) {
         String message = msgArgs(ProblemType.EXTERNAL_SERVICE_ERROR.getMessageSource(), serviceName);
         return new JMException(HttpStatus.BAD_GATEWAY.value(),
@@ -0,0 +1,99 @@
+package com.jm.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jm.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves inbound phone numbers to user ids through the unique {@code phone_e164} column, caching the answer
+ * (including "no user") per canonical number. {@link UserService} evicts entries whenever a phone number is
+ * created, changed or deleted.
+ */
+@Service
+public class UserPhoneDirectory {
+
+    /** Longest number treated as national (area code + subscriber) and prefixed with the default country code. */
+    private static final int NATIONAL_NUMBER_MAX_LENGTH = 11;
+
+    private final UserRepository repository;
+    private final String defaultCountryCode;
+    private final Cache<String, Optional<UUID>> userIdsByPhone;
+
+    public UserPhoneDirectory(UserRepository repository,
+            @Value("${users.phone.default-country-code:55}") String defaultCountryCode,
+            @Value("${users.phone.cache-size:10000}") long cacheSize,
+            @Value("${users.phone.cache-ttl-minutes:30}") long cacheTtlMinutes) {
+        this.repository = repository;
+        this.defaultCountryCode = defaultCountryCode;
+        this.userIdsByPhone = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtlMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * Canonical {@code +<country><number>} form of {@code phone}, or {@code null} when it has no digits. Numbers
+     * without an international prefix are assumed to belong to the default country.
+     */
+    public String toE164(String phone) {
+        if (!StringUtils.hasText(phone)) {
+            return null;
+        }
+        String trimmed = phone.trim();
+        String digits = trimmed.replaceAll("\\D", "");
+        if (digits.isEmpty()) {
+            return null;
+        }
+        if (trimmed.startsWith("+")) {
+            return "+" + digits;
+        }
+        if (digits.startsWith("00")) {
+            return "+" + digits.substring(2);
+        }
+        String national = digits.replaceFirst("^0+", "");
+        if (national.length() <= NATIONAL_NUMBER_MAX_LENGTH) {
+            return "+" + defaultCountryCode + national;
+        }
+        return "+" + digits;
+    }
+
+    /**
+     * The forms a WhatsApp sender or recipient phone of this user is stored in, {@code +<e164>} and its bare digits,
+     * so unlinked messages match whether the profile holds a national or an international number. Empty without a
+     * phone.
+     */
+    public Set<String> senderPhones(String phone) {
+        String e164 = toE164(phone);
+        return e164 == null ? Set.of() : Set.of(e164, e164.substring(1));
+    }
+
+    public Optional<UUID> findUserId(String phone) {
+        String e164 = toE164(phone);
+        if (e164 == null) {
+            return Optional.empty();
+        }
+        Optional<UUID> cached = userIdsByPhone.getIfPresent(e164);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<UUID> userId = repository.findIdByPhoneE164(e164);
+        userIdsByPhone.put(e164, userId);
+        return userId;
+    }
+
+    public void evict(String... e164Numbers) {
+        for (String e164 : e164Numbers) {
+            if (e164 != null) {
+                userIdsByPhone.invalidate(e164);
+            }
+        }
+    }
+}
@@ -33,6 +33,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -56,11 +57,13 @@ public class UserService {
     private final ProfessionRepository professionRepository;
     private final EmailNotificationService emailNotificationService;
     private final EmailProperties emailProperties;
+    private final UserPhoneDirectory phoneDirectory;
 
     public UserService(UserRepository repository, UserMapper mapper, MessageSource messageSource,
             PasswordEncoder passwordEncoder, CountryRepository countriesRepository, CityRepository cityRepository,
             EducationLevelRepository educationLevelRepository, ProfessionRepository professionRepository,
-            EmailNotificationService emailNotificationService, EmailProperties emailProperties, RoleRepository roleRepository) {
+            EmailNotificationService emailNotificationService, EmailProperties emailProperties, RoleRepository roleRepository,
+            UserPhoneDirectory phoneDirectory) {
         this.repository = repository;
         this.mapper = mapper;
         this.messageSource = messageSource;
@@ -72,6 +75,7 @@ public class UserService {
         this.emailNotificationService = emailNotificationService;
         this.emailProperties = emailProperties;
         this.roleRepository = roleRepository;
+        this.phoneDirectory = phoneDirectory;
     }
 
     public Page<UserDTO> findAll(Pageable pageable, UserDTO filter) throws JMException {
@@ -84,7 +88,10 @@ public class UserService {
             user.setFirstAccess(Boolean.TRUE);
         }
         ensureDefaultRole(user);
+        String previousPhone = user.getPhoneE164();
+        applyPhoneIndex(user);
         Users saved = repository.save(user);
+        phoneDirectory.evict(previousPhone, saved.getPhoneE164());
         if (isNew) {
             emailNotificationService.sendUserConfirmation(saved);
         }
@@ -92,8 +99,10 @@ public class UserService {
 
     public UserDTO createUser(UserDTO dto) {
         Users entity;
+        String previousPhone = null;
         if (dto.getId() != null) {
             entity = repository.findById(dto.getId()).orElseThrow(this::userNotFound);
+            previousPhone = entity.getPhoneE164();
             mapper.updateEntityFromDto(dto, entity);
         } else {
             entity = mapper.toEntity(dto);
@@ -117,7 +126,9 @@ public class UserService {
 
         applyRoles(entity, dto.getRoles());
         ensureDefaultRole(entity);
+        applyPhoneIndex(entity);
         Users saved = repository.save(entity);
+        phoneDirectory.evict(previousPhone, saved.getPhoneE164());
 
         if (isNewUser) {
             UserDTO welcomeDto = mapper.toDTO(saved);
@@ -272,6 +283,14 @@ public class UserService {
                 messageDetails);
     }
 
+    private JMException phoneAlreadyRegistered() {
+        ProblemType problemType = ProblemType.CELL_PHONE_ALREADY_found;
+        String messageDetails = messageSource.getMessage(problemType.getMessageSource(), null,
+                LocaleContextHolder.getLocale());
+        return new JMException(HttpStatus.BAD_REQUEST.value(), problemType.getTitle(), problemType.getUri(),
+                messageDetails);
+    }
+
     private JMException invalidToken() {
         ProblemType problemType = ProblemType.INVALID_TOKEN;
         String messageDetails = messageSource.getMessage(problemType.getMessageSource(), null,
@@ -341,5 +360,29 @@ public class UserService {
     public void delete(UUID id) {
         Users entity = repository.findById(id).orElseThrow(this::userNotFound);
         repository.delete(entity);
+        phoneDirectory.evict(entity.getPhoneE164());
+    }
+
+    /**
+     * Indexes the user's phone as E.164. A number already indexed for another account is rejected only when it is
+     * new for this one; an account left unindexed as a duplicate keeps saving and is reported instead.
+     */
+    private void applyPhoneIndex(Users user) {
+        String e164 = phoneDirectory.toE164(user.getPhoneNumber());
+        if (e164 != null && !e164.equals(user.getPhoneE164())) {
+            Optional<UUID> otherOwner = repository.findIdByPhoneE164(e164)
+                    .filter(ownerId -> !ownerId.equals(user.getId()));
+            if (otherOwner.isPresent()) {
+                boolean changed = user.getId() == null
+                        || !e164.equals(phoneDirectory.toE164(user.getLoadedPhoneNumber()));
+                if (changed) {
+                    throw phoneAlreadyRegistered();
+                }
+                logger.warn("Phone of user {} is also registered to user {}; it stays unlinked until one changes",
+                        user.getId(), otherOwner.get());
+                return;
+            }
+        }
+        user.setPhoneE164(e164);
     }
 }
\ No newline at end of file
@@ -2,19 +2,20 @@ package com.jm.services;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jm.dto.AiPromptReferenceDTO;
 import com.jm.dto.ImageDTO;
+import com.jm.dto.NutritionDashboardCategoryRow;
 import com.jm.dto.NutritionDashboardDTO;
+import com.jm.dto.NutritionDashboardHistoryRow;
 import com.jm.dto.NutritionGoalCalculationResponseDTO;
 import com.jm.dto.NutritionGoalCreateRequestDTO;
-import com.jm.dto.OllamaRequestDTO;
-import com.jm.dto.OllamaResponseDTO;
-import com.jm.dto.UserDTO;
 import com.jm.dto.WhatsAppMediaMetadata;
 import com.jm.dto.WhatsAppMessageDTO;
 import com.jm.dto.WhatsAppMessageFeedDTO;
+import com.jm.dto.WhatsAppMessageFeedPageDTO;
 import com.jm.dto.WhatsAppNutritionEntryRequest;
 import com.jm.entity.Food;
 import com.jm.entity.FoodCategory;
@@ -24,7 +25,6 @@ import com.jm.entity.NutritionAnalysis;
 import com.jm.entity.Users;
 import com.jm.entity.UserConfiguration;
 import com.jm.entity.WhatsAppMessage;
-import com.jm.events.NutritionAnalysisRequestEvent;
 import com.jm.repository.FoodCategoryRepository;
 import com.jm.repository.FoodRepository;
 import com.jm.repository.MealRepository;
@@ -37,6 +37,7 @@ import com.jm.speciation.WhatsAppSpecification;
 import com.jm.enums.AiProvider;
 import com.jm.enums.BiologicalSex;
 import com.jm.enums.NutritionGoalObjective;
+import com.jm.enums.WhatsAppIngestionStatus;
 import com.jm.execption.JMException;
 import com.jm.execption.ProblemType;
 import com.jm.services.ai.AiClient;
@@ -44,6 +45,21 @@ import com.jm.services.ai.AiClientFactory;
 import com.jm.services.ai.AiRequest;
 import com.jm.services.ai.AiRequestType;
 import com.jm.services.ai.AiResponse;
+import com.jm.services.ai.ReactiveAiClient;
+import com.jm.services.analytics.NutritionRollupService;
+import com.jm.services.analytics.TodayNutritionStateCache;
+import com.jm.services.whatsapp.AnalysisImageCache;
+import com.jm.services.whatsapp.NearDuplicateImageDetector;
+import com.jm.services.whatsapp.NutritionAnalysisBatcher;
+import com.jm.services.whatsapp.NutritionAnalysisJob;
+import com.jm.services.whatsapp.NutritionAnalysisQueue;
+import com.jm.services.whatsapp.NutritionAnalysisResultCache;
+import com.jm.services.whatsapp.NutritionAnalysisRouter;
+import com.jm.services.whatsapp.NutritionAnalysisRouter.Route;
+import com.jm.services.whatsapp.WhatsAppFeedCursor;
+import com.jm.services.whatsapp.WhatsAppMediaStreamer;
+import com.jm.services.whatsapp.WhatsAppMediaStreamer.StoredMedia;
+import com.jm.services.whatsapp.WhatsAppMessageIdempotency;
 import com.jm.utils.SecurityUtils;
 
 import lombok.RequiredArgsConstructor;
@@ -51,14 +67,17 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -74,14 +93,17 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -96,6 +118,9 @@ public class WhatsAppNutritionService {
     private static final Logger logger = LoggerFactory.getLogger(WhatsAppNutritionService.class);
     private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
     private static final ZoneId DEFAULT_ZONE = ZoneId.systemDefault();
+    private static final int FEED_DEFAULT_LIMIT = 50;
+    private static final int FEED_MAX_LIMIT = 200;
+    private static final int DASHBOARD_LATEST_ENTRIES = 20;
     private static final String PROMPT_CODE = "WHATSAPP_NUTRITION_ANALYSIS";
     private static final String DEFAULT_ASSISTANT_MODEL = "ALIENTELLIGENCE/personalizednutrition:latest";
     private static final String DEFAULT_ANALYSIS_MODEL = "gemini-pro-vision";
@@ -177,6 +202,11 @@ public class WhatsAppNutritionService {
             Keep the structure, item names and meal classification from the input. When you cannot estimate a value, keep it null.
             If the analysis indicates there is no food, respond exactly with {\"isFood\": false, \"summary\": \"brief explanation\"}.
             """;
+    private static final String BATCH_IMAGE_PROMPT_SUFFIX = """
+
+            You will receive %d photos, attached in order. Analyse each photo on its own and respond ONLY with a JSON
+            array containing exactly %d objects, one per photo and in the same order, each following the structure above.
+            """;
     private static final String COMMAND_EXTRACTION_PROMPT = """
             You are an assistant that extracts structured nutrition instructions from WhatsApp messages in Portuguese or English.
             Analyse the user message and output ONLY a JSON object with this structure:
@@ -227,14 +257,24 @@ public class WhatsAppNutritionService {
     private final ObjectMapper objectMapper;
     private final CloudflareR2Service cloudflareR2Service;
     private final UserService userService;
+    private final UserPhoneDirectory userPhoneDirectory;
     private final AiClientFactory aiClientFactory;
     private final AiPromptReferenceService aiPromptReferenceService;
-    private final OllamaService ollamaService;
-    private final ApplicationEventPublisher eventPublisher;
     private final NutritionGoalService nutritionGoalService;
     private final UserConfigurationRepository userConfigurationRepository;
     private final MessageSource messageSource;
     private final AnalyticsService analyticsService;
+    private final WhatsAppMessageIdempotency messageIdempotency;
+    private final NutritionAnalysisQueue nutritionAnalysisQueue;
+    private final WhatsAppMediaStreamer mediaStreamer;
+    private final AnalysisImageCache analysisImageCache;
+    private final NutritionAnalysisBatcher analysisBatcher;
+    private final NutritionAnalysisRouter analysisRouter;
+    private final NutritionAnalysisResultCache analysisResultCache;
+    private final NearDuplicateImageDetector nearDuplicateDetector;
+    private final ImagePreprocessingService imagePreprocessingService;
+    private final NutritionRollupService nutritionRollupService;
+    private final TodayNutritionStateCache todayNutritionState;
 
     @Value("${whatsapp.nutrition.ai.assistant-provider:OLLAMA}")
     private AiProvider assistantProvider;
@@ -263,77 +303,213 @@ public class WhatsAppNutritionService {
     private volatile Map<String, MeasurementUnits> measurementUnitAliasIndex;
     private volatile List<Food> cachedFoods;
 
-    @SuppressWarnings("unchecked")
     @Transactional
     public void handleWebhook(Map<String, Object> payload) {
+        List<InboundMessage> inbound = registerInboundMessages(payload);
+        inbound.forEach(this::processInboundMessage);
+        if (!inbound.isEmpty()) {
+            messageRepository.updateIngestionStatus(inbound.stream().map(InboundMessage::messageId).toList(),
+                    WhatsAppIngestionStatus.DONE);
+        }
+    }
+
+    /**
+     * Parses every entry, change and message of the webhook payload and persists the new ones without touching
+     * external services, so it can run as the first stage of the ingestion pipeline. Duplicates are rejected by
+     * {@link WhatsAppMessageIdempotency} and the remaining rows are inserted together, marked
+     * {@link WhatsAppIngestionStatus#PENDING} until {@link #completeInboundMessage} records that every stage ran.
+     */
+    @SuppressWarnings("unchecked")
+    @Transactional
+    public List<InboundMessage> registerInboundMessages(Map<String, Object> payload) {
         List<Map<String, Object>> entries = (List<Map<String, Object>>) payload.getOrDefault("entry", List.of());
         if (entries.isEmpty()) {
             logger.warn("WhatsApp webhook received without entries");
-            return;
+            return List.of();
         }
 
-        Map<String, Object> entry = entries.get(0);
-        List<Map<String, Object>> changes = (List<Map<String, Object>>) entry.getOrDefault("changes", List.of());
-        if (changes.isEmpty()) {
-            logger.warn("WhatsApp webhook received without changes");
-            return;
+        List<WhatsAppMessage> candidates = parseInboundMessages(entries);
+        if (candidates.isEmpty()) {
+            logger.info("WhatsApp webhook with no messages - likely an acknowledgment");
+            return List.of();
         }
 
-        Map<String, Object> value = (Map<String, Object>) changes.get(0).get("value");
-        if (value == null) {
-            logger.warn("WhatsApp webhook payload missing 'value'");
-            return;
+        Set<String> claimed = messageIdempotency.claimNew(candidates.stream()
+                .map(WhatsAppMessage::getWhatsappMessageId)
+                .toList());
+        Map<String, Optional<Users>> ownersByPhone = new HashMap<>();
+        List<WhatsAppMessage> fresh = new ArrayList<>();
+        for (WhatsAppMessage candidate : candidates) {
+            if (!claimed.remove(candidate.getWhatsappMessageId())) {
+                logger.debug("Skipping already processed message {}", candidate.getWhatsappMessageId());
+                continue;
+            }
+            ownersByPhone.computeIfAbsent(candidate.getFromPhone(), this::findUserByPhone)
+                    .ifPresent(candidate::setOwner);
+            candidate.setIngestionStatus(WhatsAppIngestionStatus.PENDING);
+            fresh.add(candidate);
+        }
+        if (fresh.isEmpty()) {
+            return List.of();
         }
 
-        List<Map<String, Object>> messages = (List<Map<String, Object>>) value.getOrDefault("messages", List.of());
-        if (messages.isEmpty()) {
-            logger.info("WhatsApp webhook with no messages - likely an acknowledgment");
-            return;
+        return messageRepository.saveAll(fresh).stream()
+                .map(this::toInboundMessage)
+                .toList();
+    }
+
+    /**
+     * The messages of {@code payload} that were registered but never went through every pipeline stage, so a
+     * retried webhook re-drives them instead of losing them to the duplicate check.
+     */
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public List<InboundMessage> findPendingInboundMessages(Map<String, Object> payload) {
+        List<String> ids = parseInboundMessages((List<Map<String, Object>>) payload.getOrDefault("entry", List.of()))
+                .stream()
+                .map(WhatsAppMessage::getWhatsappMessageId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        return messageRepository.findByWhatsappMessageIdInAndIngestionStatus(ids, WhatsAppIngestionStatus.PENDING)
+                .stream()
+                .map(this::toInboundMessage)
+                .toList();
+    }
 
-        Map<String, Object> message = messages.get(0);
+    /** Records that the last pipeline stage of the message finished. */
+    public void completeInboundMessage(UUID messageId) {
+        messageRepository.updateIngestionStatus(List.of(messageId), WhatsAppIngestionStatus.DONE);
+    }
+
+    private InboundMessage toInboundMessage(WhatsAppMessage message) {
+        return new InboundMessage(message.getId(), message.getMessageType(), message.getFromPhone(),
+                message.getMediaId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WhatsAppMessage> parseInboundMessages(List<Map<String, Object>> entries) {
+        List<WhatsAppMessage> candidates = new ArrayList<>();
+        for (Map<String, Object> entry : entries) {
+            List<Map<String, Object>> changes = (List<Map<String, Object>>) entry.getOrDefault("changes", List.of());
+            for (Map<String, Object> change : changes) {
+                Map<String, Object> value = (Map<String, Object>) change.get("value");
+                if (value == null) {
+                    logger.warn("WhatsApp webhook payload missing 'value'");
+                    continue;
+                }
+                List<Map<String, Object>> messages = (List<Map<String, Object>>) value.getOrDefault("messages",
+                        List.of());
+                Map<String, Object> metadata = (Map<String, Object>) value.getOrDefault("metadata", Map.of());
+                String to = (String) metadata.getOrDefault("display_phone_number", "");
+                for (Map<String, Object> message : messages) {
+                    toInboundEntity(message, to).ifPresent(candidates::add);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<WhatsAppMessage> toInboundEntity(Map<String, Object> message, String to) {
         String messageType = (String) message.getOrDefault("type", "text");
         String messageId = (String) message.get("id");
         if (messageId == null) {
             logger.warn("WhatsApp message without id; skipping");
-            return;
-        }
-
-        if (messageRepository.findByWhatsappMessageId(messageId).isPresent()) {
-            logger.debug("Skipping already processed message {}", messageId);
-            return;
+            return Optional.empty();
         }
 
-        String from = (String) message.get("from");
-        Map<String, Object> metadata = (Map<String, Object>) value.getOrDefault("metadata", Map.of());
-        String to = (String) metadata.getOrDefault("display_phone_number", "");
-        OffsetDateTime receivedAt = parseTimestamp((String) message.get("timestamp"));
-
         WhatsAppMessage.WhatsAppMessageBuilder builder = WhatsAppMessage.builder().whatsappMessageId(messageId)
-                .fromPhone(from)
+                .fromPhone((String) message.get("from"))
                 .toPhone(to)
                 .messageType(messageType)
-                .receivedAt(receivedAt);
+                .receivedAt(parseTimestamp((String) message.get("timestamp")));
 
         switch (messageType) {
-            case "image" -> handleImageMessage(builder, message, from);
-            case "text" -> handleTextMessage(builder, message, from);
-            case "audio", "voice" -> handleAudioMessage(builder, message, from);
-            default -> logger.info("Message type {} not handled", messageType);
+            case "image" -> {
+                Map<String, Object> image = (Map<String, Object>) message.getOrDefault("image", Map.of());
+                builder.mediaId((String) image.get("id"));
+                builder.textContent((String) image.getOrDefault("caption", ""));
+            }
+            case "text" -> {
+                Map<String, Object> textContent = (Map<String, Object>) message.getOrDefault("text", Map.of());
+                builder.textContent((String) textContent.getOrDefault("body", ""));
+            }
+            case "audio", "voice" -> {
+                Map<String, Object> audio = (Map<String, Object>) message.getOrDefault("audio", Map.of());
+                builder.mediaId((String) audio.get("id"));
+                builder.mimeType((String) audio.getOrDefault("mime_type", ""));
+            }
+            default -> {
+                logger.info("Message type {} not handled", messageType);
+                return Optional.empty();
+            }
         }
+        return Optional.of(builder.build());
     }
 
-    private void handleTextMessage(WhatsAppMessage.WhatsAppMessageBuilder builder, Map<String, Object> message,
-            String from) {
-        Map<String, Object> textContent = (Map<String, Object>) message.getOrDefault("text", Map.of());
-        String body = (String) textContent.getOrDefault("body", "");
+    /**
+     * Runs every remaining step for an already registered message on the calling thread.
+     */
+    public void processInboundMessage(InboundMessage inbound) {
+        try {
+            if (inbound.isText()) {
+                processTextMessage(inbound);
+                return;
+            }
+            if (!inbound.hasMedia()) {
+                logger.warn("{} message {} without media id", inbound.type(), inbound.messageId());
+                return;
+            }
+            if (inbound.isImage()) {
+                storeImageMedia(inbound);
+                dispatchImageAnalysis(inbound);
+            } else {
+                processAudioMessage(inbound, fetchInboundMedia(inbound));
+            }
+        } catch (Exception ex) {
+            notifyInboundFailure(inbound, ex);
+        }
+    }
 
-        builder.textContent(body);
-        findUserByPhone(from).ifPresent(builder::owner);
+    @Transactional
+    public void processTextMessage(InboundMessage inbound) {
+        WhatsAppMessage savedMessage = loadInboundMessage(inbound);
+        dispatchToAssistant(savedMessage, savedMessage.getTextContent());
+        processCommandFromText(savedMessage, inbound.from());
+    }
 
-        WhatsAppMessage savedMessage = messageRepository.save(builder.build());
-        dispatchToAssistant(savedMessage, body);
-        processCommandFromText(savedMessage, from);
+    public InboundMedia fetchInboundMedia(InboundMessage inbound) {
+        WhatsAppMediaMetadata metadata = whatsAppService.fetchMediaMetadata(inbound.mediaId())
+                .blockOptional(DEFAULT_TIMEOUT)
+                .orElseThrow(() -> new IllegalStateException("Unable to fetch media metadata"));
+
+        byte[] bytes = whatsAppService.downloadMedia(metadata.getUrl())
+                .blockOptional(DEFAULT_TIMEOUT)
+                .orElseThrow(() -> new IllegalStateException("Unable to download media"));
+
+        return new InboundMedia(metadata.getUrl(), metadata.getMimeType(), bytes);
+    }
+
+    public void notifyInboundFailure(InboundMessage inbound, Exception ex) {
+        logger.error("Failed to process WhatsApp {} message {}", inbound.type(), inbound.messageId(), ex);
+        String reply;
+        if (inbound.isImage()) {
+            reply = "Sorry, I could not analyse this image now. Please try again later.";
+        } else if (inbound.isText()) {
+            reply = null;
+        } else {
+            reply = "Desculpe, não consegui processar seu áudio agora. Pode tentar novamente em instantes?";
+        }
+        if (reply != null && StringUtils.hasText(inbound.from())) {
+            whatsAppService.deliverTextMessage(inbound.from(), reply);
+        }
+    }
+
+    private WhatsAppMessage loadInboundMessage(InboundMessage inbound) {
+        return messageRepository.findById(inbound.messageId())
+                .orElseThrow(() -> new IllegalStateException("Inbound message " + inbound.messageId() + " not found"));
     }
 
     private void dispatchToAssistant(WhatsAppMessage message, String body) {
@@ -360,152 +536,222 @@ public class WhatsAppNutritionService {
         resolveClient(provider).ifPresent(client -> client.execute(requestBuilder.build()));
     }
 
-    private void handleImageMessage(WhatsAppMessage.WhatsAppMessageBuilder builder, Map<String, Object> message,
-            String from) {
-        Map<String, Object> image = (Map<String, Object>) message.getOrDefault("image", Map.of());
-        String mediaId = (String) image.get("id");
-        String caption = (String) image.getOrDefault("caption", "");
-
-        builder.mediaId(mediaId);
-        builder.textContent(caption);
-        findUserByPhone(from).ifPresent(builder::owner);
-
-        WhatsAppMessage savedMessage = messageRepository.save(builder.build());
-        if (mediaId == null) {
-            logger.warn("Image message without media id");
-            return;
-        }
+    /**
+     * Streams the photo from the Graph API into R2 and records where it landed. Runs outside a transaction so no
+     * connection is held while the upload is in flight.
+     */
+    public void storeImageMedia(InboundMessage inbound) {
+        WhatsAppMessage savedMessage = loadInboundMessage(inbound);
+        Users owner = Optional.ofNullable(savedMessage.getOwner())
+                .or(() -> findUserByPhone(savedMessage.getFromPhone()))
+                .orElse(null);
 
-        try {
-            WhatsAppMediaMetadata metadata = whatsAppService.fetchMediaMetadata(mediaId).blockOptional(DEFAULT_TIMEOUT)
+        if (owner != null) {
+            StoredMedia stored = mediaStreamer.streamToR2(inbound.mediaId(), inbound.mediaId() + ".jpg", owner.getId())
+                    .blockOptional(DEFAULT_TIMEOUT)
+                    .orElseThrow(() -> new IllegalStateException("Unable to store media"));
+            savedMessage.setMediaUrl(stored.mediaUrl());
+            savedMessage.setMimeType(stored.mimeType());
+            savedMessage.setOwner(owner);
+            savedMessage.setCloudflareImageUrl(stored.imageUrl());
+            savedMessage.setCloudflareImageKey(stored.imageKey());
+            savedMessage.setCloudflareThumbnailUrl(stored.thumbnailUrl());
+        } else {
+            logger.warn("Skipping Cloudflare upload for message {} because owner could not be resolved",
+                    savedMessage.getId());
+            WhatsAppMediaMetadata metadata = whatsAppService.fetchMediaMetadata(inbound.mediaId())
+                    .blockOptional(DEFAULT_TIMEOUT)
                     .orElseThrow(() -> new IllegalStateException("Unable to fetch media metadata"));
-
-            byte[] imageBytes = whatsAppService.downloadMedia(metadata.getUrl()).blockOptional(DEFAULT_TIMEOUT)
-                    .orElseThrow(() -> new IllegalStateException("Unable to download media"));
-
-            MultipartFile imageFile = cloudflareR2Service.toMultipartFile(imageBytes, mediaId + ".jpg",
-                    metadata.getMimeType());
-
-            Users owner = Optional.ofNullable(savedMessage.getOwner())
-                    .or(() -> findUserByPhone(savedMessage.getFromPhone()))
-                    .orElse(null);
-
             savedMessage.setMediaUrl(metadata.getUrl());
             savedMessage.setMimeType(metadata.getMimeType());
+        }
 
-            if (owner != null) {
-                ImageDTO cloudflareImage = cloudflareR2Service.uploadFile(imageFile, owner.getId());
-                savedMessage.setOwner(owner);
-                savedMessage.setCloudflareImageUrl(cloudflareImage.getUrl());
-            } else {
-                logger.warn("Skipping Cloudflare upload for message {} because owner could not be resolved",
-                        savedMessage.getId());
-            }
-
-            messageRepository.save(savedMessage);
-
-            AiModelSelection analysisConfig = resolveModelSelection(analysisModel, analysisProvider,
-                    AiProvider.GEMINI, DEFAULT_ANALYSIS_MODEL);
+        messageRepository.save(savedMessage);
+    }
 
-            AiProvider provider = analysisConfig.provider();
-            eventPublisher.publishEvent(new NutritionAnalysisRequestEvent(this, savedMessage, imageBytes,
-                    metadata.getMimeType(), owner, from, provider, analysisConfig.model()));
-        } catch (Exception ex) {
-            logger.error("Failed to process WhatsApp image message", ex);
-            whatsAppService.sendTextMessage(from, "Sorry, I could not analyse this image now. Please try again later.")
-                    .subscribe();
-        }
+    @Transactional(readOnly = true)
+    public void dispatchImageAnalysis(InboundMessage inbound) {
+        WhatsAppMessage savedMessage = loadInboundMessage(inbound);
+        AiModelSelection analysisConfig = resolveModelSelection(analysisModel, analysisProvider,
+                AiProvider.GEMINI, DEFAULT_ANALYSIS_MODEL);
+
+        nutritionAnalysisQueue.submit(new NutritionAnalysisJob(savedMessage.getId(), inbound.from(),
+                savedMessage.getCloudflareImageKey(), savedMessage.getMediaId(), savedMessage.getMimeType(),
+                analysisConfig.provider(), analysisConfig.model()));
+    }
+
+    /**
+     * Runs a queued analysis job and waits for it; used by consumers that must acknowledge on their own thread.
+     * Failures are rethrown so the queue can retry the job; the consumer calls {@link #notifyAnalysisFailure} once
+     * it gives up.
+     */
+    public void processNutritionAnalysis(NutritionAnalysisJob job) {
+        analyzeNutrition(job).block();
+    }
+
+    /**
+     * Runs a queued analysis job without holding a thread while the model works. The message and image are loaded
+     * on the subscribing thread; saving the analysis and replying continue on the bounded elastic scheduler once the
+     * model answers. Cancelling the subscription cancels the model call.
+     */
+    public Mono<Void> analyzeNutrition(NutritionAnalysisJob job) {
+        return Mono.fromCallable(() -> messageRepository.findById(job.messageId()))
+                .flatMap(found -> {
+                    if (found.isEmpty()) {
+                        logger.warn("Nutrition analysis requested for unknown message {}", job.messageId());
+                        return Mono.empty();
+                    }
+                    WhatsAppMessage savedMessage = found.get();
+                    ImagePayload image = loadAnalysisImage(job);
+                    AiProvider effectiveProvider = job.provider() != null ? job.provider() : AiProvider.GEMINI;
+                    AiModelSelection analysisConfig = new AiModelSelection(effectiveProvider, job.model());
+                    return analyseImage(image, savedMessage.getOwner(), job.from(), analysisConfig)
+                            .publishOn(Schedulers.boundedElastic())
+                            .switchIfEmpty(Mono.fromRunnable(() -> logger.warn(
+                                    "Nutrition provider {} returned empty result for message {}",
+                                    effectiveProvider, savedMessage.getId())))
+                            .flatMap(result -> Mono.fromCallable(() -> {
+                                completeNutritionAnalysis(savedMessage, job.from(), result);
+                                return result;
+                            }));
+                })
+                .then();
     }
 
-    public void processNutritionAnalysis(WhatsAppMessage savedMessage, byte[] imageBytes, String mimeType, Users owner,
-            String from, AiProvider provider, String model) {
-        if (savedMessage == null) {
+    private void completeNutritionAnalysis(WhatsAppMessage savedMessage, String from, GeminiNutritionResult result)
+            throws JsonProcessingException {
+        if (!result.isFood()) {
+            String response = Optional.ofNullable(result.summary())
+                    .orElse("I could not detect food in this image. Please try another photo.");
+            if (StringUtils.hasText(from)) {
+                whatsAppService.deliverTextMessage(from, response);
+            }
             return;
         }
 
-        AiProvider effectiveProvider = provider != null ? provider : AiProvider.GEMINI;
-        AiModelSelection analysisConfig = new AiModelSelection(effectiveProvider, model);
-
-        try {
-            GeminiNutritionResult result = requestNutritionAnalysis(imageBytes, mimeType, owner, analysisConfig);
-            if (result == null) {
-                logger.warn("Nutrition provider {} returned empty result for message {}", effectiveProvider,
-                        savedMessage.getId());
-                return;
-            }
+        Users owner = savedMessage.getOwner();
+        NutritionAnalysis persistedAnalysis = saveNutritionAnalysis(savedMessage, result);
+        Map<String, Object> captionVariables = buildNutritionCaptionVariables(result, persistedAnalysis, owner,
+                savedMessage.getReceivedAt());
+        if (StringUtils.hasText(from)) {
+            whatsAppService.deliverCaptionMessage(from, WhatsAppCaptionTemplate.DAILY_EN, captionVariables);
+        }
+    }
 
-            if (!result.isFood()) {
-                String response = Optional.ofNullable(result.summary())
-                        .orElse("I could not detect food in this image. Please try another photo.");
-                if (StringUtils.hasText(from)) {
-                    whatsAppService.sendTextMessage(from, response).subscribe();
-                }
-                return;
+    /**
+     * Answers from the content-hash cache when the same image was already analysed with the same provider, model
+     * and prompt, or from a recent near-identical photo of the same user; otherwise calls the model (batched with
+     * other photos of the owner), falling back along the routing chain, and remembers the result for both lookups.
+     * Only answers of the configured model are stored under its cache key.
+     */
+    private Mono<GeminiNutritionResult> analyseImage(ImagePayload image, Users owner, String from,
+            AiModelSelection analysisConfig) {
+        String cacheKey = null;
+        if (analysisResultCache.isEnabled()) {
+            AiProvider provider = analysisConfig.provider();
+            cacheKey = analysisResultCache.key(image.data(), provider, analysisConfig.model(),
+                    resolvePrompt(owner, provider, analysisConfig.model()));
+            GeminiNutritionResult cached = analysisResultCache.find(cacheKey)
+                    .map(this::deserializeNutritionResult)
+                    .orElse(null);
+            if (cached != null) {
+                return Mono.just(cached);
             }
+        }
 
-            NutritionAnalysis persistedAnalysis = saveNutritionAnalysis(savedMessage, result);
-            Map<String, Object> captionVariables = buildNutritionCaptionVariables(result, persistedAnalysis, owner,
-                    savedMessage.getReceivedAt());
-            if (StringUtils.hasText(from)) {
-                whatsAppService.sendCaptionMessage(from, WhatsAppCaptionTemplate.DAILY_EN, captionVariables)
-                        .subscribe();
-            }
-        } catch (Exception ex) {
-            logger.error("Failed to process nutrition analysis for message {}", savedMessage.getId(), ex);
-            if (StringUtils.hasText(from)) {
-                whatsAppService.sendTextMessage(from,
-                        "Sorry, I could not analyse this image now. Please try again later.").subscribe();
+        String userKey = analysisUserKey(owner, from);
+        OptionalLong perceptualHash = nearDuplicateDetector.isEnabled() && userKey != null
+                ? nearDuplicateDetector.hash(image.data())
+                : OptionalLong.empty();
+        if (perceptualHash.isPresent()) {
+            GeminiNutritionResult similar = nearDuplicateDetector
+                    .findNearDuplicate(userKey, perceptualHash.getAsLong())
+                    .map(this::deserializeNutritionResult)
+                    .orElse(null);
+            if (similar != null) {
+                return Mono.just(similar);
             }
         }
-    }
-
-    private void handleAudioMessage(WhatsAppMessage.WhatsAppMessageBuilder builder, Map<String, Object> message,
-            String from) {
-        Map<String, Object> audio = (Map<String, Object>) message.getOrDefault("audio", Map.of());
-        String mediaId = (String) audio.get("id");
-        String mimeType = (String) audio.getOrDefault("mime_type", "");
 
-        builder.mediaId(mediaId);
-        builder.mimeType(mimeType);
-        findUserByPhone(from).ifPresent(builder::owner);
+        String resultCacheKey = cacheKey;
+        List<Route> routes = analysisRoutes(analysisConfig);
+        return analysisRouter.route(routes, route -> requestRoutedAnalysis(image, owner, from,
+                        new AiModelSelection(route.provider(), route.model())))
+                .publishOn(Schedulers.boundedElastic())
+                .flatMap(routed -> Mono.fromCallable(() -> {
+                    GeminiNutritionResult result = routed.value();
+                    String resultJson = objectMapper.writeValueAsString(result);
+                    if (resultCacheKey != null && routed.route().equals(routes.getFirst())) {
+                        analysisResultCache.store(resultCacheKey, analysisConfig.provider(), analysisConfig.model(),
+                                resultJson);
+                    }
+                    if (perceptualHash.isPresent()) {
+                        nearDuplicateDetector.remember(userKey, perceptualHash.getAsLong(), resultJson);
+                    }
+                    return result;
+                }));
+    }
 
-        WhatsAppMessage savedMessage = messageRepository.save(builder.build());
-        if (mediaId == null) {
-            logger.warn("Audio message without media id");
-            return;
+    public void notifyAnalysisFailure(NutritionAnalysisJob job, Throwable ex) {
+        logger.error("Failed to process nutrition analysis for message {}", job.messageId(), ex);
+        if (StringUtils.hasText(job.from())) {
+            whatsAppService.deliverTextMessage(job.from(),
+                    "Sorry, I could not analyse this image now. Please try again later.");
         }
+    }
 
-        try {
-            WhatsAppMediaMetadata metadata = whatsAppService.fetchMediaMetadata(mediaId)
-                    .blockOptional(DEFAULT_TIMEOUT)
-                    .orElseThrow(() -> new IllegalStateException("Unable to fetch audio metadata"));
-
-            byte[] audioBytes = whatsAppService.downloadMedia(metadata.getUrl())
-                    .blockOptional(DEFAULT_TIMEOUT)
-                    .orElseThrow(() -> new IllegalStateException("Unable to download audio"));
-
-            savedMessage.setMediaUrl(metadata.getUrl());
-            savedMessage.setMimeType(metadata.getMimeType());
-
-            Map<String, String> transcript = whatsAppService.transcribeWithWhisper(audioBytes).block();
-            if (!StringUtils.hasText(transcript.get("text"))) {
-                logger.warn("Transcription returned empty for audio message {}", savedMessage.getId());
-                whatsAppService.sendTextMessage(from,
-                        "Não consegui transcrever esse áudio. Poderia enviar a instrução em texto?").subscribe();
-                messageRepository.save(savedMessage);
-                return;
+    /**
+     * Returns the model-sized image: the variant captured on the way in when still cached, otherwise the stored or
+     * Graph API copy shrunk here.
+     */
+    private ImagePayload loadAnalysisImage(NutritionAnalysisJob job) {
+        if (StringUtils.hasText(job.imageKey())) {
+            Optional<byte[]> captured = analysisImageCache.take(job.imageKey());
+            if (captured.isPresent()) {
+                return new ImagePayload(captured.get(), job.mimeType());
             }
+            return toAnalysisImage(cloudflareR2Service.downloadByKey(job.imageKey()), job.mimeType());
+        }
+        if (!StringUtils.hasText(job.mediaId())) {
+            throw new IllegalStateException("Message " + job.messageId() + " has no stored image");
+        }
+        WhatsAppMediaMetadata metadata = whatsAppService.fetchMediaMetadata(job.mediaId())
+                .blockOptional(DEFAULT_TIMEOUT)
+                .orElseThrow(() -> new IllegalStateException("Unable to fetch media metadata"));
+        byte[] bytes = whatsAppService.downloadMedia(metadata.getUrl())
+                .blockOptional(DEFAULT_TIMEOUT)
+                .orElseThrow(() -> new IllegalStateException("Unable to download media"));
+        return toAnalysisImage(bytes, StringUtils.hasText(metadata.getMimeType()) ? metadata.getMimeType()
+                : job.mimeType());
+    }
+
+    private ImagePayload toAnalysisImage(byte[] bytes, String mimeType) {
+        return imagePreprocessingService.analysisVariant(bytes, mimeType)
+                .map(variant -> new ImagePayload(variant.data(), variant.mimeType()))
+                .orElseGet(() -> new ImagePayload(bytes, mimeType));
+    }
 
-            savedMessage.setTextContent(transcript.get("text"));
+    @Transactional
+    public void processAudioMessage(InboundMessage inbound, InboundMedia media) {
+        WhatsAppMessage savedMessage = loadInboundMessage(inbound);
+        String from = inbound.from();
+
+        savedMessage.setMediaUrl(media.url());
+        savedMessage.setMimeType(media.mimeType());
+
+        Map<String, String> transcript = whatsAppService.transcribeWithWhisper(media.data()).block();
+        if (transcript == null || !StringUtils.hasText(transcript.get("text"))) {
+            logger.warn("Transcription returned empty for audio message {}", savedMessage.getId());
+            whatsAppService.deliverTextMessage(from,
+                    "Não consegui transcrever esse áudio. Poderia enviar a instrução em texto?");
             messageRepository.save(savedMessage);
-            /* dispatchToAssistant(savedMessage, transcript); */
-            processCommandFromText(savedMessage, from);
-        } catch (Exception ex) {
-            logger.error("Failed to process WhatsApp audio message", ex);
-            whatsAppService.sendTextMessage(from,
-                    "Desculpe, não consegui processar seu áudio agora. Pode tentar novamente em instantes?")
-                    .subscribe();
+            return;
         }
+
+        savedMessage.setTextContent(transcript.get("text"));
+        messageRepository.save(savedMessage);
+        /* dispatchToAssistant(savedMessage, transcript); */
+        processCommandFromText(savedMessage, from);
     }
 
     private String transcribeAudio(byte[] audioBytes, String mimeType) {
@@ -571,7 +817,7 @@ public class WhatsAppNutritionService {
         response.ifPresent(reply -> {
             String target = StringUtils.hasText(from) ? from : message.getFromPhone();
             if (StringUtils.hasText(target)) {
-                whatsAppService.sendTextMessage(target, reply).subscribe();
+                whatsAppService.deliverTextMessage(target, reply);
             }
         });
     }
@@ -604,20 +850,20 @@ public class WhatsAppNutritionService {
             String reply = StringUtils.hasText(response.getSummary()) ? response.getSummary()
                     : fallbackPlanSummary(response, owner);
             if (StringUtils.hasText(target)) {
-                whatsAppService.sendTextMessage(target, reply).subscribe();
+                whatsAppService.deliverTextMessage(target, reply);
             }
             logger.info("Calculated AI nutrition goals for message {}", message.getId());
             return true;
         } catch (JMException ex) {
             String detail = StringUtils.hasText(ex.getDetails()) ? ex.getDetails() : PLAN_FALLBACK_ERROR;
             if (StringUtils.hasText(target)) {
-                whatsAppService.sendTextMessage(target, detail).subscribe();
+                whatsAppService.deliverTextMessage(target, detail);
             }
             return true;
         } catch (Exception ex) {
             logger.error("Failed to calculate AI nutrition goals for message {}", message.getId(), ex);
             if (StringUtils.hasText(target)) {
-                whatsAppService.sendTextMessage(target, PLAN_FALLBACK_ERROR).subscribe();
+                whatsAppService.deliverTextMessage(target, PLAN_FALLBACK_ERROR);
             }
             return true;
         }
@@ -1010,7 +1256,7 @@ public class WhatsAppNutritionService {
         }
 
         if (command.items().isEmpty()) {
-            entries.forEach(messageRepository::delete);
+            entries.forEach(this::deleteCommandEntry);
             successes.add("todos os itens");
             return;
         }
@@ -1018,7 +1264,7 @@ public class WhatsAppNutritionService {
         for (NutritionCommandItem item : command.items()) {
             Optional<WhatsAppMessage> match = findExistingEntry(entries, item.foodName());
             if (match.isPresent()) {
-                messageRepository.delete(match.get());
+                deleteCommandEntry(match.get());
                 successes.add(describeItem(item));
             } else {
                 errors.add("Não encontrei " + item.foodName() + " nessa refeição.");
@@ -1040,7 +1286,7 @@ public class WhatsAppNutritionService {
 
         List<WhatsAppMessage> existing = messageRepository
                 .findByOwnerIdAndNutritionAnalysisMealCodeIgnoreCase(owner.getId(), meal.getCode());
-        existing.forEach(messageRepository::delete);
+        existing.forEach(this::deleteCommandEntry);
 
         if (command.items().isEmpty()) {
             successes.add("Removi os registros do " + formatMealTypeLabel(meal.getCode()));
@@ -1060,6 +1306,11 @@ public class WhatsAppNutritionService {
         }
     }
 
+    private void deleteCommandEntry(WhatsAppMessage entry) {
+        Optional.ofNullable(entry.getNutritionAnalysis()).ifPresent(this::refreshRollup);
+        messageRepository.delete(entry);
+    }
+
     private String buildCommandResponse(NutritionCommandAction action, String mealCode, List<String> successes,
             List<String> errors) {
         StringBuilder builder = new StringBuilder();
@@ -1144,6 +1395,7 @@ public class WhatsAppNutritionService {
         NutritionAnalysis analysis = Optional.ofNullable(savedMessage.getNutritionAnalysis())
                 .orElse(new NutritionAnalysis());
         analysis.setMessage(savedMessage);
+        analysis.setOwner(owner);
         analysis.setMeal(meal);
 
         Food resolvedFood = resolveFoodEntity(item.foodName());
@@ -1182,7 +1434,9 @@ public class WhatsAppNutritionService {
 
         NutritionAnalysis savedAnalysis = nutritionAnalysisRepository.save(analysis);
         savedMessage.setNutritionAnalysis(savedAnalysis);
-        return messageRepository.save(savedMessage);
+        WhatsAppMessage result = messageRepository.save(savedMessage);
+        refreshRollup(savedAnalysis);
+        return result;
     }
 
     private String buildCommandSummary(NutritionCommandItem item, String generalObservation) {
@@ -1497,28 +1751,14 @@ public class WhatsAppNutritionService {
     }
 
     private Optional<Users> findUserByPhone(String phone) {
-        if (!StringUtils.hasText(phone)) {
-            return Optional.empty();
-        }
-        try {
-            return userService
-                    .findAll(PageRequest.of(0, 1), UserDTO.builder().phoneNumber(phone).build())
-                    .getContent()
-                    .stream()
-                    .findFirst()
-                    .map(dto -> {
-                        try {
-                            return userService.findEntityById(dto.getId());
-                        } catch (JMException ex) {
-                            logger.debug("Failed to load user {} for phone {}", dto.getId(), phone, ex);
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull);
-        } catch (JMException ex) {
-            logger.debug("Failed to resolve user by phone {}", phone, ex);
-            return Optional.empty();
-        }
+        return userPhoneDirectory.findUserId(phone).map(userId -> {
+            try {
+                return userService.findEntityById(userId);
+            } catch (JMException ex) {
+                logger.debug("Failed to load user {} for phone {}", userId, phone, ex);
+                return null;
+            }
+        });
     }
 
     public NutritionAnalysis saveNutritionAnalysis(WhatsAppMessage message, GeminiNutritionResult result)
@@ -1530,6 +1770,7 @@ public class WhatsAppNutritionService {
 
         NutritionAnalysis analysis = NutritionAnalysis.builder()
                 .message(message)
+                .owner(message.getOwner())
                 .foodName(result.foodName())
                 .calories(toBigDecimal(resolveCalories(result)))
                 .protein(toBigDecimal(result.macronutrients() != null ? result.macronutrients().protein_g() : null))
@@ -1549,6 +1790,7 @@ public class WhatsAppNutritionService {
         message.setNutritionAnalysis(analysis);
         NutritionAnalysis saved = nutritionAnalysisRepository.save(analysis);
         messageRepository.save(message);
+        refreshRollup(saved);
         return saved;
     }
 
@@ -1572,23 +1814,53 @@ public class WhatsAppNutritionService {
     public GeminiNutritionResult requestNutritionAnalysis(byte[] imageBytes, String mimeType, Users owner) {
         AiModelSelection analysisConfig = resolveModelSelection(analysisModel, analysisProvider, AiProvider.GEMINI,
                 DEFAULT_ANALYSIS_MODEL);
-        return requestNutritionAnalysis(imageBytes, mimeType, owner, analysisConfig);
+        return analysisRouter.route(analysisRoutes(analysisConfig), route -> requestNutritionAnalysis(imageBytes,
+                        mimeType, owner, new AiModelSelection(route.provider(), route.model())))
+                .map(NutritionAnalysisRouter.Routed::value)
+                .block();
+    }
+
+    /** The configured analysis model followed by the routing fallbacks, without repeating a model. */
+    private List<Route> analysisRoutes(AiModelSelection analysisConfig) {
+        List<Route> routes = new ArrayList<>();
+        routes.add(new Route(analysisConfig.provider(), analysisConfig.model()));
+        for (String spec : analysisRouter.fallbacks()) {
+            if (!StringUtils.hasText(spec)) {
+                continue;
+            }
+            AiModelSelection fallback = resolveModelSelection(spec, null, AiProvider.GEMINI, null);
+            Route route = new Route(fallback.provider(), fallback.model());
+            if (!routes.contains(route)) {
+                routes.add(route);
+            }
+        }
+        return routes;
+    }
+
+    /** One step of the routing chain: Ollama photos go straight to the model, Gemini photos through the batcher. */
+    private Mono<GeminiNutritionResult> requestRoutedAnalysis(ImagePayload image, Users owner, String from,
+            AiModelSelection analysisConfig) {
+        if (analysisConfig.provider() == AiProvider.OLLAMA) {
+            return requestNutritionAnalysis(image.data(), image.mimeType(), owner, analysisConfig);
+        }
+        return analysisBatcher.analyze(analysisBatchKey(owner, from, analysisConfig), image,
+                images -> requestBatchNutritionAnalysis(images, owner, analysisConfig));
     }
 
-    private GeminiNutritionResult requestNutritionAnalysis(byte[] imageBytes, String mimeType, Users owner,
+    private Mono<GeminiNutritionResult> requestNutritionAnalysis(byte[] imageBytes, String mimeType, Users owner,
             AiModelSelection analysisConfig) {
         AiProvider provider = analysisConfig != null && analysisConfig.provider() != null ? analysisConfig.provider()
                 : AiProvider.GEMINI;
         String model = analysisConfig != null ? analysisConfig.model() : null;
 
         if (provider == AiProvider.OLLAMA) {
-            return requestOllamaNutritionAnalysis(imageBytes, owner, model);
+            return requestOllamaNutritionAnalysis(imageBytes, mimeType, owner, model);
         }
 
-        Optional<AiClient> client = resolveClient(provider);
+        Optional<ReactiveAiClient> client = resolveReactiveClient(provider);
         if (client.isEmpty()) {
             logger.warn("AI provider {} not available for nutrition analysis", provider);
-            return null;
+            return Mono.empty();
         }
 
         if (!StringUtils.hasText(model)) {
@@ -1603,89 +1875,158 @@ public class WhatsAppNutritionService {
                 .timeout(DEFAULT_TIMEOUT)
                 .build();
 
-        AiResponse response = client.get().execute(request);
-        if (response == null || response.content() == null) {
-            return null;
+        return client.get().generate(request)
+                .mapNotNull(AiResponse::content)
+                .mapNotNull(this::sanitizeGeminiResponse)
+                .mapNotNull(this::deserializeNutritionResult);
+    }
+
+    private String analysisUserKey(Users owner, String from) {
+        return owner != null ? owner.getId().toString() : from;
+    }
+
+    private String analysisBatchKey(Users owner, String from, AiModelSelection analysisConfig) {
+        return analysisUserKey(owner, from) + "|" + analysisConfig.provider() + "|" + analysisConfig.model();
+    }
+
+    /**
+     * Analyses several photos of the same owner in one model call. Falls back to one call per photo when the model
+     * does not answer exactly one result per image.
+     */
+    private Mono<List<GeminiNutritionResult>> requestBatchNutritionAnalysis(List<ImagePayload> images, Users owner,
+            AiModelSelection analysisConfig) {
+        if (images.size() == 1) {
+            return requestOneByOne(images, owner, analysisConfig);
         }
 
-        return Optional.ofNullable(response.content())
-                .map(this::sanitizeGeminiResponse)
-                .map(this::deserializeNutritionResult)
-                .orElse(null);
+        AiProvider provider = analysisConfig.provider();
+        Optional<ReactiveAiClient> client = resolveReactiveClient(provider);
+        if (client.isEmpty()) {
+            logger.warn("AI provider {} not available for nutrition analysis", provider);
+            return Mono.just(List.of());
+        }
+        String model = StringUtils.hasText(analysisConfig.model()) ? analysisConfig.model() : DEFAULT_ANALYSIS_MODEL;
+        AiRequest request = AiRequest.builder()
+                .type(AiRequestType.IMAGE)
+                .model(model)
+                .prompt(resolvePrompt(owner, provider, model) + BATCH_IMAGE_PROMPT_SUFFIX.formatted(images.size(),
+                        images.size()))
+                .images(images.stream().map(image -> new AiRequest.Image(image.data(), image.mimeType())).toList())
+                .timeout(DEFAULT_TIMEOUT)
+                .build();
+
+        return client.get().generate(request)
+                .mapNotNull(AiResponse::content)
+                .mapNotNull(this::sanitizeGeminiResponse)
+                .map(this::deserializeNutritionResults)
+                .defaultIfEmpty(List.of())
+                .publishOn(Schedulers.boundedElastic())
+                .flatMap(results -> {
+                    if (results.size() == images.size()) {
+                        return Mono.just(results);
+                    }
+                    logger.warn("Batched nutrition analysis returned {} results for {} images; analysing one by one",
+                            results.size(), images.size());
+                    return requestOneByOne(images, owner, analysisConfig);
+                });
     }
 
-    private GeminiNutritionResult requestOllamaNutritionAnalysis(byte[] imageBytes, Users owner,
-            String configuredModel) {
+    /**
+     * One model call per image, in order; an image the model had nothing for keeps a {@code null} slot. The slots
+     * travel as {@link Optional}s because Reactor does not allow {@code null} elements.
+     */
+    private Mono<List<GeminiNutritionResult>> requestOneByOne(List<ImagePayload> images, Users owner,
+            AiModelSelection analysisConfig) {
+        return Flux.fromIterable(images)
+                .concatMap(image -> requestNutritionAnalysis(image.data(), image.mimeType(), owner, analysisConfig)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty()))
+                .collectList()
+                .map(results -> {
+                    List<GeminiNutritionResult> slots = new ArrayList<>(results.size());
+                    results.forEach(result -> slots.add(result.orElse(null)));
+                    return slots;
+                });
+    }
+
+    /**
+     * Detects the food with the vision model, then asks the assistant model for the personalised summary. Either
+     * step failing or answering nothing falls back to what is already known.
+     */
+    private Mono<GeminiNutritionResult> requestOllamaNutritionAnalysis(byte[] imageBytes, String mimeType,
+            Users owner, String configuredModel) {
         if (imageBytes == null || imageBytes.length == 0) {
-            return null;
+            return Mono.empty();
+        }
+        Optional<ReactiveAiClient> client = resolveReactiveClient(AiProvider.OLLAMA);
+        if (client.isEmpty()) {
+            return Mono.empty();
         }
         String model = resolveOllamaVisionModel(configuredModel);
-        try {
-            List<String> images = List.of(Base64.getEncoder().encodeToString(imageBytes));
-            String prompt = resolvePrompt(owner, AiProvider.OLLAMA, model);
-            OllamaResponseDTO detectionResponse = ollamaService.generate(OllamaRequestDTO.builder()
-                    .model(model)
-                    .prompt(prompt)
-                    .stream(Boolean.FALSE)
-                    .images(images)
-                    .build());
-            if (detectionResponse == null || !StringUtils.hasText(detectionResponse.getResponse())) {
-                return null;
-            }
-            String detectionPayload = Optional.ofNullable(detectionResponse.getResponse())
-                    .map(this::sanitizeGeminiResponse)
-                    .orElse(null);
-            if (!StringUtils.hasText(detectionPayload)) {
-                return null;
-            }
-
-            GeminiNutritionResult detection = deserializeNutritionResult(detectionPayload);
-            if (detection == null || !detection.isFood()) {
-                return detection;
-            }
-
-            String summaryModel = StringUtils.hasText(configuredModel) ? configuredModel.trim()
-                    : DEFAULT_ASSISTANT_MODEL;
-            if (!StringUtils.hasText(summaryModel) || summaryModel.equalsIgnoreCase(model)) {
-                summaryModel = DEFAULT_ASSISTANT_MODEL;
-            }
+        AiRequest detectionRequest = AiRequest.builder()
+                .type(AiRequestType.IMAGE)
+                .model(model)
+                .prompt(resolvePrompt(owner, AiProvider.OLLAMA, model))
+                .imageBytes(imageBytes)
+                .mimeType(mimeType)
+                .build();
 
-            String summaryPromptTemplate = resolvePrompt(owner, AiProvider.OLLAMA, summaryModel,
-                    DEFAULT_PERSONALIZED_PROMPT);
-            Map<String, String> promptVariables = new HashMap<>();
-            promptVariables.put("DETECTION_JSON", detectionPayload);
-            List<GeminiNutritionResult.Item> detectedItems = detection.items();
-            if (detectedItems != null && !detectedItems.isEmpty()) {
-                String names = detectedItems.stream()
-                        .filter(Objects::nonNull)
-                        .map(GeminiNutritionResult.Item::name)
-                        .filter(StringUtils::hasText)
-                        .collect(Collectors.joining(", "));
-                if (StringUtils.hasText(names)) {
-                    promptVariables.put("ITEM_NAMES", names);
-                }
-            }
-            promptVariables.putIfAbsent("ITEM_NAMES", "(no items detected)");
-            if (StringUtils.hasText(detection.summary())) {
-                promptVariables.put("SUMMARY", detection.summary());
+        return client.get().generate(detectionRequest)
+                .mapNotNull(AiResponse::content)
+                .mapNotNull(this::sanitizeGeminiResponse)
+                .filter(StringUtils::hasText)
+                .publishOn(Schedulers.boundedElastic())
+                .flatMap(detectionPayload -> {
+                    GeminiNutritionResult detection = deserializeNutritionResult(detectionPayload);
+                    if (detection == null || !detection.isFood()) {
+                        return Mono.justOrEmpty(detection);
+                    }
+                    return client.get().generate(ollamaSummaryRequest(owner, configuredModel, model,
+                                    detectionPayload, detection))
+                            .mapNotNull(AiResponse::content)
+                            .mapNotNull(this::sanitizeGeminiResponse)
+                            .mapNotNull(this::deserializeNutritionResult)
+                            .defaultIfEmpty(detection);
+                })
+                .onErrorResume(ex -> {
+                    logger.error("Failed to request nutrition analysis from Ollama", ex);
+                    return Mono.empty();
+                });
+    }
+
+    private AiRequest ollamaSummaryRequest(Users owner, String configuredModel, String visionModel,
+            String detectionPayload, GeminiNutritionResult detection) {
+        String summaryModel = StringUtils.hasText(configuredModel) ? configuredModel.trim()
+                : DEFAULT_ASSISTANT_MODEL;
+        if (!StringUtils.hasText(summaryModel) || summaryModel.equalsIgnoreCase(visionModel)) {
+            summaryModel = DEFAULT_ASSISTANT_MODEL;
+        }
+
+        String summaryPromptTemplate = resolvePrompt(owner, AiProvider.OLLAMA, summaryModel,
+                DEFAULT_PERSONALIZED_PROMPT);
+        Map<String, String> promptVariables = new HashMap<>();
+        promptVariables.put("DETECTION_JSON", detectionPayload);
+        List<GeminiNutritionResult.Item> detectedItems = detection.items();
+        if (detectedItems != null && !detectedItems.isEmpty()) {
+            String names = detectedItems.stream()
+                    .filter(Objects::nonNull)
+                    .map(GeminiNutritionResult.Item::name)
+                    .filter(StringUtils::hasText)
+                    .collect(Collectors.joining(", "));
+            if (StringUtils.hasText(names)) {
+                promptVariables.put("ITEM_NAMES", names);
             }
-
-            String summaryPrompt = applyPromptTemplate(summaryPromptTemplate, promptVariables);
-            OllamaResponseDTO summaryResponse = ollamaService.generate(OllamaRequestDTO.builder()
-                    .model(summaryModel)
-                    .prompt(summaryPrompt)
-                    .stream(Boolean.FALSE)
-                    .build());
-
-            return Optional.ofNullable(summaryResponse)
-                    .map(OllamaResponseDTO::getResponse)
-                    .map(this::sanitizeGeminiResponse)
-                    .map(this::deserializeNutritionResult)
-                    .orElse(detection);
-        } catch (Exception ex) {
-            logger.error("Failed to request nutrition analysis from Ollama", ex);
-            return null;
         }
+        promptVariables.putIfAbsent("ITEM_NAMES", "(no items detected)");
+        if (StringUtils.hasText(detection.summary())) {
+            promptVariables.put("SUMMARY", detection.summary());
+        }
+
+        return AiRequest.builder()
+                .type(AiRequestType.TEXT)
+                .model(summaryModel)
+                .prompt(applyPromptTemplate(summaryPromptTemplate, promptVariables))
+                .build();
     }
 
     public GeminiNutritionResult deserializeNutritionResult(String payload) {
@@ -1699,6 +2040,18 @@ public class WhatsAppNutritionService {
         }
     }
 
+    private List<GeminiNutritionResult> deserializeNutritionResults(String payload) {
+        try {
+            ObjectMapper mapper = objectMapper.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+                    false);
+            return mapper.readValue(payload, new TypeReference<List<GeminiNutritionResult>>() {
+            });
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to parse batched Gemini nutrition response: {}", payload, e);
+            return List.of();
+        }
+    }
+
     private String sanitizeGeminiResponse(String raw) {
         if (raw == null) {
             return null;
@@ -1819,6 +2172,15 @@ public class WhatsAppNutritionService {
         return result;
     }
 
+    private Optional<ReactiveAiClient> resolveReactiveClient(AiProvider provider) {
+        try {
+            return Optional.of(aiClientFactory.createReactiveClient(provider));
+        } catch (IllegalArgumentException ex) {
+            logger.error("AI provider {} is not configured", provider, ex);
+            return Optional.empty();
+        }
+    }
+
     private Optional<AiClient> resolveClient(AiProvider provider) {
         try {
             return Optional.of(aiClientFactory.createClient(provider));
@@ -1930,7 +2292,7 @@ public class WhatsAppNutritionService {
                 ? analyticsService.getTodayNutritionSummary(owner.getId()).orElse(null)
                 : null;
 
-        DailyTotals totals = computeDailyTotals(owner, referenceMoment);
+        DailyTotals totals = summary == null ? computeDailyTotals(owner, referenceMoment) : DailyTotals.empty();
         BigDecimal proteinConsumed = summary != null ? summary.proteinConsumed() : BigDecimal.valueOf(totals.protein());
         BigDecimal proteinGoal = summary != null ? summary.proteinGoal() : null;
         BigDecimal carbsConsumed = summary != null ? summary.carbsConsumed() : BigDecimal.valueOf(totals.carbs());
@@ -1998,32 +2360,49 @@ public class WhatsAppNutritionService {
     @Transactional(readOnly = true)
     public List<WhatsAppMessageFeedDTO> getRecentMessagesWithFilter(WhatsAppMessageDTO filter, UUID userId,
             LocalDate date) {
-        OffsetDateTime start = startOfDay(date);
-        OffsetDateTime end = endOfDayExclusive(date);
-
-        List<WhatsAppMessage> messages = messageRepository.findAll(WhatsAppSpecification.search(filter, start, end));
-        Optional<String> normalizedPhone = resolveUserPhone(userId);
+        return getMessageFeed(filter, userId, date, null, FEED_DEFAULT_LIMIT).getItems();
+    }
 
-        Comparator<WhatsAppMessage> comparator = Comparator
-                .comparing(WhatsAppMessage::getReceivedAt, Comparator.nullsLast(Comparator.naturalOrder())).reversed();
+    /**
+     * A page of the feed, newest first, continuing after {@code cursor} when one is given. Filtering, ordering and
+     * the limit are applied by the database and the analysis of each message is fetched with it, so a page costs
+     * one query however long the history is.
+     */
+    @Transactional(readOnly = true)
+    public WhatsAppMessageFeedPageDTO getMessageFeed(WhatsAppMessageDTO filter, UUID userId, LocalDate date,
+            String cursor, Integer limit) {
+        int pageSize = limit == null ? FEED_DEFAULT_LIMIT : Math.max(1, Math.min(limit, FEED_MAX_LIMIT));
+        WhatsAppFeedCursor after = decodeCursor(cursor);
+        Set<String> ownerPhones = resolveUserPhones(userId);
+
+        List<WhatsAppMessage> messages = messageRepository.findBy(
+                WhatsAppSpecification.feed(filter, userId, ownerPhones, startOfDay(date), endOfDayExclusive(date),
+                        after),
+                query -> query.sortBy(Sort.by(Sort.Direction.DESC, "receivedAt", "id"))
+                        .limit(pageSize + 1)
+                        .all());
+
+        boolean hasMore = messages.size() > pageSize;
+        List<WhatsAppMessage> page = hasMore ? messages.subList(0, pageSize) : messages;
+        WhatsAppMessage last = page.isEmpty() ? null : page.get(page.size() - 1);
+        return WhatsAppMessageFeedPageDTO.builder()
+                .items(page.stream().map(this::toFeedDto).collect(Collectors.toList()))
+                .nextCursor(hasMore && last.getReceivedAt() != null
+                        ? new WhatsAppFeedCursor(last.getReceivedAt(), last.getId()).encode()
+                        : null)
+                .build();
+    }
 
-        return messages.stream()
-                .filter(message -> date == null || matchesDate(message.getReceivedAt(), date))
-                .filter(message -> {
-                    if (userId == null) {
-                        return true;
-                    }
-                    UUID ownerId = Optional.ofNullable(message.getOwner()).map(Users::getId).orElse(null);
-                    if (ownerId != null) {
-                        return ownerId.equals(userId);
-                    }
-                    return normalizedPhone.map(expected -> phoneMatches(expected, message.getFromPhone())
-                            || phoneMatches(expected, message.getToPhone())).orElse(false);
-                })
-                .sorted(comparator)
-                .limit(50)
-                .map(this::toFeedDto)
-                .collect(Collectors.toList());
+    private WhatsAppFeedCursor decodeCursor(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+        try {
+            return WhatsAppFeedCursor.decode(cursor.trim());
+        } catch (IllegalArgumentException ex) {
+            throw new JMException(HttpStatus.BAD_REQUEST.value(), ProblemType.INVALID_DATA.getUri(),
+                    ProblemType.INVALID_DATA.getTitle(), "Invalid feed cursor");
+        }
     }
 
     @Transactional
@@ -2047,6 +2426,7 @@ public class WhatsAppNutritionService {
         message.setNutritionAnalysis(analysis);
 
         WhatsAppMessage saved = messageRepository.save(message);
+        refreshRollup(analysis);
         return toFeedDto(saved);
     }
 
@@ -2057,6 +2437,7 @@ public class WhatsAppNutritionService {
                 .orElseThrow(() -> messageNotFound(messageId));
 
         ensureCanManage(context, message);
+        Optional.ofNullable(message.getNutritionAnalysis()).ifPresent(this::refreshRollup);
 
         if (context.admin() && request.getOwnerUserId() != null) {
             Users newOwner = resolveOwner(context, request.getOwnerUserId());
@@ -2084,6 +2465,7 @@ public class WhatsAppNutritionService {
         message.setNutritionAnalysis(analysis);
 
         WhatsAppMessage saved = messageRepository.save(message);
+        refreshRollup(analysis);
         return toFeedDto(saved);
     }
 
@@ -2094,9 +2476,21 @@ public class WhatsAppNutritionService {
                 .orElseThrow(() -> messageNotFound(messageId));
 
         ensureCanManage(context, message);
+        Optional.ofNullable(message.getNutritionAnalysis()).ifPresent(this::refreshRollup);
         messageRepository.delete(message);
     }
 
+    /** Recomputes the rollup day and today's state of the analysis' current owner once the transaction commits. */
+    private void refreshRollup(NutritionAnalysis analysis) {
+        Optional.ofNullable(analysis.getOwner())
+                .or(() -> Optional.ofNullable(analysis.getMessage()).map(WhatsAppMessage::getOwner))
+                .map(Users::getId)
+                .ifPresent(ownerId -> {
+                    nutritionRollupService.analysisChanged(ownerId, analysis.getCreatedAt());
+                    todayNutritionState.analysisChanged(ownerId);
+                });
+    }
+
     private WhatsAppMessageFeedDTO toFeedDto(WhatsAppMessage message) {
         NutritionAnalysis analysis = message.getNutritionAnalysis();
         WhatsAppMessageFeedDTO.NutritionSummary nutritionSummary = null;
@@ -2183,6 +2577,7 @@ public class WhatsAppNutritionService {
                 .imageUrl(imageUrl)
                 .receivedAt(message.getReceivedAt())
                 .cloudFlareImageUrl(message.getCloudflareImageUrl())
+                .thumbnailUrl(message.getCloudflareThumbnailUrl())
                 .manualEntry(message.isManualEntry())
                 .editedEntry(message.isEditedEntry())
                 .ownerUserId(Optional.ofNullable(message.getOwner()).map(Users::getId).orElse(null))
@@ -2197,6 +2592,7 @@ public class WhatsAppNutritionService {
             WhatsAppNutritionEntryRequest request) {
         NutritionAnalysis target = existing != null ? existing : new NutritionAnalysis();
         target.setMessage(message);
+        target.setOwner(message.getOwner());
 
         Meal meal = resolveMeal(request.getMealId());
         target.setMeal(meal);
@@ -2426,70 +2822,73 @@ public class WhatsAppNutritionService {
     private record PermissionContext(UUID userId, boolean admin) {
     }
 
+    /**
+     * Totals and per-category calories of the day come from one grouped query and the history from one projection
+     * with its meal, food, category and unit joined in, so the cost does not grow with lazy loads per entry. Without
+     * a date the dashboard shows the latest entries and sums them.
+     */
     @Transactional(readOnly = true)
     public NutritionDashboardDTO getDashboard(UUID userId, LocalDate date) {
         OffsetDateTime start = startOfDay(date);
         OffsetDateTime endExclusive = endOfDayExclusive(date);
+        Set<String> phones = resolveUserPhones(userId);
 
-        List<NutritionAnalysis> analyses;
-        if (start != null && endExclusive != null) {
-            OffsetDateTime endInclusive = endExclusive.minusNanos(1);
-            analyses = nutritionAnalysisRepository.findByCreatedAtBetween(start, endInclusive);
-        } else {
-            analyses = nutritionAnalysisRepository.findTop20ByOrderByCreatedAtDesc();
-        }
-
-        Optional<String> normalizedPhone = resolveUserPhone(userId);
-        if (normalizedPhone.isPresent()) {
-            String expected = normalizedPhone.get();
-            analyses = analyses.stream()
-                    .filter(analysis -> analysis.getMessage() != null
-                            && phoneMatches(expected, analysis.getMessage().getFromPhone()))
-                    .collect(Collectors.toList());
-        }
-
+        List<NutritionDashboardHistoryRow> rows;
+        List<NutritionDashboardCategoryRow> categories;
         if (date != null) {
-            analyses = analyses.stream().filter(analysis -> matchesAnalysisDate(analysis, date))
-                    .collect(Collectors.toList());
+            rows = userId != null
+                    ? nutritionAnalysisRepository.findDashboardHistoryForOwner(userId, phones, start, endExclusive)
+                    : nutritionAnalysisRepository.findDashboardHistory(start, endExclusive);
+            categories = userId != null
+                    ? nutritionAnalysisRepository.summarizeDashboardDayForOwner(userId, phones, start, endExclusive)
+                    : nutritionAnalysisRepository.summarizeDashboardDay(start, endExclusive);
+        } else {
+            rows = userId != null
+                    ? nutritionAnalysisRepository.findLatestDashboardHistoryForOwner(userId, phones,
+                            Limit.of(DASHBOARD_LATEST_ENTRIES))
+                    : nutritionAnalysisRepository.findLatestDashboardHistory(Limit.of(DASHBOARD_LATEST_ENTRIES));
+            categories = summarizeByCategory(rows);
+        }
+
+        double totalCalories = 0;
+        double totalProtein = 0;
+        double totalCarbs = 0;
+        double totalFat = 0;
+        double totalLiquidMl = 0;
+        long entries = 0;
+        Map<String, Double> categoryCalories = new LinkedHashMap<>();
+        for (NutritionDashboardCategoryRow category : categories) {
+            double calories = numberValue(category.calories());
+            totalCalories += calories;
+            totalProtein += numberValue(category.protein());
+            totalCarbs += numberValue(category.carbs());
+            totalFat += numberValue(category.fat());
+            totalLiquidMl += numberValue(category.liquidMl());
+            entries += category.entries() != null ? category.entries() : 0;
+            categoryCalories.merge(Optional.ofNullable(category.category()).orElse("Outros"), calories, Double::sum);
         }
 
-        double totalCalories = analyses.stream().mapToDouble(a -> optionalDouble(a.getCalories())).sum();
-        double totalProtein = analyses.stream().mapToDouble(a -> optionalDouble(a.getProtein())).sum();
-        double totalCarbs = analyses.stream().mapToDouble(a -> optionalDouble(a.getCarbs())).sum();
-        double totalFat = analyses.stream().mapToDouble(a -> optionalDouble(a.getFat())).sum();
-        double totalLiquidMl = analyses.stream()
-                .mapToDouble(a -> convertToMilliliters(a.getLiquidVolume(), a.getLiquidUnit()))
-                .sum();
-
         String liquidSymbol = totalLiquidMl >= 1000 ? "L" : "ml";
         double totalLiquidDisplay = "L".equals(liquidSymbol) ? totalLiquidMl / 1000d : totalLiquidMl;
 
-        Map<String, Double> categoryCalories = new ConcurrentHashMap<>();
-        analyses.forEach(analysis -> {
-            String category = Optional.ofNullable(analysis.getPrimaryCategory()).map(FoodCategory::getName)
-                    .orElse("Outros");
-            categoryCalories.merge(category, optionalDouble(analysis.getCalories()), Double::sum);
-        });
-
-        List<NutritionDashboardDTO.NutritionHistoryItem> history = analyses.stream()
-                .map(analysis -> NutritionDashboardDTO.NutritionHistoryItem.builder()
-                        .messageId(analysis.getMessage().getId())
-                        .foodId(Optional.ofNullable(analysis.getFood()).map(Food::getId).orElse(null))
-                        .foodName(analysis.getFoodName())
-                        .calories(optionalDouble(analysis.getCalories()))
-                        .protein(optionalDouble(analysis.getProtein()))
-                        .carbs(optionalDouble(analysis.getCarbs()))
-                        .fat(optionalDouble(analysis.getFat()))
-                        .liquidVolume(optionalDouble(analysis.getLiquidVolume()))
-                        .liquidVolumeMl(convertToMilliliters(analysis.getLiquidVolume(), analysis.getLiquidUnit()))
-                        .liquidUnitSymbol(Optional.ofNullable(analysis.getLiquidUnit()).map(MeasurementUnits::getSymbol)
-                                .orElse(null))
-                        .mealId(Optional.ofNullable(analysis.getMeal()).map(Meal::getId).orElse(null))
-                        .mealName(Optional.ofNullable(analysis.getMeal()).map(Meal::getName).orElse(null))
-                        .primaryCategory(Optional.ofNullable(analysis.getPrimaryCategory())
-                                .map(FoodCategory::getName).orElse(null))
-                        .analyzedAt(analysis.getCreatedAt())
-                        .summary(analysis.getSummary())
+        List<NutritionDashboardDTO.NutritionHistoryItem> history = rows.stream()
+                .map(row -> NutritionDashboardDTO.NutritionHistoryItem.builder()
+                        .messageId(row.messageId())
+                        .foodId(row.foodId())
+                        .foodName(row.foodName())
+                        .calories(optionalDouble(row.calories()))
+                        .protein(optionalDouble(row.protein()))
+                        .carbs(optionalDouble(row.carbs()))
+                        .fat(optionalDouble(row.fat()))
+                        .liquidVolume(optionalDouble(row.liquidVolume()))
+                        .liquidVolumeMl(convertToMilliliters(row.liquidVolume(), row.liquidUnitConversionFactor(),
+                                row.liquidUnitCode()))
+                        .liquidUnitSymbol(row.liquidUnitSymbol())
+                        .mealId(row.mealId())
+                        .mealName(row.mealName())
+                        .primaryCategory(row.primaryCategory())
+                        .analyzedAt(row.analyzedAt())
+                        .summary(row.summary())
                         .build())
                 .collect(Collectors.toList());
 
@@ -2501,12 +2900,36 @@ public class WhatsAppNutritionService {
                 .totalLiquidVolume(totalLiquidDisplay)
                 .totalLiquidVolumeMl(totalLiquidMl)
                 .liquidUnitSymbol(liquidSymbol)
-                .mealsAnalyzed(analyses.size())
+                .mealsAnalyzed((int) entries)
                 .categoryCalories(categoryCalories)
                 .history(history)
                 .build();
     }
 
+    /** The same grouping as the daily query, for the few latest entries shown when no date is selected. */
+    private List<NutritionDashboardCategoryRow> summarizeByCategory(List<NutritionDashboardHistoryRow> rows) {
+        Map<String, double[]> sums = new LinkedHashMap<>();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (NutritionDashboardHistoryRow row : rows) {
+            double[] sum = sums.computeIfAbsent(row.primaryCategory(), key -> new double[5]);
+            sum[0] += optionalDouble(row.calories());
+            sum[1] += optionalDouble(row.protein());
+            sum[2] += optionalDouble(row.carbs());
+            sum[3] += optionalDouble(row.fat());
+            sum[4] += convertToMilliliters(row.liquidVolume(), row.liquidUnitConversionFactor(),
+                    row.liquidUnitCode());
+            counts.merge(row.primaryCategory(), 1L, Long::sum);
+        }
+        List<NutritionDashboardCategoryRow> categories = new ArrayList<>(sums.size());
+        sums.forEach((category, sum) -> categories.add(new NutritionDashboardCategoryRow(category,
+                counts.get(category), sum[0], sum[1], sum[2], sum[3], sum[4])));
+        return categories;
+    }
+
+    private static double numberValue(Number value) {
+        return value == null ? 0.0 : value.doubleValue();
+    }
+
     @Transactional(readOnly = true)
     public Optional<ImagePayload> loadImage(UUID messageId) {
         return findMessage(messageId).flatMap(message -> {
@@ -2536,6 +2959,24 @@ public class WhatsAppNutritionService {
     public record ImagePayload(byte[] data, String mimeType) {
     }
 
+    public record InboundMessage(UUID messageId, String type, String from, String mediaId) {
+
+        public boolean isText() {
+            return "text".equals(type);
+        }
+
+        public boolean isImage() {
+            return "image".equals(type);
+        }
+
+        public boolean hasMedia() {
+            return StringUtils.hasText(mediaId);
+        }
+    }
+
+    public record InboundMedia(String url, String mimeType, byte[] data) {
+    }
+
     private double optionalDouble(BigDecimal value) {
         return value == null ? 0.0 : value.doubleValue();
     }
@@ -2646,18 +3087,21 @@ public class WhatsAppNutritionService {
     }
 
     private double convertToMilliliters(BigDecimal volume, MeasurementUnits unit) {
+        if (unit == null) {
+            return convertToMilliliters(volume, null, null);
+        }
+        return convertToMilliliters(volume, unit.getConversionFactor(), unit.getCode());
+    }
+
+    private double convertToMilliliters(BigDecimal volume, Double factor, String unitCode) {
         if (volume == null || volume.signum() <= 0) {
             return 0.0;
         }
         double base = optionalDouble(volume);
-        if (unit == null) {
-            return base;
-        }
-        Double factor = unit.getConversionFactor();
         if (factor != null && factor > 0) {
             return base * factor;
         }
-        String code = unit.getCode() != null ? unit.getCode().toUpperCase(Locale.ROOT) : "";
+        String code = unitCode != null ? unitCode.toUpperCase(Locale.ROOT) : "";
         return switch (code) {
             case "L", "LT", "LITRE", "LITER" -> base * 1000;
             case "CUP" -> base * 240;
@@ -2667,52 +3111,16 @@ public class WhatsAppNutritionService {
         };
     }
 
-    private Optional<String> resolveUserPhone(UUID userId) {
+    private Set<String> resolveUserPhones(UUID userId) {
         if (userId == null) {
-            return Optional.empty();
+            return Set.of();
         }
         try {
-            Users user = userService.findEntityById(userId);
-            if (!StringUtils.hasText(user.getPhoneNumber())) {
-                return Optional.empty();
-            }
-            return Optional.of(normalizePhone(user.getPhoneNumber()));
+            return userPhoneDirectory.senderPhones(userService.findEntityById(userId).getPhoneNumber());
         } catch (JMException ex) {
             logger.warn("Unable to resolve user {} for nutrition assistant filter", userId, ex);
-            return Optional.empty();
-        }
-    }
-
-    private String normalizePhone(String phone) {
-        return phone == null ? null : phone.replaceAll("\\D", "");
-    }
-
-    private boolean phoneMatches(String expected, String candidate) {
-        if (!StringUtils.hasText(expected) || !StringUtils.hasText(candidate)) {
-            return false;
-        }
-        String normalizedCandidate = normalizePhone(candidate);
-        if (!StringUtils.hasText(normalizedCandidate)) {
-            return false;
-        }
-        return normalizedCandidate.equals(expected) || normalizedCandidate.endsWith(expected);
-    }
-
-    private boolean matchesDate(OffsetDateTime timestamp, LocalDate date) {
-        if (timestamp == null || date == null) {
-            return false;
-        }
-        return timestamp.atZoneSameInstant(DEFAULT_ZONE).toLocalDate().isEqual(date);
-    }
-
-    private boolean matchesAnalysisDate(NutritionAnalysis analysis, LocalDate date) {
-        if (analysis == null || date == null) {
-            return false;
+            return Set.of();
         }
-        OffsetDateTime reference = Optional.ofNullable(analysis.getMessage())
-                .map(WhatsAppMessage::getReceivedAt)
-                .orElse(analysis.getCreatedAt());
-        return matchesDate(reference, date);
     }
 
     private OffsetDateTime startOfDay(LocalDate date) {
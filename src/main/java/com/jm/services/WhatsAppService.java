@@ -1,20 +1,27 @@
 package com.jm.services;
 
+import com.jm.configuration.config.AsyncConfig;
+import com.jm.configuration.config.HttpClientConfig;
 import com.jm.dto.WhatsAppMediaMetadata;
 import com.jm.dto.WhatsAppMessageDTO;
 import com.jm.dto.WhatsAppMessageResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +30,7 @@ import java.util.Map;
 public class WhatsAppService {
 
     private static final Logger logger = LoggerFactory.getLogger(WhatsAppService.class);
+    private static final Duration DELIVERY_TIMEOUT = Duration.ofSeconds(30);
 
     private final WebClient webClient;
 
@@ -37,8 +45,8 @@ public class WhatsAppService {
     @Value("${whatsapp.hug.token}")
     private String apiTokenHug;
 
-    public WhatsAppService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.build();
+    public WhatsAppService(@Qualifier(HttpClientConfig.WHATSAPP_WEB_CLIENT) WebClient webClient) {
+        this.webClient = webClient;
     }
 
     public Mono<WhatsAppMessageResponse> sendMessage(WhatsAppMessageDTO dto) {
@@ -60,6 +68,20 @@ public class WhatsAppService {
         return sendMessage(dto).then();
     }
 
+    /**
+     * Sends a text message on the outbound messaging executor, bounding how many replies are in flight at once.
+     */
+    @Async(AsyncConfig.OUTBOUND_MESSAGING_EXECUTOR)
+    public void deliverTextMessage(String phoneNumber, String message) {
+        sendTextMessage(phoneNumber, message).block(DELIVERY_TIMEOUT);
+    }
+
+    @Async(AsyncConfig.OUTBOUND_MESSAGING_EXECUTOR)
+    public void deliverCaptionMessage(String phoneNumber, WhatsAppCaptionTemplate template,
+            Map<String, ?> variables) {
+        sendCaptionMessage(phoneNumber, template, variables).block(DELIVERY_TIMEOUT);
+    }
+
     public Mono<Void> sendCaptionMessage(String phoneNumber, WhatsAppCaptionTemplate template, Map<String, ?> variables) {
         if (template == null) {
             return Mono.empty();
@@ -166,6 +188,17 @@ public class WhatsAppService {
                 .bodyToMono(WhatsAppMediaMetadata.class);
     }
 
+    /**
+     * Streams the media body chunk by chunk; the caller must consume or release every buffer.
+     */
+    public Flux<DataBuffer> streamMedia(String mediaUrl) {
+        return webClient.get()
+                .uri(mediaUrl)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiToken)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class);
+    }
+
     public Mono<byte[]> downloadMedia(String mediaUrl) {
         return webClient.get()
                 .uri(mediaUrl)
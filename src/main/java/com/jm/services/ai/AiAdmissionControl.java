@@ -0,0 +1,204 @@
+package com.jm.services.ai;
+
+import com.jm.configuration.config.AiAdmissionProperties;
+import com.jm.enums.AiProvider;
+import com.jm.services.ai.AiCallRejectedException.Reason;
+import com.jm.services.ai.AiConcurrencyLimiter.Outcome;
+import com.jm.services.ai.AiConcurrencyLimiter.Permit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Admission layer every model call goes through. Each provider, model and request type gets an adaptive concurrency
+ * limit with a bounded wait queue, and each provider a circuit breaker, so a slow or saturated backend sheds load with
+ * {@link AiCallRejectedException} instead of piling up calls that would time out anyway. Timeouts, connection
+ * errors, 429 and 5xx answers count as overload; other errors and cancellations only free the slot. Image and text
+ * calls are limited apart since their latencies differ by an order of magnitude and would skew a shared baseline.
+ */
+@Component
+public class AiAdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiAdmissionControl.class);
+    private static final String DEFAULT_MODEL = "default";
+
+    private final AiAdmissionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<AiProvider, AiCircuitBreaker> breakers = new EnumMap<>(AiProvider.class);
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+
+    public AiAdmissionControl(AiAdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        for (AiProvider provider : AiProvider.values()) {
+            AiCircuitBreaker breaker = new AiCircuitBreaker(properties.forProvider(provider).getBreaker());
+            breakers.put(provider, breaker);
+            Gauge.builder("ai.circuit.state", breaker, value -> value.state().ordinal())
+                    .description("Circuit breaker state per AI provider: 0 closed, 1 open, 2 half-open")
+                    .tag("provider", tag(provider))
+                    .register(meterRegistry);
+        }
+    }
+
+    /** Runs {@code call} once admitted; the call is not subscribed at all when it is rejected. */
+    public <T> Mono<T> admit(AiProvider provider, String model, AiRequestType type, Mono<T> call) {
+        if (!properties.isEnabled()) {
+            return call;
+        }
+        Guard guard = guard(provider, model, type);
+        return Mono.usingWhen(guard.acquire(), permit -> call,
+                permit -> guard.release(permit, null, true),
+                (permit, error) -> guard.release(permit, error, true),
+                permit -> guard.cancelled(permit));
+    }
+
+    /**
+     * Streaming variant. The slot is held until the stream ends; since a stream's length says little about
+     * congestion, only its failures adapt the limit.
+     */
+    public <T> Flux<T> admitMany(AiProvider provider, String model, AiRequestType type, Flux<T> call) {
+        if (!properties.isEnabled()) {
+            return call;
+        }
+        Guard guard = guard(provider, model, type);
+        return Flux.usingWhen(guard.acquire(), permit -> call,
+                permit -> guard.release(permit, null, false),
+                (permit, error) -> guard.release(permit, error, false),
+                permit -> guard.cancelled(permit));
+    }
+
+    private Guard guard(AiProvider provider, String model, AiRequestType type) {
+        String modelTag = StringUtils.hasText(model) ? model.trim() : DEFAULT_MODEL;
+        AiRequestType requestType = type != null ? type : AiRequestType.TEXT;
+        return guards.computeIfAbsent(provider + "|" + modelTag + "|" + requestType,
+                key -> new Guard(provider, modelTag, requestType));
+    }
+
+    private static boolean isOverload(Throwable error) {
+        Throwable cause = Exceptions.unwrap(error);
+        if (cause instanceof TimeoutException || cause instanceof WebClientRequestException) {
+            return true;
+        }
+        if (cause instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError()
+                    || response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return false;
+    }
+
+    private static String tag(AiProvider provider) {
+        return provider.name().toLowerCase();
+    }
+
+    private final class Guard {
+        private final AiProvider provider;
+        private final String model;
+        private final String type;
+        private final AiConcurrencyLimiter limiter;
+        private final AiCircuitBreaker breaker;
+        private final Map<Reason, Counter> rejections = new EnumMap<>(Reason.class);
+
+        Guard(AiProvider provider, String model, AiRequestType requestType) {
+            this.provider = provider;
+            this.model = model;
+            this.type = requestType.name().toLowerCase();
+            this.limiter = new AiConcurrencyLimiter(properties.forProvider(provider));
+            this.breaker = breakers.get(provider);
+            Gauge.builder("ai.calls.in_flight", limiter, AiConcurrencyLimiter::inFlight)
+                    .description("Model calls currently running")
+                    .tags("provider", tag(provider), "model", model, "type", type)
+                    .register(meterRegistry);
+            Gauge.builder("ai.calls.queued", limiter, AiConcurrencyLimiter::queued)
+                    .description("Model calls waiting for a concurrency slot")
+                    .tags("provider", tag(provider), "model", model, "type", type)
+                    .register(meterRegistry);
+            Gauge.builder("ai.calls.limit", limiter, AiConcurrencyLimiter::limit)
+                    .description("Current adaptive concurrency limit")
+                    .tags("provider", tag(provider), "model", model, "type", type)
+                    .register(meterRegistry);
+            for (Reason reason : Reason.values()) {
+                rejections.put(reason, Counter.builder("ai.calls.rejected")
+                        .description("Model calls rejected by admission control")
+                        .tags("provider", tag(provider), "model", model, "type", type, "reason",
+                                reason.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+        }
+
+        Mono<Permit> acquire() {
+            return Mono.defer(() -> {
+                if (!breaker.tryAcquire(System.nanoTime())) {
+                    return Mono.error(rejected(Reason.CIRCUIT_OPEN));
+                }
+                return limiter.acquire(() -> {
+                    breaker.onIgnored();
+                    return rejected(Reason.QUEUE_FULL);
+                }, () -> {
+                    breaker.onIgnored();
+                    return rejected(Reason.QUEUE_TIMEOUT);
+                }, breaker::onIgnored);
+            });
+        }
+
+        Mono<Void> release(Permit permit, Throwable error, boolean sampleLatency) {
+            return Mono.fromRunnable(() -> {
+                long now = System.nanoTime();
+                String outcome;
+                if (error == null) {
+                    limiter.release(permit, sampleLatency ? Outcome.SUCCESS : Outcome.IGNORED, now);
+                    breaker.onSuccess();
+                    outcome = "success";
+                } else if (isOverload(error)) {
+                    limiter.release(permit, Outcome.OVERLOAD, now);
+                    breaker.onFailure(now);
+                    outcome = "overload";
+                } else {
+                    limiter.release(permit, Outcome.IGNORED, now);
+                    breaker.onIgnored();
+                    outcome = "error";
+                }
+                record(permit, now, outcome);
+            });
+        }
+
+        Mono<Void> cancelled(Permit permit) {
+            return Mono.fromRunnable(() -> {
+                long now = System.nanoTime();
+                limiter.release(permit, Outcome.IGNORED, now);
+                breaker.onIgnored();
+                record(permit, now, "cancelled");
+            });
+        }
+
+        private void record(Permit permit, long now, String outcome) {
+            Timer.builder("ai.calls.duration")
+                    .description("Model call latency once admitted")
+                    .tags("provider", tag(provider), "model", model, "type", type, "outcome", outcome)
+                    .register(meterRegistry)
+                    .record(now - permit.startedAt(), TimeUnit.NANOSECONDS);
+        }
+
+        private AiCallRejectedException rejected(Reason reason) {
+            rejections.get(reason).increment();
+            logger.debug("Rejected {} {} call to model {}: {}", provider, type, model, reason);
+            return new AiCallRejectedException(provider, model, reason);
+        }
+    }
+}
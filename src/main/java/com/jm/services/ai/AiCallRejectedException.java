@@ -0,0 +1,28 @@
+package com.jm.services.ai;
+
+import com.jm.enums.AiProvider;
+import lombok.Getter;
+
+/** A model call turned away by admission control before anything was sent to the provider. */
+@Getter
+public class AiCallRejectedException extends RuntimeException {
+
+    public enum Reason {
+        CIRCUIT_OPEN,
+        QUEUE_FULL,
+        QUEUE_TIMEOUT
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private final AiProvider provider;
+    private final String model;
+    private final Reason reason;
+
+    public AiCallRejectedException(AiProvider provider, String model, Reason reason) {
+        super("Call to " + provider + " model " + model + " rejected: " + reason);
+        this.provider = provider;
+        this.model = model;
+        this.reason = reason;
+    }
+}
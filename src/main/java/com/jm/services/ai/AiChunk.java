@@ -0,0 +1,13 @@
+package com.jm.services.ai;
+
+/** A piece of a streamed answer; the last chunk of a stream has {@code done} set and may carry no text. */
+public record AiChunk(String text, boolean done) {
+
+    public static AiChunk of(String text) {
+        return new AiChunk(text, false);
+    }
+
+    public static AiChunk last(String text) {
+        return new AiChunk(text, true);
+    }
+}
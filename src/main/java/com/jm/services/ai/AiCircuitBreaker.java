@@ -0,0 +1,112 @@
+package com.jm.services.ai;
+
+import com.jm.configuration.config.AiAdmissionProperties;
+
+/**
+ * Count-based circuit breaker for one provider. It opens when the failure rate over the last outcomes crosses the
+ * threshold, rejects calls while open, then lets a few trial calls through: all of them succeeding closes it, any
+ * failure opens it again. Only provider health counts as failure; callers report everything else as ignored.
+ */
+final class AiCircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final AiAdmissionProperties.Breaker settings;
+    private final boolean[] outcomes;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int trialsInFlight;
+    private int trialSuccesses;
+
+    AiCircuitBreaker(AiAdmissionProperties.Breaker settings) {
+        this.settings = settings;
+        this.outcomes = new boolean[Math.max(1, settings.getWindowSize())];
+    }
+
+    /** Whether a call may go ahead now; a {@code true} must be followed by exactly one outcome report. */
+    synchronized boolean tryAcquire(long now) {
+        if (state == State.OPEN) {
+            if (now - openedAt < settings.getOpenDuration().toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialsInFlight = 0;
+            trialSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsInFlight >= Math.max(1, settings.getHalfOpenCalls())) {
+                return false;
+            }
+            trialsInFlight++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            trialSuccesses++;
+            if (trialSuccesses >= Math.max(1, settings.getHalfOpenCalls())) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure(long now) {
+        if (state == State.HALF_OPEN) {
+            open(now);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= Math.max(1, settings.getMinimumCalls())
+                && failures * 100 >= settings.getFailureRateThreshold() * recorded) {
+            open(now);
+        }
+    }
+
+    /** The call was cancelled, shed or failed for reasons unrelated to the provider's health. */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && trialsInFlight > 0) {
+            trialsInFlight--;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openedAt = now;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+}
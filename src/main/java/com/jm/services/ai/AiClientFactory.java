@@ -5,4 +5,6 @@ import com.jm.enums.AiProvider;
 public interface AiClientFactory {
 
     AiClient createClient(AiProvider provider);
+
+    ReactiveAiClient createReactiveClient(AiProvider provider);
 }
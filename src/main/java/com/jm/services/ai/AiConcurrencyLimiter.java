@@ -0,0 +1,172 @@
+package com.jm.services.ai;
+
+import com.jm.configuration.config.AiAdmissionProperties;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive concurrency limit for one provider and model, with a bounded FIFO queue in front of it. The limit follows
+ * AIMD driven by latency: a call finishing within {@code latencyTolerance} times the best recent latency while the
+ * limit is in use grows it by {@code 1/limit}, so by about one per round trip; a slower call, a timeout or an
+ * overload error multiplies it by {@code backoffRatio}. Only calls started after the last cut can cut again, so a
+ * burst of slow answers to the same congestion shrinks the limit once rather than once per call.
+ */
+final class AiConcurrencyLimiter {
+
+    enum Outcome {
+        SUCCESS,
+        OVERLOAD,
+        IGNORED
+    }
+
+    /** A granted slot; {@code inFlight} is the number of calls running when it was granted, itself included. */
+    record Permit(long startedAt, int inFlight) {
+    }
+
+    private final AiAdmissionProperties.Provider settings;
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long baselineNanos;
+    private long lastDecreaseAt = System.nanoTime();
+
+    AiConcurrencyLimiter(AiAdmissionProperties.Provider settings) {
+        this.settings = settings;
+        this.limit = Math.max(settings.getMinLimit(), Math.min(settings.getMaxLimit(), settings.getInitialLimit()));
+    }
+
+    /**
+     * A slot, immediately when one is free and nobody is waiting, otherwise once earlier callers are done. Fails
+     * with {@code queueFull} when the queue is at capacity and with {@code queueTimeout} when the wait runs out;
+     * {@code abandoned} runs when the subscriber cancels while still queued.
+     */
+    Mono<Permit> acquire(Supplier<? extends RuntimeException> queueFull,
+            Supplier<? extends RuntimeException> queueTimeout, Runnable abandoned) {
+        Mono<Permit> permit = Mono.create(sink -> {
+            Waiter waiter = null;
+            Permit granted = null;
+            synchronized (this) {
+                if (queue.isEmpty() && inFlight < currentLimit()) {
+                    inFlight++;
+                    granted = new Permit(System.nanoTime(), inFlight);
+                } else if (queue.size() < Math.max(0, settings.getQueueSize())) {
+                    waiter = new Waiter(sink);
+                    queue.addLast(waiter);
+                }
+            }
+            if (granted != null) {
+                sink.success(granted);
+                return;
+            }
+            if (waiter == null) {
+                sink.error(queueFull.get());
+                return;
+            }
+            Waiter queued = waiter;
+            queued.timer = Mono.delay(settings.getQueueTimeout()).subscribe(tick -> {
+                if (dequeue(queued)) {
+                    sink.error(queueTimeout.get());
+                }
+            });
+            sink.onCancel(() -> {
+                queued.timer.dispose();
+                if (dequeue(queued)) {
+                    abandoned.run();
+                }
+            });
+        });
+        /* A slot granted to a subscriber that cancelled in the meantime goes straight back. */
+        return permit.doOnDiscard(Permit.class, discarded -> {
+            release(discarded, Outcome.IGNORED, System.nanoTime());
+            abandoned.run();
+        });
+    }
+
+    /** Returns the slot, adapts the limit to how the call went and hands freed slots to waiting callers. */
+    void release(Permit permit, Outcome outcome, long now) {
+        List<Waiter> granted = new ArrayList<>();
+        List<Permit> permits = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            adapt(permit, outcome, now);
+            while (!queue.isEmpty() && inFlight < currentLimit()) {
+                inFlight++;
+                granted.add(queue.pollFirst());
+                permits.add(new Permit(System.nanoTime(), inFlight));
+            }
+        }
+        for (int i = 0; i < granted.size(); i++) {
+            Waiter waiter = granted.get(i);
+            if (waiter.timer != null) {
+                waiter.timer.dispose();
+            }
+            waiter.sink.success(permits.get(i));
+        }
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued() {
+        return queue.size();
+    }
+
+    synchronized double limit() {
+        return limit;
+    }
+
+    private void adapt(Permit permit, Outcome outcome, long now) {
+        if (outcome == Outcome.OVERLOAD) {
+            decrease(permit);
+            return;
+        }
+        if (outcome != Outcome.SUCCESS) {
+            return;
+        }
+        long latency = now - permit.startedAt();
+        if (baselineNanos == 0 || latency < baselineNanos) {
+            baselineNanos = latency;
+        } else {
+            /* Drifts towards recent latencies so one unusually fast answer does not pin the baseline forever. */
+            baselineNanos += (latency - baselineNanos) / 100;
+        }
+        if (latency > baselineNanos * settings.getLatencyTolerance()) {
+            decrease(permit);
+        } else if (permit.inFlight() * 2 >= limit) {
+            limit = Math.min(settings.getMaxLimit(), limit + 1.0 / limit);
+        }
+    }
+
+    private void decrease(Permit permit) {
+        if (permit.startedAt() - lastDecreaseAt < 0) {
+            return;
+        }
+        limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+        lastDecreaseAt = System.nanoTime();
+    }
+
+    private int currentLimit() {
+        return Math.max(1, (int) limit);
+    }
+
+    private synchronized boolean dequeue(Waiter waiter) {
+        return queue.remove(waiter);
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Permit> sink;
+        private volatile Disposable timer;
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+}
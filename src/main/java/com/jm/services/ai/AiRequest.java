@@ -17,8 +17,17 @@ public record AiRequest(
         List<MultipartFile> attachments,
         byte[] imageBytes,
         String mimeType,
+        List<Image> images,
         Duration timeout) {
 
+    /** One of several images analysed together in a single {@link AiRequestType#IMAGE} request. */
+    public record Image(byte[] data, String mimeType) {
+    }
+
+    public boolean hasMultipleImages() {
+        return images != null && !images.isEmpty();
+    }
+
     public boolean streamEnabled() {
         return Boolean.TRUE.equals(stream);
     }
@@ -13,12 +13,11 @@ import org.springframework.stereotype.Component;
 public class DefaultAiClientFactory implements AiClientFactory {
 
     private final Map<AiProvider, AiClient> registry;
+    private final Map<AiProvider, ReactiveAiClient> reactiveRegistry;
 
-    public DefaultAiClientFactory(List<AiClient> clients) {
-        this.registry = clients == null ? new EnumMap<>(AiProvider.class)
-                : clients.stream().filter(Objects::nonNull)
-                        .collect(Collectors.toMap(AiClient::provider, Function.identity(), (a, b) -> a,
-                                () -> new EnumMap<>(AiProvider.class)));
+    public DefaultAiClientFactory(List<AiClient> clients, List<ReactiveAiClient> reactiveClients) {
+        this.registry = index(clients, AiClient::provider);
+        this.reactiveRegistry = index(reactiveClients, ReactiveAiClient::provider);
     }
 
     @Override
@@ -29,4 +28,20 @@ public class DefaultAiClientFactory implements AiClientFactory {
         }
         return client;
     }
+
+    @Override
+    public ReactiveAiClient createReactiveClient(AiProvider provider) {
+        ReactiveAiClient client = reactiveRegistry.get(provider);
+        if (client == null) {
+            throw new IllegalArgumentException("No reactive AI client registered for provider " + provider);
+        }
+        return client;
+    }
+
+    private static <T> Map<AiProvider, T> index(List<T> clients, Function<T, AiProvider> provider) {
+        return clients == null ? new EnumMap<>(AiProvider.class)
+                : clients.stream().filter(Objects::nonNull)
+                        .collect(Collectors.toMap(provider, Function.identity(), (a, b) -> a,
+                                () -> new EnumMap<>(AiProvider.class)));
+    }
 }
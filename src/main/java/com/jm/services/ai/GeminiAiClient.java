@@ -1,18 +1,25 @@
 package com.jm.services.ai;
 
+import com.jm.dto.ImageData;
 import com.jm.enums.AiProvider;
 import com.jm.services.GeminiService;
 import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
-public class GeminiAiClient implements AiClient {
+public class GeminiAiClient implements AiClient, ReactiveAiClient {
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
 
     private final GeminiService geminiService;
+    private final AiAdmissionControl admission;
 
     @Override
     public AiProvider provider() {
@@ -21,22 +28,62 @@ public class GeminiAiClient implements AiClient {
 
     @Override
     public AiResponse execute(AiRequest request) {
+        return generate(request).blockOptional().orElseGet(() -> AiResponse.withContent(null));
+    }
+
+    @Override
+    public Mono<AiResponse> generate(AiRequest request) {
         if (request == null) {
-            throw new IllegalArgumentException("AI request must not be null");
+            return Mono.error(new IllegalArgumentException("AI request must not be null"));
         }
 
         Mono<String> result;
-        if (request.type() == AiRequestType.IMAGE) {
+        if (request.type() == AiRequestType.IMAGE && request.hasMultipleImages()) {
+            result = geminiService.generateTextFromImages(request.prompt(), imageData(request));
+        } else if (request.type() == AiRequestType.IMAGE) {
             if (request.imageBytes() == null || request.mimeType() == null) {
-                return AiResponse.withContent(null);
+                return Mono.just(AiResponse.withContent(null));
             }
             result = geminiService.generateTextFromImage(request.prompt(), request.imageBytes(), request.mimeType());
         } else {
             result = geminiService.generateTextFromPrompt(request.prompt());
         }
 
-        Duration timeout = Optional.ofNullable(request.timeout()).orElse(Duration.ofSeconds(30));
-        String content = result.blockOptional(timeout).orElse(null);
-        return AiResponse.withContent(content);
+        return admission.admit(AiProvider.GEMINI, request.model(), request.type(), result.timeout(timeout(request)))
+                .map(AiResponse::withContent);
+    }
+
+    /** Streams through {@code streamGenerateContent}; the timeout is the longest wait for the next chunk. */
+    @Override
+    public Flux<AiChunk> stream(AiRequest request) {
+        if (request == null) {
+            return Flux.error(new IllegalArgumentException("AI request must not be null"));
+        }
+
+        Flux<String> result;
+        if (request.type() == AiRequestType.IMAGE && request.hasMultipleImages()) {
+            result = geminiService.streamTextFromImages(request.prompt(), imageData(request));
+        } else if (request.type() == AiRequestType.IMAGE) {
+            if (request.imageBytes() == null || request.mimeType() == null) {
+                return Flux.just(AiChunk.last(null));
+            }
+            result = geminiService.streamTextFromImage(request.prompt(), request.imageBytes(), request.mimeType());
+        } else {
+            result = geminiService.streamTextFromPrompt(request.prompt());
+        }
+
+        return admission.admitMany(AiProvider.GEMINI, request.model(), request.type(), result.timeout(timeout(request)))
+                .map(AiChunk::of)
+                .concatWith(Mono.just(AiChunk.last(null)));
+    }
+
+    private static List<ImageData> imageData(AiRequest request) {
+        return request.images().stream()
+                .map(image -> new ImageData(image.mimeType(), Base64.getEncoder().encodeToString(image.data())))
+                .toList();
+    }
+
+    private static Duration timeout(AiRequest request) {
+        return Optional.ofNullable(request.timeout()).orElse(DEFAULT_TIMEOUT);
     }
 }
@@ -3,16 +3,23 @@ package com.jm.services.ai;
 import com.jm.dto.OllamaRequestDTO;
 import com.jm.dto.OllamaRequestDTO.OllamaRequestDTOBuilder;
 import com.jm.dto.OllamaDTO;
+import com.jm.dto.OllamaResponseDTO;
 import com.jm.enums.AiProvider;
 import com.jm.services.OllamaService;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
-public class OllamaAiClient implements AiClient {
+public class OllamaAiClient implements AiClient, ReactiveAiClient {
 
     private final OllamaService ollamaService;
+    private final AiAdmissionControl admission;
 
     @Override
     public AiProvider provider() {
@@ -42,4 +49,55 @@ public class OllamaAiClient implements AiClient {
         OllamaDTO response = ollamaService.createAndDispatchRequest(builder.build());
         return AiResponse.withRequestId(response.getId());
     }
+
+    /**
+     * Calls {@code /api/generate} directly instead of going through the persisted request and its listener. Without
+     * a request timeout the Ollama client's response timeout applies, since local models can take minutes.
+     */
+    @Override
+    public Mono<AiResponse> generate(AiRequest request) {
+        if (request == null) {
+            return Mono.error(new IllegalArgumentException("AI request must not be null"));
+        }
+        Mono<OllamaResponseDTO> response = Mono.fromCallable(() -> generateRequest(request))
+                .flatMap(ollamaService::sendPromptAsync);
+        if (request.timeout() != null) {
+            response = response.timeout(request.timeout());
+        }
+        return admission.admit(AiProvider.OLLAMA, request.model(), request.type(), response)
+                .map(result -> AiResponse.withContent(result.getResponse()));
+    }
+
+    /** Streams with {@code stream=true}; a request timeout is the longest wait for the next chunk. */
+    @Override
+    public Flux<AiChunk> stream(AiRequest request) {
+        if (request == null) {
+            return Flux.error(new IllegalArgumentException("AI request must not be null"));
+        }
+        Flux<OllamaResponseDTO> chunks = Mono.fromCallable(() -> generateRequest(request))
+                .flatMapMany(ollamaService::streamPrompt);
+        if (request.timeout() != null) {
+            chunks = chunks.timeout(request.timeout());
+        }
+        return admission.admitMany(AiProvider.OLLAMA, request.model(), request.type(), chunks)
+                .map(chunk -> new AiChunk(chunk.getResponse(), chunk.isDone()));
+    }
+
+    private OllamaRequestDTO generateRequest(AiRequest request) {
+        List<String> images = new ArrayList<>();
+        if (request.imageBytes() != null && request.imageBytes().length > 0) {
+            images.add(Base64.getEncoder().encodeToString(request.imageBytes()));
+        }
+        if (request.hasMultipleImages()) {
+            request.images().forEach(image -> images.add(Base64.getEncoder().encodeToString(image.data())));
+        }
+        if (request.attachments() != null && !request.attachments().isEmpty()) {
+            images.addAll(ollamaService.encodeImages(request.attachments()));
+        }
+        return OllamaRequestDTO.builder()
+                .model(request.model())
+                .prompt(request.prompt())
+                .images(images.isEmpty() ? null : images)
+                .build();
+    }
 }
@@ -0,0 +1,20 @@
+package com.jm.services.ai;
+
+import com.jm.enums.AiProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link AiClient}. Nothing is sent until the result is subscribed, no thread is held
+ * while the model works, and cancelling the subscription (or hitting the request timeout) aborts the HTTP exchange.
+ */
+public interface ReactiveAiClient {
+
+    AiProvider provider();
+
+    /** The complete answer. */
+    Mono<AiResponse> generate(AiRequest request);
+
+    /** The answer as the model produces it, ending with a chunk marked {@code done}. */
+    Flux<AiChunk> stream(AiRequest request);
+}
@@ -0,0 +1,128 @@
+package com.jm.services.analytics;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jm.configuration.config.AdminAnalyticsProperties;
+import com.jm.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs all-users analytics in chunks of users read by keyset pagination over their ids. Each chunk is aggregated on
+ * a fork-join pool into a partial result that is merged in page order, so admin views never load every row on the
+ * request thread nor hold more than a few chunks in flight. Results are reused for a short TTL because admin
+ * dashboards poll the same ranges.
+ */
+@Component
+public class AllUsersAnalyticsPartitioner {
+
+    private final UserRepository userRepository;
+    private final AdminAnalyticsProperties properties;
+    private final ForkJoinPool pool;
+    private final Cache<Object, Object> results;
+    private final Timer duration;
+
+    public AllUsersAnalyticsPartitioner(UserRepository userRepository, AdminAnalyticsProperties properties,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.properties = properties;
+        int parallelism = properties.getParallelism() > 0
+                ? properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("analytics-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.results = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1, properties.getCacheEntries()))
+                .expireAfterWrite(properties.getCacheTtl().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.duration = Timer.builder("analytics.all_users.duration")
+                .description("Time spent aggregating analytics over all users")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies {@code chunk} to every page of user ids and {@code unowned} to the data not linked to any user, all on
+     * the pool, and folds the partial results with {@code merge}.
+     */
+    public <T> T aggregate(Function<List<UUID>, T> chunk, Supplier<T> unowned, BinaryOperator<T> merge) {
+        long startedAt = System.nanoTime();
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        int maxInFlight = pool.getParallelism() * 2;
+        Deque<ForkJoinTask<T>> inFlight = new ArrayDeque<>();
+        try {
+            T result = join(pool.submit(unowned::get));
+            UUID after = null;
+            List<UUID> page;
+            do {
+                page = after == null
+                        ? userRepository.findIds(Limit.of(chunkSize))
+                        : userRepository.findIdsAfter(after, Limit.of(chunkSize));
+                if (!page.isEmpty()) {
+                    List<UUID> ids = page;
+                    inFlight.addLast(pool.submit(() -> chunk.apply(ids)));
+                    after = page.get(page.size() - 1);
+                }
+                while (inFlight.size() > maxInFlight || (page.size() < chunkSize && !inFlight.isEmpty())) {
+                    result = merge.apply(result, join(inFlight.removeFirst()));
+                }
+            } while (page.size() == chunkSize);
+            return result;
+        } finally {
+            inFlight.forEach(task -> task.cancel(true));
+            duration.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** The cached result for {@code key}, computed by {@code loader} when absent or expired. */
+    @SuppressWarnings("unchecked")
+    public <T> T cached(Object key, Supplier<T> loader) {
+        if (properties.getCacheTtl().isZero() || properties.getCacheTtl().isNegative()) {
+            return loader.get();
+        }
+        Object cached = results.getIfPresent(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T loaded = loader.get();
+        results.put(key, loaded);
+        return loaded;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static <T> T join(ForkJoinTask<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while aggregating analytics", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Unable to aggregate analytics", ex.getCause());
+        }
+    }
+}
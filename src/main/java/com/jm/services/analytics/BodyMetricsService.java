@@ -0,0 +1,104 @@
+package com.jm.services.analytics;
+
+import com.jm.dto.BodyMetricDayRow;
+import com.jm.enums.AnalyticsGroupBy;
+import com.jm.repository.BodyMetricSampleRepository;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * The body composition series behind the analytics charts. Samples are written from each saved anamnesis and read
+ * back as per-day sums, which are folded into day, week or month points here; each metric is averaged over the
+ * samples that actually have it.
+ */
+@Service
+public class BodyMetricsService {
+
+    private static final MathContext MATH_CONTEXT = MathContext.DECIMAL64;
+
+    private final BodyMetricSampleRepository repository;
+
+    public BodyMetricsService(BodyMetricSampleRepository repository) {
+        this.repository = repository;
+    }
+
+    /** Refreshes the sample of an anamnesis from its stored row; call after the anamnesis has been flushed. */
+    public void record(UUID anamnesisId) {
+        repository.upsertFromAnamnesis(anamnesisId.toString());
+    }
+
+    /**
+     * Points between {@code start} and {@code end}, inclusive, labelled like the other analytics buckets. A
+     * {@code null} user set means every sample, including those no longer linked to a user.
+     */
+    public List<BodyMetricPoint> series(Collection<UUID> userIds, LocalDate start, LocalDate end,
+            AnalyticsGroupBy groupBy) {
+        List<BodyMetricDayRow> days = userIds == null
+                ? repository.findDayTotals(start, end)
+                : repository.findDayTotalsForUsers(userIds, start, end);
+        Map<LocalDate, Totals> buckets = new TreeMap<>();
+        for (BodyMetricDayRow day : days) {
+            buckets.computeIfAbsent(anchor(day.day(), groupBy), key -> new Totals()).add(day);
+        }
+        List<BodyMetricPoint> points = new ArrayList<>(buckets.size());
+        buckets.forEach((anchor, totals) -> points.add(totals.point(anchor.toString())));
+        return points;
+    }
+
+    private static LocalDate anchor(LocalDate day, AnalyticsGroupBy groupBy) {
+        return switch (groupBy) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+
+    public record BodyMetricPoint(String label, BigDecimal weight, BigDecimal bmi, BigDecimal fatPercentage,
+            BigDecimal musclePercentage) {
+    }
+
+    private static final class Totals {
+        private final Metric weight = new Metric();
+        private final Metric bmi = new Metric();
+        private final Metric fat = new Metric();
+        private final Metric muscle = new Metric();
+
+        void add(BodyMetricDayRow day) {
+            weight.add(day.weightSum(), day.weightCount());
+            bmi.add(day.bmiSum(), day.bmiCount());
+            fat.add(day.fatSum(), day.fatCount());
+            muscle.add(day.muscleSum(), day.muscleCount());
+        }
+
+        BodyMetricPoint point(String label) {
+            return new BodyMetricPoint(label, weight.average(), bmi.average(), fat.average(), muscle.average());
+        }
+    }
+
+    private static final class Metric {
+        private BigDecimal sum = BigDecimal.ZERO;
+        private long count;
+
+        void add(BigDecimal value, Long values) {
+            if (value != null && values != null && values > 0) {
+                sum = sum.add(value, MATH_CONTEXT);
+                count += values;
+            }
+        }
+
+        BigDecimal average() {
+            return count == 0 ? BigDecimal.ZERO : sum.divide(BigDecimal.valueOf(count), MATH_CONTEXT);
+        }
+    }
+}
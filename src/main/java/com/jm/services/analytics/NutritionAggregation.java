@@ -0,0 +1,201 @@
+package com.jm.services.analytics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sums nutrition entries into date buckets using one primitive array per metric, indexed by bucket ordinal. A day is
+ * mapped to its bucket through a lookup table built once for the range, so adding an entry is O(1) and allocates
+ * nothing; values only become {@link BigDecimal} when the caller formats them. Not thread-safe.
+ */
+public final class NutritionAggregation {
+
+    private final long startEpochDay;
+    private final int[] bucketOfDay;
+    private final int bucketCount;
+
+    private final long[] entries;
+    private final double[] calories;
+    private final double[] protein;
+    private final double[] carbs;
+    private final double[] fat;
+    private final double[] fiber;
+    private final double[] water;
+    private final Map<String, FoodTotal> foods = new HashMap<>();
+
+    /**
+     * @param startDate   first day of the range
+     * @param bucketOfDay bucket ordinal of each day of the range, starting at {@code startDate}; -1 for none
+     * @param bucketCount number of buckets
+     */
+    public NutritionAggregation(LocalDate startDate, int[] bucketOfDay, int bucketCount) {
+        this.startEpochDay = startDate.toEpochDay();
+        this.bucketOfDay = bucketOfDay;
+        this.bucketCount = bucketCount;
+        this.entries = new long[bucketCount];
+        this.calories = new double[bucketCount];
+        this.protein = new double[bucketCount];
+        this.carbs = new double[bucketCount];
+        this.fat = new double[bucketCount];
+        this.fiber = new double[bucketCount];
+        this.water = new double[bucketCount];
+    }
+
+    /** An empty aggregation over the same buckets, for partial results that are later {@link #merge merged}. */
+    public NutritionAggregation emptyCopy() {
+        return new NutritionAggregation(LocalDate.ofEpochDay(startEpochDay), bucketOfDay, bucketCount);
+    }
+
+    /** Adds every bucket and food of {@code other}, which must cover the same buckets; returns this aggregation. */
+    public NutritionAggregation merge(NutritionAggregation other) {
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            entries[bucket] += other.entries[bucket];
+            calories[bucket] += other.calories[bucket];
+            protein[bucket] += other.protein[bucket];
+            carbs[bucket] += other.carbs[bucket];
+            fat[bucket] += other.fat[bucket];
+            fiber[bucket] += other.fiber[bucket];
+            water[bucket] += other.water[bucket];
+        }
+        other.foods.values().forEach(food -> addFood(food.name, food.unit, food.quantity));
+        return this;
+    }
+
+    /** Bucket ordinal of the day, or -1 when it falls outside the range. */
+    public int bucketOf(long epochDay) {
+        long offset = epochDay - startEpochDay;
+        return offset >= 0 && offset < bucketOfDay.length ? bucketOfDay[(int) offset] : -1;
+    }
+
+    /** Adds one entry (or a day's worth of them); returns false when the day is outside the range. */
+    public boolean add(long epochDay, long count, double calories, double protein, double carbs, double fat,
+            double fiber, double water) {
+        int bucket = bucketOf(epochDay);
+        if (bucket < 0) {
+            return false;
+        }
+        this.entries[bucket] += count;
+        this.calories[bucket] += calories;
+        this.protein[bucket] += protein;
+        this.carbs[bucket] += carbs;
+        this.fat[bucket] += fat;
+        this.fiber[bucket] += fiber;
+        this.water[bucket] += water;
+        return true;
+    }
+
+    public void add(LocalDate date, NutritionDayTotals totals) {
+        if (add(date.toEpochDay(), totals.entries(), totals.calories().doubleValue(),
+                totals.protein().doubleValue(), totals.carbs().doubleValue(), totals.fat().doubleValue(),
+                totals.fiber().doubleValue(), totals.water().doubleValue())) {
+            totals.foods().values().forEach(food -> addFood(food.name(), food.unit(), food.quantity().doubleValue()));
+        }
+    }
+
+    /** Adds to the range-wide quantity of a food, matched case-insensitively by name and unit. */
+    public void addFood(String name, String unit, double quantity) {
+        String key = name.toLowerCase(Locale.ROOT) + "|" + unit;
+        FoodTotal total = foods.get(key);
+        if (total == null) {
+            foods.put(key, new FoodTotal(name, unit, quantity));
+        } else {
+            total.quantity += quantity;
+        }
+    }
+
+    public int bucketCount() {
+        return bucketCount;
+    }
+
+    public long entries(int bucket) {
+        return entries[bucket];
+    }
+
+    public double calories(int bucket) {
+        return calories[bucket];
+    }
+
+    public double protein(int bucket) {
+        return protein[bucket];
+    }
+
+    public double carbs(int bucket) {
+        return carbs[bucket];
+    }
+
+    public double fat(int bucket) {
+        return fat[bucket];
+    }
+
+    public double fiber(int bucket) {
+        return fiber[bucket];
+    }
+
+    public double water(int bucket) {
+        return water[bucket];
+    }
+
+    public double totalCalories() {
+        return sum(calories);
+    }
+
+    public double totalProtein() {
+        return sum(protein);
+    }
+
+    public double totalCarbs() {
+        return sum(carbs);
+    }
+
+    public double totalFat() {
+        return sum(fat);
+    }
+
+    public double totalFiber() {
+        return sum(fiber);
+    }
+
+    public double totalWater() {
+        return sum(water);
+    }
+
+    public Collection<FoodTotal> foods() {
+        return foods.values();
+    }
+
+    private static double sum(double[] values) {
+        double total = 0;
+        for (double value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    public static final class FoodTotal {
+        private final String name;
+        private final String unit;
+        private double quantity;
+
+        FoodTotal(String name, String unit, double quantity) {
+            this.name = name;
+            this.unit = unit;
+            this.quantity = quantity;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String unit() {
+            return unit;
+        }
+
+        public double quantity() {
+            return quantity;
+        }
+    }
+}
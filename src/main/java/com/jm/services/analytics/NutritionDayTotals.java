@@ -0,0 +1,121 @@
+package com.jm.services.analytics;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Running totals of the nutrition entries of one day (or of several merged days): macros, calories, fiber, water
+ * and the quantity eaten of each food. Not thread-safe.
+ */
+public final class NutritionDayTotals {
+
+    private static final MathContext MATH_CONTEXT = MathContext.DECIMAL64;
+
+    private int entries;
+    private BigDecimal calories = BigDecimal.ZERO;
+    private BigDecimal protein = BigDecimal.ZERO;
+    private BigDecimal carbs = BigDecimal.ZERO;
+    private BigDecimal fat = BigDecimal.ZERO;
+    private BigDecimal fiber = BigDecimal.ZERO;
+    private BigDecimal water = BigDecimal.ZERO;
+    private final Map<String, FoodQuantity> foods = new LinkedHashMap<>();
+
+    public NutritionDayTotals() {
+    }
+
+    public NutritionDayTotals(int entries, BigDecimal calories, BigDecimal protein, BigDecimal carbs, BigDecimal fat,
+            BigDecimal fiber, BigDecimal water, Collection<FoodQuantity> foods) {
+        this.entries = entries;
+        this.calories = orZero(calories);
+        this.protein = orZero(protein);
+        this.carbs = orZero(carbs);
+        this.fat = orZero(fat);
+        this.fiber = orZero(fiber);
+        this.water = orZero(water);
+        if (foods != null) {
+            foods.forEach(this::addFood);
+        }
+    }
+
+    void addEntry(BigDecimal calories, BigDecimal protein, BigDecimal carbs, BigDecimal fat, BigDecimal fiber,
+            BigDecimal water, FoodQuantity food) {
+        entries++;
+        this.calories = this.calories.add(orZero(calories), MATH_CONTEXT);
+        this.protein = this.protein.add(orZero(protein), MATH_CONTEXT);
+        this.carbs = this.carbs.add(orZero(carbs), MATH_CONTEXT);
+        this.fat = this.fat.add(orZero(fat), MATH_CONTEXT);
+        this.fiber = this.fiber.add(orZero(fiber), MATH_CONTEXT);
+        this.water = this.water.add(orZero(water), MATH_CONTEXT);
+        if (food != null) {
+            addFood(food);
+        }
+    }
+
+    public void merge(NutritionDayTotals other) {
+        if (other == null) {
+            return;
+        }
+        entries += other.entries;
+        calories = calories.add(other.calories, MATH_CONTEXT);
+        protein = protein.add(other.protein, MATH_CONTEXT);
+        carbs = carbs.add(other.carbs, MATH_CONTEXT);
+        fat = fat.add(other.fat, MATH_CONTEXT);
+        fiber = fiber.add(other.fiber, MATH_CONTEXT);
+        water = water.add(other.water, MATH_CONTEXT);
+        other.foods.values().forEach(this::addFood);
+    }
+
+    private void addFood(FoodQuantity food) {
+        String key = food.name().toLowerCase(Locale.ROOT) + "|" + food.unit();
+        foods.merge(key, food, (existing, added) -> new FoodQuantity(existing.name(), existing.unit(),
+                existing.quantity().add(added.quantity(), MATH_CONTEXT)));
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    public int entries() {
+        return entries;
+    }
+
+    public BigDecimal calories() {
+        return calories;
+    }
+
+    public BigDecimal protein() {
+        return protein;
+    }
+
+    public BigDecimal carbs() {
+        return carbs;
+    }
+
+    public BigDecimal fat() {
+        return fat;
+    }
+
+    public BigDecimal fiber() {
+        return fiber;
+    }
+
+    public BigDecimal water() {
+        return water;
+    }
+
+    /** Foods keyed by lower-case name and unit, in the order they were first eaten. */
+    public Map<String, FoodQuantity> foods() {
+        return Collections.unmodifiableMap(foods);
+    }
+
+    public record FoodQuantity(String name, String unit, BigDecimal quantity) {
+        public FoodQuantity {
+            quantity = quantity != null ? quantity : BigDecimal.ZERO;
+        }
+    }
+}
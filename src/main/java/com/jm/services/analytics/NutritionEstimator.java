@@ -0,0 +1,203 @@
+package com.jm.services.analytics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jm.dto.analytics.NutritionAnalyticsRow;
+import com.jm.services.analytics.NutritionDayTotals.FoodQuantity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Derives water, fiber and food quantities from a nutrition analysis, whose free-text fields only hint at them.
+ * Shared by the live analytics path and the daily rollup so both count an entry the same way.
+ */
+@Component
+public class NutritionEstimator {
+
+    private static final MathContext MATH_CONTEXT = MathContext.DECIMAL64;
+    private static final BigDecimal ONE_THOUSAND = BigDecimal.valueOf(1000);
+
+    private static final Pattern MASS_PATTERN = Pattern
+            .compile("(\\d+(?:[\\.,]\\d+)?)\\s*(kg|kilograms?|g|grams?|gramas?)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern VOLUME_PATTERN = Pattern.compile("(\\d+(?:[\\.,]\\d+)?)\\s*(ml|l|lt|litro?s?)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern FIBER_PATTERN = Pattern.compile("(?:fiber|fibra)\\s*:?\\s*(\\d+(?:[\\.,]\\d+)?)\\s*g",
+            Pattern.CASE_INSENSITIVE);
+
+    private final ObjectMapper objectMapper;
+
+    public NutritionEstimator(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /** Adds one analysis to {@code totals}. */
+    public void accumulate(NutritionDayTotals totals, NutritionAnalyticsRow analysis) {
+        totals.addEntry(analysis.calories(), analysis.protein(), analysis.carbs(), analysis.fat(),
+                estimateFiber(analysis), estimateWater(analysis), estimateFood(analysis));
+    }
+
+    /** Millilitres of water in the entry: the recorded liquid volume, or a guess for drinks named as water. */
+    public BigDecimal estimateWater(NutritionAnalyticsRow analysis) {
+        if (analysis == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal recorded = liquidVolumeToMilliliters(analysis);
+        if (recorded.compareTo(BigDecimal.ZERO) > 0) {
+            return recorded;
+        }
+        String source = String.join(" ",
+                Optional.ofNullable(analysis.foodName()).orElse(""),
+                Optional.ofNullable(analysis.summary()).orElse(""));
+        boolean hinted = containsKeyword(source, "water", "água", "agua", "drink", "hydration");
+        if (!hinted && analysis.primaryCategoryName() != null) {
+            hinted = containsKeyword(
+                    analysis.primaryCategoryName(),
+                    "water", "hydration", "drink", "beverage");
+        }
+        if (!hinted) {
+            return BigDecimal.ZERO;
+        }
+        Matcher matcher = VOLUME_PATTERN.matcher(source);
+        if (matcher.find()) {
+            BigDecimal value = parseNumber(matcher.group(1));
+            String unit = matcher.group(2).toLowerCase(Locale.ROOT);
+            if (unit.startsWith("l") || unit.startsWith("lt")) {
+                return value.multiply(ONE_THOUSAND, MATH_CONTEXT);
+            }
+            return value;
+        }
+        return BigDecimal.valueOf(250);
+    }
+
+    private BigDecimal liquidVolumeToMilliliters(NutritionAnalyticsRow analysis) {
+        if (analysis == null || analysis.liquidVolume() == null || analysis.liquidVolume().signum() <= 0) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal base = analysis.liquidVolume();
+        Double factor = analysis.liquidUnitConversionFactor();
+        if (factor != null && factor > 0) {
+            return base.multiply(BigDecimal.valueOf(factor), MATH_CONTEXT);
+        }
+        String code = analysis.liquidUnitCode() != null ? analysis.liquidUnitCode().toLowerCase(Locale.ROOT) : "";
+        return switch (code) {
+            case "l", "lt", "litre", "liter" -> base.multiply(ONE_THOUSAND, MATH_CONTEXT);
+            case "cup" -> base.multiply(BigDecimal.valueOf(240), MATH_CONTEXT);
+            case "tbsp" -> base.multiply(BigDecimal.valueOf(15), MATH_CONTEXT);
+            case "tsp" -> base.multiply(BigDecimal.valueOf(5), MATH_CONTEXT);
+            default -> base;
+        };
+    }
+
+    public BigDecimal estimateFiber(NutritionAnalyticsRow analysis) {
+        if (analysis == null) {
+            return BigDecimal.ZERO;
+        }
+        String json = analysis.categoriesJson();
+        if (StringUtils.hasText(json)) {
+            try {
+                JsonNode node = objectMapper.readTree(json);
+                JsonNode fiber = node.has("fiber") ? node.get("fiber") : node.get("fiber_g");
+                if (fiber != null && fiber.isNumber()) {
+                    return BigDecimal.valueOf(fiber.asDouble());
+                }
+            } catch (JsonProcessingException ignored) {
+            }
+        }
+        String summary = analysis.summary();
+        if (StringUtils.hasText(summary)) {
+            Matcher matcher = FIBER_PATTERN.matcher(summary);
+            if (matcher.find()) {
+                return parseNumber(matcher.group(1));
+            }
+        }
+        return BigDecimal.ZERO;
+    }
+
+    /** The amount eaten of the entry's food, in grams, millilitres or (failing both) kilocalories. */
+    public FoodQuantity estimateFood(NutritionAnalyticsRow analysis) {
+        if (analysis == null || !StringUtils.hasText(analysis.foodName())) {
+            return null;
+        }
+        String source = String.join(" ",
+                Optional.ofNullable(analysis.foodName()).orElse(""),
+                Optional.ofNullable(analysis.summary()).orElse(""));
+
+        Matcher massMatcher = MASS_PATTERN.matcher(source);
+        if (massMatcher.find()) {
+            BigDecimal value = parseNumber(massMatcher.group(1));
+            String unit = massMatcher.group(2).toLowerCase(Locale.ROOT);
+            if (unit.startsWith("kg")) {
+                value = value.multiply(BigDecimal.valueOf(1000), MATH_CONTEXT);
+                unit = "g";
+            } else if (unit.startsWith("g")) {
+                unit = "g";
+            }
+            return new FoodQuantity(analysis.foodName(), unit, value);
+        }
+
+        Matcher volumeMatcher = VOLUME_PATTERN.matcher(source);
+        if (volumeMatcher.find()) {
+            BigDecimal value = parseNumber(volumeMatcher.group(1));
+            String unit = volumeMatcher.group(2).toLowerCase(Locale.ROOT);
+            if (unit.startsWith("l") || unit.startsWith("lt")) {
+                value = value.multiply(ONE_THOUSAND, MATH_CONTEXT);
+            }
+            return new FoodQuantity(analysis.foodName(), "ml", value);
+        }
+
+        BigDecimal macroSum = sumSafe(analysis.protein(), analysis.carbs(), analysis.fat());
+        if (macroSum.compareTo(BigDecimal.ZERO) > 0) {
+            return new FoodQuantity(analysis.foodName(), "g", macroSum);
+        }
+        if (analysis.calories() != null) {
+            return new FoodQuantity(analysis.foodName(), "kcal", analysis.calories());
+        }
+        return null;
+    }
+
+    private BigDecimal parseNumber(String value) {
+        if (!StringUtils.hasText(value)) {
+            return BigDecimal.ZERO;
+        }
+        String normalized = value.replace(',', '.');
+        try {
+            return new BigDecimal(normalized, MATH_CONTEXT);
+        } catch (NumberFormatException ex) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private boolean containsKeyword(String source, String... keywords) {
+        if (!StringUtils.hasText(source) || keywords == null) {
+            return false;
+        }
+        String normalized = source.toLowerCase(Locale.ROOT);
+        for (String keyword : keywords) {
+            if (keyword != null && normalized.contains(keyword.toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BigDecimal sumSafe(BigDecimal... values) {
+        BigDecimal total = BigDecimal.ZERO;
+        if (values == null) {
+            return total;
+        }
+        for (BigDecimal value : values) {
+            if (value != null) {
+                total = total.add(value, MATH_CONTEXT);
+            }
+        }
+        return total;
+    }
+}
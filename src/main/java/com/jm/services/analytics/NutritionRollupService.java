@@ -0,0 +1,220 @@
+package com.jm.services.analytics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jm.configuration.config.AnalyticsRollupProperties;
+import com.jm.dto.analytics.NutritionAnalyticsRow;
+import com.jm.entity.NutritionDailyRollup;
+import com.jm.repository.NutritionAnalysisRepository;
+import com.jm.repository.NutritionDailyRollupRepository;
+import com.jm.services.analytics.NutritionDayTotals.FoodQuantity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Maintains {@code nutrition_daily_rollup}. A change to an analysis recomputes the single (user, day) row it
+ * belongs to once the surrounding transaction commits; recomputing rather than applying deltas keeps edits and
+ * deletions exact. Days follow the server time zone, like the analytics buckets. Writes run in a transaction of
+ * their own, since by the time the caller's has committed it can no longer take them.
+ */
+@Service
+public class NutritionRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NutritionRollupService.class);
+    private static final TypeReference<List<FoodQuantity>> FOODS = new TypeReference<>() {
+    };
+
+    private final NutritionDailyRollupRepository rollupRepository;
+    private final NutritionAnalysisRepository analysisRepository;
+    private final NutritionEstimator estimator;
+    private final AnalyticsRollupProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate writeTransaction;
+    private final ZoneId zoneId = ZoneId.systemDefault();
+    private final Counter refreshes;
+    private final Counter failures;
+
+    public NutritionRollupService(NutritionDailyRollupRepository rollupRepository,
+            NutritionAnalysisRepository analysisRepository, NutritionEstimator estimator,
+            AnalyticsRollupProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.analysisRepository = analysisRepository;
+        this.estimator = estimator;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.refreshes = Counter.builder("analytics.rollup.refresh")
+                .description("User-days recomputed in the nutrition rollup")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.failures = Counter.builder("analytics.rollup.refresh")
+                .description("User-days recomputed in the nutrition rollup")
+                .tag("result", "failure")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /** Schedules a recompute of the day {@code createdAt} falls on for {@code ownerId}. */
+    public void analysisChanged(UUID ownerId, OffsetDateTime createdAt) {
+        if (!properties.isEnabled() || ownerId == null) {
+            return;
+        }
+        LocalDate day = (createdAt != null ? createdAt : OffsetDateTime.now()).atZoneSameInstant(zoneId).toLocalDate();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(ownerId, day);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh(ownerId, day);
+            }
+        });
+    }
+
+    /** Recomputes one user-day from the raw analyses; a failure leaves the row stale until the next rebuild. */
+    public void refresh(UUID ownerId, LocalDate day) {
+        try {
+            OffsetDateTime start = day.atStartOfDay(zoneId).toOffsetDateTime();
+            OffsetDateTime end = day.plusDays(1).atStartOfDay(zoneId).toOffsetDateTime();
+            NutritionDayTotals totals = new NutritionDayTotals();
+            analysisRepository.findAnalyticsRowsByOwners(Set.of(ownerId), start, end)
+                    .forEach(row -> estimator.accumulate(totals, row));
+            String foodsJson = foodsJson(totals);
+            writeTransaction.executeWithoutResult(status -> store(ownerId, day, totals, foodsJson));
+            refreshes.increment();
+        } catch (DataAccessException | JsonProcessingException ex) {
+            failures.increment();
+            logger.warn("Unable to refresh nutrition rollup of user {} for {}", ownerId, day, ex);
+        }
+    }
+
+    /** Rebuilds every day of one user's history. Returns the number of days written. */
+    public int rebuild(UUID ownerId) throws JsonProcessingException {
+        Map<LocalDate, NutritionDayTotals> days = new TreeMap<>();
+        for (NutritionAnalyticsRow row : analysisRepository.findAllAnalyticsRowsByOwner(ownerId)) {
+            if (row.createdAt() == null) {
+                continue;
+            }
+            LocalDate day = row.createdAt().atZoneSameInstant(zoneId).toLocalDate();
+            estimator.accumulate(days.computeIfAbsent(day, key -> new NutritionDayTotals()), row);
+        }
+        Map<LocalDate, String> foods = new TreeMap<>();
+        for (Map.Entry<LocalDate, NutritionDayTotals> day : days.entrySet()) {
+            foods.put(day.getKey(), foodsJson(day.getValue()));
+        }
+        writeTransaction.executeWithoutResult(status -> {
+            rollupRepository.deleteByOwner(ownerId);
+            days.forEach((day, totals) -> store(ownerId, day, totals, foods.get(day)));
+        });
+        return days.size();
+    }
+
+    /** Rebuilds the rollup of every user that has analyses. */
+    public int rebuildAll() {
+        return rebuild(analysisRepository.findDistinctOwnerIds());
+    }
+
+    /**
+     * Builds the rollup of users that have analyses but no rollup row yet. Each user is rebuilt in one transaction,
+     * so an interrupted run leaves whole users missing, never half of one, and the next run picks them up.
+     */
+    public int backfill() {
+        return rebuild(analysisRepository.findOwnerIdsWithoutRollup());
+    }
+
+    /** Rebuilds one user, or everyone when {@code ownerId} is {@code null}, off the request thread. */
+    @Async
+    public void rebuildInBackground(UUID ownerId) {
+        long startedAt = System.currentTimeMillis();
+        int days = ownerId != null ? rebuild(List.of(ownerId)) : rebuildAll();
+        logger.info("Rebuilt {} user-days of the nutrition rollup in {} ms", days,
+                System.currentTimeMillis() - startedAt);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!properties.isEnabled() || !properties.isBackfillOnStartup()) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        int days = backfill();
+        logger.info("Backfilled {} user-days into the nutrition rollup in {} ms", days,
+                System.currentTimeMillis() - startedAt);
+    }
+
+    private int rebuild(Collection<UUID> ownerIds) {
+        int days = 0;
+        for (UUID ownerId : ownerIds) {
+            try {
+                days += rebuild(ownerId);
+            } catch (DataAccessException | JsonProcessingException ex) {
+                logger.warn("Unable to rebuild nutrition rollup of user {}", ownerId, ex);
+            }
+        }
+        return days;
+    }
+
+    /** Daily totals from {@code start} to {@code end} inclusive, summed over {@code ownerIds}. */
+    public Map<LocalDate, NutritionDayTotals> loadDays(Collection<UUID> ownerIds, LocalDate start, LocalDate end) {
+        List<NutritionDailyRollup> rows = rollupRepository.findByOwnersAndDateRange(ownerIds, start, end);
+        Map<LocalDate, NutritionDayTotals> days = new TreeMap<>();
+        for (NutritionDailyRollup row : rows) {
+            days.computeIfAbsent(row.getDate(), key -> new NutritionDayTotals()).merge(toTotals(row));
+        }
+        return days;
+    }
+
+    private void store(UUID ownerId, LocalDate day, NutritionDayTotals totals, String foodsJson) {
+        if (totals.entries() == 0) {
+            rollupRepository.deleteDay(ownerId, day);
+            return;
+        }
+        rollupRepository.upsert(ownerId.toString(), day, totals.entries(), totals.calories(), totals.protein(),
+                totals.carbs(), totals.fat(), totals.fiber(), totals.water(), foodsJson);
+    }
+
+    private String foodsJson(NutritionDayTotals totals) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(totals.foods().values());
+    }
+
+    private NutritionDayTotals toTotals(NutritionDailyRollup row) {
+        List<FoodQuantity> foods = List.of();
+        try {
+            foods = objectMapper.readValue(row.getFoodsJson(), FOODS);
+        } catch (JsonProcessingException | IllegalArgumentException ex) {
+            logger.debug("Ignoring unreadable foods of rollup {}", row.getId(), ex);
+        }
+        return new NutritionDayTotals(row.getEntries(), row.getCalories(), row.getProtein(), row.getCarbs(),
+                row.getFat(), row.getFiber(), row.getWater(), foods);
+    }
+}
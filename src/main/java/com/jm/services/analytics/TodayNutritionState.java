@@ -0,0 +1,59 @@
+package com.jm.services.analytics;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.function.Supplier;
+
+/**
+ * What a user has eaten and aims for on their current day. Valid until midnight in the user's time zone; the
+ * consumed totals are replaced whenever one of the user's analyses changes.
+ */
+public final class TodayNutritionState {
+
+    private final LocalDate day;
+    private final ZoneId zoneId;
+    private final Instant validUntil;
+    private volatile NutritionDayTotals consumed;
+    private TodayNutritionTargets targets;
+
+    TodayNutritionState(LocalDate day, ZoneId zoneId, NutritionDayTotals consumed) {
+        this.day = day;
+        this.zoneId = zoneId;
+        this.validUntil = day.plusDays(1).atStartOfDay(zoneId).toInstant();
+        this.consumed = consumed;
+    }
+
+    public LocalDate day() {
+        return day;
+    }
+
+    public ZoneId zoneId() {
+        return zoneId;
+    }
+
+    public NutritionDayTotals consumed() {
+        return consumed;
+    }
+
+    /** Replaces the consumed totals; recomputes of one user run one at a time so an older one cannot win. */
+    synchronized void reloadConsumed(Supplier<NutritionDayTotals> loader) {
+        this.consumed = loader.get();
+    }
+
+    /** The day's targets, computed by {@code loader} on first use. */
+    public synchronized TodayNutritionTargets targets(Supplier<TodayNutritionTargets> loader) {
+        if (targets == null) {
+            targets = loader.get();
+        }
+        return targets;
+    }
+
+    synchronized void clearTargets() {
+        targets = null;
+    }
+
+    boolean isExpired(Instant now) {
+        return !now.isBefore(validUntil);
+    }
+}
@@ -0,0 +1,210 @@
+package com.jm.services.analytics;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.jm.configuration.config.TodayNutritionStateProperties;
+import com.jm.entity.UserConfiguration;
+import com.jm.entity.Users;
+import com.jm.repository.NutritionAnalysisRepository;
+import com.jm.repository.UserConfigurationRepository;
+import com.jm.repository.UserRepository;
+import com.jm.services.UserPhoneDirectory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user {@link TodayNutritionState} so reminders and captions read the day's totals without querying. A state is
+ * built on first use, has its consumed totals recomputed after every committed change to one of the user's
+ * analyses and is dropped at midnight in the user's configured time zone. A load that overlaps such a recompute
+ * may have read the totals from before the change, so it is evicted again instead of being kept. The totals cover
+ * the same rows as the uncached summary: the user's analyses plus never-linked ones sent from their phone.
+ */
+@Component
+public class TodayNutritionStateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodayNutritionStateCache.class);
+
+    private final NutritionAnalysisRepository analysisRepository;
+    private final UserConfigurationRepository userConfigurationRepository;
+    private final UserRepository userRepository;
+    private final UserPhoneDirectory phoneDirectory;
+    private final NutritionEstimator estimator;
+    private final TodayNutritionStateProperties properties;
+    private final Cache<UUID, TodayNutritionState> states;
+    /** Bumped before every recompute; a load that saw it move may hold stale totals. */
+    private final AtomicLong changes = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public TodayNutritionStateCache(NutritionAnalysisRepository analysisRepository,
+            UserConfigurationRepository userConfigurationRepository, UserRepository userRepository,
+            UserPhoneDirectory phoneDirectory, NutritionEstimator estimator, TodayNutritionStateProperties properties,
+            MeterRegistry meterRegistry) {
+        this.analysisRepository = analysisRepository;
+        this.userConfigurationRepository = userConfigurationRepository;
+        this.userRepository = userRepository;
+        this.phoneDirectory = phoneDirectory;
+        this.estimator = estimator;
+        this.properties = properties;
+        this.states = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1, properties.getMaxUsers()))
+                .build();
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+        Gauge.builder("analytics.today.size", states, Cache::size)
+                .description("Users whose current day is held in memory")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /** The user's state for their current day, loading it when absent or left over from a previous day. */
+    public TodayNutritionState get(UUID userId) {
+        TodayNutritionState state = states.getIfPresent(userId);
+        if (state != null && !state.isExpired(Instant.now())) {
+            hits.increment();
+            return state;
+        }
+        misses.increment();
+        if (state != null) {
+            states.asMap().remove(userId, state);
+        }
+        long version = changes.get();
+        TodayNutritionState loaded;
+        try {
+            loaded = states.get(userId, () -> load(userId));
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            Throwables.throwIfUnchecked(ex.getCause());
+            throw new IllegalStateException(ex.getCause());
+        }
+        if (changes.get() != version) {
+            states.asMap().remove(userId, loaded);
+        }
+        return loaded;
+    }
+
+    /** Recomputes the consumed totals of a cached user once the current transaction commits. */
+    public void analysisChanged(UUID userId) {
+        if (properties.isEnabled() && userId != null) {
+            afterCommit(() -> reload(userId));
+        }
+    }
+
+    /** Forgets the user's cached targets after their goals or anamnesis change; consumed totals are kept. */
+    public void goalsChanged(UUID userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            TodayNutritionState state = states.getIfPresent(userId);
+            if (state != null) {
+                state.clearTargets();
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.today.eviction-interval-ms:900000}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        states.asMap().values().removeIf(state -> state.isExpired(now));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void reload(UUID userId) {
+        changes.incrementAndGet();
+        TodayNutritionState state = states.getIfPresent(userId);
+        if (state == null) {
+            return;
+        }
+        if (state.isExpired(Instant.now())) {
+            states.asMap().remove(userId, state);
+            return;
+        }
+        try {
+            state.reloadConsumed(() -> loadConsumed(userId, state.day(), state.zoneId()));
+        } catch (DataAccessException ex) {
+            states.asMap().remove(userId, state);
+            logger.warn("Unable to refresh today's nutrition state of user {}", userId, ex);
+        }
+    }
+
+    private TodayNutritionState load(UUID userId) {
+        ZoneId zoneId = zoneOf(userId);
+        LocalDate day = LocalDate.now(zoneId);
+        return new TodayNutritionState(day, zoneId, loadConsumed(userId, day, zoneId));
+    }
+
+    private NutritionDayTotals loadConsumed(UUID userId, LocalDate day, ZoneId zoneId) {
+        NutritionDayTotals totals = new NutritionDayTotals();
+        OffsetDateTime start = day.atStartOfDay(zoneId).toOffsetDateTime();
+        OffsetDateTime end = day.plusDays(1).atStartOfDay(zoneId).toOffsetDateTime();
+        analysisRepository.findAnalyticsRowsByOwners(Set.of(userId), start, end)
+                .forEach(row -> estimator.accumulate(totals, row));
+        Set<String> phones = userRepository.findById(userId)
+                .map(Users::getPhoneNumber)
+                .map(phoneDirectory::senderPhones)
+                .orElse(Set.of());
+        if (!phones.isEmpty()) {
+            analysisRepository.findUnownedAnalyticsRowsByPhones(phones, start, end)
+                    .forEach(row -> estimator.accumulate(totals, row));
+        }
+        return totals;
+    }
+
+    /** The user's configured time zone, or the server's when none or an invalid one is set; days end there. */
+    public ZoneId zoneOf(UUID userId) {
+        String timezone = userConfigurationRepository.findByUserId(userId)
+                .map(UserConfiguration::getTimezone)
+                .orElse(null);
+        if (StringUtils.hasText(timezone)) {
+            try {
+                return ZoneId.of(timezone.trim());
+            } catch (DateTimeException ex) {
+                logger.debug("Ignoring invalid time zone {} of user {}", timezone, userId);
+            }
+        }
+        return ZoneId.systemDefault();
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("analytics.today.lookups")
+                .description("Lookups of a user's nutrition state for the current day")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
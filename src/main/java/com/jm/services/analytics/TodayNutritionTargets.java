@@ -0,0 +1,12 @@
+package com.jm.services.analytics;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * A user's goals for the current day as computed by the analytics service: the per-metric targets, the daily water
+ * goal used by hydration reminders and the latest basal metabolic rate.
+ */
+public record TodayNutritionTargets(Map<String, BigDecimal> targets, BigDecimal dailyWaterGoal,
+        BigDecimal basalMetabolicRate) {
+}
@@ -0,0 +1,58 @@
+package com.jm.services.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/** RFC 4180 CSV with a header row; fields holding a separator, quote or line break are quoted. */
+class CsvExportWriter implements ExportWriter {
+
+    private final Writer writer;
+    private final int columnCount;
+
+    CsvExportWriter(List<String> columns, OutputStream output) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        this.columnCount = columns.size();
+        row(columns.toArray());
+    }
+
+    @Override
+    public void row(Object... values) throws IOException {
+        for (int index = 0; index < columnCount; index++) {
+            if (index > 0) {
+                writer.write(',');
+            }
+            writeField(index < values.length ? values[index] : null);
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        boolean quote = false;
+        for (int index = 0; index < text.length() && !quote; index++) {
+            char character = text.charAt(index);
+            quote = character == ',' || character == '"' || character == '\n' || character == '\r';
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,28 @@
+package com.jm.services.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jm.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes export rows straight to an output stream, one record at a time, so memory stays the same however many
+ * rows are exported. Values are written in column order; {@code null} becomes an empty CSV field or a JSON null.
+ */
+public interface ExportWriter {
+
+    void row(Object... values) throws IOException;
+
+    /** Flushes buffered rows; the underlying stream is left open for the caller. */
+    void finish() throws IOException;
+
+    static ExportWriter open(ExportFormat format, List<String> columns, OutputStream output,
+            ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvExportWriter(columns, output);
+            case NDJSON -> new NdjsonExportWriter(columns, output, objectMapper);
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package com.jm.services.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.List;
+
+/** Newline-delimited JSON: one object per row, keyed by column name. */
+class NdjsonExportWriter implements ExportWriter {
+
+    private final List<String> columns;
+    private final JsonGenerator generator;
+
+    NdjsonExportWriter(List<String> columns, OutputStream output, ObjectMapper objectMapper) throws IOException {
+        this.columns = columns;
+        this.generator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void row(Object... values) throws IOException {
+        generator.writeStartObject();
+        for (int index = 0; index < columns.size(); index++) {
+            generator.writeFieldName(columns.get(index));
+            Object value = index < values.length ? values[index] : null;
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof BigDecimal decimal) {
+                generator.writeNumber(decimal.toPlainString());
+            } else if (value instanceof Number number) {
+                generator.writeNumber(number.toString());
+            } else if (value instanceof Boolean flag) {
+                generator.writeBoolean(flag);
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.flush();
+    }
+}
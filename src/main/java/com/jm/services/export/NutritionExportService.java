@@ -0,0 +1,274 @@
+package com.jm.services.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jm.dto.analytics.AnalyticsOverviewResponseDTO;
+import com.jm.dto.analytics.BodyCompositionPointDTO;
+import com.jm.dto.analytics.GoalAdherenceMetricDTO;
+import com.jm.dto.analytics.HydrationEntryDTO;
+import com.jm.dto.analytics.MacroDistributionEntryDTO;
+import com.jm.dto.analytics.TopFoodDTO;
+import com.jm.dto.export.NutritionAnalysisExportRow;
+import com.jm.dto.export.WhatsAppMessageExportRow;
+import com.jm.entity.Users;
+import com.jm.enums.ExportFormat;
+import com.jm.execption.JMException;
+import com.jm.execption.ProblemType;
+import com.jm.repository.NutritionAnalysisRepository;
+import com.jm.repository.UserRepository;
+import com.jm.repository.WhatsAppMessageRepository;
+import com.jm.services.AnalyticsService;
+import com.jm.services.UserPhoneDirectory;
+import com.jm.utils.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Bulk exports of nutrition analyses, WhatsApp messages and analytics series as CSV or NDJSON. Access is checked on
+ * the request thread; the body is written later from a forward-only cursor inside a read-only transaction, so rows
+ * go from the driver to the response one at a time and are never collected in memory.
+ */
+@Service
+public class NutritionExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NutritionExportService.class);
+
+    private static final List<String> ANALYSIS_COLUMNS = List.of("id", "owner_user_id", "message_id", "created_at",
+            "meal", "food_name", "calories", "protein", "carbs", "fat", "liquid_volume", "liquid_unit",
+            "primary_category", "confidence", "summary");
+    private static final List<String> MESSAGE_COLUMNS = List.of("id", "owner_user_id", "whatsapp_message_id",
+            "from_phone", "to_phone", "message_type", "received_at", "manual_entry", "edited_entry",
+            "nutrition_analysis_id", "text_content");
+    private static final List<String> ANALYTICS_COLUMNS = List.of("series", "label", "metric", "value", "unit");
+
+    private final NutritionAnalysisRepository nutritionAnalysisRepository;
+    private final WhatsAppMessageRepository messageRepository;
+    private final UserRepository userRepository;
+    private final AnalyticsService analyticsService;
+    private final UserPhoneDirectory phoneDirectory;
+    private final MessageSource messageSource;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public NutritionExportService(NutritionAnalysisRepository nutritionAnalysisRepository,
+            WhatsAppMessageRepository messageRepository, UserRepository userRepository,
+            AnalyticsService analyticsService, UserPhoneDirectory phoneDirectory, MessageSource messageSource,
+            ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.nutritionAnalysisRepository = nutritionAnalysisRepository;
+        this.messageRepository = messageRepository;
+        this.userRepository = userRepository;
+        this.analyticsService = analyticsService;
+        this.phoneDirectory = phoneDirectory;
+        this.messageSource = messageSource;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /** The requested format, CSV when none is given; anything else is rejected with a 400. */
+    public ExportFormat parseFormat(String format) {
+        try {
+            return ExportFormat.from(format);
+        } catch (IllegalArgumentException ex) {
+            throw exception(ProblemType.EXPORT_INVALID_FORMAT, HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    /**
+     * A user's export holds the analyses they own plus those of messages never linked to a user but sent from their
+     * phone, the same rows their analytics count.
+     */
+    public StreamingResponseBody exportAnalyses(UUID userId, LocalDate from, LocalDate to, ExportFormat format) {
+        UUID ownerId = resolveOwner(userId);
+        Set<String> senders = senderPhones(ownerId);
+        ExportRange range = resolveRange(from, to);
+        return output -> stream(format, ANALYSIS_COLUMNS, output, () -> analysisRows(ownerId, senders, range),
+                (NutritionAnalysisExportRow row) -> new Object[] { row.id(), row.ownerUserId(), row.messageId(),
+                        row.createdAt(), row.mealCode(), row.foodName(), row.calories(), row.protein(), row.carbs(),
+                        row.fat(), row.liquidVolume(), row.liquidUnitCode(), row.primaryCategory(),
+                        row.confidence(), row.summary() });
+    }
+
+    private Stream<NutritionAnalysisExportRow> analysisRows(UUID ownerId, Set<String> senders, ExportRange range) {
+        if (ownerId == null) {
+            return nutritionAnalysisRepository.streamExportRows(range.start(), range.end());
+        }
+        return senders.isEmpty()
+                ? nutritionAnalysisRepository.streamExportRowsByOwner(ownerId, range.start(), range.end())
+                : nutritionAnalysisRepository.streamExportRowsByOwnerOrSenders(ownerId, senders, range.start(),
+                        range.end());
+    }
+
+    /** Messages follow the same rule as analyses: owned ones plus never-linked ones sent from the user's phone. */
+    public StreamingResponseBody exportMessages(UUID userId, LocalDate from, LocalDate to, ExportFormat format) {
+        UUID ownerId = resolveOwner(userId);
+        Set<String> senders = senderPhones(ownerId);
+        ExportRange range = resolveRange(from, to);
+        return output -> stream(format, MESSAGE_COLUMNS, output, () -> messageRows(ownerId, senders, range),
+                (WhatsAppMessageExportRow row) -> new Object[] { row.id(), row.ownerUserId(),
+                        row.whatsappMessageId(), row.fromPhone(), row.toPhone(), row.messageType(),
+                        row.receivedAt(), row.manualEntry(), row.editedEntry(), row.nutritionAnalysisId(),
+                        row.textContent() });
+    }
+
+    private Stream<WhatsAppMessageExportRow> messageRows(UUID ownerId, Set<String> senders, ExportRange range) {
+        if (ownerId == null) {
+            return messageRepository.streamExportRows(range.start(), range.end());
+        }
+        return senders.isEmpty()
+                ? messageRepository.streamExportRowsByOwner(ownerId, range.start(), range.end())
+                : messageRepository.streamExportRowsByOwnerOrSenders(ownerId, senders, range.start(), range.end());
+    }
+
+    /**
+     * The analytics series in long format, one row per label and metric. Series are bounded by the analytics range,
+     * so they are computed up front with the usual access rules and only the writing is streamed.
+     */
+    public StreamingResponseBody exportAnalytics(Integer range, String groupBy, UUID userId,
+            Collection<String> series, ExportFormat format) {
+        AnalyticsOverviewResponseDTO overview = analyticsService.getOverview(range, groupBy, userId, series);
+        return output -> {
+            ExportWriter writer = ExportWriter.open(format, ANALYTICS_COLUMNS, output, objectMapper);
+            if (overview.getAdherence() != null) {
+                for (GoalAdherenceMetricDTO metric : overview.getAdherence().getMetrics()) {
+                    writer.row("adherence", metric.getKey(), "target", metric.getTarget());
+                    writer.row("adherence", metric.getKey(), "achieved", metric.getAchieved());
+                    writer.row("adherence", metric.getKey(), "percent", metric.getPercent());
+                }
+            }
+            if (overview.getMacros() != null) {
+                for (MacroDistributionEntryDTO entry : overview.getMacros().getSeries()) {
+                    writer.row("macros", entry.getLabel(), "protein", entry.getProtein(), "g");
+                    writer.row("macros", entry.getLabel(), "carbs", entry.getCarbs(), "g");
+                    writer.row("macros", entry.getLabel(), "fat", entry.getFat(), "g");
+                    writer.row("macros", entry.getLabel(), "calories", entry.getCalories(), "kcal");
+                }
+            }
+            if (overview.getHydration() != null) {
+                for (HydrationEntryDTO entry : overview.getHydration().getSeries()) {
+                    writer.row("hydration", entry.getLabel(), "intake", entry.getIntake(), "ml");
+                    writer.row("hydration", entry.getLabel(), "target", entry.getTarget(), "ml");
+                }
+            }
+            if (overview.getFoods() != null) {
+                for (TopFoodDTO food : overview.getFoods().getItems()) {
+                    writer.row("foods", food.getName(), "quantity", food.getQuantity(), food.getUnit());
+                }
+            }
+            if (overview.getBody() != null) {
+                for (BodyCompositionPointDTO point : overview.getBody().getSeries()) {
+                    writer.row("body", point.getLabel(), "weight", point.getWeight(), "kg");
+                    writer.row("body", point.getLabel(), "bmi", point.getBmi());
+                    writer.row("body", point.getLabel(), "fat_percentage", point.getFatPercentage(), "%");
+                    writer.row("body", point.getLabel(), "muscle_percentage", point.getMusclePercentage(), "%");
+                }
+            }
+            writer.finish();
+        };
+    }
+
+    public String fileName(String prefix, ExportFormat format) {
+        return prefix + "-" + LocalDate.now() + "." + format.getExtension();
+    }
+
+    private <T> void stream(ExportFormat format, List<String> columns, OutputStream output,
+            Supplier<Stream<T>> query, Function<T, Object[]> toValues) {
+        long startedAt = System.currentTimeMillis();
+        long count = readOnlyTransaction.execute(status -> {
+            try (Stream<T> rows = query.get()) {
+                ExportWriter writer = ExportWriter.open(format, columns, output, objectMapper);
+                long written = 0;
+                Iterator<T> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    writer.row(toValues.apply(iterator.next()));
+                    written++;
+                }
+                writer.finish();
+                return written;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        logger.debug("Exported {} rows as {} in {} ms", count, format, System.currentTimeMillis() - startedAt);
+    }
+
+    /** The single user whose data is exported, or {@code null} for everyone; clients only ever get their own. */
+    private UUID resolveOwner(UUID requestedUserId) {
+        if (SecurityUtils.hasRole("CLIENT")) {
+            UUID currentUserId = SecurityUtils.getCurrentUserId().orElseThrow(this::forbidden);
+            if (requestedUserId != null && !requestedUserId.equals(currentUserId)) {
+                throw forbidden();
+            }
+            return currentUserId;
+        }
+        if (requestedUserId != null && !userRepository.existsById(requestedUserId)) {
+            throw exception(ProblemType.ANALYTICS_USER_NOT_FOUND, HttpStatus.BAD_REQUEST);
+        }
+        return requestedUserId;
+    }
+
+    /** The user's phone in the forms WhatsApp senders are stored in, as analytics matches them. */
+    private Set<String> senderPhones(UUID ownerId) {
+        if (ownerId == null) {
+            return Set.of();
+        }
+        return userRepository.findById(ownerId)
+                .map(Users::getPhoneNumber)
+                .map(phoneDirectory::senderPhones)
+                .orElse(Set.of());
+    }
+
+    /** Whole days in the server zone; an open start exports the full history and an open end stops at today. */
+    private ExportRange resolveRange(LocalDate from, LocalDate to) {
+        ZoneId zoneId = ZoneId.systemDefault();
+        LocalDate end = to != null ? to : LocalDate.now(zoneId);
+        if (from != null && from.isAfter(end)) {
+            throw new JMException(HttpStatus.BAD_REQUEST.value(), ProblemType.INVALID_DATA.getUri(),
+                    ProblemType.INVALID_DATA.getTitle(), "The export start date must not be after its end date");
+        }
+        OffsetDateTime start = from != null
+                ? from.atStartOfDay(zoneId).toOffsetDateTime()
+                : OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        return new ExportRange(start, end.plusDays(1).atStartOfDay(zoneId).toOffsetDateTime());
+    }
+
+    private JMException forbidden() {
+        return exception(ProblemType.ANALYTICS_FORBIDDEN, HttpStatus.FORBIDDEN);
+    }
+
+    private JMException exception(ProblemType type, HttpStatus status) {
+        return exception(type, status, "");
+    }
+
+    private JMException exception(ProblemType type, HttpStatus status, Object argument) {
+        Locale locale = LocaleContextHolder.getLocale();
+        String message = messageSource.getMessage(type.getMessageSource(), new Object[] { argument }, locale);
+        return new JMException(status.value(), type.getUri(), type.getTitle(), message);
+    }
+
+    private record ExportRange(OffsetDateTime start, OffsetDateTime end) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.jm.services.whatsapp;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jm.configuration.config.WhatsAppIngestionProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived, byte-bounded copies of images captured while they streamed to R2, keyed by object key. Lets the
+ * analysis of a freshly received photo skip reading it back from R2; anything evicted is simply fetched again.
+ */
+@Component
+public class AnalysisImageCache {
+
+    private final Cache<String, byte[]> images;
+
+    public AnalysisImageCache(WhatsAppIngestionProperties properties) {
+        this.images = CacheBuilder.newBuilder()
+                .maximumWeight(properties.getAnalysisCacheSize().toBytes())
+                .weigher((String key, byte[] value) -> value.length)
+                .expireAfterWrite(properties.getAnalysisCacheTtl().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public void put(String key, byte[] image) {
+        if (key != null && image != null) {
+            images.put(key, image);
+        }
+    }
+
+    /** Returns the captured image once; later reads go to R2. */
+    public Optional<byte[]> take(String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        byte[] image = images.getIfPresent(key);
+        if (image != null) {
+            images.invalidate(key);
+        }
+        return Optional.ofNullable(image);
+    }
+}
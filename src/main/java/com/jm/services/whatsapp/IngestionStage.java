@@ -0,0 +1,120 @@
+package com.jm.services.whatsapp;
+
+import com.jm.configuration.config.WhatsAppIngestionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single step of the WhatsApp ingestion pipeline: a fixed number of workers fed by a bounded queue. Producers
+ * either try once ({@link #offer}) or wait for room ({@link #handoff}), which is how a slow stage pushes back on
+ * the stage before it.
+ */
+class IngestionStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionStage.class);
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final Timer latency;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    IngestionStage(String name, WhatsAppIngestionProperties.Stage settings, MeterRegistry meterRegistry) {
+        this.name = name;
+        int workers = Math.max(1, settings.getConcurrency());
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity())),
+                new CustomizableThreadFactory("whatsapp-" + name + "-"));
+        this.executor.prestartAllCoreThreads();
+        this.latency = Timer.builder("whatsapp.ingestion.stage.duration")
+                .description("Time spent executing a WhatsApp ingestion stage")
+                .tag("stage", name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("whatsapp.ingestion.stage.wait")
+                .description("Time a task waited in the stage queue before running")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("whatsapp.ingestion.stage.rejected")
+                .description("Tasks refused because the stage queue was full")
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("whatsapp.ingestion.stage.queue", executor, e -> e.getQueue().size())
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("whatsapp.ingestion.stage.active", executor, ThreadPoolExecutor::getActiveCount)
+                .tag("stage", name)
+                .register(meterRegistry);
+    }
+
+    String name() {
+        return name;
+    }
+
+    /** Enqueues the task only if there is room right now. */
+    boolean offer(Runnable task) {
+        try {
+            executor.execute(instrument(task));
+            return true;
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            return false;
+        }
+    }
+
+    /** Waits up to {@code timeout} for room in the queue, blocking the calling (upstream) worker meanwhile. */
+    boolean handoff(Runnable task, Duration timeout) {
+        if (executor.isShutdown()) {
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (executor.getQueue().offer(instrument(task), timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment();
+        return false;
+    }
+
+    void shutdown(Duration grace) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(grace.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Stage {} did not drain in {}; {} tasks dropped", name, grace,
+                        executor.shutdownNow().size());
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Runnable instrument(Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        return () -> {
+            long startedAt = System.nanoTime();
+            queueWait.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                task.run();
+            } catch (Exception ex) {
+                logger.error("Unhandled failure in WhatsApp ingestion stage {}", name, ex);
+            } finally {
+                latency.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.jm.services.whatsapp;
+
+import com.jm.events.NutritionAnalysisRequestEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process queue backed by Spring application events. Jobs are lost on restart; meant for development and tests.
+ */
+@Component
+@ConditionalOnProperty(prefix = "whatsapp.nutrition.queue", name = "mode", havingValue = "local", matchIfMissing = true)
+public class LocalNutritionAnalysisQueue implements NutritionAnalysisQueue {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LocalNutritionAnalysisQueue(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void submit(NutritionAnalysisJob job) {
+        eventPublisher.publishEvent(new NutritionAnalysisRequestEvent(this, job));
+    }
+}
@@ -0,0 +1,133 @@
+package com.jm.services.whatsapp;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jm.configuration.config.NutritionAnalysisCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the perceptual hash and analysis of each user's recent photos so a cropped, resized or recompressed
+ * copy of the same plate reuses that analysis instead of going back to the model. The index is per user, kept in
+ * memory and limited to a sliding time window; losing it on restart only costs one extra model call.
+ */
+@Component
+public class NearDuplicateImageDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearDuplicateImageDetector.class);
+
+    private final PerceptualImageHasher hasher;
+    private final NutritionAnalysisCacheProperties.NearDuplicate settings;
+    private final Cache<String, Deque<Entry>> recentByUser;
+    private final Timer hashTimer;
+    private final Counter hits;
+    private final Counter misses;
+
+    public NearDuplicateImageDetector(PerceptualImageHasher hasher, NutritionAnalysisCacheProperties properties,
+            MeterRegistry meterRegistry) {
+        this.hasher = hasher;
+        this.settings = properties.getNearDuplicate();
+        this.recentByUser = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1, settings.getMaxUsers()))
+                .expireAfterAccess(settings.getWindow().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.hashTimer = Timer.builder("whatsapp.nutrition.analysis.phash.duration")
+                .description("Time spent computing the perceptual hash of a photo")
+                .register(meterRegistry);
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /** Hashes the photo; empty when it cannot be decoded, in which case detection is simply skipped. */
+    public OptionalLong hash(byte[] image) {
+        long startedAt = System.nanoTime();
+        try {
+            return OptionalLong.of(hasher.hash(image));
+        } catch (RuntimeException ex) {
+            logger.debug("Unable to compute perceptual hash", ex);
+            return OptionalLong.empty();
+        } finally {
+            hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Returns the analysis JSON of the closest recent photo of {@code userKey} within the distance threshold. */
+    public Optional<String> findNearDuplicate(String userKey, long hash) {
+        Deque<Entry> recent = recentByUser.getIfPresent(userKey);
+        if (recent == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        long now = System.nanoTime();
+        Entry best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        synchronized (recent) {
+            evictExpired(recent, now);
+            for (Entry entry : recent) {
+                int distance = PerceptualImageHasher.distance(hash, entry.hash());
+                if (distance <= settings.getMaxDistance() && distance < bestDistance) {
+                    best = entry;
+                    bestDistance = distance;
+                }
+            }
+        }
+        if (best == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(best.resultJson());
+    }
+
+    public void remember(String userKey, long hash, String resultJson) {
+        Deque<Entry> recent;
+        try {
+            recent = recentByUser.get(userKey, ArrayDeque::new);
+        } catch (ExecutionException ex) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (recent) {
+            evictExpired(recent, now);
+            recent.addLast(new Entry(hash, resultJson, now));
+            while (recent.size() > Math.max(1, settings.getMaxEntriesPerUser())) {
+                recent.removeFirst();
+            }
+        }
+    }
+
+    private void evictExpired(Deque<Entry> recent, long now) {
+        long window = settings.getWindow().toNanos();
+        Iterator<Entry> iterator = recent.iterator();
+        while (iterator.hasNext() && now - iterator.next().recordedAt() > window) {
+            iterator.remove();
+        }
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("whatsapp.nutrition.analysis.near_duplicate")
+                .description("Near-duplicate photo lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Entry(long hash, String resultJson, long recordedAt) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.jm.services.whatsapp;
+
+import com.jm.configuration.config.NutritionAnalysisQueueProperties;
+import com.jm.services.WhatsAppNutritionService.GeminiNutritionResult;
+import com.jm.services.WhatsAppNutritionService.ImagePayload;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Groups photos of the same owner that reach the analysis consumers close together so they share one model call.
+ * The first photo of a key opens a batch and leads it: it waits for the window (or until the batch is full), runs
+ * the call for everyone and hands each waiting consumer its own result. Consumers keep their job until the result
+ * is back, so queue retries and acknowledgements still apply to each photo individually.
+ */
+@Component
+public class NutritionAnalysisBatcher {
+
+    private final NutritionAnalysisQueueProperties.Batch settings;
+    private final DistributionSummary batchSize;
+    private final Object lock = new Object();
+    private final Map<String, Batch> open = new HashMap<>();
+
+    public NutritionAnalysisBatcher(NutritionAnalysisQueueProperties properties, MeterRegistry meterRegistry) {
+        this.settings = properties.getBatch();
+        this.batchSize = DistributionSummary.builder("whatsapp.nutrition.analysis.batch.size")
+                .description("Photos analysed per model call")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Analyses {@code image} together with other photos submitted under the same {@code key}. The analyzer receives
+     * the images in submission order and must answer one result per image, in the same order; a {@code null} entry
+     * completes that photo's result empty. Nothing blocks while the window is open or the model works.
+     */
+    public Mono<GeminiNutritionResult> analyze(String key, ImagePayload image,
+            Function<List<ImagePayload>, Mono<List<GeminiNutritionResult>>> analyzer) {
+        int maxSize = settings.getMaxSize();
+        if (!settings.isEnabled() || maxSize <= 1) {
+            batchSize.record(1);
+            return Mono.defer(() -> analyzer.apply(List.of(image))).mapNotNull(this::first);
+        }
+
+        Batch batch;
+        CompletableFuture<GeminiNutritionResult> result = new CompletableFuture<>();
+        boolean leader;
+        synchronized (lock) {
+            batch = open.get(key);
+            leader = batch == null;
+            if (leader) {
+                batch = new Batch();
+                open.put(key, batch);
+            }
+            batch.images.add(image);
+            batch.results.add(result);
+            if (batch.images.size() >= maxSize) {
+                open.remove(key);
+                batch.full.tryEmitEmpty();
+            }
+        }
+
+        if (leader) {
+            lead(key, batch, analyzer);
+        }
+        Duration timeout = settings.getWindow().plus(settings.getResultTimeout());
+        /* One consumer giving up must not cancel the call the others are waiting for. */
+        return Mono.fromFuture(result, true)
+                .timeout(timeout, Mono.error(() -> new IllegalStateException(
+                        "Batched nutrition analysis did not finish in " + timeout)));
+    }
+
+    /** Waits for the window (or a full batch) off-thread, then runs the call for everyone in the batch. */
+    private void lead(String key, Batch batch,
+            Function<List<ImagePayload>, Mono<List<GeminiNutritionResult>>> analyzer) {
+        Mono.firstWithSignal(batch.full.asMono(), Mono.delay(settings.getWindow()).then())
+                .publishOn(Schedulers.boundedElastic())
+                .then(Mono.defer(() -> {
+                    List<ImagePayload> images;
+                    List<CompletableFuture<GeminiNutritionResult>> results;
+                    synchronized (lock) {
+                        open.remove(key, batch);
+                        images = List.copyOf(batch.images);
+                        results = List.copyOf(batch.results);
+                    }
+                    batchSize.record(images.size());
+                    return Mono.defer(() -> analyzer.apply(images))
+                            .defaultIfEmpty(List.of())
+                            .doOnNext(analysed -> {
+                                for (int i = 0; i < results.size(); i++) {
+                                    results.get(i).complete(i < analysed.size() ? analysed.get(i) : null);
+                                }
+                            })
+                            .doOnError(ex -> results.forEach(pending -> pending.completeExceptionally(ex)));
+                }))
+                /* Failures reach every consumer through its own result. */
+                .subscribe(null, ex -> { });
+    }
+
+    private GeminiNutritionResult first(List<GeminiNutritionResult> results) {
+        return results == null || results.isEmpty() ? null : results.getFirst();
+    }
+
+    private static final class Batch {
+        private final List<ImagePayload> images = new ArrayList<>();
+        private final List<CompletableFuture<GeminiNutritionResult>> results = new ArrayList<>();
+        private final Sinks.Empty<Void> full = Sinks.empty();
+    }
+}
@@ -0,0 +1,13 @@
+package com.jm.services.whatsapp;
+
+import com.jm.enums.AiProvider;
+
+import java.util.UUID;
+
+/**
+ * Queued request to analyse a WhatsApp photo. Only references travel through the queue: the image is read back from
+ * R2 ({@code imageKey}) or, when it was never uploaded, from the WhatsApp Graph API ({@code mediaId}).
+ */
+public record NutritionAnalysisJob(UUID messageId, String from, String imageKey, String mediaId, String mimeType,
+        AiProvider provider, String model) {
+}
@@ -0,0 +1,9 @@
+package com.jm.services.whatsapp;
+
+/**
+ * Hands nutrition analysis jobs to whichever transport is configured in {@code whatsapp.nutrition.queue.mode}.
+ */
+public interface NutritionAnalysisQueue {
+
+    void submit(NutritionAnalysisJob job);
+}
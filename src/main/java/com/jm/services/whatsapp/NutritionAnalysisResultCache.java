@@ -0,0 +1,124 @@
+package com.jm.services.whatsapp;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.jm.configuration.config.NutritionAnalysisCacheProperties;
+import com.jm.enums.AiProvider;
+import com.jm.repository.NutritionAnalysisCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-tier cache of AI nutrition results (as JSON) keyed by a content hash: a bounded in-memory tier in front of
+ * the {@code nutrition_analysis_cache} table. The key covers the image bytes, provider, model and the prompt text,
+ * so changing the prompt or model naturally starts a fresh set of entries. Storage failures only cost a cache miss.
+ */
+@Component
+public class NutritionAnalysisResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NutritionAnalysisResultCache.class);
+
+    private final NutritionAnalysisCacheRepository repository;
+    private final NutritionAnalysisCacheProperties properties;
+    private final Cache<String, String> memory;
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+
+    public NutritionAnalysisResultCache(NutritionAnalysisCacheRepository repository,
+            NutritionAnalysisCacheProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        this.memory = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1, properties.getMemoryEntries()))
+                .expireAfterWrite(properties.getMemoryTtl().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.memoryHits = lookups(meterRegistry, "hit", "memory");
+        this.databaseHits = lookups(meterRegistry, "hit", "database");
+        this.misses = lookups(meterRegistry, "miss", "none");
+        Gauge.builder("whatsapp.nutrition.analysis.cache.size", memory, Cache::size)
+                .description("Results held in the in-memory tier")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public String key(byte[] image, AiProvider provider, String model, String prompt) {
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putInt(image.length)
+                .putBytes(image);
+        putField(hasher, provider != null ? provider.name() : null);
+        putField(hasher, model);
+        putField(hasher, prompt);
+        return hasher.hash().toString();
+    }
+
+    public Optional<String> find(String key) {
+        String cached = memory.getIfPresent(key);
+        if (cached != null) {
+            memoryHits.increment();
+            return Optional.of(cached);
+        }
+        try {
+            Optional<String> stored = repository.findLiveResult(key, OffsetDateTime.now());
+            if (stored.isPresent()) {
+                memory.put(key, stored.get());
+                databaseHits.increment();
+                return stored;
+            }
+        } catch (DataAccessException ex) {
+            logger.warn("Unable to read nutrition analysis cache entry {}", key, ex);
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void store(String key, AiProvider provider, String model, String resultJson) {
+        memory.put(key, resultJson);
+        try {
+            repository.upsert(key, provider != null ? provider.name() : AiProvider.GEMINI.name(), model, resultJson,
+                    OffsetDateTime.now().plus(properties.getTtl()));
+        } catch (DataAccessException ex) {
+            logger.warn("Unable to store nutrition analysis cache entry {}", key, ex);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${whatsapp.nutrition.cache.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int removed = repository.deleteExpired(OffsetDateTime.now());
+        if (removed > 0) {
+            logger.info("Purged {} expired nutrition analysis cache entries", removed);
+        }
+    }
+
+    private void putField(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+            return;
+        }
+        hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result, String tier) {
+        return Counter.builder("whatsapp.nutrition.analysis.cache")
+                .description("Nutrition analysis cache lookups")
+                .tag("result", result)
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,178 @@
+package com.jm.services.whatsapp;
+
+import com.jm.configuration.config.NutritionAnalysisRoutingProperties;
+import com.jm.enums.AiProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Runs a nutrition analysis along an ordered chain of models. A model that fails, times out or answers nothing hands
+ * over to the next one; with hedging enabled the next one is also started early when the current model is slower
+ * than its recent latency quantile, and whichever answers first wins while the other call is cancelled.
+ */
+@Component
+public class NutritionAnalysisRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(NutritionAnalysisRouter.class);
+
+    private final NutritionAnalysisRoutingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<Route, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    public NutritionAnalysisRouter(NutritionAnalysisRoutingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public List<String> fallbacks() {
+        return properties.getFallbacks();
+    }
+
+    /**
+     * Calls {@code routes} in order until one answers. Completes empty when every model answered nothing and fails
+     * with the last error when none answered and at least one failed, so queue retries still apply.
+     */
+    public <T> Mono<Routed<T>> route(List<Route> routes, Function<Route, Mono<T>> call) {
+        if (routes.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            AtomicReference<Throwable> lastError = new AtomicReference<>();
+            return attempt(routes, 0, "primary", call, lastError)
+                    .switchIfEmpty(Mono.defer(() -> lastError.get() != null
+                            ? Mono.error(lastError.get())
+                            : Mono.empty()));
+        });
+    }
+
+    private <T> Mono<Routed<T>> attempt(List<Route> routes, int index, String reason, Function<Route, Mono<T>> call,
+            AtomicReference<Throwable> lastError) {
+        Route route = routes.get(index);
+        Mono<Routed<T>> current = timed(route, reason, call, lastError);
+        if (index + 1 >= routes.size()) {
+            return current;
+        }
+        if (!properties.getHedging().isEnabled()) {
+            return current.switchIfEmpty(Mono.defer(() -> attempt(routes, index + 1, "fallback", call, lastError)));
+        }
+
+        /* The next model starts when this one gives up or, as a hedge, when it runs past its usual latency. */
+        Sinks.Empty<Void> gaveUp = Sinks.empty();
+        Mono<Routed<T>> primary = current.switchIfEmpty(Mono.fromRunnable(gaveUp::tryEmitEmpty));
+        Mono<Routed<T>> backup = Mono.firstWithSignal(
+                        Mono.delay(hedgeDelay(route)).thenReturn("hedge"),
+                        gaveUp.asMono().thenReturn("fallback"))
+                .flatMap(next -> attempt(routes, index + 1, next, call, lastError));
+        return Flux.merge(primary, backup).next();
+    }
+
+    private <T> Mono<Routed<T>> timed(Route route, String reason, Function<Route, Mono<T>> call,
+            AtomicReference<Throwable> lastError) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            attempts(route, reason).increment();
+            return Mono.defer(() -> call.apply(route))
+                    .timeout(properties.getAttemptTimeout())
+                    .map(value -> {
+                        long elapsed = System.nanoTime() - startedAt;
+                        latencies.computeIfAbsent(route, key -> new LatencyWindow(properties.getHedging().getWindow()))
+                                .record(elapsed);
+                        record(route, "success", elapsed);
+                        return new Routed<>(route, value);
+                    })
+                    .switchIfEmpty(Mono.fromRunnable(() -> {
+                        logger.warn("Nutrition analysis with {} {} answered nothing", route.provider(), route.model());
+                        record(route, "empty", System.nanoTime() - startedAt);
+                    }))
+                    .onErrorResume(ex -> {
+                        logger.warn("Nutrition analysis with {} {} failed: {}", route.provider(), route.model(),
+                                ex.toString());
+                        record(route, "error", System.nanoTime() - startedAt);
+                        lastError.set(ex);
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    private Duration hedgeDelay(Route route) {
+        NutritionAnalysisRoutingProperties.Hedging hedging = properties.getHedging();
+        LatencyWindow window = latencies.get(route);
+        long quantile = window != null ? window.quantile(hedging.getQuantile(), hedging.getMinSamples()) : -1;
+        if (quantile < 0) {
+            return hedging.getMaxDelay();
+        }
+        long delay = Math.max(hedging.getMinDelay().toNanos(), Math.min(hedging.getMaxDelay().toNanos(), quantile));
+        return Duration.ofNanos(delay);
+    }
+
+    private Counter attempts(Route route, String reason) {
+        return Counter.builder("whatsapp.nutrition.analysis.route.attempts")
+                .description("Nutrition analysis calls per model and why they were made")
+                .tags("provider", route.provider().name().toLowerCase(), "model", modelTag(route),
+                        "reason", reason)
+                .register(meterRegistry);
+    }
+
+    private void record(Route route, String outcome, long elapsed) {
+        Timer.builder("whatsapp.nutrition.analysis.route.duration")
+                .description("Nutrition analysis latency per model and outcome")
+                .tags("provider", route.provider().name().toLowerCase(), "model", modelTag(route),
+                        "outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private static String modelTag(Route route) {
+        return route.model() != null ? route.model() : "default";
+    }
+
+    public record Route(AiProvider provider, String model) {
+    }
+
+    public record Routed<T>(Route route, T value) {
+    }
+
+    /** The latest successful latencies of one model in a ring buffer. */
+    static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        LatencyWindow(int capacity) {
+            this.samples = new long[Math.max(1, capacity)];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        /** The quantile in nanoseconds, or {@code -1} while fewer than {@code minSamples} were recorded. */
+        synchronized long quantile(double quantile, int minSamples) {
+            if (size == 0 || size < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * size) - 1;
+            return sorted[Math.max(0, index)];
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.jm.services.whatsapp;
+
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.springframework.stereotype.Component;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC1;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_REDUCED_GRAYSCALE_8;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imdecode;
+import static org.bytedeco.opencv.global.opencv_imgproc.INTER_AREA;
+import static org.bytedeco.opencv.global.opencv_imgproc.resize;
+
+/**
+ * 64-bit difference hash (dHash) of a photo. The image is decoded by OpenCV straight into an 1/8-scale grayscale
+ * plane (JPEG decoders do this in the DCT, without producing the full-size bitmap), shrunk to 9x8 and each bit
+ * records whether a pixel is brighter than its right neighbour. Crops, recompression and resizing of the same
+ * plate move only a few bits, so copies are found by Hamming distance.
+ */
+@Component
+public class PerceptualImageHasher {
+
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+
+    public long hash(byte[] image) {
+        if (image == null || image.length == 0) {
+            throw new IllegalArgumentException("Image is empty");
+        }
+        try (PointerScope scope = new PointerScope()) {
+            Mat encoded = new Mat(1, image.length, CV_8UC1, new BytePointer(image));
+            Mat gray = imdecode(encoded, IMREAD_REDUCED_GRAYSCALE_8);
+            if (gray == null || gray.empty()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            Mat small = new Mat();
+            resize(gray, small, new Size(HASH_WIDTH, HASH_HEIGHT), 0, 0, INTER_AREA);
+            byte[] pixels = new byte[HASH_WIDTH * HASH_HEIGHT];
+            small.data().get(pixels);
+
+            long hash = 0L;
+            for (int row = 0; row < HASH_HEIGHT; row++) {
+                int offset = row * HASH_WIDTH;
+                for (int col = 0; col < HASH_WIDTH - 1; col++) {
+                    hash <<= 1;
+                    if ((pixels[offset + col] & 0xFF) > (pixels[offset + col + 1] & 0xFF)) {
+                        hash |= 1L;
+                    }
+                }
+            }
+            return hash;
+        }
+    }
+
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+}
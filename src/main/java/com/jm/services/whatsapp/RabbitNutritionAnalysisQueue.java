@@ -0,0 +1,27 @@
+package com.jm.services.whatsapp;
+
+import com.jm.configuration.config.NutritionAnalysisQueueProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes jobs to the durable RabbitMQ analysis queue as persistent messages.
+ */
+@Component
+@ConditionalOnProperty(prefix = "whatsapp.nutrition.queue", name = "mode", havingValue = "rabbit")
+public class RabbitNutritionAnalysisQueue implements NutritionAnalysisQueue {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final NutritionAnalysisQueueProperties properties;
+
+    public RabbitNutritionAnalysisQueue(RabbitTemplate rabbitTemplate, NutritionAnalysisQueueProperties properties) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.properties = properties;
+    }
+
+    @Override
+    public void submit(NutritionAnalysisJob job) {
+        rabbitTemplate.convertAndSend(properties.getExchange(), properties.getRoutingKey(), job);
+    }
+}
@@ -0,0 +1,35 @@
+package com.jm.services.whatsapp;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in the message feed: the {@code (receivedAt, id)} of the last message a client has seen, sent
+ * back as an opaque URL-safe token. The next page starts strictly after it in newest-first order, so pages stay
+ * stable while new messages arrive.
+ */
+public record WhatsAppFeedCursor(OffsetDateTime receivedAt, UUID id) {
+
+    public String encode() {
+        String raw = receivedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Parses a token produced by {@link #encode()}; throws {@link IllegalArgumentException} when malformed. */
+    public static WhatsAppFeedCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed feed cursor");
+            }
+            return new WhatsAppFeedCursor(OffsetDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Malformed feed cursor", ex);
+        }
+    }
+}
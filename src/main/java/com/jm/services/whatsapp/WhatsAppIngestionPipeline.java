@@ -0,0 +1,271 @@
+package com.jm.services.whatsapp;
+
+import com.jm.configuration.config.WhatsAppIngestionProperties;
+import com.jm.entity.WhatsAppWebhookEvent;
+import com.jm.enums.WhatsAppWebhookStatus;
+import com.jm.repository.WhatsAppWebhookEventRepository;
+import com.jm.services.WhatsAppNutritionService;
+import com.jm.services.WhatsAppNutritionService.InboundMedia;
+import com.jm.services.WhatsAppNutritionService.InboundMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Acknowledge-first ingestion of WhatsApp webhooks. The raw payload is stored and the HTTP call returns; bounded
+ * stages then persist the message, stream photos into R2 (upload) or download audio (media) and dispatch AI work.
+ * Each stage has its own worker count and queue, and a full downstream queue blocks the upstream workers until the
+ * stage before it also fills up and new webhooks are left for the recovery job. A webhook only becomes
+ * {@code PROCESSED} once every one of its messages cleared its last stage; until then it stays recoverable and a
+ * retry re-drives the messages still marked pending. Only the attempt holding the latest claim may settle a webhook,
+ * and a claim is only taken over once it is older than the recovery threshold.
+ */
+@Component
+public class WhatsAppIngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(WhatsAppIngestionPipeline.class);
+    private static final Set<WhatsAppWebhookStatus> FRESH = EnumSet.of(WhatsAppWebhookStatus.RECEIVED);
+    private static final Set<WhatsAppWebhookStatus> IDLE = EnumSet.of(WhatsAppWebhookStatus.RECEIVED,
+            WhatsAppWebhookStatus.FAILED);
+    private static final Set<WhatsAppWebhookStatus> RECOVERABLE = EnumSet.of(WhatsAppWebhookStatus.RECEIVED,
+            WhatsAppWebhookStatus.PROCESSING, WhatsAppWebhookStatus.FAILED);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final WhatsAppWebhookEventRepository webhookEventRepository;
+    private final WhatsAppNutritionService whatsAppNutritionService;
+    private final WhatsAppIngestionProperties properties;
+    private final IngestionStage persistStage;
+    private final IngestionStage mediaStage;
+    private final IngestionStage uploadStage;
+    private final IngestionStage dispatchStage;
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    public WhatsAppIngestionPipeline(WhatsAppWebhookEventRepository webhookEventRepository,
+            WhatsAppNutritionService whatsAppNutritionService, WhatsAppIngestionProperties properties,
+            MeterRegistry meterRegistry) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.whatsAppNutritionService = whatsAppNutritionService;
+        this.properties = properties;
+        this.persistStage = new IngestionStage("persist", properties.getPersist(), meterRegistry);
+        this.mediaStage = new IngestionStage("media", properties.getMedia(), meterRegistry);
+        this.uploadStage = new IngestionStage("upload", properties.getUpload(), meterRegistry);
+        this.dispatchStage = new IngestionStage("dispatch", properties.getDispatch(), meterRegistry);
+    }
+
+    /**
+     * Stores the raw webhook and schedules it for processing. Never blocks on downstream work: when the first stage
+     * is saturated the event simply stays {@code RECEIVED} until {@link #recoverPendingEvents()} picks it up.
+     */
+    public void accept(Map<String, Object> payload) {
+        if (!properties.isEnabled()) {
+            whatsAppNutritionService.handleWebhook(payload);
+            return;
+        }
+
+        WhatsAppWebhookEvent event = webhookEventRepository.save(WhatsAppWebhookEvent.builder()
+                .payload(payload)
+                .status(WhatsAppWebhookStatus.RECEIVED)
+                .build());
+        UUID eventId = event.getId();
+        if (!persistStage.offer(() -> process(eventId, FRESH))) {
+            logger.warn("WhatsApp ingestion saturated; webhook {} deferred to recovery", eventId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${whatsapp.ingestion.recovery-interval-ms:30000}")
+    public void recoverPendingEvents() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        OffsetDateTime before = OffsetDateTime.now().minus(properties.getRecoveryAfter());
+        List<UUID> pending = webhookEventRepository.findRecoverableIds(IDLE, WhatsAppWebhookStatus.PROCESSING, before,
+                properties.getMaxAttempts(), PageRequest.of(0, Math.max(1, properties.getRecoveryBatchSize())));
+        for (UUID eventId : pending) {
+            if (!persistStage.offer(() -> process(eventId, RECOVERABLE))) {
+                logger.debug("Persist stage still saturated; stopping recovery run");
+                return;
+            }
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Re-submitted {} pending WhatsApp webhooks", pending.size());
+        }
+    }
+
+    private void process(UUID eventId, Set<WhatsAppWebhookStatus> claimable) {
+        OffsetDateTime now = OffsetDateTime.now();
+        if (webhookEventRepository.claim(eventId, claimable, WhatsAppWebhookStatus.PROCESSING, now,
+                now.minus(properties.getRecoveryAfter())) == 0) {
+            logger.debug("Webhook {} already claimed", eventId);
+            return;
+        }
+        int attempt = 0;
+        try {
+            WhatsAppWebhookEvent event = webhookEventRepository.findById(eventId).orElse(null);
+            if (event == null) {
+                return;
+            }
+            attempt = event.getAttempts();
+            List<InboundMessage> inbound = whatsAppNutritionService.registerInboundMessages(event.getPayload());
+            if (attempt > 1) {
+                inbound = whatsAppNutritionService.findPendingInboundMessages(event.getPayload());
+            }
+            /*
+             * An earlier attempt on this node is still running some of these messages. It keeps the webhook and
+             * settles it when they finish; recovery looks again once the renewed claim goes stale.
+             */
+            if (inbound.stream().anyMatch(message -> inFlight.contains(message.messageId()))) {
+                webhookEventRepository.yieldClaim(eventId, attempt);
+                logger.info("Webhook {} still has messages in flight; leaving it to the earlier attempt", eventId);
+                return;
+            }
+            if (inbound.isEmpty()) {
+                webhookEventRepository.complete(eventId, attempt, WhatsAppWebhookStatus.PROCESSED, null,
+                        OffsetDateTime.now());
+                return;
+            }
+            inbound.forEach(message -> inFlight.add(message.messageId()));
+            EventProgress progress = new EventProgress(eventId, attempt, inbound.size(),
+                    attempt >= properties.getMaxAttempts());
+            inbound.forEach(message -> route(message, progress));
+        } catch (Exception ex) {
+            logger.error("Failed to persist WhatsApp webhook {}", eventId, ex);
+            webhookEventRepository.complete(eventId, attempt, WhatsAppWebhookStatus.FAILED,
+                    truncate(ex.getMessage()), null);
+        }
+    }
+
+    private void route(InboundMessage inbound, EventProgress progress) {
+        if (inbound.isText()) {
+            handoff(dispatchStage, inbound, progress, () -> {
+                whatsAppNutritionService.processTextMessage(inbound);
+                progress.succeeded(inbound);
+            });
+            return;
+        }
+        if (!inbound.hasMedia()) {
+            logger.warn("{} message {} without media id", inbound.type(), inbound.messageId());
+            progress.succeeded(inbound);
+            return;
+        }
+        if (inbound.isImage()) {
+            handoff(uploadStage, inbound, progress, () -> {
+                whatsAppNutritionService.storeImageMedia(inbound);
+                handoff(dispatchStage, inbound, progress, () -> {
+                    whatsAppNutritionService.dispatchImageAnalysis(inbound);
+                    progress.succeeded(inbound);
+                });
+            });
+            return;
+        }
+        handoff(mediaStage, inbound, progress, () -> {
+            InboundMedia media = whatsAppNutritionService.fetchInboundMedia(inbound);
+            handoff(dispatchStage, inbound, progress, () -> {
+                whatsAppNutritionService.processAudioMessage(inbound, media);
+                progress.succeeded(inbound);
+            });
+        });
+    }
+
+    private void handoff(IngestionStage stage, InboundMessage inbound, EventProgress progress, Runnable work) {
+        Duration timeout = properties.getHandoffTimeout();
+        boolean accepted = stage.handoff(() -> {
+            try {
+                work.run();
+            } catch (Exception ex) {
+                progress.failed(inbound, ex);
+            }
+        }, timeout);
+        if (!accepted) {
+            progress.failed(inbound, new IllegalStateException("Stage " + stage.name() + " saturated for " + timeout));
+        }
+    }
+
+    private String truncate(String value) {
+        if (value == null || value.length() <= MAX_ERROR_LENGTH) {
+            return value;
+        }
+        return value.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    /**
+     * Tracks the messages of one webhook attempt. The last message to finish settles the webhook: {@code PROCESSED}
+     * when all of them made it, otherwise {@code FAILED} so recovery retries the ones still pending. The sender only
+     * hears about a failure on the final attempt.
+     */
+    private final class EventProgress {
+        private final UUID eventId;
+        private final int attempt;
+        private final AtomicInteger remaining;
+        private final boolean finalAttempt;
+        private final AtomicReference<String> error = new AtomicReference<>();
+
+        EventProgress(UUID eventId, int attempt, int messages, boolean finalAttempt) {
+            this.eventId = eventId;
+            this.attempt = attempt;
+            this.remaining = new AtomicInteger(messages);
+            this.finalAttempt = finalAttempt;
+        }
+
+        void succeeded(InboundMessage inbound) {
+            try {
+                whatsAppNutritionService.completeInboundMessage(inbound.messageId());
+            } catch (Exception ex) {
+                failed(inbound, ex);
+                return;
+            }
+            finish(inbound);
+        }
+
+        void failed(InboundMessage inbound, Exception ex) {
+            error.compareAndSet(null, "Message " + inbound.messageId() + ": " + ex.getMessage());
+            if (finalAttempt) {
+                whatsAppNutritionService.notifyInboundFailure(inbound, ex);
+            } else {
+                logger.warn("WhatsApp {} message {} failed; webhook {} will be retried", inbound.type(),
+                        inbound.messageId(), eventId, ex);
+            }
+            finish(inbound);
+        }
+
+        private void finish(InboundMessage inbound) {
+            inFlight.remove(inbound.messageId());
+            if (remaining.decrementAndGet() > 0) {
+                return;
+            }
+            String failure = error.get();
+            int settled = failure == null
+                    ? webhookEventRepository.complete(eventId, attempt, WhatsAppWebhookStatus.PROCESSED, null,
+                            OffsetDateTime.now())
+                    : webhookEventRepository.complete(eventId, attempt, WhatsAppWebhookStatus.FAILED,
+                            truncate(failure), null);
+            if (settled == 0) {
+                logger.warn("Attempt {} of webhook {} finished after it was taken over; leaving it to the newer one",
+                        attempt, eventId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Duration grace = Duration.ofSeconds(10);
+        persistStage.shutdown(grace);
+        mediaStage.shutdown(grace);
+        uploadStage.shutdown(grace);
+        dispatchStage.shutdown(grace);
+    }
+}
@@ -0,0 +1,218 @@
+package com.jm.services.whatsapp;
+
+import com.jm.configuration.config.WhatsAppIngestionProperties;
+import com.jm.dto.ImageDTO;
+import com.jm.dto.WhatsAppMediaMetadata;
+import com.jm.services.CloudflareR2Service;
+import com.jm.services.ImagePreprocessingService;
+import com.jm.services.ImagePreprocessingService.ProcessedImage;
+import com.jm.services.ImagePreprocessingService.Variant;
+import com.jm.services.WhatsAppService;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Moves WhatsApp media into R2. Photos that fit the capture limit are downloaded once, decoded and stored as a
+ * re-encoded storage variant plus a thumbnail, with the model-sized variant parked in {@link AnalysisImageCache}.
+ * Anything larger, or that cannot be decoded, is streamed as is without holding the whole file on the heap: the
+ * Graph API body is consumed chunk by chunk and piped into the R2 upload.
+ */
+@Component
+public class WhatsAppMediaStreamer {
+
+    /** Chunks requested ahead of the uploading thread. */
+    private static final int PREFETCH = 8;
+    private static final String THUMBNAILS = "thumbnails";
+
+    private final WhatsAppService whatsAppService;
+    private final CloudflareR2Service cloudflareR2Service;
+    private final AnalysisImageCache analysisImageCache;
+    private final WhatsAppIngestionProperties properties;
+    private final ImagePreprocessingService imagePreprocessingService;
+
+    public WhatsAppMediaStreamer(WhatsAppService whatsAppService, CloudflareR2Service cloudflareR2Service,
+            AnalysisImageCache analysisImageCache, WhatsAppIngestionProperties properties,
+            ImagePreprocessingService imagePreprocessingService) {
+        this.whatsAppService = whatsAppService;
+        this.cloudflareR2Service = cloudflareR2Service;
+        this.analysisImageCache = analysisImageCache;
+        this.properties = properties;
+        this.imagePreprocessingService = imagePreprocessingService;
+    }
+
+    public Mono<StoredMedia> streamToR2(String mediaId, String fileName, UUID ownerId) {
+        return whatsAppService.fetchMediaMetadata(mediaId)
+                .flatMap(metadata -> streamed(metadata)
+                        ? stream(metadata, fileName, ownerId)
+                        : buffer(metadata, fileName, ownerId));
+    }
+
+    /** Photos above the capture limit, or every photo when preprocessing is off, go straight through. */
+    private boolean streamed(WhatsAppMediaMetadata metadata) {
+        if (metadata.getFileSize() == null || metadata.getFileSize() <= 0) {
+            return false;
+        }
+        return !imagePreprocessingService.isEnabled()
+                || metadata.getFileSize() > properties.getAnalysisCaptureLimit().toBytes();
+    }
+
+    private Mono<StoredMedia> stream(WhatsAppMediaMetadata metadata, String fileName, UUID ownerId) {
+        long size = metadata.getFileSize();
+        CappedCapture capture = new CappedCapture(size, properties.getAnalysisCaptureLimit().toBytes());
+        Flux<DataBuffer> body = whatsAppService.streamMedia(metadata.getUrl()).doOnNext(capture::append);
+        return Mono.fromCallable(() -> {
+            try (InputStream content = new DataBufferInputStream(body.toStream(PREFETCH))) {
+                ImageDTO image = cloudflareR2Service.uploadStream(content, size, fileName, metadata.getMimeType(),
+                        ownerId);
+                analysisImageCache.put(image.getFileKey(), capture.complete());
+                return new StoredMedia(metadata.getUrl(), metadata.getMimeType(), image.getUrl(), image.getFileKey(),
+                        null);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Downloads the whole photo so it can be preprocessed. Also used when Graph does not report file_size, since R2
+     * needs the length up front.
+     */
+    private Mono<StoredMedia> buffer(WhatsAppMediaMetadata metadata, String fileName, UUID ownerId) {
+        return whatsAppService.downloadMedia(metadata.getUrl())
+                .publishOn(Schedulers.boundedElastic())
+                .map(bytes -> imagePreprocessingService.process(bytes, metadata.getMimeType())
+                        .map(processed -> storeProcessed(metadata, processed, fileName, ownerId))
+                        .orElseGet(() -> storeOriginal(metadata, bytes, fileName, ownerId)));
+    }
+
+    private StoredMedia storeProcessed(WhatsAppMediaMetadata metadata, ProcessedImage processed, String fileName,
+            UUID ownerId) {
+        Variant storage = processed.storage();
+        ImageDTO image = cloudflareR2Service.uploadStream(new ByteArrayInputStream(storage.data()),
+                storage.data().length, CloudflareR2Service.toJpegName(fileName), storage.mimeType(), ownerId);
+        analysisImageCache.put(image.getFileKey(), processed.analysis().data());
+        String thumbnailUrl = cloudflareR2Service.uploadDerivative(image.getFileKey(), THUMBNAILS,
+                processed.thumbnail().data(), processed.thumbnail().mimeType());
+        return new StoredMedia(metadata.getUrl(), storage.mimeType(), image.getUrl(), image.getFileKey(),
+                thumbnailUrl);
+    }
+
+    private StoredMedia storeOriginal(WhatsAppMediaMetadata metadata, byte[] bytes, String fileName, UUID ownerId) {
+        ImageDTO image = cloudflareR2Service.uploadStream(new ByteArrayInputStream(bytes), bytes.length, fileName,
+                metadata.getMimeType(), ownerId);
+        if (bytes.length <= properties.getAnalysisCaptureLimit().toBytes()) {
+            analysisImageCache.put(image.getFileKey(), bytes);
+        }
+        return new StoredMedia(metadata.getUrl(), metadata.getMimeType(), image.getUrl(), image.getFileKey(), null);
+    }
+
+    public record StoredMedia(String mediaUrl, String mimeType, String imageUrl, String imageKey,
+            String thumbnailUrl) {
+    }
+
+    /**
+     * Blocking view over the download used by the uploading thread. Each chunk is released once read, so at most
+     * {@link #PREFETCH} chunks are buffered; closing the stream cancels the download.
+     */
+    private static final class DataBufferInputStream extends InputStream {
+
+        private final Stream<DataBuffer> chunks;
+        private final Iterator<DataBuffer> iterator;
+        private DataBuffer current;
+
+        DataBufferInputStream(Stream<DataBuffer> chunks) {
+            this.chunks = chunks;
+            this.iterator = chunks.iterator();
+        }
+
+        @Override
+        public int read() {
+            return advance() ? current.read() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!advance()) {
+                return -1;
+            }
+            int count = Math.min(length, current.readableByteCount());
+            current.read(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public void close() {
+            if (current != null) {
+                DataBufferUtils.release(current);
+                current = null;
+            }
+            chunks.close();
+        }
+
+        private boolean advance() {
+            while (current == null || current.readableByteCount() == 0) {
+                if (current != null) {
+                    DataBufferUtils.release(current);
+                    current = null;
+                }
+                if (!iterator.hasNext()) {
+                    return false;
+                }
+                current = iterator.next();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Copies the stream only when the declared size fits the limit, and gives up as soon as it overflows, so large
+     * files cost nothing beyond the chunks in flight.
+     */
+    private static final class CappedCapture {
+
+        private byte[] data;
+        private int length;
+
+        CappedCapture(long expectedSize, long limit) {
+            this.data = expectedSize <= limit ? new byte[(int) expectedSize] : null;
+        }
+
+        void append(DataBuffer buffer) {
+            if (data == null) {
+                return;
+            }
+            try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                while (chunks.hasNext()) {
+                    ByteBuffer chunk = chunks.next();
+                    int remaining = chunk.remaining();
+                    if (length + remaining > data.length) {
+                        data = null;
+                        return;
+                    }
+                    chunk.get(data, length, remaining);
+                    length += remaining;
+                }
+            }
+        }
+
+        byte[] complete() {
+            if (data == null) {
+                return null;
+            }
+            return length == data.length ? data : Arrays.copyOf(data, length);
+        }
+    }
+}
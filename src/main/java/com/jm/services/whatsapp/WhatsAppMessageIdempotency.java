@@ -0,0 +1,127 @@
+package com.jm.services.whatsapp;
+
+import com.jm.configuration.config.WhatsAppIngestionProperties;
+import com.jm.repository.WhatsAppMessageClaimRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Decides which WhatsApp message ids are seen for the first time. Recently claimed ids are answered from an LRU in
+ * memory; the rest of a webhook's ids are claimed together through the {@code whatsapp_message_claims} primary key,
+ * so two concurrent deliveries of the same message cannot both win. One multi-row insert tags the batch's rows with
+ * a token, and only when some ids were already taken does a second query read back which rows carry it.
+ * <p>
+ * Claims are written inside the caller's transaction and only remembered in memory after it commits, so a rolled
+ * back batch can be processed again by the recovery job.
+ */
+@Component
+public class WhatsAppMessageIdempotency {
+
+    private static final Logger logger = LoggerFactory.getLogger(WhatsAppMessageIdempotency.class);
+
+    private final WhatsAppMessageClaimRepository claimRepository;
+    private final int capacity;
+    private final Map<String, Boolean> recent;
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter claims;
+
+    public WhatsAppMessageIdempotency(WhatsAppMessageClaimRepository claimRepository,
+            WhatsAppIngestionProperties properties, MeterRegistry meterRegistry) {
+        this.claimRepository = claimRepository;
+        this.capacity = Math.max(1, properties.getIdempotency().getRecentCapacity());
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.memoryHits = duplicateCounter("memory", meterRegistry);
+        this.databaseHits = duplicateCounter("database", meterRegistry);
+        this.claims = Counter.builder("whatsapp.ingestion.idempotency.claims")
+                .description("WhatsApp message ids claimed for processing")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims every id that was not processed before and returns them in iteration order. Ids repeated inside the
+     * same collection are only returned once.
+     */
+    public Set<String> claimNew(Collection<String> whatsappMessageIds) {
+        Set<String> candidates = new LinkedHashSet<>();
+        for (String id : new LinkedHashSet<>(whatsappMessageIds)) {
+            if (id == null) {
+                continue;
+            }
+            if (isRecent(id)) {
+                memoryHits.increment();
+                logger.debug("Duplicate WhatsApp message {} rejected from memory", id);
+                continue;
+            }
+            candidates.add(id);
+        }
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        Set<String> claimed = candidates;
+        if (claimRepository.claimAll(candidates, claimToken) < candidates.size()) {
+            Set<String> won = new HashSet<>(claimRepository.findClaimedBy(candidates, claimToken));
+            claimed = new LinkedHashSet<>();
+            Set<String> duplicates = new LinkedHashSet<>();
+            for (String id : candidates) {
+                (won.contains(id) ? claimed : duplicates).add(id);
+            }
+            databaseHits.increment(duplicates.size());
+            logger.debug("Duplicate WhatsApp messages {} rejected by claim table", duplicates);
+            remember(duplicates);
+        }
+        if (!claimed.isEmpty()) {
+            claims.increment(claimed.size());
+            rememberAfterCommit(claimed);
+        }
+        return claimed;
+    }
+
+    private synchronized boolean isRecent(String id) {
+        return recent.get(id) != null;
+    }
+
+    private synchronized void remember(Set<String> ids) {
+        ids.forEach(id -> recent.put(id, Boolean.TRUE));
+    }
+
+    private void rememberAfterCommit(Set<String> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remember(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remember(ids);
+            }
+        });
+    }
+
+    private static Counter duplicateCounter(String source, MeterRegistry meterRegistry) {
+        return Counter.builder("whatsapp.ingestion.idempotency.duplicates")
+                .description("Duplicate WhatsApp deliveries rejected before processing")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
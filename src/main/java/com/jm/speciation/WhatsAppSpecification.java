@@ -1,14 +1,22 @@
 package com.jm.speciation;
 
 import com.jm.dto.WhatsAppMessageDTO;
+import com.jm.entity.Food;
+import com.jm.entity.NutritionAnalysis;
 import com.jm.entity.WhatsAppMessage;
+import com.jm.services.whatsapp.WhatsAppFeedCursor;
 
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 
 import org.springframework.data.jpa.domain.Specification;
 
@@ -34,4 +42,50 @@ public class WhatsAppSpecification {
             return builder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * One page of the feed after {@code cursor} in newest-first order. With an owner, messages linked to them match,
+     * as do unlinked messages sent from or to one of {@code ownerPhones}. The analysis and everything the feed
+     * shows of it are fetched in the same query.
+     */
+    public static Specification<WhatsAppMessage> feed(WhatsAppMessageDTO filter, UUID ownerId,
+            Collection<String> ownerPhones, OffsetDateTime start, OffsetDateTime end, WhatsAppFeedCursor cursor) {
+        Specification<WhatsAppMessage> search = search(filter, start, end);
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(search.toPredicate(root, query, builder));
+
+            if (ownerId != null) {
+                Predicate owned = builder.equal(root.get("owner").get("id"), ownerId);
+                if (ownerPhones.isEmpty()) {
+                    predicates.add(owned);
+                } else {
+                    predicates.add(builder.or(owned, builder.and(root.get("owner").isNull(),
+                            builder.or(root.get("fromPhone").in(ownerPhones), root.get("toPhone").in(ownerPhones)))));
+                }
+            }
+
+            if (cursor != null) {
+                Path<OffsetDateTime> receivedAt = root.get("receivedAt");
+                predicates.add(builder.or(builder.lessThan(receivedAt, cursor.receivedAt()),
+                        builder.and(builder.equal(receivedAt, cursor.receivedAt()),
+                                builder.lessThan(root.get("id"), cursor.id()))));
+            }
+
+            if (query.getResultType() == WhatsAppMessage.class) {
+                Fetch<WhatsAppMessage, NutritionAnalysis> analysis = root.fetch("nutritionAnalysis", JoinType.LEFT);
+                analysis.fetch("meal", JoinType.LEFT);
+                analysis.fetch("primaryCategory", JoinType.LEFT);
+                analysis.fetch("caloriesUnit", JoinType.LEFT);
+                analysis.fetch("proteinUnit", JoinType.LEFT);
+                analysis.fetch("carbsUnit", JoinType.LEFT);
+                analysis.fetch("fatUnit", JoinType.LEFT);
+                analysis.fetch("liquidUnit", JoinType.LEFT);
+                Fetch<NutritionAnalysis, Food> food = analysis.fetch("food", JoinType.LEFT);
+                food.fetch("foodCategory", JoinType.LEFT);
+            }
+
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
 }
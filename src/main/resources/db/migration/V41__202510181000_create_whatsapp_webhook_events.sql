@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS whatsapp_webhook_events (
+    id CHAR(36) PRIMARY KEY,
+    payload JSON NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'RECEIVED',
+    attempts INT NOT NULL DEFAULT 0,
+    error_message TEXT,
+    received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_whatsapp_webhook_events_status ON whatsapp_webhook_events (status, received_at);
@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS whatsapp_message_claims (
+    whatsapp_message_id VARCHAR(120) PRIMARY KEY,
+    claimed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT IGNORE INTO whatsapp_message_claims (whatsapp_message_id, claimed_at)
+SELECT whatsapp_message_id, received_at
+FROM whatsapp_messages
+WHERE whatsapp_message_id IS NOT NULL;
@@ -0,0 +1,2 @@
+ALTER TABLE whatsapp_messages
+    ADD COLUMN IF NOT EXISTS cloudflare_image_key VARCHAR(255) NULL AFTER cloudflare_image_url;
@@ -0,0 +1,31 @@
+ALTER TABLE user_entity
+    ADD COLUMN IF NOT EXISTS phone_e164 VARCHAR(20) NULL AFTER phone_number;
+
+-- Mirrors UserPhoneDirectory.toE164. Numbers without an international prefix get country code 55, the default of
+-- users.phone.default-country-code; deployments that override that property must re-save or fix those users.
+UPDATE user_entity
+SET phone_e164 = CASE
+        WHEN TRIM(phone_number) LIKE '+%' THEN CONCAT('+', REGEXP_REPLACE(phone_number, '[^0-9]', ''))
+        WHEN REGEXP_REPLACE(phone_number, '[^0-9]', '') LIKE '00%'
+            THEN CONCAT('+', SUBSTRING(REGEXP_REPLACE(phone_number, '[^0-9]', ''), 3))
+        WHEN LENGTH(TRIM(LEADING '0' FROM REGEXP_REPLACE(phone_number, '[^0-9]', ''))) <= 11
+            THEN CONCAT('+55', TRIM(LEADING '0' FROM REGEXP_REPLACE(phone_number, '[^0-9]', '')))
+        ELSE CONCAT('+', REGEXP_REPLACE(phone_number, '[^0-9]', ''))
+    END
+WHERE phone_number IS NOT NULL
+  AND REGEXP_REPLACE(phone_number, '[^0-9]', '') <> '';
+
+-- Keep a single account per number so the unique index can be created. The others stay unindexed and are reported
+-- by UserService when saved, until one of the accounts changes its number.
+UPDATE user_entity u
+    JOIN (
+        SELECT phone_e164, MIN(id) AS kept_id
+        FROM user_entity
+        WHERE phone_e164 IS NOT NULL
+        GROUP BY phone_e164
+        HAVING COUNT(*) > 1
+    ) duplicated ON duplicated.phone_e164 = u.phone_e164
+SET u.phone_e164 = NULL
+WHERE u.id <> duplicated.kept_id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_user_entity_phone_e164 ON user_entity (phone_e164);
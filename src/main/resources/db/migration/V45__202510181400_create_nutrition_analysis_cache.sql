@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS nutrition_analysis_cache (
+    cache_key CHAR(64) PRIMARY KEY,
+    provider VARCHAR(30) NOT NULL,
+    model VARCHAR(255),
+    result_json JSON NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_nutrition_analysis_cache_expires_at ON nutrition_analysis_cache (expires_at);
@@ -0,0 +1,15 @@
+ALTER TABLE nutrition_analysis
+    ADD COLUMN IF NOT EXISTS owner_user_id CHAR(36) NULL AFTER message_id;
+
+UPDATE nutrition_analysis a
+JOIN whatsapp_messages m ON m.id = a.message_id
+SET a.owner_user_id = m.owner_user_id
+WHERE a.owner_user_id IS NULL
+  AND m.owner_user_id IS NOT NULL;
+
+ALTER TABLE nutrition_analysis DROP CONSTRAINT IF EXISTS fk_nutrition_analysis_owner;
+ALTER TABLE nutrition_analysis
+    ADD CONSTRAINT fk_nutrition_analysis_owner FOREIGN KEY (owner_user_id) REFERENCES user_entity(id);
+
+CREATE INDEX IF NOT EXISTS idx_nutrition_analysis_owner_created ON nutrition_analysis (owner_user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_whatsapp_messages_from_phone ON whatsapp_messages (from_phone);
@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS nutrition_daily_rollup (
+    id CHAR(36) PRIMARY KEY,
+    owner_user_id CHAR(36) NOT NULL,
+    rollup_date DATE NOT NULL,
+    entries INT NOT NULL DEFAULT 0,
+    calories DECIMAL(14,3) NOT NULL DEFAULT 0,
+    protein DECIMAL(14,3) NOT NULL DEFAULT 0,
+    carbs DECIMAL(14,3) NOT NULL DEFAULT 0,
+    fat DECIMAL(14,3) NOT NULL DEFAULT 0,
+    fiber_g DECIMAL(14,3) NOT NULL DEFAULT 0,
+    water_ml DECIMAL(14,3) NOT NULL DEFAULT 0,
+    foods_json JSON NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_nutrition_daily_rollup_owner_date UNIQUE (owner_user_id, rollup_date),
+    CONSTRAINT fk_nutrition_daily_rollup_owner FOREIGN KEY (owner_user_id) REFERENCES user_entity(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_nutrition_daily_rollup_date ON nutrition_daily_rollup (rollup_date);
@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS idx_whatsapp_messages_received_id ON whatsapp_messages (received_at, id);
+CREATE INDEX IF NOT EXISTS idx_whatsapp_messages_owner_received_id ON whatsapp_messages (owner_user_id, received_at, id);
+CREATE INDEX IF NOT EXISTS idx_whatsapp_messages_to_phone ON whatsapp_messages (to_phone);
@@ -0,0 +1,24 @@
+CREATE TABLE IF NOT EXISTS body_metric_sample (
+    id CHAR(36) PRIMARY KEY,
+    anamnesis_id CHAR(36) NOT NULL,
+    user_id CHAR(36),
+    measured_on DATE NOT NULL,
+    weight_kg DECIMAL(10,2),
+    body_mass_index DECIMAL(10,2),
+    body_fat_percentage DECIMAL(5,2),
+    muscle_mass_percentage DECIMAL(5,2),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_body_metric_sample_anamnesis UNIQUE (anamnesis_id),
+    CONSTRAINT fk_body_metric_sample_anamnesis FOREIGN KEY (anamnesis_id) REFERENCES anamneses(id) ON DELETE CASCADE,
+    CONSTRAINT fk_body_metric_sample_user FOREIGN KEY (user_id) REFERENCES user_entity(id) ON DELETE SET NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_body_metric_sample_user_date ON body_metric_sample (user_id, measured_on);
+CREATE INDEX IF NOT EXISTS idx_body_metric_sample_date ON body_metric_sample (measured_on);
+
+INSERT INTO body_metric_sample (id, anamnesis_id, user_id, measured_on, weight_kg, body_mass_index,
+    body_fat_percentage, muscle_mass_percentage, updated_at)
+SELECT UUID(), a.id, a.user_id, DATE(COALESCE(a.created_at, CURRENT_TIMESTAMP)), a.weight_kg, a.body_mass_index,
+    a.body_fat_percentage, a.muscle_mass_percentage, CURRENT_TIMESTAMP
+FROM anamneses a
+WHERE NOT EXISTS (SELECT 1 FROM body_metric_sample s WHERE s.anamnesis_id = a.id);
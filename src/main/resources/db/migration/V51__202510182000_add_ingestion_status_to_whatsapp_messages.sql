@@ -0,0 +1,2 @@
+ALTER TABLE whatsapp_messages ADD COLUMN IF NOT EXISTS ingestion_status VARCHAR(20) NULL;
+CREATE INDEX IF NOT EXISTS idx_whatsapp_messages_ingestion ON whatsapp_messages (whatsapp_message_id, ingestion_status);
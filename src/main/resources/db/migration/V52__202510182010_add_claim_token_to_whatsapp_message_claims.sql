@@ -0,0 +1 @@
+ALTER TABLE whatsapp_message_claims ADD COLUMN IF NOT EXISTS claim_token CHAR(36) NULL;
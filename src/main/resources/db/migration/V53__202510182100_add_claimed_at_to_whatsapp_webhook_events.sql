@@ -0,0 +1,6 @@
+ALTER TABLE whatsapp_webhook_events ADD COLUMN IF NOT EXISTS claimed_at TIMESTAMP NULL AFTER attempts;
+
+-- Webhooks already being processed count as claimed when they arrived, so recovery treats them as before.
+UPDATE whatsapp_webhook_events SET claimed_at = received_at WHERE status = 'PROCESSING' AND claimed_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_whatsapp_webhook_events_claimed ON whatsapp_webhook_events (status, claimed_at);
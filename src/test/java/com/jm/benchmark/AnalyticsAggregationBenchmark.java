@@ -0,0 +1,195 @@
+package com.jm.benchmark;
+
+import com.jm.services.analytics.NutritionAggregation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregation of a year of nutrition entries into analytics buckets: the previous {@code BigDecimal} maps with a
+ * linear bucket search against {@link NutritionAggregation}. Estimation of water, fiber and foods is identical in
+ * both paths and left out; rows carry those values already. The 10M dataset alone takes about 600 MB of heap. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.jm.benchmark.AnalyticsAggregationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AnalyticsAggregationBenchmark {
+
+    private static final MathContext MATH_CONTEXT = MathContext.DECIMAL64;
+    private static final int RANGE_DAYS = 365;
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int rows;
+
+    @Param({ "DAY", "WEEK", "MONTH" })
+    public String groupBy;
+
+    private final ZoneId zoneId = ZoneId.systemDefault();
+    private final LocalDate endDate = LocalDate.of(2025, 10, 18);
+    private final LocalDate startDate = endDate.minusDays(RANGE_DAYS - 1L);
+    private List<Bucket> buckets;
+    private int[] bucketOfDay;
+    private Row[] dataset;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        buckets = buckets(groupBy);
+        bucketOfDay = new int[RANGE_DAYS];
+        Arrays.fill(bucketOfDay, -1);
+        for (int index = 0; index < buckets.size(); index++) {
+            Bucket bucket = buckets.get(index);
+            for (LocalDate day = bucket.start(); !day.isAfter(bucket.end()); day = day.plusDays(1)) {
+                bucketOfDay[(int) (day.toEpochDay() - startDate.toEpochDay())] = index;
+            }
+        }
+
+        // Values are drawn from small pools so that even 10M rows fit in memory.
+        SplittableRandom random = new SplittableRandom(42);
+        OffsetDateTime[] instants = new OffsetDateTime[RANGE_DAYS * 24];
+        for (int hour = 0; hour < instants.length; hour++) {
+            instants[hour] = startDate.atStartOfDay(zoneId).plusHours(hour).toOffsetDateTime();
+        }
+        BigDecimal[] amounts = new BigDecimal[1024];
+        for (int index = 0; index < amounts.length; index++) {
+            amounts[index] = BigDecimal.valueOf(random.nextInt(0, 80_000), 2);
+        }
+        String[] foods = new String[256];
+        for (int index = 0; index < foods.length; index++) {
+            foods[index] = "Food " + index;
+        }
+        dataset = new Row[rows];
+        for (int index = 0; index < rows; index++) {
+            dataset[index] = new Row(instants[random.nextInt(instants.length)],
+                    amounts[random.nextInt(amounts.length)], amounts[random.nextInt(amounts.length)],
+                    amounts[random.nextInt(amounts.length)], amounts[random.nextInt(amounts.length)],
+                    amounts[random.nextInt(amounts.length)], amounts[random.nextInt(amounts.length)],
+                    foods[random.nextInt(foods.length)], random.nextBoolean() ? "g" : "ml",
+                    amounts[random.nextInt(amounts.length)]);
+        }
+    }
+
+    @Benchmark
+    public Object bigDecimalMaps() {
+        Map<Bucket, BigDecimal[]> macroByBucket = new LinkedHashMap<>();
+        Map<Bucket, BigDecimal> hydration = new LinkedHashMap<>();
+        Map<Bucket, BigDecimal> fiber = new LinkedHashMap<>();
+        for (Bucket bucket : buckets) {
+            macroByBucket.put(bucket, new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                    BigDecimal.ZERO });
+            hydration.put(bucket, BigDecimal.ZERO);
+            fiber.put(bucket, BigDecimal.ZERO);
+        }
+        BigDecimal[] total = { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO };
+        Map<String, BigDecimal> foods = new LinkedHashMap<>();
+        for (Row row : dataset) {
+            LocalDate date = row.createdAt().atZoneSameInstant(zoneId).toLocalDate();
+            Bucket bucket = findBucket(date);
+            if (bucket == null) {
+                continue;
+            }
+            addMacros(macroByBucket.get(bucket), row);
+            addMacros(total, row);
+            hydration.put(bucket, hydration.get(bucket).add(row.water(), MATH_CONTEXT));
+            fiber.put(bucket, fiber.get(bucket).add(row.fiber(), MATH_CONTEXT));
+            foods.merge(row.food().toLowerCase(Locale.ROOT) + "|" + row.unit(), row.quantity(),
+                    (left, right) -> left.add(right, MATH_CONTEXT));
+        }
+        return new Object[] { macroByBucket, hydration, fiber, total, foods };
+    }
+
+    @Benchmark
+    public Object primitiveArrays() {
+        NutritionAggregation totals = new NutritionAggregation(startDate, bucketOfDay, buckets.size());
+        for (Row row : dataset) {
+            long epochDay = LocalDate.ofInstant(row.createdAt().toInstant(), zoneId).toEpochDay();
+            if (totals.add(epochDay, 1, row.calories().doubleValue(), row.protein().doubleValue(),
+                    row.carbs().doubleValue(), row.fat().doubleValue(), row.fiber().doubleValue(),
+                    row.water().doubleValue())) {
+                totals.addFood(row.food(), row.unit(), row.quantity().doubleValue());
+            }
+        }
+        return totals;
+    }
+
+    private static void addMacros(BigDecimal[] totals, Row row) {
+        totals[0] = totals[0].add(row.protein(), MATH_CONTEXT);
+        totals[1] = totals[1].add(row.carbs(), MATH_CONTEXT);
+        totals[2] = totals[2].add(row.fat(), MATH_CONTEXT);
+        totals[3] = totals[3].add(row.calories(), MATH_CONTEXT);
+    }
+
+    private Bucket findBucket(LocalDate date) {
+        for (Bucket bucket : buckets) {
+            if (!date.isBefore(bucket.start()) && !date.isAfter(bucket.end())) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+
+    private List<Bucket> buckets(String groupBy) {
+        List<Bucket> result = new ArrayList<>();
+        LocalDate cursor = switch (groupBy) {
+            case "WEEK" -> startDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case "MONTH" -> startDate.withDayOfMonth(1);
+            default -> startDate;
+        };
+        while (!cursor.isAfter(endDate)) {
+            LocalDate next = switch (groupBy) {
+                case "WEEK" -> cursor.plusWeeks(1);
+                case "MONTH" -> cursor.plusMonths(1);
+                default -> cursor.plusDays(1);
+            };
+            LocalDate start = cursor.isBefore(startDate) ? startDate : cursor;
+            LocalDate end = next.minusDays(1).isAfter(endDate) ? endDate : next.minusDays(1);
+            result.add(new Bucket(start, end));
+            cursor = next;
+        }
+        return result;
+    }
+
+    private record Bucket(LocalDate start, LocalDate end) {
+    }
+
+    private record Row(OffsetDateTime createdAt, BigDecimal calories, BigDecimal protein, BigDecimal carbs,
+            BigDecimal fat, BigDecimal fiber, BigDecimal water, String food, String unit, BigDecimal quantity) {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AnalyticsAggregationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
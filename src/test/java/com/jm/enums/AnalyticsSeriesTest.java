@@ -0,0 +1,32 @@
+package com.jm.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnalyticsSeriesTest {
+
+    @Test
+    void fromShouldReturnEverySeriesWhenNothingIsRequested() {
+        assertThat(AnalyticsSeries.from(null)).isEqualTo(EnumSet.allOf(AnalyticsSeries.class));
+        assertThat(AnalyticsSeries.from(Arrays.asList(" ", null))).isEqualTo(EnumSet.allOf(AnalyticsSeries.class));
+    }
+
+    @Test
+    void fromShouldParseNamesIgnoringCaseAndSpaces() {
+        assertThat(AnalyticsSeries.from(List.of(" macros", "Body ")))
+                .containsExactlyInAnyOrder(AnalyticsSeries.MACROS, AnalyticsSeries.BODY);
+    }
+
+    @Test
+    void fromShouldRejectUnknownNames() {
+        assertThatThrownBy(() -> AnalyticsSeries.from(List.of("macros", " sleep ")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("sleep");
+    }
+}
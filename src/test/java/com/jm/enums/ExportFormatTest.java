@@ -0,0 +1,28 @@
+package com.jm.enums;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExportFormatTest {
+
+    @Test
+    void fromShouldDefaultToCsvWhenNothingIsRequested() {
+        assertThat(ExportFormat.from(null)).isEqualTo(ExportFormat.CSV);
+        assertThat(ExportFormat.from(" ")).isEqualTo(ExportFormat.CSV);
+    }
+
+    @Test
+    void fromShouldParseNamesIgnoringCaseAndSpaces() {
+        assertThat(ExportFormat.from(" ndjson ")).isEqualTo(ExportFormat.NDJSON);
+        assertThat(ExportFormat.from("Csv")).isEqualTo(ExportFormat.CSV);
+    }
+
+    @Test
+    void fromShouldRejectUnknownFormats() {
+        assertThatThrownBy(() -> ExportFormat.from(" json "))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("json");
+    }
+}
@@ -0,0 +1,65 @@
+package com.jm.listeners;
+
+import com.jm.entity.Ollama;
+import com.jm.enums.OllamaStatus;
+import com.jm.events.OllamaRequestEvent;
+import com.jm.repository.OllamaRepository;
+import com.jm.services.OllamaService;
+import com.jm.services.WhatsAppNutritionService;
+import com.jm.services.WhatsAppService;
+import com.jm.services.ai.AiAdmissionControl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OllamaEventListenerTest {
+
+    @Mock
+    private OllamaRepository ollamaRepository;
+
+    @Mock
+    private OllamaService ollamaService;
+
+    @Mock
+    private WhatsAppService whatsAppService;
+
+    @Mock
+    private WhatsAppNutritionService whatsAppNutritionService;
+
+    @Mock
+    private AiAdmissionControl admission;
+
+    @InjectMocks
+    private OllamaEventListener listener;
+
+    @Test
+    void emptyResponseShouldFailTheRequestInsteadOfLeavingItProcessing() {
+        Ollama entity = new Ollama();
+        entity.setId(UUID.randomUUID());
+        entity.setFrom("5511987654321");
+        entity.setModel("llama3");
+        entity.setPrompt("Oi");
+        when(ollamaService.sendPromptAsync(any())).thenReturn(Mono.empty());
+        when(admission.admit(any(), any(), any(), any())).thenAnswer(invocation -> invocation.getArgument(3));
+
+        listener.handleOllamaRequest(new OllamaRequestEvent(this, entity));
+
+        verify(ollamaRepository, timeout(5000).times(2)).save(entity);
+        assertThat(entity.getStatus()).isEqualTo(OllamaStatus.ERROR);
+        assertThat(entity.getErrorMessage()).isEqualTo("Ollama returned no response");
+        assertThat(entity.getFinishedAt()).isNotNull();
+    }
+}
@@ -0,0 +1,31 @@
+package com.jm.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:claims;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop" })
+class WhatsAppMessageClaimRepositoryTest {
+
+    @Autowired
+    private WhatsAppMessageClaimRepository claimRepository;
+
+    @Test
+    void claimsOnlyIdsNotTakenYet() {
+        assertThat(claimRepository.claimAll(List.of("a", "b"), "first")).isEqualTo(2);
+        assertThat(claimRepository.claimAll(List.of("b", "c"), "second")).isEqualTo(1);
+        assertThat(claimRepository.findClaimedBy(List.of("b", "c"), "second")).containsExactly("c");
+    }
+}
@@ -0,0 +1,70 @@
+package com.jm.repository;
+
+import com.jm.entity.WhatsAppWebhookEvent;
+import com.jm.enums.WhatsAppWebhookStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:webhooks;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop" })
+class WhatsAppWebhookEventRepositoryTest {
+
+    private static final Set<WhatsAppWebhookStatus> IDLE = EnumSet.of(WhatsAppWebhookStatus.RECEIVED,
+            WhatsAppWebhookStatus.FAILED);
+    private static final Set<WhatsAppWebhookStatus> RECOVERABLE = EnumSet.allOf(WhatsAppWebhookStatus.class);
+
+    @Autowired
+    private WhatsAppWebhookEventRepository repository;
+
+    @Test
+    void recoversProcessingWebhooksOnlyOnceTheirClaimIsStale() {
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime threshold = now.minusMinutes(2);
+        UUID slow = save(now.minusMinutes(10), now.minusSeconds(30));
+        UUID abandoned = save(now.minusMinutes(10), now.minusMinutes(5));
+
+        assertThat(repository.findRecoverableIds(IDLE, WhatsAppWebhookStatus.PROCESSING, threshold, 3,
+                PageRequest.of(0, 10))).containsExactly(abandoned);
+        assertThat(repository.claim(slow, RECOVERABLE, WhatsAppWebhookStatus.PROCESSING, now, threshold)).isZero();
+        assertThat(repository.claim(abandoned, RECOVERABLE, WhatsAppWebhookStatus.PROCESSING, now, threshold))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void onlyTheLatestAttemptSettlesTheWebhook() {
+        OffsetDateTime now = OffsetDateTime.now();
+        UUID eventId = save(now.minusMinutes(10), now.minusMinutes(5));
+        repository.claim(eventId, RECOVERABLE, WhatsAppWebhookStatus.PROCESSING, now, now.minusMinutes(2));
+
+        assertThat(repository.complete(eventId, 1, WhatsAppWebhookStatus.PROCESSED, null, now)).isZero();
+        assertThat(repository.yieldClaim(eventId, 2)).isEqualTo(1);
+        assertThat(repository.complete(eventId, 1, WhatsAppWebhookStatus.PROCESSED, null, now)).isEqualTo(1);
+    }
+
+    private UUID save(OffsetDateTime receivedAt, OffsetDateTime claimedAt) {
+        return repository.saveAndFlush(WhatsAppWebhookEvent.builder()
+                .payload(Map.of("entry", "[]"))
+                .status(WhatsAppWebhookStatus.PROCESSING)
+                .attempts(1)
+                .receivedAt(receivedAt)
+                .claimedAt(claimedAt)
+                .build()).getId();
+    }
+}
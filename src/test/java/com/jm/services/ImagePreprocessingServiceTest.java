@@ -0,0 +1,29 @@
+package com.jm.services;
+
+import com.jm.configuration.config.ImagePreprocessingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImagePreprocessingServiceTest {
+
+    @Test
+    void timedOutWorkShouldBeCancelledSoItReleasesThePool() {
+        ImagePreprocessingProperties properties = new ImagePreprocessingProperties();
+        properties.setTimeout(Duration.ofMillis(50));
+        List<Runnable> queued = new ArrayList<>();
+        ImagePreprocessingService service = new ImagePreprocessingService(properties, queued::add,
+                new SimpleMeterRegistry());
+
+        assertThat(service.analysisVariant(new byte[] { 1, 2, 3 }, ImagePreprocessingService.JPEG)).isEmpty();
+
+        assertThat(queued).singleElement()
+                .isInstanceOfSatisfying(Future.class, task -> assertThat(task.isCancelled()).isTrue());
+    }
+}
@@ -0,0 +1,96 @@
+package com.jm.services;
+
+import com.jm.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserPhoneDirectoryTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserPhoneDirectory phoneDirectory;
+
+    @BeforeEach
+    void setUp() {
+        phoneDirectory = new UserPhoneDirectory(userRepository, "55", 100, 30);
+    }
+
+    @Test
+    void toE164ShouldReturnNullWithoutDigits() {
+        assertThat(phoneDirectory.toE164(null)).isNull();
+        assertThat(phoneDirectory.toE164("   ")).isNull();
+        assertThat(phoneDirectory.toE164("+ ( ) -")).isNull();
+    }
+
+    @Test
+    void toE164ShouldKeepExplicitInternationalPrefix() {
+        assertThat(phoneDirectory.toE164(" +55 (11) 98765-4321 ")).isEqualTo("+5511987654321");
+        assertThat(phoneDirectory.toE164("+1 415 555 0100")).isEqualTo("+14155550100");
+    }
+
+    @Test
+    void toE164ShouldTreatDoubleZeroAsInternationalPrefix() {
+        assertThat(phoneDirectory.toE164("00 351 912 345 678")).isEqualTo("+351912345678");
+    }
+
+    @Test
+    void toE164ShouldPrefixNationalNumbersWithDefaultCountry() {
+        assertThat(phoneDirectory.toE164("(11) 98765-4321")).isEqualTo("+5511987654321");
+    }
+
+    @Test
+    void toE164ShouldStripTrunkZerosBeforeTreatingNumberAsNational() {
+        assertThat(phoneDirectory.toE164("011987654321")).isEqualTo("+5511987654321");
+        assertThat(phoneDirectory.toE164("011 98765-4321")).isEqualTo("+5511987654321");
+    }
+
+    @Test
+    void toE164ShouldKeepLongNumbersWithoutPlusAsInternational() {
+        assertThat(phoneDirectory.toE164("5511987654321")).isEqualTo("+5511987654321");
+    }
+
+    @Test
+    void senderPhonesShouldCoverE164AndItsDigitsWhateverFormIsStored() {
+        assertThat(phoneDirectory.senderPhones("(11) 98765-4321"))
+                .containsExactlyInAnyOrder("+5511987654321", "5511987654321");
+        assertThat(phoneDirectory.senderPhones("+55 11 98765-4321"))
+                .containsExactlyInAnyOrder("+5511987654321", "5511987654321");
+        assertThat(phoneDirectory.senderPhones(" ")).isEmpty();
+    }
+
+    @Test
+    void findUserIdShouldCacheMissesPerCanonicalNumber() {
+        when(userRepository.findIdByPhoneE164("+5511987654321")).thenReturn(Optional.empty());
+
+        assertThat(phoneDirectory.findUserId("(11) 98765-4321")).isEmpty();
+        assertThat(phoneDirectory.findUserId("+55 11 98765-4321")).isEmpty();
+
+        verify(userRepository, times(1)).findIdByPhoneE164("+5511987654321");
+    }
+
+    @Test
+    void evictShouldForceLookupAgain() {
+        UUID userId = UUID.randomUUID();
+        when(userRepository.findIdByPhoneE164("+5511987654321"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(userId));
+
+        assertThat(phoneDirectory.findUserId("11987654321")).isEmpty();
+        phoneDirectory.evict("+5511987654321");
+
+        assertThat(phoneDirectory.findUserId("11987654321")).contains(userId);
+    }
+}
@@ -0,0 +1,78 @@
+package com.jm.services;
+
+import com.jm.entity.Role;
+import com.jm.entity.Users;
+import com.jm.execption.JMException;
+import com.jm.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    private static final String PHONE = "(11) 98765-4321";
+    private static final String PHONE_E164 = "+5511987654321";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MessageSource messageSource;
+
+    private UserService userService;
+    private final UUID otherOwnerId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        UserPhoneDirectory phoneDirectory = new UserPhoneDirectory(userRepository, "55", 100, 30);
+        userService = new UserService(userRepository, null, messageSource, null, null, null, null, null, null, null,
+                null, phoneDirectory);
+        when(userRepository.findIdByPhoneE164(PHONE_E164)).thenReturn(Optional.of(otherOwnerId));
+    }
+
+    @Test
+    void createUserShouldKeepSavingAnAccountLeftUnindexedAsDuplicate() {
+        Users user = existingUser(PHONE);
+        when(userRepository.save(user)).thenReturn(user);
+
+        userService.createUser(user);
+
+        verify(userRepository).save(user);
+        assertThat(user.getPhoneE164()).isNull();
+    }
+
+    @Test
+    void createUserShouldRejectChangingToANumberOfAnotherAccount() {
+        Users user = existingUser("(21) 91234-5678");
+        user.setPhoneE164("+5521912345678");
+        user.setPhoneNumber(PHONE);
+
+        assertThatThrownBy(() -> userService.createUser(user)).isInstanceOf(JMException.class);
+        verify(userRepository, never()).save(any());
+    }
+
+    private Users existingUser(String loadedPhone) {
+        Users user = Users.builder()
+                .id(UUID.randomUUID())
+                .phoneNumber(loadedPhone)
+                .roles(Set.of(new Role()))
+                .build();
+        user.setLoadedPhoneNumber(loadedPhone);
+        return user;
+    }
+}
@@ -0,0 +1,135 @@
+package com.jm.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jm.entity.Meal;
+import com.jm.entity.NutritionAnalysis;
+import com.jm.entity.Users;
+import com.jm.entity.WhatsAppMessage;
+import com.jm.repository.MealRepository;
+import com.jm.repository.WhatsAppMessageRepository;
+import com.jm.services.WhatsAppNutritionService.InboundMessage;
+import com.jm.services.ai.AiClient;
+import com.jm.services.ai.AiClientFactory;
+import com.jm.services.ai.AiResponse;
+import com.jm.services.analytics.NutritionRollupService;
+import com.jm.services.analytics.TodayNutritionStateCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WhatsAppNutritionCommandTest {
+
+    private static final String FROM = "5511987654321";
+    private static final OffsetDateTime LUNCH_TIME = OffsetDateTime.of(2025, 10, 18, 12, 30, 0, 0, ZoneOffset.UTC);
+
+    @Mock
+    private WhatsAppService whatsAppService;
+
+    @Mock
+    private WhatsAppMessageRepository messageRepository;
+
+    @Mock
+    private MealRepository mealRepository;
+
+    @Mock
+    private AiClientFactory aiClientFactory;
+
+    @Mock
+    private AiClient aiClient;
+
+    @Mock
+    private NutritionRollupService nutritionRollupService;
+
+    @Mock
+    private TodayNutritionStateCache todayNutritionState;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private WhatsAppNutritionService service;
+
+    private final Users owner = Users.builder().id(UUID.randomUUID()).build();
+    private final Meal lunch = new Meal();
+
+    @BeforeEach
+    void setUp() {
+        lunch.setCode("LUNCH");
+        when(mealRepository.findByCodeIgnoreCase("LUNCH")).thenReturn(Optional.of(lunch));
+        when(aiClientFactory.createClient(any())).thenReturn(aiClient);
+    }
+
+    @Test
+    void deleteCommandShouldRefreshTheDayOfTheRemovedEntry() {
+        WhatsAppMessage entry = givenLunchEntry("Arroz");
+        WhatsAppMessage command = givenCommand("""
+                {"action": "DELETE", "meal": "LUNCH", "items": [{"food": "Arroz"}]}
+                """);
+
+        service.processTextMessage(new InboundMessage(command.getId(), "text", FROM, null));
+
+        InOrder order = inOrder(nutritionRollupService, messageRepository);
+        order.verify(nutritionRollupService).analysisChanged(owner.getId(), LUNCH_TIME);
+        order.verify(messageRepository).delete(entry);
+        verify(todayNutritionState).analysisChanged(owner.getId());
+    }
+
+    @Test
+    void editCommandShouldRefreshTheDayOfEveryReplacedEntry() {
+        WhatsAppMessage entry = givenLunchEntry("Arroz");
+        WhatsAppMessage command = givenCommand("""
+                {"action": "EDIT", "meal": "LUNCH", "items": []}
+                """);
+
+        service.processTextMessage(new InboundMessage(command.getId(), "text", FROM, null));
+
+        verify(nutritionRollupService).analysisChanged(owner.getId(), LUNCH_TIME);
+        verify(todayNutritionState).analysisChanged(owner.getId());
+        verify(messageRepository).delete(entry);
+    }
+
+    private WhatsAppMessage givenLunchEntry(String foodName) {
+        NutritionAnalysis analysis = new NutritionAnalysis();
+        analysis.setOwner(owner);
+        analysis.setMeal(lunch);
+        analysis.setFoodName(foodName);
+        analysis.setCreatedAt(LUNCH_TIME);
+        WhatsAppMessage entry = WhatsAppMessage.builder()
+                .id(UUID.randomUUID())
+                .owner(owner)
+                .nutritionAnalysis(analysis)
+                .build();
+        when(messageRepository.findByOwnerIdAndNutritionAnalysisMealCodeIgnoreCase(owner.getId(), "LUNCH"))
+                .thenReturn(List.of(entry));
+        return entry;
+    }
+
+    private WhatsAppMessage givenCommand(String payload) {
+        WhatsAppMessage command = WhatsAppMessage.builder()
+                .id(UUID.randomUUID())
+                .owner(owner)
+                .fromPhone(FROM)
+                .textContent("remove the rice from lunch")
+                .build();
+        when(messageRepository.findById(command.getId())).thenReturn(Optional.of(command));
+        when(aiClient.execute(any())).thenReturn(AiResponse.withContent(payload));
+        return command;
+    }
+}
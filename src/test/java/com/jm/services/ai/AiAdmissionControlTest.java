@@ -0,0 +1,63 @@
+package com.jm.services.ai;
+
+import com.jm.configuration.config.AiAdmissionProperties;
+import com.jm.enums.AiProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiAdmissionControlTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AiAdmissionControl admission;
+
+    @BeforeEach
+    void setUp() {
+        AiAdmissionProperties properties = new AiAdmissionProperties();
+        properties.getGemini().setInitialLimit(1);
+        properties.getGemini().setQueueSize(0);
+        admission = new AiAdmissionControl(properties, meterRegistry);
+    }
+
+    @Test
+    void imageAndTextCallsShouldHaveTheirOwnLimit() {
+        Disposable image = admission.admit(AiProvider.GEMINI, "flash", AiRequestType.IMAGE, Mono.never())
+                .subscribe();
+
+        StepVerifier.create(admission.admit(AiProvider.GEMINI, "flash", AiRequestType.TEXT, Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+        StepVerifier.create(admission.admit(AiProvider.GEMINI, "flash", AiRequestType.IMAGE, Mono.just("ok")))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOfSatisfying(AiCallRejectedException.class, rejected -> assertThat(
+                                rejected.getReason()).isEqualTo(AiCallRejectedException.Reason.QUEUE_FULL)))
+                .verify();
+        image.dispose();
+    }
+
+    @Test
+    void cancellingAnAdmittedCallShouldFreeItsSlot() {
+        Disposable call = admission.admit(AiProvider.GEMINI, "flash", AiRequestType.TEXT, Mono.never())
+                .subscribe();
+        assertThat(inFlight("text")).isEqualTo(1);
+
+        call.dispose();
+
+        assertThat(inFlight("text")).isZero();
+        StepVerifier.create(admission.admit(AiProvider.GEMINI, "flash", AiRequestType.TEXT, Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+    }
+
+    private double inFlight(String type) {
+        return meterRegistry.get("ai.calls.in_flight")
+                .tags("provider", "gemini", "model", "flash", "type", type)
+                .gauge()
+                .value();
+    }
+}
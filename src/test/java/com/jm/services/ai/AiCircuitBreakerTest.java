@@ -0,0 +1,134 @@
+package com.jm.services.ai;
+
+import com.jm.configuration.config.AiAdmissionProperties;
+import com.jm.services.ai.AiCircuitBreaker.State;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiCircuitBreakerTest {
+
+    private static final long OPEN_NANOS = Duration.ofSeconds(30).toNanos();
+
+    private AiCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        AiAdmissionProperties.Breaker settings = new AiAdmissionProperties.Breaker();
+        settings.setWindowSize(4);
+        settings.setMinimumCalls(4);
+        settings.setFailureRateThreshold(50);
+        settings.setOpenDuration(Duration.ofSeconds(30));
+        settings.setHalfOpenCalls(2);
+        breaker = new AiCircuitBreaker(settings);
+    }
+
+    @Test
+    void shouldStayClosedBeforeMinimumCalls() {
+        call(false, 0);
+        call(false, 0);
+        call(false, 0);
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquire(0)).isTrue();
+    }
+
+    @Test
+    void shouldOpenWhenFailureRateReachesThreshold() {
+        call(true, 0);
+        call(true, 0);
+        call(true, 0);
+        call(false, 0);
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+
+        call(false, 0);
+        call(true, 0);
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire(OPEN_NANOS - 1)).isFalse();
+    }
+
+    @Test
+    void shouldOnlyCountOutcomesInsideTheWindow() {
+        call(true, 0);
+        call(false, 0);
+        call(false, 0);
+        call(false, 0);
+        call(false, 0);
+        call(true, 0);
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void shouldLetTrialCallsThroughAfterOpenDurationAndCloseWhenTheySucceed() {
+        open();
+
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isTrue();
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isTrue();
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isFalse();
+
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void shouldReopenWhenATrialCallFails() {
+        open();
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isTrue();
+
+        breaker.onFailure(OPEN_NANOS + 1);
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire(OPEN_NANOS * 2)).isFalse();
+        assertThat(breaker.tryAcquire(OPEN_NANOS * 2 + 1)).isTrue();
+    }
+
+    @Test
+    void ignoredTrialShouldFreeItsSlot() {
+        open();
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isTrue();
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isTrue();
+
+        breaker.onIgnored();
+
+        assertThat(breaker.tryAcquire(OPEN_NANOS)).isTrue();
+    }
+
+    @Test
+    void closingShouldForgetEarlierFailures() {
+        open();
+        breaker.tryAcquire(OPEN_NANOS);
+        breaker.tryAcquire(OPEN_NANOS);
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        call(true, OPEN_NANOS);
+        call(true, OPEN_NANOS);
+        call(false, OPEN_NANOS);
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(true, 0);
+        }
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+    }
+
+    private void call(boolean failure, long now) {
+        assertThat(breaker.tryAcquire(now)).isTrue();
+        if (failure) {
+            breaker.onFailure(now);
+        } else {
+            breaker.onSuccess();
+        }
+    }
+}
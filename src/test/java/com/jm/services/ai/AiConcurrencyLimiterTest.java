@@ -0,0 +1,185 @@
+package com.jm.services.ai;
+
+import com.jm.configuration.config.AiAdmissionProperties;
+import com.jm.services.ai.AiConcurrencyLimiter.Outcome;
+import com.jm.services.ai.AiConcurrencyLimiter.Permit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AiConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicInteger abandoned = new AtomicInteger();
+    private AiAdmissionProperties.Provider settings;
+
+    @BeforeEach
+    void setUp() {
+        settings = new AiAdmissionProperties.Provider();
+        settings.setInitialLimit(2);
+        settings.setMinLimit(1);
+        settings.setMaxLimit(10);
+        settings.setQueueSize(1);
+        settings.setQueueTimeout(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void fastCallsUsingTheLimitShouldGrowIt() {
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(settings);
+        Permit first = acquire(limiter);
+        Permit second = acquire(limiter);
+
+        limiter.release(first, Outcome.SUCCESS, first.startedAt() + FAST);
+        limiter.release(second, Outcome.SUCCESS, second.startedAt() + FAST);
+
+        assertThat(limiter.limit()).isCloseTo(2 + 1 / 2.0 + 1 / 2.5, within(1e-9));
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void fastCallsFarBelowTheLimitShouldNotGrowIt() {
+        settings.setInitialLimit(8);
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(settings);
+        Permit alone = acquire(limiter);
+
+        limiter.release(alone, Outcome.SUCCESS, alone.startedAt() + FAST);
+
+        assertThat(limiter.limit()).isEqualTo(8);
+    }
+
+    @Test
+    void callSlowerThanToleratedShouldShrinkTheLimit() {
+        settings.setInitialLimit(8);
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(settings);
+        Permit fast = acquire(limiter);
+        limiter.release(fast, Outcome.SUCCESS, fast.startedAt() + FAST);
+
+        Permit slow = acquire(limiter);
+        limiter.release(slow, Outcome.SUCCESS, slow.startedAt() + FAST * 5);
+
+        assertThat(limiter.limit()).isEqualTo(8 * 0.9);
+    }
+
+    @Test
+    void overloadsFromTheSameRoundTripShouldShrinkTheLimitOnce() {
+        settings.setInitialLimit(8);
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(settings);
+        Permit first = acquire(limiter);
+        Permit second = acquire(limiter);
+
+        limiter.release(first, Outcome.OVERLOAD, System.nanoTime());
+        limiter.release(second, Outcome.OVERLOAD, System.nanoTime());
+        assertThat(limiter.limit()).isEqualTo(8 * 0.9);
+
+        Permit later = acquire(limiter);
+        limiter.release(later, Outcome.OVERLOAD, System.nanoTime());
+        assertThat(limiter.limit()).isEqualTo(8 * 0.9 * 0.9);
+    }
+
+    @Test
+    void limitShouldNotShrinkBelowMinimum() {
+        settings.setInitialLimit(1);
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(settings);
+
+        Permit permit = acquire(limiter);
+        limiter.release(permit, Outcome.OVERLOAD, System.nanoTime());
+
+        assertThat(limiter.limit()).isEqualTo(1);
+    }
+
+    @Test
+    void queuedCallShouldGetTheSlotReleasedBeforeIt() {
+        settings.setInitialLimit(1);
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(settings);
+        Permit held = acquire(limiter);
+
+        StepVerifier.create(limiter.acquire(QueueFull::new, QueueTimeout::new, abandoned::incrementAndGet))
+                .then(() -> {
+                    assertThat(limiter.queued()).isEqualTo(1);
+                    limiter.release(held, Outcome.IGNORED, System.nanoTime());
+                })
+                .assertNext(permit -> assertThat(permit.inFlight()).isEqualTo(1))
+                .verifyComplete();
+        assertThat(limiter.queued()).isZero();
+    }
+
+    @Test
+    void callBeyondTheQueueShouldBeRejectedAtOnce() {
+        settings.setInitialLimit(1);
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(settings);
+        acquire(limiter);
+        Disposable queued = limiter.acquire(QueueFull::new, QueueTimeout::new, abandoned::incrementAndGet)
+                .subscribe();
+
+        StepVerifier.create(limiter.acquire(QueueFull::new, QueueTimeout::new, abandoned::incrementAndGet))
+                .verifyError(QueueFull.class);
+        queued.dispose();
+    }
+
+    @Test
+    void queuedCallShouldTimeOut() {
+        settings.setInitialLimit(1);
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(settings);
+        acquire(limiter);
+
+        StepVerifier.withVirtualTime(() -> limiter.acquire(QueueFull::new, QueueTimeout::new,
+                        abandoned::incrementAndGet))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(4))
+                .thenAwait(Duration.ofSeconds(1))
+                .verifyError(QueueTimeout.class);
+        assertThat(limiter.queued()).isZero();
+        assertThat(abandoned).hasValue(0);
+    }
+
+    @Test
+    void cancellingWhileQueuedShouldLeaveTheQueue() {
+        settings.setInitialLimit(1);
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(settings);
+        acquire(limiter);
+
+        Disposable queued = limiter.acquire(QueueFull::new, QueueTimeout::new, abandoned::incrementAndGet)
+                .subscribe();
+        queued.dispose();
+
+        assertThat(limiter.queued()).isZero();
+        assertThat(abandoned).hasValue(1);
+    }
+
+    @Test
+    void slotGrantedAfterCancelShouldGoStraightBack() {
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(settings);
+
+        limiter.acquire(QueueFull::new, QueueTimeout::new, abandoned::incrementAndGet)
+                .subscribe(new BaseSubscriber<>() {
+                    @Override
+                    protected void hookOnSubscribe(Subscription subscription) {
+                        cancel();
+                    }
+                });
+
+        assertThat(limiter.inFlight()).isZero();
+        assertThat(abandoned).hasValue(1);
+    }
+
+    private Permit acquire(AiConcurrencyLimiter limiter) {
+        return limiter.acquire(QueueFull::new, QueueTimeout::new, abandoned::incrementAndGet).block();
+    }
+
+    private static final class QueueFull extends RuntimeException {
+    }
+
+    private static final class QueueTimeout extends RuntimeException {
+    }
+}
@@ -0,0 +1,84 @@
+package com.jm.services.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+class NutritionAggregationTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 10, 1);
+
+    /** Four days in two buckets of two days each. */
+    private static NutritionAggregation twoBuckets() {
+        return new NutritionAggregation(START, new int[] { 0, 0, 1, 1 }, 2);
+    }
+
+    @Test
+    void addShouldSumIntoTheBucketOfTheDay() {
+        NutritionAggregation aggregation = twoBuckets();
+
+        assertThat(aggregation.add(START.toEpochDay(), 1, 100, 10, 20, 5, 2, 250)).isTrue();
+        assertThat(aggregation.add(START.plusDays(1).toEpochDay(), 1, 50, 5, 10, 1, 1, 0)).isTrue();
+        assertThat(aggregation.add(START.plusDays(3).toEpochDay(), 2, 300, 0, 0, 0, 0, 500)).isTrue();
+
+        assertThat(aggregation.entries(0)).isEqualTo(2);
+        assertThat(aggregation.calories(0)).isEqualTo(150);
+        assertThat(aggregation.entries(1)).isEqualTo(2);
+        assertThat(aggregation.water(1)).isEqualTo(500);
+        assertThat(aggregation.totalWater()).isEqualTo(750);
+    }
+
+    @Test
+    void addShouldIgnoreDaysOutsideTheRange() {
+        NutritionAggregation aggregation = twoBuckets();
+
+        assertThat(aggregation.add(START.minusDays(1).toEpochDay(), 1, 100, 0, 0, 0, 0, 0)).isFalse();
+        assertThat(aggregation.add(START.plusDays(4).toEpochDay(), 1, 100, 0, 0, 0, 0, 0)).isFalse();
+
+        assertThat(aggregation.totalCalories()).isZero();
+    }
+
+    @Test
+    void mergeShouldAddEveryBucketAndFoodOfPartials() {
+        NutritionAggregation total = twoBuckets();
+        NutritionAggregation first = total.emptyCopy();
+        NutritionAggregation second = total.emptyCopy();
+        first.add(START.toEpochDay(), 1, 100.1, 10, 20, 5, 2, 250);
+        first.addFood("Arroz", "g", 150);
+        second.add(START.toEpochDay(), 1, 200.2, 1, 2, 3, 4, 0);
+        second.add(START.plusDays(2).toEpochDay(), 3, 30, 3, 3, 3, 3, 3);
+        second.addFood("arroz", "g", 50);
+        second.addFood("Suco", "ml", 200);
+
+        assertThat(total.merge(first).merge(second)).isSameAs(total);
+
+        assertThat(total.entries(0)).isEqualTo(2);
+        assertThat(total.calories(0)).isCloseTo(300.3, within(1e-9));
+        assertThat(total.protein(0)).isEqualTo(11);
+        assertThat(total.fiber(0)).isEqualTo(6);
+        assertThat(total.entries(1)).isEqualTo(3);
+        assertThat(total.fat(1)).isEqualTo(3);
+        assertThat(total.foods())
+                .extracting(NutritionAggregation.FoodTotal::name, NutritionAggregation.FoodTotal::unit,
+                        NutritionAggregation.FoodTotal::quantity)
+                .containsExactlyInAnyOrder(
+                        tuple("Arroz", "g", 200.0),
+                        tuple("Suco", "ml", 200.0));
+    }
+
+    @Test
+    void mergeShouldLeaveThePartialUntouched() {
+        NutritionAggregation total = twoBuckets();
+        NutritionAggregation partial = total.emptyCopy();
+        partial.add(START.toEpochDay(), 1, 100, 0, 0, 0, 0, 0);
+
+        total.merge(partial).merge(partial);
+
+        assertThat(total.calories(0)).isEqualTo(200);
+        assertThat(partial.calories(0)).isEqualTo(100);
+    }
+}
@@ -0,0 +1,156 @@
+package com.jm.services.analytics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jm.entity.NutritionAnalysis;
+import com.jm.entity.NutritionDailyRollup;
+import com.jm.entity.Users;
+import com.jm.entity.WhatsAppMessage;
+import com.jm.repository.NutritionAnalysisRepository;
+import com.jm.repository.NutritionDailyRollupRepository;
+import com.jm.repository.UserRepository;
+import com.jm.repository.WhatsAppMessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/** Runs against H2 in MariaDB mode with real commits, since the refresh only happens after one. */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rollup;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "analytics.rollup.backfill-on-startup=false" })
+@Import({ NutritionRollupService.class, NutritionEstimator.class, NutritionRollupServiceTest.Beans.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NutritionRollupServiceTest {
+
+    @Autowired
+    private NutritionRollupService rollupService;
+
+    @Autowired
+    private NutritionDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private NutritionAnalysisRepository analysisRepository;
+
+    @Autowired
+    private WhatsAppMessageRepository messageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        rollupRepository.deleteAllInBatch();
+        analysisRepository.deleteAllInBatch();
+        messageRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void analysisChangedShouldRefreshRollupAfterCommit() {
+        Users owner = userRepository.save(Users.builder().name("Ana").build());
+        OffsetDateTime createdAt = OffsetDateTime.now();
+
+        saveAnalysis(owner, createdAt, "250");
+        List<NutritionDailyRollup> first = rollupRepository.findAll();
+        assertThat(first).hasSize(1);
+        assertThat(first.get(0).getEntries()).isEqualTo(1);
+        assertThat(first.get(0).getCalories()).isEqualByComparingTo("250");
+
+        saveAnalysis(owner, createdAt, "100");
+        List<NutritionDailyRollup> second = rollupRepository.findAll();
+        assertThat(second).hasSize(1);
+        assertThat(second.get(0).getEntries()).isEqualTo(2);
+        assertThat(second.get(0).getCalories()).isEqualByComparingTo("350");
+    }
+
+    @Test
+    void analysisChangedShouldNotRefreshWhenTransactionRollsBack() {
+        Users owner = userRepository.save(Users.builder().name("Ana").build());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            rollupService.analysisChanged(owner.getId(), OffsetDateTime.now());
+            status.setRollbackOnly();
+        });
+
+        assertThat(rollupRepository.count()).isZero();
+    }
+
+    @Test
+    void backfillShouldBuildOnlyOwnersWithoutRollupRows() {
+        Users rolledUp = userRepository.save(Users.builder().name("Ana").build());
+        Users missing = userRepository.save(Users.builder().name("Bia").build());
+        OffsetDateTime createdAt = OffsetDateTime.now();
+        saveAnalysis(rolledUp, createdAt, "250");
+        saveAnalysis(missing, createdAt, "100", false);
+
+        assertThat(rollupService.backfill()).isEqualTo(1);
+
+        assertThat(rollupRepository.findAll())
+                .extracting(rollup -> rollup.getOwner().getId(), rollup -> rollup.getCalories().intValue())
+                .containsExactlyInAnyOrder(tuple(rolledUp.getId(), 250), tuple(missing.getId(), 100));
+        assertThat(rollupService.backfill()).isZero();
+    }
+
+    private void saveAnalysis(Users owner, OffsetDateTime createdAt, String calories) {
+        saveAnalysis(owner, createdAt, calories, true);
+    }
+
+    private void saveAnalysis(Users owner, OffsetDateTime createdAt, String calories, boolean refresh) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            WhatsAppMessage message = messageRepository.save(WhatsAppMessage.builder()
+                    .owner(owner)
+                    .receivedAt(createdAt)
+                    .build());
+            NutritionAnalysis analysis = new NutritionAnalysis();
+            analysis.setMessage(message);
+            analysis.setOwner(owner);
+            analysis.setFoodName("arroz");
+            analysis.setCalories(new BigDecimal(calories));
+            analysis.setCreatedAt(createdAt);
+            analysisRepository.save(analysis);
+            if (refresh) {
+                rollupService.analysisChanged(owner.getId(), createdAt);
+            }
+        });
+    }
+
+    @TestConfiguration
+    static class Beans {
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.jm.services.analytics;
+
+import com.jm.configuration.config.TodayNutritionStateProperties;
+import com.jm.entity.UserConfiguration;
+import com.jm.entity.Users;
+import com.jm.repository.NutritionAnalysisRepository;
+import com.jm.repository.UserConfigurationRepository;
+import com.jm.repository.UserRepository;
+import com.jm.services.UserPhoneDirectory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TodayNutritionStateCacheTest {
+
+    private static final TodayNutritionTargets TARGETS = new TodayNutritionTargets(Map.of(), BigDecimal.ONE,
+            BigDecimal.ZERO);
+
+    @Mock
+    private NutritionAnalysisRepository analysisRepository;
+
+    @Mock
+    private UserConfigurationRepository userConfigurationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private NutritionEstimator estimator;
+
+    private TodayNutritionStateCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TodayNutritionStateCache(analysisRepository, userConfigurationRepository, userRepository,
+                new UserPhoneDirectory(userRepository, "55", 100, 30), estimator, new TodayNutritionStateProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void getShouldLoadOnceAndServeHitsFromMemory() {
+        UUID userId = UUID.randomUUID();
+        when(analysisRepository.findAnalyticsRowsByOwners(anyCollection(), any(), any())).thenReturn(List.of());
+
+        TodayNutritionState first = cache.get(userId);
+
+        assertThat(cache.get(userId)).isSameAs(first);
+        verify(analysisRepository, times(1)).findAnalyticsRowsByOwners(anyCollection(), any(), any());
+    }
+
+    @Test
+    void getShouldNotKeepStateWhoseLoadOverlappedAChange() {
+        UUID userId = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        when(analysisRepository.findAnalyticsRowsByOwners(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            if (loads.incrementAndGet() == 1) {
+                /* The analysis commits while the first load is still reading. */
+                cache.analysisChanged(userId);
+            }
+            return List.of();
+        });
+
+        TodayNutritionState stale = cache.get(userId);
+        TodayNutritionState fresh = cache.get(userId);
+
+        assertThat(fresh).isNotSameAs(stale);
+        assertThat(cache.get(userId)).isSameAs(fresh);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void analysisChangedShouldRecomputeCachedState() {
+        UUID userId = UUID.randomUUID();
+        when(analysisRepository.findAnalyticsRowsByOwners(anyCollection(), any(), any())).thenReturn(List.of());
+        TodayNutritionState state = cache.get(userId);
+        NutritionDayTotals before = state.consumed();
+
+        cache.analysisChanged(userId);
+
+        assertThat(cache.get(userId)).isSameAs(state);
+        assertThat(state.consumed()).isNotSameAs(before);
+    }
+
+    @Test
+    void goalsChangedShouldOnlyClearTargetsOfThatUser() {
+        UUID changed = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        when(analysisRepository.findAnalyticsRowsByOwners(anyCollection(), any(), any())).thenReturn(List.of());
+        AtomicInteger targetLoads = new AtomicInteger();
+        cache.get(changed).targets(() -> count(targetLoads));
+        cache.get(other).targets(() -> count(targetLoads));
+
+        cache.goalsChanged(changed);
+        cache.get(changed).targets(() -> count(targetLoads));
+        cache.get(other).targets(() -> count(targetLoads));
+
+        assertThat(targetLoads).hasValue(3);
+    }
+
+    @Test
+    void getShouldAlsoCountUnlinkedAnalysesFromTheUsersPhoneInTheirZone() {
+        UUID userId = UUID.randomUUID();
+        ZoneId zoneId = ZoneId.of("America/Sao_Paulo");
+        UserConfiguration configuration = new UserConfiguration();
+        configuration.setTimezone(zoneId.getId());
+        when(userConfigurationRepository.findByUserId(userId)).thenReturn(Optional.of(configuration));
+        when(userRepository.findById(userId))
+                .thenReturn(Optional.of(Users.builder().id(userId).phoneNumber("(11) 98765-4321").build()));
+        when(analysisRepository.findAnalyticsRowsByOwners(anyCollection(), any(), any())).thenReturn(List.of());
+        when(analysisRepository.findUnownedAnalyticsRowsByPhones(anyCollection(), any(), any()))
+                .thenReturn(List.of());
+
+        TodayNutritionState state = cache.get(userId);
+
+        LocalDate today = LocalDate.now(zoneId);
+        assertThat(state.day()).isEqualTo(today);
+        verify(analysisRepository).findUnownedAnalyticsRowsByPhones(
+                eq(Set.of("+5511987654321", "5511987654321")),
+                eq(today.atStartOfDay(zoneId).toOffsetDateTime()),
+                eq(today.plusDays(1).atStartOfDay(zoneId).toOffsetDateTime()));
+    }
+
+    private static TodayNutritionTargets count(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return TARGETS;
+    }
+}
@@ -0,0 +1,185 @@
+package com.jm.services.whatsapp;
+
+import com.jm.configuration.config.NutritionAnalysisRoutingProperties;
+import com.jm.enums.AiProvider;
+import com.jm.services.whatsapp.NutritionAnalysisRouter.LatencyWindow;
+import com.jm.services.whatsapp.NutritionAnalysisRouter.Route;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NutritionAnalysisRouterTest {
+
+    private static final Route GEMINI = new Route(AiProvider.GEMINI, "gemini-2.5-flash");
+    private static final Route LLAVA = new Route(AiProvider.OLLAMA, "llava:latest");
+    private static final Route GEMMA = new Route(AiProvider.OLLAMA, "gemma3");
+
+    private final List<Route> called = new CopyOnWriteArrayList<>();
+    private NutritionAnalysisRoutingProperties properties;
+    private NutritionAnalysisRouter router;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NutritionAnalysisRoutingProperties();
+        router = new NutritionAnalysisRouter(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldFallBackInOrderUntilAModelAnswers() {
+        StepVerifier.create(router.route(List.of(GEMINI, LLAVA, GEMMA), route -> {
+                    called.add(route);
+                    if (route == GEMINI) {
+                        return Mono.error(new IllegalStateException("gemini down"));
+                    }
+                    return route == LLAVA ? Mono.empty() : Mono.just("gemma answer");
+                }))
+                .assertNext(routed -> {
+                    assertThat(routed.route()).isEqualTo(GEMMA);
+                    assertThat(routed.value()).isEqualTo("gemma answer");
+                })
+                .verifyComplete();
+        assertThat(called).containsExactly(GEMINI, LLAVA, GEMMA);
+    }
+
+    @Test
+    void shouldStopAtTheFirstModelThatAnswers() {
+        StepVerifier.create(router.route(List.of(GEMINI, LLAVA), route -> {
+                    called.add(route);
+                    return Mono.just("answer");
+                }))
+                .assertNext(routed -> assertThat(routed.route()).isEqualTo(GEMINI))
+                .verifyComplete();
+        assertThat(called).containsExactly(GEMINI);
+    }
+
+    @Test
+    void shouldFailWithTheLastErrorWhenNoModelAnswers() {
+        IllegalStateException last = new IllegalStateException("llava down");
+
+        StepVerifier.create(router.route(List.of(GEMINI, LLAVA, GEMMA), route -> {
+                    if (route == GEMINI) {
+                        return Mono.error(new IllegalStateException("gemini down"));
+                    }
+                    return route == LLAVA ? Mono.error(last) : Mono.empty();
+                }))
+                .expectErrorSatisfies(error -> assertThat(error).isSameAs(last))
+                .verify();
+    }
+
+    @Test
+    void shouldCompleteEmptyWhenEveryModelAnswersNothing() {
+        StepVerifier.create(router.route(List.of(GEMINI, LLAVA), route -> Mono.<String>empty()))
+                .verifyComplete();
+        StepVerifier.create(router.route(List.<Route>of(), route -> Mono.just("unused")))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldMoveOnWhenAModelRunsPastTheAttemptTimeout() {
+        properties.setAttemptTimeout(Duration.ofSeconds(45));
+
+        StepVerifier.withVirtualTime(() -> router.route(List.of(GEMINI, LLAVA), route -> {
+                    called.add(route);
+                    return route == GEMINI ? Mono.never() : Mono.just("llava answer");
+                }))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(44))
+                .thenAwait(Duration.ofSeconds(1))
+                .assertNext(routed -> assertThat(routed.route()).isEqualTo(LLAVA))
+                .verifyComplete();
+        assertThat(called).containsExactly(GEMINI, LLAVA);
+    }
+
+    @Test
+    void shouldHedgeAfterMaxDelayWhileLatencyIsUnknownAndCancelTheSlowModel() {
+        properties.getHedging().setEnabled(true);
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        StepVerifier.withVirtualTime(() -> router.route(List.of(GEMINI, LLAVA), route -> {
+                    called.add(route);
+                    return route == GEMINI
+                            ? Mono.<String>never().doOnCancel(() -> cancelled.set(true))
+                            : Mono.just("llava answer");
+                }))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(19))
+                .then(() -> assertThat(called).containsExactly(GEMINI))
+                .thenAwait(Duration.ofSeconds(1))
+                .assertNext(routed -> assertThat(routed.route()).isEqualTo(LLAVA))
+                .verifyComplete();
+        assertThat(cancelled).isTrue();
+    }
+
+    @Test
+    void shouldHedgeNoEarlierThanMinDelayOnceLatencyIsKnown() {
+        properties.getHedging().setEnabled(true);
+        properties.getHedging().setMinSamples(1);
+        StepVerifier.create(router.route(List.of(GEMINI, LLAVA), route -> Mono.just("fast")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.withVirtualTime(() -> router.route(List.of(GEMINI, LLAVA), route -> {
+                    called.add(route);
+                    return route == GEMINI ? Mono.never() : Mono.just("llava answer");
+                }))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(1999))
+                .thenAwait(Duration.ofMillis(1))
+                .assertNext(routed -> assertThat(routed.route()).isEqualTo(LLAVA))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldNotWaitForTheHedgeWhenAModelGivesUp() {
+        properties.getHedging().setEnabled(true);
+
+        StepVerifier.withVirtualTime(() -> router.route(List.of(GEMINI, LLAVA), route -> route == GEMINI
+                        ? Mono.error(new IllegalStateException("gemini down"))
+                        : Mono.just("llava answer")))
+                .expectSubscription()
+                .assertNext(routed -> assertThat(routed.route()).isEqualTo(LLAVA))
+                .verifyComplete();
+    }
+
+    @Test
+    void latencyQuantileShouldBeUnknownBelowMinSamples() {
+        LatencyWindow window = new LatencyWindow(10);
+        window.record(5);
+
+        assertThat(window.quantile(0.95, 2)).isEqualTo(-1);
+        assertThat(new LatencyWindow(10).quantile(0.95, 0)).isEqualTo(-1);
+    }
+
+    @Test
+    void latencyQuantileShouldPickTheNearestRank() {
+        LatencyWindow window = new LatencyWindow(100);
+        for (long nanos = 100; nanos >= 1; nanos--) {
+            window.record(nanos);
+        }
+
+        assertThat(window.quantile(0.95, 1)).isEqualTo(95);
+        assertThat(window.quantile(0.5, 1)).isEqualTo(50);
+        assertThat(window.quantile(1.0, 1)).isEqualTo(100);
+        assertThat(window.quantile(0.0, 1)).isEqualTo(1);
+    }
+
+    @Test
+    void latencyWindowShouldOnlyKeepTheLatestSamples() {
+        LatencyWindow window = new LatencyWindow(3);
+        window.record(1_000);
+        window.record(1);
+        window.record(2);
+        window.record(3);
+
+        assertThat(window.quantile(1.0, 3)).isEqualTo(3);
+    }
+}
@@ -0,0 +1,71 @@
+package com.jm.services.whatsapp;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WhatsAppFeedCursorTest {
+
+    @Test
+    void decodeShouldReturnWhatEncodeWrote() {
+        WhatsAppFeedCursor cursor = new WhatsAppFeedCursor(
+                OffsetDateTime.of(2025, 10, 18, 21, 5, 7, 123_456_789, ZoneOffset.ofHours(-3)), UUID.randomUUID());
+
+        assertThat(WhatsAppFeedCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void decodeShouldKeepWholeSecondsAndUtc() {
+        WhatsAppFeedCursor cursor = new WhatsAppFeedCursor(
+                OffsetDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC), UUID.randomUUID());
+
+        assertThat(WhatsAppFeedCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void encodeShouldBeUrlSafeWithoutPadding() {
+        for (int i = 0; i < 50; i++) {
+            WhatsAppFeedCursor cursor = new WhatsAppFeedCursor(OffsetDateTime.now().minusSeconds(i),
+                    UUID.randomUUID());
+
+            assertThat(cursor.encode()).matches("[A-Za-z0-9_-]+");
+        }
+    }
+
+    @Test
+    void decodeShouldRejectTokensThatAreNotBase64() {
+        assertThatThrownBy(() -> WhatsAppFeedCursor.decode("not a cursor!"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decodeShouldRejectTokensWithoutSeparator() {
+        assertThatThrownBy(() -> WhatsAppFeedCursor.decode(token("2025-10-18T21:05:07Z")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Malformed feed cursor");
+    }
+
+    @Test
+    void decodeShouldRejectBadTimestamp() {
+        assertThatThrownBy(() -> WhatsAppFeedCursor.decode(token("yesterday|" + UUID.randomUUID())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Malformed feed cursor");
+    }
+
+    @Test
+    void decodeShouldRejectBadId() {
+        assertThatThrownBy(() -> WhatsAppFeedCursor.decode(token("2025-10-18T21:05:07Z|42")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,155 @@
+package com.jm.services.whatsapp;
+
+import com.jm.configuration.config.WhatsAppIngestionProperties;
+import com.jm.entity.WhatsAppWebhookEvent;
+import com.jm.enums.WhatsAppWebhookStatus;
+import com.jm.repository.WhatsAppWebhookEventRepository;
+import com.jm.services.WhatsAppNutritionService;
+import com.jm.services.WhatsAppNutritionService.InboundMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WhatsAppIngestionPipelineTest {
+
+    private static final Map<String, Object> PAYLOAD = Map.of("entry", List.of());
+
+    @Mock
+    private WhatsAppWebhookEventRepository webhookEventRepository;
+
+    @Mock
+    private WhatsAppNutritionService whatsAppNutritionService;
+
+    private final WhatsAppIngestionProperties properties = new WhatsAppIngestionProperties();
+    private WhatsAppIngestionPipeline pipeline;
+    private final UUID eventId = UUID.randomUUID();
+    private final InboundMessage text = new InboundMessage(UUID.randomUUID(), "text", "5511999999999", null);
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new WhatsAppIngestionPipeline(webhookEventRepository, whatsAppNutritionService, properties,
+                new SimpleMeterRegistry());
+        when(webhookEventRepository.save(any(WhatsAppWebhookEvent.class))).thenAnswer(invocation -> {
+            WhatsAppWebhookEvent event = invocation.getArgument(0);
+            event.setId(eventId);
+            return event;
+        });
+        when(webhookEventRepository.claim(eq(eventId), anyCollection(), eq(WhatsAppWebhookStatus.PROCESSING), any(),
+                any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void marksWebhookProcessedOnlyAfterTheLastStage() {
+        givenAttempts(1);
+        when(whatsAppNutritionService.registerInboundMessages(PAYLOAD)).thenReturn(List.of(text));
+
+        pipeline.accept(PAYLOAD);
+
+        InOrder order = inOrder(whatsAppNutritionService, webhookEventRepository);
+        order.verify(whatsAppNutritionService, timeout(2000)).processTextMessage(text);
+        order.verify(whatsAppNutritionService, timeout(2000)).completeInboundMessage(text.messageId());
+        order.verify(webhookEventRepository, timeout(2000)).complete(eq(eventId), eq(1),
+                eq(WhatsAppWebhookStatus.PROCESSED), isNull(), any());
+    }
+
+    @Test
+    void failedStageLeavesWebhookRecoverableWithoutNotifyingBeforeTheFinalAttempt() {
+        givenAttempts(1);
+        when(whatsAppNutritionService.registerInboundMessages(PAYLOAD)).thenReturn(List.of(text));
+        doThrow(new IllegalStateException("boom")).when(whatsAppNutritionService).processTextMessage(text);
+
+        pipeline.accept(PAYLOAD);
+
+        verify(webhookEventRepository, timeout(2000)).complete(eq(eventId), eq(1), eq(WhatsAppWebhookStatus.FAILED),
+                any(), isNull());
+        verify(whatsAppNutritionService, never()).completeInboundMessage(text.messageId());
+        verify(whatsAppNutritionService, never()).notifyInboundFailure(any(), any());
+    }
+
+    @Test
+    void retryRedrivesPendingMessagesAndNotifiesOnTheFinalAttempt() {
+        givenAttempts(properties.getMaxAttempts());
+        when(whatsAppNutritionService.registerInboundMessages(PAYLOAD)).thenReturn(List.of());
+        when(whatsAppNutritionService.findPendingInboundMessages(PAYLOAD)).thenReturn(List.of(text));
+        IllegalStateException failure = new IllegalStateException("boom");
+        doThrow(failure).when(whatsAppNutritionService).processTextMessage(text);
+
+        pipeline.accept(PAYLOAD);
+
+        verify(whatsAppNutritionService, timeout(2000)).notifyInboundFailure(text, failure);
+        verify(webhookEventRepository, timeout(2000)).complete(eq(eventId), eq(properties.getMaxAttempts()),
+                eq(WhatsAppWebhookStatus.FAILED), any(), isNull());
+    }
+
+    @Test
+    void takeoverLeavesMessagesStillInFlightToTheEarlierAttempt() throws InterruptedException {
+        givenAttempts(1, 2);
+        when(whatsAppNutritionService.registerInboundMessages(PAYLOAD)).thenReturn(List.of(text), List.of());
+        when(whatsAppNutritionService.findPendingInboundMessages(PAYLOAD)).thenReturn(List.of(text));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            running.countDown();
+            release.await();
+            return null;
+        }).when(whatsAppNutritionService).processTextMessage(text);
+
+        pipeline.accept(PAYLOAD);
+        assertThat(running.await(2, TimeUnit.SECONDS)).isTrue();
+        pipeline.accept(PAYLOAD);
+
+        verify(webhookEventRepository, timeout(2000)).yieldClaim(eventId, 2);
+        verify(webhookEventRepository, never()).complete(eq(eventId), anyInt(), eq(WhatsAppWebhookStatus.PROCESSED),
+                any(), any());
+
+        release.countDown();
+        verify(webhookEventRepository, timeout(2000)).complete(eq(eventId), eq(1),
+                eq(WhatsAppWebhookStatus.PROCESSED), isNull(), any());
+        verify(whatsAppNutritionService, times(1)).processTextMessage(text);
+    }
+
+    private void givenAttempts(int... attempts) {
+        var stub = when(webhookEventRepository.findById(eventId));
+        for (int attempt : attempts) {
+            stub = stub.thenReturn(Optional.of(WhatsAppWebhookEvent.builder()
+                    .id(eventId)
+                    .payload(PAYLOAD)
+                    .status(WhatsAppWebhookStatus.PROCESSING)
+                    .attempts(attempt)
+                    .build()));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.jm.services.whatsapp;
+
+import com.jm.configuration.config.WhatsAppIngestionProperties;
+import com.jm.repository.WhatsAppMessageClaimRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WhatsAppMessageIdempotencyTest {
+
+    @Mock
+    private WhatsAppMessageClaimRepository claimRepository;
+
+    private WhatsAppMessageIdempotency idempotency;
+
+    @BeforeEach
+    void setUp() {
+        idempotency = new WhatsAppMessageIdempotency(claimRepository, new WhatsAppIngestionProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void claimsAFreshBatchWithOneInsertAndNoReadBack() {
+        when(claimRepository.claimAll(anyCollection(), anyString())).thenReturn(3);
+
+        Set<String> claimed = idempotency.claimNew(List.of("a", "b", "a", "c"));
+
+        assertThat(claimed).containsExactly("a", "b", "c");
+        verify(claimRepository, times(1)).claimAll(eq(Set.of("a", "b", "c")), anyString());
+        verify(claimRepository, never()).findClaimedBy(anyCollection(), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readsBackItsOwnRowsWhenSomeIdsWereTaken() {
+        when(claimRepository.claimAll(anyCollection(), anyString())).thenReturn(1);
+        when(claimRepository.findClaimedBy(anyCollection(), anyString())).thenReturn(List.of("b"));
+
+        Set<String> claimed = idempotency.claimNew(List.of("a", "b"));
+
+        assertThat(claimed).containsExactly("b");
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(claimRepository).claimAll(any(Collection.class), token.capture());
+        verify(claimRepository).findClaimedBy(any(Collection.class), eq(token.getValue()));
+    }
+
+    @Test
+    void answersRecentIdsFromMemory() {
+        when(claimRepository.claimAll(anyCollection(), anyString())).thenReturn(1, 1);
+        idempotency.claimNew(List.of("a"));
+
+        Set<String> claimed = idempotency.claimNew(List.of("a", "b"));
+
+        assertThat(claimed).containsExactly("b");
+        verify(claimRepository).claimAll(eq(Set.of("b")), anyString());
+    }
+
+    @Test
+    void skipsTheDatabaseWhenEveryIdIsRecent() {
+        when(claimRepository.claimAll(anyCollection(), anyString())).thenReturn(1);
+        idempotency.claimNew(List.of("a"));
+
+        assertThat(idempotency.claimNew(List.of("a"))).isEmpty();
+        verify(claimRepository, times(1)).claimAll(anyCollection(), anyString());
+        verifyNoMoreInteractions(claimRepository);
+    }
+}